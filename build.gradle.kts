@@ -54,6 +54,15 @@ dependencies {
   implementation("com.azure.spring:spring-cloud-azure-starter")
   implementation("com.azure:azure-storage-file-datalake")
 
+  // Parquet, the Hadoop client is only used for its configuration classes.
+  implementation("org.apache.parquet:parquet-hadoop:1.15.2")
+  implementation("org.apache.hadoop:hadoop-client-api:3.4.1")
+  runtimeOnly("org.apache.hadoop:hadoop-client-runtime:3.4.1")
+
+  implementation("com.github.luben:zstd-jni:1.5.6-9")
+
+  implementation("com.github.ben-manes.caffeine:caffeine")
+
   testImplementation("org.springframework.cloud:spring-cloud-starter")
   testImplementation("org.springframework.cloud:spring-cloud-contract-wiremock")
   testImplementation("org.testcontainers:testcontainers")
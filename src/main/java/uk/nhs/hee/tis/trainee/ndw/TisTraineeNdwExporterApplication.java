@@ -24,6 +24,8 @@ package uk.nhs.hee.tis.trainee.ndw;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.nhs.hee.tis.trainee.ndw.config.ReplayProperties;
 
 /**
  * TIS Trainee NDW Exporter
@@ -35,7 +37,13 @@ import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 public class TisTraineeNdwExporterApplication {
 
   public static void main(String[] args) {
-    SpringApplication.run(TisTraineeNdwExporterApplication.class, args);
+    ConfigurableApplicationContext context
+        = SpringApplication.run(TisTraineeNdwExporterApplication.class, args);
+
+    // A replay has completed once the application has started, so there is nothing left to do.
+    if (context.getBean(ReplayProperties.class).enabled()) {
+      System.exit(SpringApplication.exit(context));
+    }
   }
 
 }
@@ -21,19 +21,27 @@
 
 package uk.nhs.hee.tis.trainee.ndw.config;
 
+import java.time.Clock;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * General application configuration beans which do not warrant their own configuration class.
  */
 @Configuration
+@EnableScheduling
 public class ApplicationConfiguration {
 
   @Bean
   RestTemplate restTemplate(RestTemplateBuilder builder) {
     return builder.build();
   }
+
+  @Bean
+  Clock clock() {
+    return Clock.systemUTC();
+  }
 }
@@ -19,14 +19,24 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+
 package uk.nhs.hee.tis.trainee.ndw.config;
 
 import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.storage.file.datalake.DataLakeFileSystemAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClientBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.ConnectionProvider;
+import uk.nhs.hee.tis.trainee.ndw.service.DataLakeHttpMetricsPolicy;
+import uk.nhs.hee.tis.trainee.ndw.service.DataLakeRateLimiter;
 
 /**
  * Configuration for connecting to an Azure data lake.
@@ -34,17 +44,115 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class AzureDataLakeConfiguration {
 
+  private static final String CONNECTION_POOL_NAME = "ndw-datalake";
+
+  /**
+   * Build the connection pool shared by the data lake clients, with pool metrics enabled.
+   *
+   * @param properties The HTTP transport properties.
+   * @return The connection provider.
+   */
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider dataLakeConnectionProvider(HttpTransportProperties properties) {
+    return ConnectionProvider.builder(CONNECTION_POOL_NAME)
+        .maxConnections(properties.maxConnections())
+        .pendingAcquireMaxCount(properties.pendingAcquireMaxCount())
+        .pendingAcquireTimeout(properties.acquireTimeout())
+        .maxIdleTime(properties.maxIdleTime())
+        .maxLifeTime(properties.maxLifeTime())
+        .metrics(true)
+        .build();
+  }
+
+  /**
+   * Build the I/O threads shared by the data lake clients.
+   *
+   * @param properties The HTTP transport properties.
+   * @return The event loop group.
+   */
+  @Bean(destroyMethod = "shutdownGracefully")
+  public EventLoopGroup dataLakeEventLoopGroup(HttpTransportProperties properties) {
+    return new NioEventLoopGroup(properties.ioThreads(),
+        new DefaultThreadFactory(CONNECTION_POOL_NAME, true));
+  }
+
+  /**
+   * Build the HTTP transport shared by the data lake clients.
+   *
+   * @param connectionProvider The connection pool to use.
+   * @param eventLoopGroup     The I/O threads to use.
+   * @param properties         The HTTP transport properties.
+   * @return The HTTP client.
+   */
+  @Bean
+  public HttpClient dataLakeHttpClient(ConnectionProvider connectionProvider,
+      EventLoopGroup eventLoopGroup, HttpTransportProperties properties) {
+    return new NettyAsyncHttpClientBuilder()
+        .connectionProvider(connectionProvider)
+        .eventLoopGroup(eventLoopGroup)
+        .connectTimeout(properties.connectTimeout())
+        .responseTimeout(properties.responseTimeout())
+        .readTimeout(properties.readTimeout())
+        .writeTimeout(properties.writeTimeout())
+        .build();
+  }
+
   /**
    * Build a client for Azure data lake.
    *
+   * @param httpClient    The shared HTTP transport.
+   * @param rateLimiter   The rate limiter to apply to requests, if enabled.
+   * @param metricsPolicy The policy to record request latency with.
    * @return The data lake client.
    */
   @Bean
   public DataLakeFileSystemClient dataLakeFileSystemClient(TokenCredential credential,
-      @Value("${application.ndw.endpoint}") String endpoint) {
-    return new DataLakeFileSystemClientBuilder()
+      @Value("${application.ndw.endpoint}") String endpoint, HttpClient httpClient,
+      DataLakeRateLimiter rateLimiter, DataLakeHttpMetricsPolicy metricsPolicy) {
+    return createBuilder(credential, endpoint, httpClient, rateLimiter, metricsPolicy)
+        .buildClient();
+  }
+
+  /**
+   * Build a non-blocking client for Azure data lake.
+   *
+   * @param httpClient    The shared HTTP transport.
+   * @param rateLimiter   The rate limiter to apply to requests, if enabled.
+   * @param metricsPolicy The policy to record request latency with.
+   * @return The asynchronous data lake client.
+   */
+  @Bean
+  public DataLakeFileSystemAsyncClient dataLakeFileSystemAsyncClient(TokenCredential credential,
+      @Value("${application.ndw.endpoint}") String endpoint, HttpClient httpClient,
+      DataLakeRateLimiter rateLimiter, DataLakeHttpMetricsPolicy metricsPolicy) {
+    return createBuilder(credential, endpoint, httpClient, rateLimiter, metricsPolicy)
+        .buildAsyncClient();
+  }
+
+  /**
+   * Create a data lake client builder, the transport and rate limiter are shared by all built
+   * clients.
+   *
+   * @param credential    The credential to authenticate with.
+   * @param endpoint      The data lake endpoint.
+   * @param httpClient    The shared HTTP transport.
+   * @param rateLimiter   The rate limiter to apply to requests, if enabled.
+   * @param metricsPolicy The policy to record request latency with.
+   * @return The client builder.
+   */
+  private DataLakeFileSystemClientBuilder createBuilder(TokenCredential credential,
+      String endpoint, HttpClient httpClient, DataLakeRateLimiter rateLimiter,
+      DataLakeHttpMetricsPolicy metricsPolicy) {
+    DataLakeFileSystemClientBuilder builder = new DataLakeFileSystemClientBuilder()
         .credential(credential)
         .endpoint(endpoint)
-        .buildClient();
+        .httpClient(httpClient);
+
+    if (rateLimiter.isEnabled()) {
+      builder.addPolicy(rateLimiter);
+    }
+
+    // Added after the rate limiter, so that the time waiting for a permit is not included.
+    return builder.addPolicy(metricsPolicy);
   }
 }
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import io.awspring.cloud.sqs.listener.BackPressureHandler;
+import io.awspring.cloud.sqs.listener.BatchAwareBackPressureHandler;
+import java.time.Duration;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportBudget;
+
+/**
+ * A back-pressure handler which stops a listener container from polling while the export budget
+ * is exhausted, wrapping the container's own handler which limits its concurrent messages.
+ *
+ * <p>The handler is called by the container's poller, so waiting for budget pauses polling rather
+ * than holding messages which have already been received.
+ */
+class BudgetBackPressureHandler implements BatchAwareBackPressureHandler {
+
+  private final BatchAwareBackPressureHandler delegate;
+
+  private final ExportBudget budget;
+
+  /**
+   * Wrap a container's back-pressure handler.
+   *
+   * @param delegate The container's own back-pressure handler.
+   * @param budget   The export budget to wait for before polling.
+   */
+  BudgetBackPressureHandler(BackPressureHandler delegate, ExportBudget budget) {
+    this.delegate = (BatchAwareBackPressureHandler) delegate;
+    this.budget = budget;
+  }
+
+  @Override
+  public int requestBatch() throws InterruptedException {
+    return budget.awaitBudget() ? delegate.requestBatch() : 0;
+  }
+
+  @Override
+  public int request(int amount) throws InterruptedException {
+    return budget.awaitBudget() ? delegate.request(amount) : 0;
+  }
+
+  @Override
+  public void releaseBatch() {
+    delegate.releaseBatch();
+  }
+
+  @Override
+  public void release(int amount) {
+    delegate.release(amount);
+  }
+
+  @Override
+  public int getBatchSize() {
+    return delegate.getBatchSize();
+  }
+
+  @Override
+  public boolean drain(Duration timeout) {
+    return delegate.drain(timeout);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Properties controlling the compaction of closed day partitions.
+ *
+ * @param enabled        Whether scheduled compaction is enabled.
+ * @param cron           The (UTC) schedule to run compaction on.
+ * @param partitions     The partitioned subdirectories to compact.
+ * @param outputRoot     The subdirectory, under the data lake root, to write compacted files to.
+ * @param daysBack       How many closed days to check for uncompacted partitions.
+ * @param targetFileSize The approximate uncompressed size of each compacted file.
+ * @param compression    The compression to apply to compacted files.
+ * @param parallelism    The number of partitions and files to process concurrently.
+ * @param maxMemory      The approximate size of source files each partition's compaction holds in
+ *                       memory at once, larger partitions are spilled to local disk by record ID.
+ */
+@ConfigurationProperties("application.ndw.compaction")
+public record CompactionProperties(
+    boolean enabled,
+    String cron,
+    List<String> partitions,
+    String outputRoot,
+    int daysBack,
+    DataSize targetFileSize,
+    Compression compression,
+    int parallelism,
+    DataSize maxMemory) {
+
+  /**
+   * The compression which can be applied to compacted files.
+   */
+  public enum Compression {
+    NONE,
+    GZIP
+  }
+}
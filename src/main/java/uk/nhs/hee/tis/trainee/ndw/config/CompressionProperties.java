@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Properties controlling the compression of individually uploaded JSON files, per event type.
+ *
+ * @param actions       The compression to apply to action events.
+ * @param notifications The compression to apply to notification events.
+ * @param forms         The compression to apply to form content.
+ */
+@ConfigurationProperties("application.ndw.compression")
+public record CompressionProperties(Settings actions, Settings notifications, Settings forms) {
+
+  /**
+   * Initialise the compression properties, disabling compression for any missing event type.
+   *
+   * @param actions       The compression to apply to action events.
+   * @param notifications The compression to apply to notification events.
+   * @param forms         The compression to apply to form content.
+   */
+  public CompressionProperties {
+    actions = actions == null ? Settings.NONE : actions;
+    notifications = notifications == null ? Settings.NONE : notifications;
+    forms = forms == null ? Settings.NONE : forms;
+  }
+
+  /**
+   * The compression settings for a single event type.
+   *
+   * @param codec     The codec to compress with, defaults to {@link Codec#NONE}.
+   * @param threshold The minimum uncompressed size to compress, smaller payloads are uploaded as
+   *                  is, defaults to 1KB.
+   */
+  public record Settings(Codec codec, DataSize threshold) {
+
+    public static final Settings NONE = new Settings(Codec.NONE, null);
+
+    /**
+     * Initialise the compression settings, applying defaults for any missing values.
+     *
+     * @param codec     The codec to compress with.
+     * @param threshold The minimum uncompressed size to compress.
+     */
+    public Settings {
+      codec = codec == null ? Codec.NONE : codec;
+      threshold = threshold == null ? DataSize.ofKilobytes(1) : threshold;
+    }
+  }
+
+  /**
+   * The available compression codecs, with the file extension and HTTP content encoding used for
+   * compressed files.
+   */
+  public enum Codec {
+    NONE(null, null),
+    GZIP(".gz", "gzip"),
+    ZSTD(".zst", "zstd");
+
+    private final String extension;
+
+    private final String contentEncoding;
+
+    Codec(String extension, String contentEncoding) {
+      this.extension = extension;
+      this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Get the extension to append to compressed filenames.
+     *
+     * @return The file extension, including the leading dot.
+     */
+    public String getExtension() {
+      return extension;
+    }
+
+    /**
+     * Get the HTTP content encoding of compressed files.
+     *
+     * @return The content encoding.
+     */
+    public String getContentEncoding() {
+      return contentEncoding;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Properties controlling the batching of events in to NDJSON files.
+ *
+ * @param enabled       Whether events should be batched, rather than written to a file per event.
+ * @param maxRecords    The maximum number of records to buffer for a partition before flushing.
+ * @param maxBatchSize  The maximum size of buffered records for a partition before flushing.
+ * @param maxAge        The maximum time a record may be buffered before flushing.
+ * @param checkInterval How often to check for batches which have exceeded the maximum age.
+ * @param maxFileSize   The size at which a partition's file is rolled over to a new file.
+ * @param maxFileAge    The age at which a partition's file is rolled over to a new file, idle
+ *                      partitions are kept appending to their file until then.
+ */
+@ConfigurationProperties("application.ndw.batch")
+public record DataLakeBatchProperties(
+    boolean enabled,
+    int maxRecords,
+    DataSize maxBatchSize,
+    Duration maxAge,
+    Duration checkInterval,
+    DataSize maxFileSize,
+    Duration maxFileAge) {
+
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling how files are written to the data lake.
+ *
+ * @param mode         The write mode to use, defaults to {@link WriteMode#STANDARD}.
+ * @param precondition The precondition to apply when writing in {@link WriteMode#MINIMAL} mode,
+ *                     defaults to {@link WritePrecondition#NONE}.
+ * @param async        Whether to write files using the non-blocking client, with the export
+ *                     completing when the upload does.
+ */
+@ConfigurationProperties("application.ndw.write")
+public record DataLakeWriteProperties(WriteMode mode, WritePrecondition precondition,
+                                      boolean async) {
+
+  /**
+   * Initialise the write properties, applying defaults for any missing values.
+   *
+   * @param mode         The write mode to use.
+   * @param precondition The precondition to apply when writing.
+   * @param async        Whether to write files using the non-blocking client.
+   */
+  public DataLakeWriteProperties {
+    mode = mode == null ? WriteMode.STANDARD : mode;
+    precondition = precondition == null ? WritePrecondition.NONE : precondition;
+  }
+
+  /**
+   * The available modes for writing files.
+   */
+  public enum WriteMode {
+
+    /**
+     * Create every partition directory and the file explicitly, then upload the content with
+     * overwrite, this is four lake requests per file plus any directory creation.
+     */
+    STANDARD,
+
+    /**
+     * Rely on file creation to create any missing parent directories, then append and flush the
+     * content in a single request, this is two lake requests per file.
+     */
+    MINIMAL
+  }
+
+  /**
+   * The preconditions which can be applied to file creation.
+   */
+  public enum WritePrecondition {
+
+    /**
+     * Unconditionally create or overwrite the file.
+     */
+    NONE,
+
+    /**
+     * Only create the file if it does not already exist (If-None-Match: *), an existing non-empty
+     * file is treated as already exported.
+     *
+     * <p>An existing file is never overwritten, so a later version of a record written to the same
+     * filename, e.g. a notification status change, is dropped. Only use this precondition when
+     * every exported filename identifies an immutable record.
+     */
+    IF_NONE_MATCH
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the skipping of re-exports with unchanged content.
+ *
+ * @param enabled          Whether unchanged re-exports should be skipped.
+ * @param maximumSize      The maximum number of content hashes to keep, defaults to 100,000.
+ * @param expireAfterWrite How long a content hash is kept after the content is exported, hashes
+ *                         are kept until evicted by size if not set.
+ */
+@ConfigurationProperties("application.ndw.dedup")
+public record DeduplicationProperties(
+    boolean enabled,
+    long maximumSize,
+    Duration expireAfterWrite) {
+
+  /**
+   * Initialise the deduplication properties, applying defaults for any missing values.
+   *
+   * @param enabled          Whether unchanged re-exports should be skipped.
+   * @param maximumSize      The maximum number of content hashes to keep.
+   * @param expireAfterWrite How long a content hash is kept after the content is exported.
+   */
+  public DeduplicationProperties {
+    maximumSize = maximumSize <= 0 ? 100_000 : maximumSize;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the file format each event type is exported in.
+ *
+ * @param actions       The format to export action events in, defaults to
+ *                      {@link ExportFormat#JSON}.
+ * @param notifications The format to export notification events in, defaults to
+ *                      {@link ExportFormat#JSON}.
+ * @param forms         The format to export Form R and LTFT content in, defaults to
+ *                      {@link ExportFormat#JSON}.
+ */
+@ConfigurationProperties("application.ndw.format")
+public record ExportFormatProperties(ExportFormat actions, ExportFormat notifications,
+                                     ExportFormat forms) {
+
+  /**
+   * Initialise the format properties, applying defaults for any missing values.
+   *
+   * @param actions       The format to export action events in.
+   * @param notifications The format to export notification events in.
+   * @param forms         The format to export form content in.
+   */
+  public ExportFormatProperties {
+    actions = actions == null ? ExportFormat.JSON : actions;
+    notifications = notifications == null ? ExportFormat.JSON : notifications;
+    forms = forms == null ? ExportFormat.JSON : forms;
+  }
+
+  /**
+   * The available export formats.
+   */
+  public enum ExportFormat {
+
+    /**
+     * A JSON document per event, or NDJSON when batching is enabled.
+     */
+    JSON,
+
+    /**
+     * A Parquet file per event, or per batch when batching is enabled, with a schema derived from
+     * the event record or, for forms, inferred from the observed fields.
+     */
+    PARQUET
+  }
+}
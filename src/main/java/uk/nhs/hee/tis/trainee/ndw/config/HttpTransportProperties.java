@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the HTTP transport shared by the data lake clients.
+ *
+ * @param maxConnections         The maximum number of pooled connections, which should be sized
+ *                               to the number of concurrent exports.
+ * @param pendingAcquireMaxCount The maximum number of requests which may queue for a connection.
+ * @param acquireTimeout         The longest a request may wait to acquire a connection.
+ * @param maxIdleTime            How long a connection may be idle before it is closed.
+ * @param maxLifeTime            How long a connection may be kept alive before it is closed.
+ * @param connectTimeout         The timeout for establishing a connection.
+ * @param responseTimeout        The timeout for receiving the response once a request is sent.
+ * @param readTimeout            The timeout between reads of the response body.
+ * @param writeTimeout           The timeout between writes of the request body.
+ * @param ioThreads              The number of I/O threads, zero to use the Netty default.
+ */
+@ConfigurationProperties("application.ndw.http")
+public record HttpTransportProperties(
+    int maxConnections,
+    int pendingAcquireMaxCount,
+    Duration acquireTimeout,
+    Duration maxIdleTime,
+    Duration maxLifeTime,
+    Duration connectTimeout,
+    Duration responseTimeout,
+    Duration readTimeout,
+    Duration writeTimeout,
+    int ioThreads) {
+
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling how exported files are partitioned.
+ *
+ * @param time        The time to partition by, defaults to {@link PartitionTime#PROCESSING}.
+ * @param granularity The granularity of the partitions, defaults to {@link Granularity#DAY}.
+ */
+@ConfigurationProperties("application.ndw.partition")
+public record PartitionProperties(PartitionTime time, Granularity granularity) {
+
+  /**
+   * Initialise the partition properties, applying defaults for any missing values.
+   *
+   * @param time        The time to partition by.
+   * @param granularity The granularity of the partitions.
+   */
+  public PartitionProperties {
+    time = time == null ? PartitionTime.PROCESSING : time;
+    granularity = granularity == null ? Granularity.DAY : granularity;
+  }
+
+  /**
+   * The times which files can be partitioned by.
+   */
+  public enum PartitionTime {
+
+    /**
+     * Partition by the time the event is exported.
+     */
+    PROCESSING,
+
+    /**
+     * Partition by the timestamp of the event, falling back to the time the event is exported when
+     * the event has no timestamp.
+     */
+    EVENT
+  }
+
+  /**
+   * The available partition granularities.
+   */
+  public enum Granularity {
+
+    /**
+     * Year, month and day partitions.
+     */
+    DAY,
+
+    /**
+     * Year, month, day and hour partitions.
+     */
+    HOUR
+  }
+}
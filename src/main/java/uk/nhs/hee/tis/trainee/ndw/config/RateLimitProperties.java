@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the adaptive (AIMD) rate limiting of data lake requests.
+ *
+ * @param enabled          Whether data lake requests should be rate limited.
+ * @param initialRate      The initial permitted requests per second.
+ * @param minRate          The lowest the permitted rate can be decreased to.
+ * @param maxRate          The highest the permitted rate can be increased to.
+ * @param increase         The requests per second added to the rate for each second of successful
+ *                         requests.
+ * @param decreaseFactor   The factor the rate is multiplied by when a request is throttled.
+ * @param decreaseCooldown The minimum time between decreases, so that a burst of throttled
+ *                         responses to requests already in flight only decreases the rate once.
+ * @param maxWait          The longest a request may wait for a permit, before being rejected.
+ */
+@ConfigurationProperties("application.ndw.rate-limit")
+public record RateLimitProperties(
+    boolean enabled,
+    double initialRate,
+    double minRate,
+    double maxRate,
+    double increase,
+    double decreaseFactor,
+    Duration decreaseCooldown,
+    Duration maxWait) {
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the replay of historic events from NDJSON files, for backfilling the
+ * data lake without sending every event back through SQS.
+ *
+ * @param enabled             Whether the input should be replayed on startup.
+ * @param type                The type of event contained in the input.
+ * @param formType            The form type to replay FormR events as, such as formr-a or
+ *                            formr-b, this is required when the type is {@link ReplayType#FORMR}.
+ * @param input               An NDJSON file, or a directory of .ndjson and .ndjson.gz files, to
+ *                            replay.
+ * @param workers             The number of worker threads processing events, defaults to 8.
+ * @param maxInFlight         The maximum number of events being exported at once, defaults to
+ *                            500.
+ * @param checkpointDirectory The directory to store each input file's progress and failed events
+ *                            in, defaults to a directory alongside the input.
+ * @param progressInterval    How often progress is checkpointed and reported, defaults to 10
+ *                            seconds.
+ */
+@ConfigurationProperties("application.ndw.replay")
+public record ReplayProperties(
+    boolean enabled,
+    ReplayType type,
+    String formType,
+    Path input,
+    Integer workers,
+    Integer maxInFlight,
+    Path checkpointDirectory,
+    Duration progressInterval) {
+
+  /**
+   * Initialise the replay properties, applying defaults for any missing values.
+   *
+   * @param enabled             Whether the input should be replayed on startup.
+   * @param type                The type of event contained in the input.
+   * @param formType            The form type to replay FormR events as.
+   * @param input               An NDJSON file, or a directory of NDJSON files, to replay.
+   * @param workers             The number of worker threads processing events.
+   * @param maxInFlight         The maximum number of events being exported at once.
+   * @param checkpointDirectory The directory to store progress and failed events in.
+   * @param progressInterval    How often progress is checkpointed and reported.
+   */
+  public ReplayProperties {
+    workers = workers == null ? 8 : workers;
+    maxInFlight = maxInFlight == null ? 500 : maxInFlight;
+    progressInterval = progressInterval == null ? Duration.ofSeconds(10) : progressInterval;
+
+    if (checkpointDirectory == null && input != null) {
+      Path parent = input.toAbsolutePath().getParent();
+      checkpointDirectory = parent == null ? Path.of("replay-checkpoints")
+          : parent.resolve("replay-checkpoints");
+    }
+  }
+
+  /**
+   * The types of event which can be replayed.
+   */
+  public enum ReplayType {
+
+    /**
+     * Action events, as received on the action queue.
+     */
+    ACTION,
+
+    /**
+     * Notification events, as received on the notification queue.
+     */
+    NOTIFICATION,
+
+    /**
+     * LTFT form events, as received on the LTFT form queue.
+     */
+    LTFT,
+
+    /**
+     * FormR form events, as received on the FormR form queue.
+     */
+    FORMR
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling how export capacity is shared between the SQS queues.
+ *
+ * @param enabled      Whether exports from the queues should be scheduled by share.
+ * @param capacity     The maximum number of messages being exported at once across all queues.
+ * @param maxWait      The longest a message may wait for a share of the capacity, before it is
+ *                     rejected and left on the queue.
+ * @param action       The share of the capacity for the action queue.
+ * @param notification The share of the capacity for the notification queue.
+ * @param ltft         The share of the capacity for the LTFT form queue.
+ * @param formr        The share of the capacity for the FormR form queue.
+ */
+@ConfigurationProperties("application.ndw.scheduling")
+public record SchedulingProperties(
+    boolean enabled,
+    int capacity,
+    Duration maxWait,
+    Share action,
+    Share notification,
+    Share ltft,
+    Share formr) {
+
+  /**
+   * Initialise the scheduling properties, applying the default share for any missing queue.
+   *
+   * @param enabled      Whether exports from the queues should be scheduled by share.
+   * @param capacity     The maximum number of messages being exported at once.
+   * @param maxWait      The longest a message may wait for a share of the capacity.
+   * @param action       The share of the capacity for the action queue.
+   * @param notification The share of the capacity for the notification queue.
+   * @param ltft         The share of the capacity for the LTFT form queue.
+   * @param formr        The share of the capacity for the FormR form queue.
+   */
+  public SchedulingProperties {
+    action = action == null ? Share.DEFAULT : action;
+    notification = notification == null ? Share.DEFAULT : notification;
+    ltft = ltft == null ? Share.DEFAULT : ltft;
+    formr = formr == null ? Share.DEFAULT : formr;
+  }
+
+  /**
+   * The share of the export capacity for a single queue.
+   *
+   * @param weight   The relative share of the capacity given to the queue while other queues are
+   *                 also waiting, defaults to 1.
+   * @param minShare The number of concurrent exports the queue is guaranteed before weights are
+   *                 considered, defaults to 0.
+   */
+  public record Share(Integer weight, Integer minShare) {
+
+    public static final Share DEFAULT = new Share(null, null);
+
+    /**
+     * Initialise the share, applying defaults for any missing values.
+     *
+     * @param weight   The relative share of the capacity given to the queue.
+     * @param minShare The number of concurrent exports the queue is guaranteed.
+     */
+    public Share {
+      weight = weight == null ? 1 : weight;
+      minShare = minShare == null ? 0 : minShare;
+    }
+  }
+}
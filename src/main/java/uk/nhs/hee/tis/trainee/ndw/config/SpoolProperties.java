@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Properties controlling the local write-ahead spool of data lake writes.
+ *
+ * @param enabled          Whether writes should be spooled to local disk and drained to the data
+ *                         lake in the background, rather than written directly.
+ * @param directory        The directory to store the spool's segment files in.
+ * @param segmentSize      The size of each memory-mapped segment file.
+ * @param maxSize          The maximum total size of the segment files, writes are rejected once
+ *                         the spool is full.
+ * @param drainConcurrency The maximum number of spooled writes to upload concurrently.
+ * @param drainInterval    How long to wait between draining the spool.
+ */
+@ConfigurationProperties("application.ndw.spool")
+public record SpoolProperties(
+    boolean enabled,
+    Path directory,
+    DataSize segmentSize,
+    DataSize maxSize,
+    int drainConcurrency,
+    Duration drainInterval) {
+
+}
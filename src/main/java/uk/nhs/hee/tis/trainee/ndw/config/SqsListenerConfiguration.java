@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.BackPressureHandler;
+import io.awspring.cloud.sqs.listener.SqsContainerOptions;
+import io.awspring.cloud.sqs.listener.StandardSqsComponentFactory;
+import io.awspring.cloud.sqs.listener.source.MessageSource;
+import io.awspring.cloud.sqs.listener.source.SqsMessageSource;
+import io.awspring.cloud.sqs.support.converter.SqsMessagingMessageConverter;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import uk.nhs.hee.tis.trainee.ndw.config.SqsListenerProperties.BackOff;
+import uk.nhs.hee.tis.trainee.ndw.config.SqsListenerProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportBudget;
+
+/**
+ * Configuration for the SQS listener containers, each queue has its own container factory so that
+ * the concurrency and polling of busy and quiet queues can be tuned independently.
+ */
+@Slf4j
+@Configuration
+public class SqsListenerConfiguration {
+
+  public static final String ACTION_CONTAINER_FACTORY = "actionContainerFactory";
+
+  public static final String NOTIFICATION_CONTAINER_FACTORY = "notificationContainerFactory";
+
+  public static final String LTFT_CONTAINER_FACTORY = "ltftContainerFactory";
+
+  public static final String FORMR_CONTAINER_FACTORY = "formrContainerFactory";
+
+  private final SqsAsyncClient sqsAsyncClient;
+
+  private final ObjectMapper mapper;
+
+  private final ShutdownProperties shutdownProperties;
+
+  private final ExportBudget budget;
+
+  private final ReplayProperties replayProperties;
+
+  SqsListenerConfiguration(SqsAsyncClient sqsAsyncClient, ObjectMapper mapper,
+      ShutdownProperties shutdownProperties, ExportBudget budget,
+      ReplayProperties replayProperties) {
+    this.sqsAsyncClient = sqsAsyncClient;
+    this.mapper = mapper;
+    this.shutdownProperties = shutdownProperties;
+    this.budget = budget;
+    this.replayProperties = replayProperties;
+  }
+
+  @Bean(ACTION_CONTAINER_FACTORY)
+  SqsMessageListenerContainerFactory<Object> actionContainerFactory(
+      SqsListenerProperties properties) {
+    return createContainerFactory("action", properties.action());
+  }
+
+  @Bean(NOTIFICATION_CONTAINER_FACTORY)
+  SqsMessageListenerContainerFactory<Object> notificationContainerFactory(
+      SqsListenerProperties properties) {
+    return createContainerFactory("notification", properties.notification());
+  }
+
+  @Bean(LTFT_CONTAINER_FACTORY)
+  SqsMessageListenerContainerFactory<Object> ltftContainerFactory(
+      SqsListenerProperties properties) {
+    return createContainerFactory("ltft", properties.ltft());
+  }
+
+  @Bean(FORMR_CONTAINER_FACTORY)
+  SqsMessageListenerContainerFactory<Object> formrContainerFactory(
+      SqsListenerProperties properties) {
+    return createContainerFactory("formr", properties.formr());
+  }
+
+  /**
+   * Report the effective listener settings of each queue through the actuator info endpoint.
+   *
+   * @param properties The SQS listener properties.
+   * @return The info contributor.
+   */
+  @Bean
+  InfoContributor sqsListenerInfoContributor(SqsListenerProperties properties) {
+    return builder -> builder.withDetail("sqsListeners", properties);
+  }
+
+  /**
+   * Create a listener container factory with the given settings, converting payloads with the
+   * application's object mapper. Stopping a container waits up to the shutdown timeout for its
+   * in-flight messages to be exported and acknowledged. When the export budget is enabled the
+   * container's poller waits for budget before each poll. Containers are not started while
+   * replaying, so queued messages are left for the next instance.
+   *
+   * @param queue    The name of the queue, for reporting the effective settings.
+   * @param settings The listener settings for the queue.
+   * @return The container factory.
+   */
+  private SqsMessageListenerContainerFactory<Object> createContainerFactory(String queue,
+      Settings settings) {
+    log.info("Configuring SQS listener for {} queue with settings {}.", queue, settings);
+
+    SqsMessagingMessageConverter converter = new SqsMessagingMessageConverter();
+    converter.setObjectMapper(mapper);
+
+    SqsMessageListenerContainerFactory.Builder<Object> builder
+        = SqsMessageListenerContainerFactory.<Object>builder()
+        .sqsAsyncClient(sqsAsyncClient)
+        .configure(options -> options
+            .maxConcurrentMessages(settings.maxConcurrentMessages())
+            .maxMessagesPerPoll(settings.maxMessagesPerPoll())
+            .pollTimeout(settings.pollTimeout())
+            .pollBackOffPolicy(createBackOffPolicy(settings.backOff()))
+            .messageConverter(converter)
+            .listenerShutdownTimeout(shutdownProperties.timeout())
+            .acknowledgementShutdownTimeout(shutdownProperties.timeout())
+            .autoStartup(!replayProperties.enabled()));
+
+    if (budget.isEnabled()) {
+      builder.containerComponentFactories(List.of(new BudgetComponentFactory(budget)));
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Create the back-off policy to apply between failed polls.
+   *
+   * @param backOff The back-off settings.
+   * @return The back-off policy.
+   */
+  private static ExponentialBackOffPolicy createBackOffPolicy(BackOff backOff) {
+    ExponentialBackOffPolicy policy = new ExponentialBackOffPolicy();
+    policy.setInitialInterval(backOff.initialInterval().toMillis());
+    policy.setMultiplier(backOff.multiplier());
+    policy.setMaxInterval(backOff.maxInterval().toMillis());
+    return policy;
+  }
+
+  /**
+   * A component factory for standard queues whose message sources wait for export budget before
+   * polling, by wrapping the back-pressure handler the container gives them.
+   */
+  private static class BudgetComponentFactory extends StandardSqsComponentFactory<Object> {
+
+    private final ExportBudget budget;
+
+    BudgetComponentFactory(ExportBudget budget) {
+      this.budget = budget;
+    }
+
+    @Override
+    public MessageSource<Object> createMessageSource(SqsContainerOptions options) {
+      return new SqsMessageSource<>() {
+        @Override
+        public void setBackPressureHandler(BackPressureHandler backPressureHandler) {
+          super.setBackPressureHandler(
+              new BudgetBackPressureHandler(backPressureHandler, budget));
+        }
+      };
+    }
+  }
+}
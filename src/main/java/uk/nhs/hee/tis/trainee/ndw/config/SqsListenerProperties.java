@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the SQS listener container of each queue.
+ *
+ * @param action       The listener settings for the action queue.
+ * @param notification The listener settings for the notification queue.
+ * @param ltft         The listener settings for the LTFT form queue.
+ * @param formr        The listener settings for the FormR form queue.
+ */
+@ConfigurationProperties("application.aws.sqs.listener")
+public record SqsListenerProperties(Settings action, Settings notification, Settings ltft,
+                                    Settings formr) {
+
+  /**
+   * Initialise the listener properties, applying the default settings for any missing queue.
+   *
+   * @param action       The listener settings for the action queue.
+   * @param notification The listener settings for the notification queue.
+   * @param ltft         The listener settings for the LTFT form queue.
+   * @param formr        The listener settings for the FormR form queue.
+   */
+  public SqsListenerProperties {
+    action = action == null ? Settings.DEFAULT : action;
+    notification = notification == null ? Settings.DEFAULT : notification;
+    ltft = ltft == null ? Settings.DEFAULT : ltft;
+    formr = formr == null ? Settings.DEFAULT : formr;
+  }
+
+  /**
+   * The listener settings for a single queue.
+   *
+   * @param maxConcurrentMessages The maximum number of messages in flight, defaults to 10.
+   * @param maxMessagesPerPoll    The maximum number of messages received per poll, up to 10 and
+   *                              no more than the maximum concurrent messages, defaults to 10.
+   * @param pollTimeout           How long a poll waits for messages to arrive, up to 20 seconds,
+   *                              defaults to 10 seconds.
+   * @param backOff               The back-off between polls after a poll fails.
+   */
+  public record Settings(Integer maxConcurrentMessages, Integer maxMessagesPerPoll,
+                         Duration pollTimeout, BackOff backOff) {
+
+    public static final Settings DEFAULT = new Settings(null, null, null, null);
+
+    /**
+     * Initialise the listener settings, applying defaults for any missing values.
+     *
+     * @param maxConcurrentMessages The maximum number of messages in flight.
+     * @param maxMessagesPerPoll    The maximum number of messages received per poll.
+     * @param pollTimeout           How long a poll waits for messages to arrive.
+     * @param backOff               The back-off between polls after a poll fails.
+     */
+    public Settings {
+      maxConcurrentMessages = maxConcurrentMessages == null ? 10 : maxConcurrentMessages;
+      maxMessagesPerPoll = maxMessagesPerPoll == null ? 10 : maxMessagesPerPoll;
+      pollTimeout = pollTimeout == null ? Duration.ofSeconds(10) : pollTimeout;
+      backOff = backOff == null ? BackOff.DEFAULT : backOff;
+    }
+  }
+
+  /**
+   * The exponential back-off between polls after a poll fails.
+   *
+   * @param initialInterval The delay after the first failure, defaults to 1 second.
+   * @param multiplier      The factor to increase the delay by for each consecutive failure,
+   *                        defaults to 2.
+   * @param maxInterval     The maximum delay, defaults to 10 seconds.
+   */
+  public record BackOff(Duration initialInterval, Double multiplier, Duration maxInterval) {
+
+    public static final BackOff DEFAULT = new BackOff(null, null, null);
+
+    /**
+     * Initialise the back-off, applying defaults for any missing values.
+     *
+     * @param initialInterval The delay after the first failure.
+     * @param multiplier      The factor to increase the delay by for each consecutive failure.
+     * @param maxInterval     The maximum delay.
+     */
+    public BackOff {
+      initialInterval = initialInterval == null ? Duration.ofSeconds(1) : initialInterval;
+      multiplier = multiplier == null ? 2.0 : multiplier;
+      maxInterval = maxInterval == null ? Duration.ofSeconds(10) : maxInterval;
+    }
+  }
+}
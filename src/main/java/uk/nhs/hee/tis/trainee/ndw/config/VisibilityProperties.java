@@ -0,0 +1,48 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties controlling the extension of the visibility timeout of long-running messages.
+ *
+ * @param enabled           Whether to extend the visibility of long-running messages.
+ * @param threshold         How long a message may be in flight before its visibility is extended,
+ *                          and then how often it is extended again. Should be comfortably less
+ *                          than the queue's visibility timeout.
+ * @param extension         The visibility timeout to set on each extension, measured from the
+ *                          time of the extension. Must be greater than the threshold.
+ * @param maxInFlight       The longest a message's visibility is extended for, after which the
+ *                          message is allowed to become visible again.
+ * @param heartbeatInterval How often in-flight messages are checked.
+ */
+@ConfigurationProperties("application.aws.sqs.visibility")
+public record VisibilityProperties(
+    boolean enabled,
+    Duration threshold,
+    Duration extension,
+    Duration maxInFlight,
+    Duration heartbeatInterval) {
+
+}
@@ -21,11 +21,19 @@
 
 package uk.nhs.hee.tis.trainee.ndw.event;
 
+import static uk.nhs.hee.tis.trainee.ndw.config.SqsListenerConfiguration.ACTION_CONTAINER_FACTORY;
+
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.annotation.SqsListenerAcknowledgementMode;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.Queue;
 import uk.nhs.hee.tis.trainee.ndw.service.ActionService;
 
 
@@ -38,20 +46,40 @@ public class ActionListener {
 
   private final ActionService actionService;
 
-  ActionListener(ActionService actionService) {
+  private final MessageBatchProcessor batchProcessor;
+
+  ActionListener(ActionService actionService, MessageBatchProcessor batchProcessor) {
     this.actionService = actionService;
+    this.batchProcessor = batchProcessor;
+  }
+
+  /**
+   * Listen for batches of Action Events on the SQS queue.
+   *
+   * @param messages        the Action Event messages.
+   * @param acknowledgement the acknowledgement for the batch, each message is only acknowledged
+   *                        once it has been successfully exported.
+   * @return A future which completes when the batch has been processed.
+   */
+  @SqsListener(value = "${application.aws.sqs.action}", factory = ACTION_CONTAINER_FACTORY,
+      acknowledgementMode = SqsListenerAcknowledgementMode.MANUAL)
+  CompletableFuture<Void> getActionEvents(List<Message<ActionEventDto>> messages,
+      BatchAcknowledgement<ActionEventDto> acknowledgement) {
+    log.debug("Received {} action events.", messages.size());
+    return batchProcessor.process(Queue.ACTION, messages, acknowledgement,
+        message -> getActionEvent(message.getPayload()));
   }
 
   /**
-   * Listen for Action Events on the SQS queue.
+   * Process an Action Event.
    *
    * @param event the Action Event
+   * @return A future which completes when the event has been exported.
    * @throws IOException when the action contents could not be read, or were not correctly
    *                     structured.
    */
-  @SqsListener(value = "${application.aws.sqs.action}")
-  void getActionEvent(ActionEventDto event) throws IOException {
+  CompletableFuture<Void> getActionEvent(ActionEventDto event) throws IOException {
     log.debug("Received action event {}.", event);
-    actionService.processActionEvent(event);
+    return actionService.processActionEvent(event);
   }
 }
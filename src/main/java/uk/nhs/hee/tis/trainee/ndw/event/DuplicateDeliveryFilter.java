@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.DuplicateSuppressionProperties;
+
+/**
+ * A time-bounded record of recently processed SQS message IDs, so that a redelivery of a message
+ * which has already been exported, such as when its acknowledgement failed, can be acknowledged
+ * without being exported again.
+ *
+ * <p>Each message ID is stored as a 64-bit fingerprint in an open-addressed table of primitive
+ * longs, split into a current and a previous generation. The generations are rotated once the
+ * current generation is older than the retention or reaches the maximum entries, so a message is
+ * remembered for between one and two retention periods. A new message is only wrongly suppressed
+ * if its fingerprint collides with a remembered one, the estimated probability of which is
+ * reported as a metric.
+ */
+@Slf4j
+@Component
+public class DuplicateDeliveryFilter {
+
+  private static final double FINGERPRINT_SPACE = Math.pow(2, 64);
+
+  private final DuplicateSuppressionProperties properties;
+
+  private final Clock clock;
+
+  private final Counter suppressed;
+
+  private final Counter ageRotations;
+
+  private final Counter capacityRotations;
+
+  private FingerprintSet current;
+
+  private FingerprintSet previous;
+
+  private Instant currentStarted;
+
+  /**
+   * Initialise the duplicate delivery filter.
+   *
+   * @param properties    The duplicate suppression properties.
+   * @param clock         The clock to age generations with.
+   * @param meterRegistry The registry to record suppression metrics with.
+   */
+  DuplicateDeliveryFilter(DuplicateSuppressionProperties properties, Clock clock,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.clock = clock;
+
+    if (properties.enabled()) {
+      current = new FingerprintSet(properties.maxEntries());
+      previous = new FingerprintSet(0);
+      currentStarted = clock.instant();
+    }
+
+    suppressed = Counter.builder("ndw.sqs.duplicates.suppressed")
+        .description("The number of redelivered messages acknowledged without being processed.")
+        .register(meterRegistry);
+    ageRotations = Counter.builder("ndw.sqs.duplicates.rotations")
+        .description("The number of times the remembered message IDs were rotated.")
+        .tag("reason", "age")
+        .register(meterRegistry);
+    capacityRotations = Counter.builder("ndw.sqs.duplicates.rotations")
+        .description("The number of times the remembered message IDs were rotated.")
+        .tag("reason", "capacity")
+        .register(meterRegistry);
+    Gauge.builder("ndw.sqs.duplicates.tracked", this, DuplicateDeliveryFilter::getTracked)
+        .description("The number of processed message IDs currently remembered.")
+        .register(meterRegistry);
+    Gauge.builder("ndw.sqs.duplicates.false.positive.rate", this,
+            DuplicateDeliveryFilter::getFalsePositiveRate)
+        .description("The estimated probability of a new message being wrongly suppressed.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Check whether a message has already been processed, counting it as suppressed if it has.
+   *
+   * @param message The received message.
+   * @return true if the message is a redelivery of a processed message.
+   */
+  boolean isDuplicate(Message<?> message) {
+    if (!properties.enabled()) {
+      return false;
+    }
+
+    long fingerprint = fingerprint(message.getHeaders().getId());
+    boolean duplicate;
+
+    synchronized (this) {
+      rotateIfExpired();
+      duplicate = current.contains(fingerprint) || previous.contains(fingerprint);
+    }
+
+    if (duplicate) {
+      log.debug("Message {} has already been processed, suppressing the redelivery.",
+          message.getHeaders().getId());
+      suppressed.increment();
+    }
+    return duplicate;
+  }
+
+  /**
+   * Remember that a message has been processed, so that any redelivery is suppressed.
+   *
+   * @param message The processed message.
+   */
+  void markProcessed(Message<?> message) {
+    if (!properties.enabled()) {
+      return;
+    }
+
+    long fingerprint = fingerprint(message.getHeaders().getId());
+
+    synchronized (this) {
+      rotateIfExpired();
+
+      if (current.size() >= properties.maxEntries()) {
+        capacityRotations.increment();
+        rotate();
+      }
+      current.add(fingerprint);
+    }
+  }
+
+  /**
+   * Rotate the generations if the current generation is older than the retention.
+   */
+  private void rotateIfExpired() {
+    if (!clock.instant().isBefore(currentStarted.plus(properties.retention()))) {
+      ageRotations.increment();
+      rotate();
+    }
+  }
+
+  /**
+   * Forget the previous generation and start a new current generation.
+   */
+  private void rotate() {
+    // Reuse the previous generation's table once it is large enough, to avoid reallocating.
+    FingerprintSet next = previous.capacity() >= properties.maxEntries()
+        ? previous.clear() : new FingerprintSet(properties.maxEntries());
+    previous = current;
+    current = next;
+    currentStarted = clock.instant();
+  }
+
+  /**
+   * Get the number of processed message IDs currently remembered.
+   *
+   * @return The remembered message ID count.
+   */
+  synchronized long getTracked() {
+    return properties.enabled() ? current.size() + previous.size() : 0;
+  }
+
+  /**
+   * Get the estimated probability of a new message ID matching a remembered fingerprint.
+   *
+   * @return The estimated false positive rate.
+   */
+  double getFalsePositiveRate() {
+    return getTracked() / FINGERPRINT_SPACE;
+  }
+
+  /**
+   * Reduce a message ID to a well-mixed 64-bit fingerprint, which is never zero.
+   *
+   * @param id The message ID.
+   * @return The fingerprint.
+   */
+  static long fingerprint(UUID id) {
+    long fingerprint = mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    return fingerprint == 0 ? 1 : fingerprint;
+  }
+
+  /**
+   * The MurmurHash3 64-bit finalizer.
+   *
+   * @param value The value to mix.
+   * @return The mixed value.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /**
+   * An open-addressed set of non-zero fingerprints with linear probing, sized to stay at most
+   * half full.
+   */
+  private static class FingerprintSet {
+
+    private final long[] table;
+
+    private final int mask;
+
+    private int size;
+
+    FingerprintSet(int maxEntries) {
+      int tableSize = Integer.highestOneBit(Math.max(maxEntries, 1) * 2 - 1) << 1;
+      table = new long[tableSize];
+      mask = tableSize - 1;
+    }
+
+    boolean contains(long fingerprint) {
+      for (int i = (int) fingerprint & mask; table[i] != 0; i = (i + 1) & mask) {
+        if (table[i] == fingerprint) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void add(long fingerprint) {
+      int i = (int) fingerprint & mask;
+      while (table[i] != 0) {
+        if (table[i] == fingerprint) {
+          return;
+        }
+        i = (i + 1) & mask;
+      }
+      table[i] = fingerprint;
+      size++;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int capacity() {
+      return table.length / 2;
+    }
+
+    FingerprintSet clear() {
+      Arrays.fill(table, 0);
+      size = 0;
+      return this;
+    }
+  }
+}
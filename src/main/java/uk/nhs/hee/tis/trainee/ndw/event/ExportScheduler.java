@@ -0,0 +1,457 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties.Share;
+
+/**
+ * A weighted fair scheduler which shares a fixed export capacity between the SQS queues, so that
+ * a burst on one queue cannot starve the others.
+ *
+ * <p>When capacity is freed it is given to a waiting queue which is below its minimum share, if
+ * there is one, otherwise to the waiting queue which has been given the least capacity relative to
+ * its weight. A queue which has been idle does not build up credit, it rejoins at the same point
+ * as the busiest queue.
+ *
+ * <p>Scheduling never blocks the listener threads. An export which cannot be given capacity
+ * straight away is queued, and started on the scheduler's own threads once it is given capacity,
+ * so the rest of its batch is not held behind it. The listener containers' in-flight permits are
+ * still held until the whole batch completes, which pauses polling of the queues which are behind.
+ */
+@Slf4j
+@Component
+class ExportScheduler {
+
+  private final SchedulingProperties properties;
+
+  private final Lock lock = new ReentrantLock();
+
+  private final Map<Queue, QueueState> states = new EnumMap<>(Queue.class);
+
+  private final Counter rejections;
+
+  private final ScheduledThreadPoolExecutor executor;
+
+  private int running;
+
+  private double virtualTime;
+
+  /**
+   * Initialise the export scheduler.
+   *
+   * @param properties    The scheduling properties.
+   * @param meterRegistry The registry to record per-queue scheduling metrics with.
+   */
+  ExportScheduler(SchedulingProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+
+    for (Queue queue : Queue.values()) {
+      QueueState state = new QueueState(queue.getShare(properties),
+          Timer.builder("ndw.scheduling.wait")
+              .description("The time messages waited for a share of the export capacity.")
+              .tag("queue", queue.getName())
+              .register(meterRegistry),
+          Counter.builder("ndw.scheduling.exports")
+              .description("The number of messages given a share of the export capacity.")
+              .tag("queue", queue.getName())
+              .register(meterRegistry));
+      states.put(queue, state);
+
+      Gauge.builder("ndw.scheduling.running", () -> getRunning(queue))
+          .description("The number of messages currently being exported.")
+          .tag("queue", queue.getName())
+          .register(meterRegistry);
+      Gauge.builder("ndw.scheduling.waiting", () -> getWaiting(queue))
+          .description("The number of messages waiting for a share of the export capacity.")
+          .tag("queue", queue.getName())
+          .register(meterRegistry);
+    }
+
+    rejections = Counter.builder("ndw.scheduling.rejections")
+        .description("The number of messages rejected after waiting too long for capacity.")
+        .register(meterRegistry);
+
+    if (properties.enabled()) {
+      executor = new ScheduledThreadPoolExecutor(properties.capacity());
+      executor.setRemoveOnCancelPolicy(true);
+
+      log.info("Scheduling {} concurrent exports with shares {}.", properties.capacity(),
+          states.entrySet().stream()
+              .map(entry -> entry.getKey().getName() + "=" + entry.getValue().share)
+              .toList());
+    } else {
+      executor = null;
+    }
+  }
+
+  /**
+   * Run an export from a queue within its share of the capacity. The export is started straight
+   * away if its queue is given capacity, otherwise it is queued until capacity is freed and it is
+   * the queue's turn. A queued export which is not given capacity within the maximum wait fails
+   * with a {@link SchedulingTimeoutException}.
+   *
+   * @param queue  The queue the message being exported was received from.
+   * @param export The export to run once capacity is available.
+   * @return The export's future, the capacity is freed when it completes.
+   */
+  CompletableFuture<?> schedule(Queue queue, Supplier<? extends CompletableFuture<?>> export) {
+    if (!properties.enabled()) {
+      return export.get();
+    }
+
+    Work work = new Work(queue, export);
+    List<Work> admitted;
+
+    lock.lock();
+    try {
+      QueueState state = states.get(queue);
+
+      if (state.waiting.isEmpty()) {
+        // An idle queue does not keep credit from before it was idle.
+        state.virtualTime = Math.max(state.virtualTime, virtualTime);
+      }
+      state.waiting.add(work);
+      admitted = admitReady();
+
+      if (!admitted.contains(work)) {
+        work.timeout = executor.schedule(() -> expire(work), properties.maxWait().toNanos(),
+            TimeUnit.NANOSECONDS);
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    // The caller's own export starts on its thread, others start on the scheduler's threads.
+    for (Work ready : admitted) {
+      if (ready == work) {
+        start(ready);
+      } else {
+        executor.execute(() -> start(ready));
+      }
+    }
+    return work.result;
+  }
+
+  /**
+   * Start an admitted export, freeing its share of the capacity once it completes.
+   *
+   * @param work The admitted export.
+   */
+  private void start(Work work) {
+    CompletableFuture<?> future;
+    try {
+      future = work.export.get();
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+
+    future.whenComplete((result, e) -> {
+      release(work.queue);
+
+      if (e == null) {
+        work.result.complete(result);
+      } else {
+        work.result.completeExceptionally(e);
+      }
+    });
+  }
+
+  /**
+   * Reject a queued export if it is still waiting for capacity after the maximum wait.
+   *
+   * @param work The queued export.
+   */
+  private void expire(Work work) {
+    lock.lock();
+    try {
+      QueueState state = states.get(work.queue);
+
+      if (!state.waiting.remove(work)) {
+        return;
+      }
+      state.waitTime.record(System.nanoTime() - work.queued, TimeUnit.NANOSECONDS);
+    } finally {
+      lock.unlock();
+    }
+
+    rejections.increment();
+    log.warn("No export capacity given to queue {} within {}, with {} messages in flight.",
+        work.queue.getName(), properties.maxWait(), getRunning());
+    work.result.completeExceptionally(
+        new SchedulingTimeoutException(work.queue, properties.maxWait()));
+  }
+
+  /**
+   * Free the share of the capacity taken by a queue, starting the exports which are given it.
+   *
+   * @param queue The queue to free capacity for.
+   */
+  private void release(Queue queue) {
+    List<Work> admitted;
+
+    lock.lock();
+    try {
+      running--;
+      states.get(queue).running--;
+      admitted = admitReady();
+    } finally {
+      lock.unlock();
+    }
+
+    admitted.forEach(ready -> executor.execute(() -> start(ready)));
+  }
+
+  /**
+   * Give the available capacity to the queued exports whose turn is next, the caller must hold
+   * the lock.
+   *
+   * @return The admitted exports, which must be started by the caller.
+   */
+  private List<Work> admitReady() {
+    List<Work> admitted = new ArrayList<>();
+    QueueState state;
+
+    while (running < properties.capacity() && (state = next()) != null) {
+      Work work = state.waiting.remove();
+
+      if (work.timeout != null) {
+        work.timeout.cancel(false);
+      }
+      state.waitTime.record(System.nanoTime() - work.queued, TimeUnit.NANOSECONDS);
+
+      running++;
+      state.running++;
+      virtualTime = state.virtualTime;
+      state.virtualTime += 1.0 / state.share.weight();
+      state.exports.increment();
+      admitted.add(work);
+    }
+    return admitted;
+  }
+
+  /**
+   * Stop starting queued exports, failing any which are still waiting so they are redelivered.
+   */
+  @PreDestroy
+  void shutdown() {
+    if (executor == null) {
+      return;
+    }
+
+    List<Work> abandoned = new ArrayList<>();
+
+    lock.lock();
+    try {
+      states.values().forEach(state -> {
+        abandoned.addAll(state.waiting);
+        state.waiting.clear();
+      });
+    } finally {
+      lock.unlock();
+    }
+
+    executor.shutdown();
+    abandoned.forEach(work -> work.result.completeExceptionally(
+        new IllegalStateException("Export scheduler shut down before capacity was given.")));
+  }
+
+  /**
+   * Get the waiting queue which should be given capacity next.
+   *
+   * @return The state of the next queue, or null if no queues are waiting.
+   */
+  private QueueState next() {
+    QueueState belowMinShare = states.values().stream()
+        .filter(state -> !state.waiting.isEmpty() && state.running < state.share.minShare())
+        .min(Comparator.comparingDouble(state -> (double) state.running / state.share.minShare()))
+        .orElse(null);
+
+    if (belowMinShare != null) {
+      return belowMinShare;
+    }
+
+    return states.values().stream()
+        .filter(state -> !state.waiting.isEmpty())
+        .min(Comparator.<QueueState>comparingDouble(state -> state.virtualTime)
+            .thenComparing(state -> -state.share.weight()))
+        .orElse(null);
+  }
+
+  /**
+   * Get the number of messages currently being exported across all queues.
+   *
+   * @return The running message count.
+   */
+  private int getRunning() {
+    lock.lock();
+    try {
+      return running;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of messages from a queue currently being exported.
+   *
+   * @param queue The queue to get the running count for.
+   * @return The running message count.
+   */
+  int getRunning(Queue queue) {
+    lock.lock();
+    try {
+      return states.get(queue).running;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the number of messages from a queue waiting for a share of the capacity.
+   *
+   * @param queue The queue to get the waiting count for.
+   * @return The waiting message count.
+   */
+  int getWaiting(Queue queue) {
+    lock.lock();
+    try {
+      return states.get(queue).waiting.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * The queues which share the export capacity.
+   */
+  enum Queue {
+    ACTION("action"),
+    NOTIFICATION("notification"),
+    LTFT("ltft"),
+    FORMR("formr");
+
+    private final String name;
+
+    Queue(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Get the name of the queue, as used in metric tags.
+     *
+     * @return The queue name.
+     */
+    String getName() {
+      return name;
+    }
+
+    /**
+     * Get the configured share of the capacity for this queue.
+     *
+     * @param properties The scheduling properties.
+     * @return The queue's share.
+     */
+    Share getShare(SchedulingProperties properties) {
+      return switch (this) {
+        case ACTION -> properties.action();
+        case NOTIFICATION -> properties.notification();
+        case LTFT -> properties.ltft();
+        case FORMR -> properties.formr();
+      };
+    }
+  }
+
+  /**
+   * The scheduling state of a single queue, guarded by the scheduler's lock.
+   */
+  private static class QueueState {
+
+    private final Share share;
+    private final Timer waitTime;
+    private final Counter exports;
+    private final ArrayDeque<Work> waiting = new ArrayDeque<>();
+    private int running;
+    private double virtualTime;
+
+    QueueState(Share share, Timer waitTime, Counter exports) {
+      this.share = share;
+      this.waitTime = waitTime;
+      this.exports = exports;
+    }
+  }
+
+  /**
+   * An export waiting for, or given, a share of the capacity, guarded by the scheduler's lock.
+   */
+  private static class Work {
+
+    private final Queue queue;
+    private final Supplier<? extends CompletableFuture<?>> export;
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+    private final long queued = System.nanoTime();
+    private ScheduledFuture<?> timeout;
+
+    Work(Queue queue, Supplier<? extends CompletableFuture<?>> export) {
+      this.queue = queue;
+      this.export = export;
+    }
+  }
+
+  /**
+   * An exception thrown when a message is rejected, as it would have to wait longer than the
+   * maximum for a share of the export capacity.
+   */
+  static class SchedulingTimeoutException extends RuntimeException {
+
+    /**
+     * Create an exception for a message rejected by the scheduler.
+     *
+     * @param queue   The queue the message was received from.
+     * @param maxWait The maximum wait which was exceeded.
+     */
+    SchedulingTimeoutException(Queue queue, Duration maxWait) {
+      super("No export capacity given to queue " + queue.getName() + " within " + maxWait + ".");
+    }
+  }
+}
@@ -21,14 +21,22 @@
 
 package uk.nhs.hee.tis.trainee.ndw.event;
 
+import static uk.nhs.hee.tis.trainee.ndw.config.SqsListenerConfiguration.FORMR_CONTAINER_FACTORY;
+import static uk.nhs.hee.tis.trainee.ndw.config.SqsListenerConfiguration.LTFT_CONTAINER_FACTORY;
+
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.annotation.SqsListenerAcknowledgementMode;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.stereotype.Component;
 import uk.nhs.hee.tis.trainee.ndw.dto.JsonFormEventDto;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.Queue;
 import uk.nhs.hee.tis.trainee.ndw.service.FormService;
 
 /**
@@ -40,20 +48,41 @@ public class FormListener {
 
   private final FormService<JsonFormEventDto> jsonFormService;
 
+  private final MessageBatchProcessor batchProcessor;
+
   FormListener(
-      FormService<JsonFormEventDto> jsonFormService) {
+      FormService<JsonFormEventDto> jsonFormService, MessageBatchProcessor batchProcessor) {
     this.jsonFormService = jsonFormService;
+    this.batchProcessor = batchProcessor;
   }
 
   /**
-   * Listen for LTFT Events on the SQS queue.
+   * Listen for batches of LTFT Events on the SQS queue.
+   *
+   * @param messages        the LTFT Event messages.
+   * @param acknowledgement the acknowledgement for the batch, each message is only acknowledged
+   *                        once it has been successfully exported.
+   * @return A future which completes when the batch has been processed.
+   */
+  @SqsListener(value = "${application.aws.sqs.form.ltft}", factory = LTFT_CONTAINER_FACTORY,
+      acknowledgementMode = SqsListenerAcknowledgementMode.MANUAL)
+  CompletableFuture<Void> getLtftFormEvents(List<Message<JsonFormEventDto>> messages,
+      BatchAcknowledgement<JsonFormEventDto> acknowledgement) {
+    log.debug("Received {} LTFT events.", messages.size());
+    return batchProcessor.process(Queue.LTFT, messages, acknowledgement,
+        message -> getLtftFormEvent(message.getPayload()));
+  }
+
+  /**
+   * Process an LTFT Event.
    *
    * @param event the LTFT Event
+   * @return A future which completes when the form has been exported.
    * @throws IOException when the form contents could not be read, or were not correctly
    *                     structured.
    */
-  @SqsListener(value = "${application.aws.sqs.form.ltft}")
-  void getLtftFormEvent(JsonFormEventDto event) throws IllegalArgumentException, IOException {
+  CompletableFuture<Void> getLtftFormEvent(JsonFormEventDto event)
+      throws IllegalArgumentException, IOException {
     String id = (String) event.fields.get("id");
 
     if (Strings.isBlank(id)) {
@@ -63,11 +92,36 @@ public class FormListener {
     log.debug("Received LTFT event for form ID {}.", id);
     event.setFormName(id + ".json");
     event.setFormType("ltft");
-    jsonFormService.processFormEvent(event);
+    return jsonFormService.processFormEvent(event)
+        .thenAccept(content -> log.debug("Processed LTFT event for form ID {}.", id));
+  }
+
+  /**
+   * Listen for batches of FormR Events on the SQS queue.
+   *
+   * @param messages        the FormR Event messages, with the form type as an attribute.
+   * @param acknowledgement the acknowledgement for the batch, each message is only acknowledged
+   *                        once it has been successfully exported.
+   * @return A future which completes when the batch has been processed.
+   */
+  @SqsListener(value = "${application.aws.sqs.form.formr}", factory = FORMR_CONTAINER_FACTORY,
+      acknowledgementMode = SqsListenerAcknowledgementMode.MANUAL)
+  CompletableFuture<Void> getFormRFormEvents(List<Message<JsonFormEventDto>> messages,
+      BatchAcknowledgement<JsonFormEventDto> acknowledgement) {
+    log.debug("Received {} FormR events.", messages.size());
+    return batchProcessor.process(Queue.FORMR, messages, acknowledgement,
+        this::getFormRFormEvent);
   }
 
-  @SqsListener(value = "${application.aws.sqs.form.formr}")
-  void getFormRFormEvent(Message<JsonFormEventDto> message)
+  /**
+   * Process a FormR Event.
+   *
+   * @param message the FormR Event message, with the form type as an attribute.
+   * @return A future which completes when the form has been exported.
+   * @throws IOException when the form contents could not be read, or were not correctly
+   *                     structured.
+   */
+  CompletableFuture<Void> getFormRFormEvent(Message<JsonFormEventDto> message)
       throws IllegalArgumentException, IOException {
     JsonFormEventDto event = message.getPayload();
     MessageHeaders attributes = message.getHeaders();
@@ -86,6 +140,7 @@ public class FormListener {
 
     String formType = (String) attributes.get("formType"); //should be formr-a or formr-b
     event.setFormType(formType);
-    jsonFormService.processFormEvent(event);
+    return jsonFormService.processFormEvent(event)
+        .thenAccept(content -> log.debug("Processed FormR event for form ID {}.", id));
   }
 }
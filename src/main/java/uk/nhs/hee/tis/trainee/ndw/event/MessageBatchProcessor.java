@@ -0,0 +1,190 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.Queue;
+
+/**
+ * Processes batches of SQS messages concurrently, acknowledging each message individually so that
+ * a failure only causes the failed messages to be redelivered rather than the whole batch.
+ */
+@Slf4j
+@Component
+class MessageBatchProcessor {
+
+  private final VisibilityExtender visibilityExtender;
+
+  private final ExportScheduler scheduler;
+
+  private final DuplicateDeliveryFilter duplicateFilter;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private final AtomicLong completed = new AtomicLong();
+
+  MessageBatchProcessor(VisibilityExtender visibilityExtender, ExportScheduler scheduler,
+      DuplicateDeliveryFilter duplicateFilter) {
+    this.visibilityExtender = visibilityExtender;
+    this.scheduler = scheduler;
+    this.duplicateFilter = duplicateFilter;
+  }
+
+  /**
+   * Process each message in a batch, then acknowledge the successfully processed messages.
+   *
+   * @param queue           The queue the batch was received from.
+   * @param messages        The batch of messages to process.
+   * @param acknowledgement The acknowledgement for the batch.
+   * @param processor       The processor to start the processing of each message.
+   * @param <T>             The type of message payload.
+   * @return A future which completes once the batch has been processed and acknowledged.
+   */
+  <T> CompletableFuture<Void> process(Queue queue, List<Message<T>> messages,
+      BatchAcknowledgement<T> acknowledgement, MessageProcessor<T> processor) {
+    // Track every message before starting any, as a message may wait behind the rest of the batch.
+    List<Boolean> duplicates = messages.stream()
+        .map(duplicateFilter::isDuplicate)
+        .toList();
+    IntStream.range(0, messages.size())
+        .filter(i -> !duplicates.get(i))
+        .forEach(i -> {
+          inFlight.incrementAndGet();
+          visibilityExtender.track(messages.get(i));
+        });
+
+    // Start all messages before waiting on any, so the exports run in parallel.
+    List<CompletableFuture<Boolean>> results = IntStream.range(0, messages.size())
+        .mapToObj(i -> {
+          Message<T> message = messages.get(i);
+          CompletableFuture<?> started = duplicates.get(i)
+              ? CompletableFuture.completedFuture(null)
+              : start(queue, message, processor);
+
+          return started.handle((result, e) -> {
+            if (e != null) {
+              log.error("Unable to process message {}, it will be redelivered.",
+                  message.getHeaders().getId(), e);
+              return false;
+            }
+            return true;
+          });
+        })
+        .toList();
+
+    return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+        .thenCompose(ignored -> {
+          List<Message<T>> processed = IntStream.range(0, messages.size())
+              .filter(i -> results.get(i).join())
+              .mapToObj(messages::get)
+              .toList();
+
+          log.debug("Processed {} of {} messages in batch.", processed.size(), messages.size());
+          return processed.isEmpty()
+              ? CompletableFuture.completedFuture(null)
+              : acknowledgement.acknowledgeAsync(processed);
+        });
+  }
+
+  /**
+   * Start processing a tracked message, any exception thrown while starting fails the returned
+   * future. The message's visibility is extended while it is being processed, including while it
+   * waits for its queue's share of the export capacity. A redelivery of a message which has
+   * already been processed is not started, so that it is acknowledged without being exported
+   * again.
+   *
+   * @param queue     The queue the message was received from.
+   * @param message   The message to process.
+   * @param processor The processor to start the processing of the message.
+   * @param <T>       The type of message payload.
+   * @return A future which completes once the message has been processed.
+   */
+  private <T> CompletableFuture<?> start(Queue queue, Message<T> message,
+      MessageProcessor<T> processor) {
+    CompletableFuture<?> processed;
+    try {
+      processed = scheduler.schedule(queue, () -> {
+        try {
+          return processor.process(message);
+        } catch (IOException e) {
+          return CompletableFuture.failedFuture(e);
+        }
+      });
+    } catch (RuntimeException e) {
+      processed = CompletableFuture.failedFuture(e);
+    }
+    return processed.whenComplete((result, e) -> {
+      if (e == null) {
+        duplicateFilter.markProcessed(message);
+      }
+      visibilityExtender.untrack(message);
+      inFlight.decrementAndGet();
+      completed.incrementAndGet();
+    });
+  }
+
+  /**
+   * Get the number of messages currently being processed.
+   *
+   * @return The in-flight message count.
+   */
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Get the number of messages which have finished processing, whether successfully or not.
+   *
+   * @return The completed message count.
+   */
+  long getCompleted() {
+    return completed.get();
+  }
+
+  /**
+   * A processor of a single message.
+   *
+   * @param <T> The type of message payload.
+   */
+  @FunctionalInterface
+  interface MessageProcessor<T> {
+
+    /**
+     * Start processing a message.
+     *
+     * @param message The message to process.
+     * @return A future which completes once the message has been processed.
+     * @throws IOException when the message contents could not be read, or were not correctly
+     *                     structured.
+     */
+    CompletableFuture<?> process(Message<T> message) throws IOException;
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.ReplayProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ReplayProperties.ReplayType;
+import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
+import uk.nhs.hee.tis.trainee.ndw.dto.JsonFormEventDto;
+import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
+
+/**
+ * Replays historic events from NDJSON files through the same processing as the SQS listeners, so
+ * that the data lake can be backfilled without sending every event back through SQS.
+ *
+ * <p>Each file is read a line at a time and the events are parsed and exported by a pool of
+ * workers, with a bounded number of events in flight. Progress is checkpointed as the number of
+ * leading lines which have been processed, so an interrupted replay resumes after the last
+ * checkpoint. Events which fail are written to a failed events file alongside the checkpoint, so
+ * that they can be replayed again once the cause is fixed.
+ *
+ * <p>A replay is a one-off job, the SQS listeners are not started and the application exits once
+ * the replay completes, with a non-zero exit code if any events failed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.ndw.replay.enabled", havingValue = "true")
+class NdjsonReplayer implements ApplicationRunner, ExitCodeGenerator {
+
+  private static final String FORM_TYPE_ATTRIBUTE = "formType";
+
+  private static final Duration WORKER_TERMINATION_TIMEOUT = Duration.ofMinutes(1);
+
+  private final ReplayProperties properties;
+
+  private final ActionListener actionListener;
+
+  private final NotificationListener notificationListener;
+
+  private final FormListener formListener;
+
+  private final ObjectReader reader;
+
+  private final Counter exported;
+
+  private final Counter failed;
+
+  /**
+   * Initialise the NDJSON replayer.
+   *
+   * @param properties           The replay properties.
+   * @param actionListener       The listener to process replayed action events with.
+   * @param notificationListener The listener to process replayed notification events with.
+   * @param formListener         The listener to process replayed form events with.
+   * @param mapper               The object mapper to parse events with.
+   * @param meterRegistry        The registry to record replay metrics with.
+   */
+  NdjsonReplayer(ReplayProperties properties, ActionListener actionListener,
+      NotificationListener notificationListener, FormListener formListener, ObjectMapper mapper,
+      MeterRegistry meterRegistry) {
+    if (properties.type() == null || properties.input() == null) {
+      throw new IllegalArgumentException("A replay type and input must be provided.");
+    }
+
+    if (properties.type() == ReplayType.FORMR
+        && (properties.formType() == null || properties.formType().isBlank())) {
+      throw new IllegalArgumentException("A form type must be provided to replay FormR events.");
+    }
+
+    this.properties = properties;
+    this.actionListener = actionListener;
+    this.notificationListener = notificationListener;
+    this.formListener = formListener;
+    this.reader = mapper.readerFor(switch (properties.type()) {
+      case ACTION -> ActionEventDto.class;
+      case NOTIFICATION -> NotificationEventDto.class;
+      case LTFT, FORMR -> JsonFormEventDto.class;
+    });
+
+    exported = Counter.builder("ndw.replay.events")
+        .description("The number of replayed events.")
+        .tag("result", "exported")
+        .register(meterRegistry);
+    failed = Counter.builder("ndw.replay.events")
+        .description("The number of replayed events.")
+        .tag("result", "failed")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws IOException, InterruptedException {
+    List<Path> files = findInputFiles();
+    log.info("Replaying {} events from {} files with {} workers.", properties.type(),
+        files.size(), properties.workers());
+    Files.createDirectories(properties.checkpointDirectory());
+
+    long start = System.nanoTime();
+    long total = 0;
+    for (Path file : files) {
+      total += replay(file);
+    }
+
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+    log.info("Replay complete, {} events processed in {} ({} events/sec), {} failed.", total,
+        elapsed, rate(total, elapsed), (long) failed.count());
+  }
+
+  @Override
+  public int getExitCode() {
+    return failed.count() > 0 ? 1 : 0;
+  }
+
+  /**
+   * Find the files to replay, in name order when the input is a directory.
+   *
+   * @return The input files.
+   * @throws IOException If the input directory could not be listed.
+   */
+  private List<Path> findInputFiles() throws IOException {
+    Path input = properties.input();
+
+    if (!Files.isDirectory(input)) {
+      return List.of(input);
+    }
+
+    try (Stream<Path> files = Files.list(input)) {
+      return files
+          .filter(Files::isRegularFile)
+          .filter(file -> {
+            String name = file.getFileName().toString();
+            return name.endsWith(".ndjson") || name.endsWith(".ndjson.gz");
+          })
+          .sorted()
+          .toList();
+    }
+  }
+
+  /**
+   * Replay the events in a file, resuming after its last checkpoint.
+   *
+   * @param file The file to replay.
+   * @return The number of events processed.
+   * @throws IOException          If the file, or its checkpoint, could not be read or written.
+   * @throws InterruptedException If interrupted while waiting for events to be processed.
+   */
+  long replay(Path file) throws IOException, InterruptedException {
+    String name = file.getFileName().toString();
+    Checkpoint checkpoint = new Checkpoint(
+        properties.checkpointDirectory().resolve(name + ".checkpoint"));
+    long resumeAfter = checkpoint.getCompleted();
+
+    if (resumeAfter > 0) {
+      log.info("Resuming replay of {} after line {}.", name, resumeAfter);
+    }
+
+    AtomicLong processed = new AtomicLong();
+    int maxInFlight = properties.maxInFlight();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    ExecutorService workers = Executors.newFixedThreadPool(properties.workers());
+    ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+    long intervalMillis = properties.progressInterval().toMillis();
+    AtomicLong lastProcessed = new AtomicLong();
+    progress.scheduleAtFixedRate(() -> {
+      long count = processed.get();
+      log.info("Replayed {} events from {} ({} events/sec).", count, name,
+          rate(count - lastProcessed.getAndSet(count), properties.progressInterval()));
+      saveCheckpoint(checkpoint);
+    }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+    try (BufferedReader lines = open(file);
+        BufferedWriter failures = Files.newBufferedWriter(
+            properties.checkpointDirectory().resolve(name + ".failed"), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      long lineNumber = 0;
+      String line;
+
+      while ((line = lines.readLine()) != null) {
+        lineNumber++;
+
+        if (lineNumber <= resumeAfter) {
+          continue;
+        }
+
+        if (line.isBlank()) {
+          checkpoint.complete(lineNumber);
+          continue;
+        }
+
+        inFlight.acquire();
+        long eventLine = lineNumber;
+        String event = line;
+        CompletableFuture.supplyAsync(() -> process(event), workers)
+            .thenCompose(future -> future)
+            .whenComplete((result, e) -> {
+              if (e == null) {
+                exported.increment();
+              } else {
+                log.warn("Unable to replay line {} of {}.", eventLine, name, e);
+                failed.increment();
+                writeFailure(failures, event);
+              }
+              processed.incrementAndGet();
+              checkpoint.complete(eventLine);
+              inFlight.release();
+            });
+      }
+
+      // Wait for all outstanding events before the failures file is closed.
+      inFlight.acquire(maxInFlight);
+    } finally {
+      progress.shutdownNow();
+      workers.shutdown();
+
+      if (!workers.awaitTermination(WORKER_TERMINATION_TIMEOUT.toMillis(),
+          TimeUnit.MILLISECONDS)) {
+        log.warn("Replay workers for {} did not stop within {}.", name,
+            WORKER_TERMINATION_TIMEOUT);
+      }
+    }
+
+    checkpoint.save();
+    log.info("Replayed {} events from {}.", processed.get(), name);
+    return processed.get();
+  }
+
+  /**
+   * Open a file for reading, decompressing it if it is gzipped.
+   *
+   * @param file The file to open.
+   * @return A reader for the file's lines.
+   * @throws IOException If the file could not be opened.
+   */
+  private static BufferedReader open(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+
+    if (file.getFileName().toString().endsWith(".gz")) {
+      in = new GZIPInputStream(in);
+    }
+    return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Parse an event and start processing it as the matching listener would.
+   *
+   * @param line The NDJSON line containing the event.
+   * @return A future which completes when the event has been exported.
+   */
+  private CompletableFuture<Void> process(String line) {
+    try {
+      return switch (properties.type()) {
+        case ACTION -> actionListener.getActionEvent(reader.readValue(line));
+        case NOTIFICATION -> notificationListener.getNotificationEvent(reader.readValue(line));
+        case LTFT -> formListener.getLtftFormEvent(reader.readValue(line));
+        case FORMR -> formListener.getFormRFormEvent(
+            MessageBuilder.withPayload((JsonFormEventDto) reader.readValue(line))
+                .setHeader(FORM_TYPE_ATTRIBUTE, properties.formType())
+                .build());
+      };
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Record a failed event, so that it can be replayed again later.
+   *
+   * @param failures The writer for the failed events file.
+   * @param line     The NDJSON line containing the failed event.
+   */
+  private static void writeFailure(BufferedWriter failures, String line) {
+    synchronized (failures) {
+      try {
+        failures.write(line);
+        failures.newLine();
+      } catch (IOException e) {
+        log.error("Unable to record failed event {}.", line, e);
+      }
+    }
+  }
+
+  /**
+   * Save a checkpoint, logging rather than propagating any failure so that a replay is not
+   * stopped by a failure to record its progress.
+   *
+   * @param checkpoint The checkpoint to save.
+   */
+  private static void saveCheckpoint(Checkpoint checkpoint) {
+    try {
+      checkpoint.save();
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Unable to save replay checkpoint.", e);
+    }
+  }
+
+  /**
+   * Calculate a rate of events per second.
+   *
+   * @param count   The number of events.
+   * @param elapsed The time taken.
+   * @return The rate, in events per second.
+   */
+  private static long rate(long count, Duration elapsed) {
+    long millis = Math.max(elapsed.toMillis(), 1);
+    return count * 1000 / millis;
+  }
+
+  /**
+   * The replay progress of a file, recorded as the number of leading lines which have been
+   * processed. Lines may complete out of order, so later completed lines are held until the lines
+   * before them have also completed.
+   */
+  static class Checkpoint {
+
+    private final Path path;
+
+    private final Set<Long> completedAhead = new HashSet<>();
+
+    private long completed;
+
+    /**
+     * Load a checkpoint, starting from the beginning of the file if there is no checkpoint.
+     *
+     * @param path The path of the checkpoint file.
+     * @throws IOException If the checkpoint could not be read.
+     */
+    Checkpoint(Path path) throws IOException {
+      this.path = path;
+
+      if (Files.exists(path)) {
+        completed = Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim());
+      }
+    }
+
+    /**
+     * Record that a line has been processed.
+     *
+     * @param line The one-based number of the processed line.
+     */
+    synchronized void complete(long line) {
+      if (line != completed + 1) {
+        completedAhead.add(line);
+        return;
+      }
+
+      completed = line;
+      while (completedAhead.remove(completed + 1)) {
+        completed++;
+      }
+    }
+
+    /**
+     * Get the number of leading lines which have been processed.
+     *
+     * @return The completed line count.
+     */
+    synchronized long getCompleted() {
+      return completed;
+    }
+
+    /**
+     * Save the checkpoint, replacing the previous checkpoint atomically.
+     *
+     * @throws IOException If the checkpoint could not be written.
+     */
+    synchronized void save() throws IOException {
+      Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+      Files.writeString(temp, Long.toString(getCompleted()), StandardCharsets.UTF_8);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
@@ -21,11 +21,19 @@
 
 package uk.nhs.hee.tis.trainee.ndw.event;
 
+import static uk.nhs.hee.tis.trainee.ndw.config.SqsListenerConfiguration.NOTIFICATION_CONTAINER_FACTORY;
+
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.annotation.SqsListenerAcknowledgementMode;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.Queue;
 import uk.nhs.hee.tis.trainee.ndw.service.NotificationService;
 
 /**
@@ -37,20 +45,42 @@ public class NotificationListener {
 
   private final NotificationService notificationService;
 
-  NotificationListener(NotificationService notificationService) {
+  private final MessageBatchProcessor batchProcessor;
+
+  NotificationListener(NotificationService notificationService,
+      MessageBatchProcessor batchProcessor) {
     this.notificationService = notificationService;
+    this.batchProcessor = batchProcessor;
+  }
+
+  /**
+   * Listen for batches of Notification Events on the SQS queue.
+   *
+   * @param messages        the Notification Event messages.
+   * @param acknowledgement the acknowledgement for the batch, each message is only acknowledged
+   *                        once it has been successfully exported.
+   * @return A future which completes when the batch has been processed.
+   */
+  @SqsListener(value = "${application.aws.sqs.notification}",
+      factory = NOTIFICATION_CONTAINER_FACTORY,
+      acknowledgementMode = SqsListenerAcknowledgementMode.MANUAL)
+  CompletableFuture<Void> getNotificationEvents(List<Message<NotificationEventDto>> messages,
+      BatchAcknowledgement<NotificationEventDto> acknowledgement) {
+    log.debug("Received {} notification events.", messages.size());
+    return batchProcessor.process(Queue.NOTIFICATION, messages, acknowledgement,
+        message -> getNotificationEvent(message.getPayload()));
   }
 
   /**
-   * Listen for Notification Events on the SQS queue.
+   * Process a Notification Event.
    *
    * @param event the Notification Event
+   * @return A future which completes when the event has been exported.
    * @throws IOException when the notification contents could not be read, or were not correctly
    *                     structured.
    */
-  @SqsListener(value = "${application.aws.sqs.notification}")
-  void getNotificationEvent(NotificationEventDto event) throws IOException {
+  CompletableFuture<Void> getNotificationEvent(NotificationEventDto event) throws IOException {
     log.debug("Received notification event {}.", event);
-    notificationService.processNotificationEvent(event);
+    return notificationService.processNotificationEvent(event);
   }
 }
@@ -0,0 +1,250 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import io.awspring.cloud.sqs.listener.MessageListenerContainer;
+import io.awspring.cloud.sqs.listener.MessageListenerContainerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.ShutdownProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportCoalescer;
+import uk.nhs.hee.tis.trainee.ndw.service.NdjsonBatchWriter;
+import uk.nhs.hee.tis.trainee.ndw.service.ParquetBatchWriter;
+import uk.nhs.hee.tis.trainee.ndw.service.SpoolDrainer;
+
+/**
+ * Drains in-flight exports when the application is stopped, such as during a deployment, so that
+ * messages are exported and acknowledged rather than being redelivered after their visibility
+ * timeout and exported again by another instance.
+ *
+ * <p>Polling of every queue is stopped first, then buffered exports are flushed repeatedly until
+ * the listener containers have finished their in-flight messages or the timeout is reached. The
+ * scheduled flushes are not relied on, as scheduled tasks stop once the context starts closing.
+ * Any messages still in flight at the timeout are abandoned and made visible again immediately.
+ * Spooled writes are drained until the spool is empty or the timeout is reached.
+ */
+@Slf4j
+@Component
+class ShutdownDrainer implements SmartLifecycle {
+
+  private final ShutdownProperties properties;
+
+  private final MessageListenerContainerRegistry containerRegistry;
+
+  private final MessageBatchProcessor batchProcessor;
+
+  private final VisibilityExtender visibilityExtender;
+
+  private final ExportCoalescer coalescer;
+
+  private final NdjsonBatchWriter ndjsonBatchWriter;
+
+  private final ParquetBatchWriter parquetBatchWriter;
+
+  private final SpoolDrainer spoolDrainer;
+
+  private final Clock clock;
+
+  private final Counter completedMessages;
+
+  private final Counter abandonedMessages;
+
+  private volatile boolean running;
+
+  /**
+   * Initialise the shutdown drainer.
+   *
+   * @param properties         The shutdown properties.
+   * @param containerRegistry  The registry of SQS listener containers to stop.
+   * @param batchProcessor     The batch processor to wait for in-flight messages of.
+   * @param visibilityExtender The visibility extender to release abandoned messages with.
+   * @param coalescer          The coalescer to flush held exports from.
+   * @param ndjsonBatchWriter  The NDJSON batch writer to flush pending batches from.
+   * @param parquetBatchWriter The Parquet batch writer to flush pending batches from.
+   * @param spoolDrainer       The spool drainer to upload spooled writes with.
+   * @param clock              The clock to time the drain with.
+   * @param meterRegistry      The registry to record drain metrics with.
+   */
+  ShutdownDrainer(ShutdownProperties properties,
+      MessageListenerContainerRegistry containerRegistry, MessageBatchProcessor batchProcessor,
+      VisibilityExtender visibilityExtender, ExportCoalescer coalescer,
+      NdjsonBatchWriter ndjsonBatchWriter, ParquetBatchWriter parquetBatchWriter,
+      SpoolDrainer spoolDrainer, Clock clock, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.containerRegistry = containerRegistry;
+    this.batchProcessor = batchProcessor;
+    this.visibilityExtender = visibilityExtender;
+    this.coalescer = coalescer;
+    this.ndjsonBatchWriter = ndjsonBatchWriter;
+    this.parquetBatchWriter = parquetBatchWriter;
+    this.spoolDrainer = spoolDrainer;
+    this.clock = clock;
+
+    completedMessages = Counter.builder("ndw.shutdown.messages")
+        .description("The number of in-flight messages completed or abandoned on shutdown.")
+        .tag("result", "completed")
+        .register(meterRegistry);
+    abandonedMessages = Counter.builder("ndw.shutdown.messages")
+        .description("The number of in-flight messages completed or abandoned on shutdown.")
+        .tag("result", "abandoned")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    try {
+      if (properties.enabled()) {
+        drain();
+      }
+    } finally {
+      running = false;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Stop before the listener containers, so that their in-flight messages can be drained.
+   *
+   * @return The lifecycle phase.
+   */
+  @Override
+  public int getPhase() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Stop polling, then flush buffered exports until all in-flight messages have completed or the
+   * timeout is reached.
+   */
+  void drain() {
+    Instant start = clock.instant();
+    Instant deadline = start.plus(properties.timeout());
+    long completedBefore = batchProcessor.getCompleted();
+    log.info("Draining {} in-flight messages before shutdown, waiting up to {}.",
+        batchProcessor.getInFlight(), properties.timeout());
+
+    // Each container waits for its own in-flight messages while stopping, so stop them in parallel.
+    Collection<MessageListenerContainer<?>> containers = containerRegistry.getListenerContainers();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(containers.size(), 1));
+    CompletableFuture<Void> stopped = CompletableFuture.allOf(containers.stream()
+        .map(container -> CompletableFuture.runAsync(container::stop, executor))
+        .toArray(CompletableFuture[]::new));
+
+    try {
+      while (!stopped.isDone() && clock.instant().isBefore(deadline)) {
+        flushBuffered();
+        awaitStopped(stopped, deadline);
+      }
+      flushBuffered();
+
+      // A single drain stops at the first failed upload, so keep retrying until the deadline.
+      flush("spooled writes", () -> spoolDrainer.drainUntil(deadline));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    long completed = batchProcessor.getCompleted() - completedBefore;
+    int abandoned = batchProcessor.getInFlight();
+    completedMessages.increment(completed);
+    abandonedMessages.increment(abandoned);
+
+    if (abandoned > 0) {
+      int released = visibilityExtender.releaseAll();
+      log.warn("Shutdown drain completed {} messages and abandoned {} after {}, {} were made "
+          + "visible for redelivery.", completed, abandoned,
+          Duration.between(start, clock.instant()), released);
+    } else {
+      log.info("Shutdown drain completed {} messages in {}.", completed,
+          Duration.between(start, clock.instant()));
+    }
+  }
+
+  /**
+   * Wait for the listener containers to stop, for up to the flush interval.
+   *
+   * @param stopped  A future which completes when all containers have stopped.
+   * @param deadline The drain deadline, which the wait will not exceed.
+   */
+  private void awaitStopped(CompletableFuture<Void> stopped, Instant deadline) {
+    Duration untilDeadline = Duration.between(clock.instant(), deadline);
+    Duration wait = untilDeadline.compareTo(properties.flushInterval()) < 0
+        ? untilDeadline : properties.flushInterval();
+
+    try {
+      stopped.get(Math.max(wait.toMillis(), 0), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // Flush again and keep waiting until the deadline.
+    } catch (ExecutionException e) {
+      log.warn("Unable to stop SQS listener containers cleanly.", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted draining in-flight messages.", e);
+    }
+  }
+
+  /**
+   * Flush exports which are held or buffered, so that the messages waiting on them complete. A
+   * failure to flush one buffer does not prevent the others being flushed.
+   */
+  private void flushBuffered() {
+    flush("coalesced exports", coalescer::flushAll);
+    flush("NDJSON batches", ndjsonBatchWriter::flushAll);
+    flush("Parquet batches", parquetBatchWriter::flushAll);
+    flush("spooled writes", spoolDrainer::drain);
+  }
+
+  /**
+   * Run a flush, logging rather than propagating any failure.
+   *
+   * @param name  The name of the buffered work, for logging.
+   * @param flush The flush to run.
+   */
+  private static void flush(String name, Runnable flush) {
+    try {
+      flush.run();
+    } catch (RuntimeException e) {
+      log.warn("Unable to flush {} while draining.", name, e);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.VisibilityProperties;
+
+/**
+ * A heartbeat which extends the visibility timeout of messages which are still being processed
+ * past a threshold, so that a slow export does not cause the message to be redelivered and
+ * repeated by another instance while it is still in progress.
+ */
+@Slf4j
+@Component
+public class VisibilityExtender {
+
+  private final VisibilityProperties properties;
+
+  private final Clock clock;
+
+  private final Counter extensions;
+
+  private final Counter abandoned;
+
+  private final Map<UUID, InFlightMessage> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Initialise the visibility extender.
+   *
+   * @param properties    The visibility properties.
+   * @param clock         The clock to time messages with.
+   * @param meterRegistry The registry to record extension metrics with.
+   */
+  VisibilityExtender(VisibilityProperties properties, Clock clock, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.clock = clock;
+
+    extensions = Counter.builder("ndw.sqs.visibility.extensions")
+        .description("The number of times the visibility of an in-flight message was extended.")
+        .register(meterRegistry);
+    abandoned = Counter.builder("ndw.sqs.visibility.abandoned")
+        .description("The number of messages no longer extended after the maximum in flight.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Start tracking a message which is being processed. The visibility timeout started when the
+   * message was received from SQS, so that is used as the start of the message's time in flight,
+   * falling back to the current time if the receive time is not known.
+   *
+   * @param message The message being processed.
+   */
+  void track(Message<?> message) {
+    if (!properties.enabled()) {
+      return;
+    }
+
+    Visibility visibility = message.getHeaders()
+        .get(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, Visibility.class);
+
+    if (visibility != null) {
+      Instant received = message.getHeaders()
+          .get(SqsHeaders.SQS_RECEIVED_AT_HEADER, Instant.class);
+      received = received == null ? clock.instant() : received;
+      inFlight.put(message.getHeaders().getId(),
+          new InFlightMessage(visibility, received, received));
+    }
+  }
+
+  /**
+   * Stop tracking a message once it has been processed.
+   *
+   * @param message The processed message.
+   */
+  void untrack(Message<?> message) {
+    inFlight.remove(message.getHeaders().getId());
+  }
+
+  /**
+   * Extend the visibility of any messages which have been in flight past the threshold since they
+   * were received or last extended, and stop extending any in flight past the maximum.
+   */
+  @Scheduled(fixedDelayString = "${application.aws.sqs.visibility.heartbeat-interval}")
+  void extend() {
+    Instant now = clock.instant();
+    int extensionSeconds = (int) properties.extension().toSeconds();
+
+    inFlight.forEach((id, message) -> {
+      if (Duration.between(message.received(), now).compareTo(properties.maxInFlight()) >= 0) {
+        log.warn("Message {} in flight for longer than {}, no longer extending its visibility.",
+            id, properties.maxInFlight());
+        abandoned.increment();
+        inFlight.remove(id, message);
+        return;
+      }
+
+      if (Duration.between(message.lastExtended(), now).compareTo(properties.threshold()) >= 0) {
+        log.debug("Extending visibility of message {} by {}.", id, properties.extension());
+        message.visibility().changeToAsync(extensionSeconds)
+            .whenComplete((result, e) -> {
+              if (e != null) {
+                log.warn("Unable to extend visibility of message {}.", id, e);
+              }
+            });
+        extensions.increment();
+        inFlight.replace(id, message, message.extendedAt(now));
+      }
+    });
+  }
+
+  /**
+   * Make all tracked messages visible again immediately, so that messages abandoned on shutdown
+   * are redelivered to another instance without waiting for their visibility timeout to expire.
+   *
+   * @return The number of messages made visible.
+   */
+  int releaseAll() {
+    int released = 0;
+
+    for (Map.Entry<UUID, InFlightMessage> entry : inFlight.entrySet()) {
+      UUID id = entry.getKey();
+      if (inFlight.remove(id, entry.getValue())) {
+        entry.getValue().visibility().changeToAsync(0)
+            .whenComplete((result, e) -> {
+              if (e != null) {
+                log.warn("Unable to release visibility of message {}.", id, e);
+              }
+            });
+        released++;
+      }
+    }
+
+    return released;
+  }
+
+  /**
+   * A message being processed.
+   *
+   * @param visibility   The visibility of the message.
+   * @param received     When the message was received from SQS.
+   * @param lastExtended When the message's visibility was last extended, or when it was received
+   *                     if it has not been extended.
+   */
+  private record InFlightMessage(Visibility visibility, Instant received, Instant lastExtended) {
+
+    /**
+     * Get a copy of the in-flight message with an updated extension time.
+     *
+     * @param extended When the message's visibility was extended.
+     * @return The updated in-flight message.
+     */
+    InFlightMessage extendedAt(Instant extended) {
+      return new InFlightMessage(visibility, received, extended);
+    }
+  }
+}
@@ -21,14 +21,22 @@
 
 package uk.nhs.hee.tis.trainee.ndw.service;
 
-import com.azure.storage.file.datalake.DataLakeDirectoryClient;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties.ExportFormat;
 import uk.nhs.hee.tis.trainee.ndw.dto.FormContentDto;
 import uk.nhs.hee.tis.trainee.ndw.dto.FormEventDto;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 /**
  * An abstract for shared FormService behaviour.
@@ -36,24 +44,66 @@ import uk.nhs.hee.tis.trainee.ndw.dto.FormEventDto;
 @Slf4j
 public abstract class AbstractFormService<T extends FormEventDto> implements FormService<T> {
 
-  private final DataLakeFacade dataLakeFacade;
+  static final String EVENT_DATE_FIELD = "eventDate";
+
+  private final ExportSink sink;
 
   private final String dataLakeRoot;
 
   private final ObjectMapper mapper;
 
+  private final FormParquetWriter parquetWriter;
+
+  private final ParquetBatchWriter parquetBatchWriter;
+
+  private final ExportFormat format;
+
+  private final PayloadCompressor compressor;
+
+  private final Settings compression;
+
+  private final ExportDeduplicator deduplicator;
+
+  private final ExportManifest manifest;
+
+  private final ExportBudget budget;
+
+  private final ExportCoalescer coalescer;
+
   /**
    * Initialise the form service.
    *
-   * @param directory      The root directory.
-   * @param mapper         The object mapper to use.
-   * @param dataLakeFacade The data lake service to use.
+   * @param directory             The root directory.
+   * @param mapper                The object mapper to use.
+   * @param sink                  The sink to export to.
+   * @param parquetWriter         The writer to encode forms as Parquet with.
+   * @param parquetBatchWriter    The writer to batch Parquet forms with.
+   * @param formatProperties      The export format properties.
+   * @param compressor            The compressor to apply to JSON forms.
+   * @param compressionProperties The compression properties.
+   * @param deduplicator          The deduplicator to skip unchanged forms with.
+   * @param manifest              The change log to record exported forms in.
+   * @param budget                The in-flight budget to export forms within.
+   * @param coalescer             The coalescer to combine rapid successive form saves with.
    */
-  AbstractFormService(DataLakeFacade dataLakeFacade,
-      @Value("${application.ndw.directory}") String directory, ObjectMapper mapper) {
+  AbstractFormService(ExportSink sink,
+      @Value("${application.ndw.directory}") String directory, ObjectMapper mapper,
+      FormParquetWriter parquetWriter, ParquetBatchWriter parquetBatchWriter,
+      ExportFormatProperties formatProperties, PayloadCompressor compressor,
+      CompressionProperties compressionProperties, ExportDeduplicator deduplicator,
+      ExportManifest manifest, ExportBudget budget, ExportCoalescer coalescer) {
     this.dataLakeRoot = directory;
-    this.dataLakeFacade = dataLakeFacade;
+    this.sink = sink;
     this.mapper = mapper;
+    this.parquetWriter = parquetWriter;
+    this.parquetBatchWriter = parquetBatchWriter;
+    this.format = formatProperties.forms();
+    this.compressor = compressor;
+    this.compression = compressionProperties.forms();
+    this.deduplicator = deduplicator;
+    this.manifest = manifest;
+    this.budget = budget;
+    this.coalescer = coalescer;
   }
 
   /**
@@ -62,9 +112,10 @@ public abstract class AbstractFormService<T extends FormEventDto> implements For
    * @param formName     The file name of the form.
    * @param formType     The form's type.
    * @param contentBytes The form content to upload.
-   * @return the form content DTO.
+   * @return A future of the form content DTO, which completes when the form has been exported.
    */
-  public FormContentDto exportToDataLake(String formName, String formType, byte[] contentBytes) {
+  public CompletableFuture<FormContentDto> exportToDataLake(String formName, String formType,
+      byte[] contentBytes) {
     try {
       if (contentBytes.length > 0) {
         FormContentDto formContentDto = mapper.readValue(contentBytes, FormContentDto.class);
@@ -75,7 +126,7 @@ public abstract class AbstractFormService<T extends FormEventDto> implements For
     } catch (IOException e) {
       log.warn("Unable to export content for form {} of type {}.", formName, formType);
     }
-    return null;
+    return CompletableFuture.completedFuture(null);
   }
 
   /**
@@ -84,52 +135,109 @@ public abstract class AbstractFormService<T extends FormEventDto> implements For
    * @param formName The file name of the form.
    * @param formType The form's type.
    * @param content  The form content to upload.
-   * @return the form content DTO.
+   * @return A future of the form content DTO, which completes when the form has been exported.
    */
-  public FormContentDto exportToDataLake(String formName, String formType, FormContentDto content) {
-    DataLakeDirectoryClient directoryClient = createSubDirectories(formType);
+  public CompletableFuture<FormContentDto> exportToDataLake(String formName, String formType,
+      FormContentDto content) {
+    String partition = getPartitionName(formType);
 
-    if (directoryClient == null) {
-      return null;
+    if (partition == null) {
+      return CompletableFuture.completedFuture(null);
     }
 
+    String directory = sink.getPartitionDirectory(dataLakeRoot, partition, getEventTime(content));
     FormContentDto formContentDtoClean = null;
 
     try {
       formContentDtoClean = cleanFormContent(content);
-      String cleanedString = mapper.writeValueAsString(formContentDtoClean);
-
       log.info("Exporting form {} of type {}.", formName, formType);
-      dataLakeFacade.saveToDataLake(formName, cleanedString, directoryClient);
+      FormContentDto exported = formContentDtoClean;
+      byte[] cleanedBytes = mapper.writeValueAsBytes(formContentDtoClean);
+
+      String key = partition + "/" + formName;
+      return budget.export(cleanedBytes.length,
+              () -> coalescer.exportCoalesced(key,
+                  () -> deduplicator.exportIfChanged(key, cleanedBytes,
+                      () -> export(formName, partition, exported, cleanedBytes, directory))))
+          .thenApply(v -> exported);
     } catch (IOException e) {
       log.warn("Unable to export content for form {} of type {}.", formName, formType);
     }
-    return formContentDtoClean;
+    return CompletableFuture.completedFuture(formContentDtoClean);
+  }
+
+  /**
+   * Export cleaned form content in the configured format.
+   *
+   * @param formName        The file name of the form.
+   * @param partition       The form partition.
+   * @param content         The cleaned form content.
+   * @param contentBytes    The cleaned form content serialized as JSON.
+   * @param directory       The partition directory to export to.
+   * @return A future which completes when the form has been exported.
+   */
+  private CompletableFuture<Void> export(String formName, String partition,
+      FormContentDto content, byte[] contentBytes, String directory) {
+    if (format == ExportFormat.PARQUET) {
+      return exportParquet(formName, partition, content, directory);
+    }
+
+    Payload payload = compressor.compress(compression, formName, contentBytes,
+        ExportSink.JSON_CONTENT_TYPE);
+    return sink.write(directory, payload)
+        .thenRun(() -> manifest.record(directory, formName, payload));
   }
 
   /**
-   * Create the required subdirectories based on form type and current date.
+   * Export cleaned form content as Parquet, either in a batch or as a single row file.
+   *
+   * @param formName        The file name of the form.
+   * @param partition       The form partition, which the inferred schema is shared across.
+   * @param content         The cleaned form content.
+   * @param directory       The partition directory to export to.
+   * @return A future which completes when the form has been exported, or has failed if the form
+   *     could not be encoded.
+   */
+  private CompletableFuture<Void> exportParquet(String formName, String partition,
+      FormContentDto content, String directory) {
+    if (parquetBatchWriter.isEnabled()) {
+      return parquetBatchWriter.write(directory, FormContentDto.class,
+          forms -> parquetWriter.write(partition, forms), content);
+    }
+
+    byte[] contentBytes;
+    try {
+      contentBytes = parquetWriter.write(partition, List.of(content));
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    String parquetName = formName.replaceFirst("\\.json$", "") + ".parquet";
+    Payload payload = new Payload(parquetName, contentBytes, ExportSink.PARQUET_CONTENT_TYPE, null);
+    return sink.write(directory, payload)
+        .thenRun(() -> manifest.record(directory, formName, payload));
+  }
+
+  /**
+   * Get the partition name based on form type.
    *
    * @param formType The form type being uploaded.
-   * @return The directory client for the required subdirectory, or null if form type not supported.
+   * @return The name of the form partition, or null if form type not supported.
    */
-  private DataLakeDirectoryClient createSubDirectories(String formType) {
-    DataLakeDirectoryClient directoryClient;
+  private String getPartitionName(String formType) {
+    String subDirectory;
 
     switch (formType) {
-      case "formr-a" -> directoryClient = dataLakeFacade
-          .createSubDirectory(dataLakeRoot, "part-a");
-      case "formr-b" -> directoryClient = dataLakeFacade
-          .createSubDirectory(dataLakeRoot, "part-b");
-      case "ltft" -> directoryClient = dataLakeFacade
-          .createSubDirectory(dataLakeRoot, "ltft");
+      case "formr-a" -> subDirectory = "part-a";
+      case "formr-b" -> subDirectory = "part-b";
+      case "ltft" -> subDirectory = "ltft";
       default -> {
         log.error("{} is not an exportable form type.", formType);
         return null;
       }
     }
 
-    return dataLakeFacade.createYearMonthDaySubDirectories(directoryClient);
+    return subDirectory;
   }
 
   /**
@@ -145,6 +253,23 @@ public abstract class AbstractFormService<T extends FormEventDto> implements For
     return cleanFormContentDto;
   }
 
+  /**
+   * Get the event timestamp of a form, from its optional {@value #EVENT_DATE_FIELD} field.
+   *
+   * @param formContentDto The form content.
+   * @return The event timestamp, or null if the form has no valid event date.
+   */
+  private Instant getEventTime(FormContentDto formContentDto) {
+    if (formContentDto.fields.get(EVENT_DATE_FIELD) instanceof String eventDate) {
+      try {
+        return Instant.parse(eventDate);
+      } catch (DateTimeParseException e) {
+        log.warn("Ignoring invalid form event date {}.", eventDate);
+      }
+    }
+    return null;
+  }
+
   /**
    * Remove trailing whitespace from a string object.
    *
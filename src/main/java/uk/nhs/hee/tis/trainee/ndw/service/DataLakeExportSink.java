@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+/**
+ * An export sink which writes to the data lake, this is the default sink.
+ */
+@Component
+@ConditionalOnProperty(name = "application.ndw.sink.type", havingValue = "datalake",
+    matchIfMissing = true)
+public class DataLakeExportSink implements ExportSink {
+
+  private final DataLakeFacade dataLakeFacade;
+
+  private final DataLakeFileSystemClient dataLakeClient;
+
+  DataLakeExportSink(DataLakeFacade dataLakeFacade, DataLakeFileSystemClient dataLakeClient) {
+    this.dataLakeFacade = dataLakeFacade;
+    this.dataLakeClient = dataLakeClient;
+  }
+
+  @Override
+  public String getPartitionDirectory(String root, String name, Instant eventTime) {
+    return dataLakeFacade.getPartitionDirectory(root, name, eventTime).getDirectoryPath();
+  }
+
+  @Override
+  public CompletableFuture<Void> write(String directory, Payload payload) {
+    return dataLakeFacade.saveToDataLake(payload, dataLakeClient.getDirectoryClient(directory));
+  }
+
+  @Override
+  public AppendableFile createAppendableFile(String directory, String filename,
+      String contentType) {
+    DataLakeFileClient fileClient = dataLakeFacade.createFile(
+        dataLakeClient.getDirectoryClient(directory), filename, contentType);
+    return new DataLakeAppendableFile(dataLakeFacade, fileClient);
+  }
+
+  /**
+   * A data lake file which is appended to, with each append also flushing the content.
+   *
+   * @param dataLakeFacade The data lake facade to append with.
+   * @param fileClient     The client of the file.
+   */
+  private record DataLakeAppendableFile(DataLakeFacade dataLakeFacade,
+                                        DataLakeFileClient fileClient) implements AppendableFile {
+
+    @Override
+    public String getPath() {
+      return fileClient.getFilePath();
+    }
+
+    @Override
+    public void append(long offset, byte[] content) {
+      dataLakeFacade.appendToDataLake(fileClient, offset, content);
+    }
+  }
+}
@@ -1,14 +1,43 @@
 package uk.nhs.hee.tis.trainee.ndw.service;
 
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
 import com.azure.storage.file.datalake.DataLakeDirectoryClient;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.DataLakeFileSystemAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClient;
-import java.io.ByteArrayInputStream;
+import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.PathHttpHeaders;
+import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import com.azure.storage.file.datalake.options.FileParallelUploadOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeWriteProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeWriteProperties.WriteMode;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeWriteProperties.WritePrecondition;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSpool.SpoolRecord;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 /**
  * A facade for interactions with the data lake.
@@ -17,29 +46,167 @@ import org.springframework.stereotype.Service;
 @Service
 public class DataLakeFacade {
 
+  private static final ZoneId UTC_ZONE = ZoneId.of("UTC");
+
+  private static final String ETAG_WILDCARD = "*";
+
+  // The SDK upload of a small file is a create, append and flush.
+  private static final int UPLOAD_REQUESTS = 3;
+
   private final DataLakeFileSystemClient dataLakeClient;
 
-  DataLakeFacade(DataLakeFileSystemClient dataLakeClient) {
+  private final DataLakeFileSystemAsyncClient dataLakeAsyncClient;
+
+  private final Clock clock;
+
+  private final DataLakeWriteProperties writeProperties;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ExportSpool spool;
+
+  private final PartitionLayout partitionLayout;
+
+  private final DistributionSummary writeRequests;
+
+  private final Map<PartitionKey, DataLakeDirectoryClient> partitionCache
+      = new ConcurrentHashMap<>();
+
+  private final Counter partitionCacheHits;
+
+  private final Counter partitionCacheMisses;
+
+  private final Counter supersededDeleteFailures;
+
+  private final Set<String> spooledDirectories = ConcurrentHashMap.newKeySet();
+
+  private volatile LocalDate partitionCacheDay;
+
+  DataLakeFacade(DataLakeFileSystemClient dataLakeClient,
+      DataLakeFileSystemAsyncClient dataLakeAsyncClient, Clock clock,
+      DataLakeWriteProperties writeProperties, MeterRegistry meterRegistry, ExportSpool spool,
+      PartitionLayout partitionLayout) {
     this.dataLakeClient = dataLakeClient;
+    this.dataLakeAsyncClient = dataLakeAsyncClient;
+    this.clock = clock;
+    this.writeProperties = writeProperties;
+    this.meterRegistry = meterRegistry;
+    this.spool = spool;
+    this.partitionLayout = partitionLayout;
+
+    partitionCacheHits = Counter.builder("ndw.partition.cache")
+        .description("The number of partition directory lookups served from the cache.")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    partitionCacheMisses = Counter.builder("ndw.partition.cache")
+        .description("The number of partition directory lookups which required lake calls.")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    supersededDeleteFailures = Counter.builder("ndw.datalake.superseded.delete.failures")
+        .description("The number of superseded files which could not be deleted.")
+        .register(meterRegistry);
+    meterRegistry.gaugeMapSize("ndw.partition.cache.size", Tags.empty(), partitionCache);
+    writeRequests = DistributionSummary.builder("ndw.datalake.requests.per.write")
+        .description("The number of data lake requests made to write a single file.")
+        .tag("mode", writeProperties.mode().name())
+        .register(meterRegistry);
+  }
+
+  /**
+   * Get the partition directory for the given root, name and event time, the directories are
+   * only created on the first request for each partition and then served from a cache.
+   *
+   * <p>When spooling is enabled the directories are not created until a spooled file is uploaded,
+   * so that a data lake outage does not fail the export.
+   *
+   * @param root      The root directory.
+   * @param name      The name of the subdirectory to partition.
+   * @param eventTime The timestamp of the event being exported, may be null.
+   * @return The directory client for the partition subdirectory.
+   */
+  public DataLakeDirectoryClient getPartitionDirectory(String root, String name,
+      Instant eventTime) {
+    Instant now = clock.instant();
+    evictExpiredPartitions(LocalDate.ofInstant(now, UTC_ZONE));
+
+    Instant partitionStart = partitionLayout.getPartitionStart(eventTime, now);
+    PartitionKey key = new PartitionKey(root, name, partitionStart);
+    DataLakeDirectoryClient directoryClient = partitionCache.get(key);
+
+    if (directoryClient != null) {
+      partitionCacheHits.increment();
+      return directoryClient;
+    }
+
+    // The directories are created outside the map, so that lake requests do not block other
+    // threads' lookups. Creation is idempotent, so a concurrent miss for the same partition only
+    // repeats the requests and the first client published is kept.
+    partitionCacheMisses.increment();
+    DataLakeDirectoryClient created;
+
+    if (writeProperties.mode() == WriteMode.MINIMAL || spool.isEnabled()) {
+      // File creation, or the spool drain, will create any missing parent directories.
+      created = dataLakeClient.getDirectoryClient(root).getSubdirectoryClient(name);
+
+      for (String subdirectory : partitionLayout.getSubdirectories(partitionStart)) {
+        created = created.getSubdirectoryClient(subdirectory);
+      }
+    } else {
+      log.debug("Creating partition directories for {}/{} at {}.", root, name, partitionStart);
+      created = createPartitionSubDirectories(createSubDirectory(root, name), partitionStart);
+    }
+
+    DataLakeDirectoryClient existing = partitionCache.putIfAbsent(key, created);
+    return existing == null ? created : existing;
   }
 
   /**
-   * Create the required year-month-day subdirectories based on current date.
+   * Remove any cached partitions from before the given day, called on every lookup so that the
+   * cache rolls over at UTC midnight.
    *
-   * @return The directory client for the day subdirectory.
+   * @param day The current day.
    */
-  public DataLakeDirectoryClient createYearMonthDaySubDirectories(
-      DataLakeDirectoryClient root) {
-    Instant now = Instant.now();
-    ZoneId utcZone = ZoneId.of("UTC");
+  private void evictExpiredPartitions(LocalDate day) {
+    if (!day.equals(partitionCacheDay)) {
+      synchronized (partitionCache) {
+        if (!day.equals(partitionCacheDay)) {
+          Instant dayStart = day.atStartOfDay(UTC_ZONE).toInstant();
+          partitionCache.keySet().removeIf(key -> key.partitionStart().isBefore(dayStart));
+          spooledDirectories.clear();
+          partitionCacheDay = day;
+        }
+      }
+    }
+  }
 
-    return root
-        .createSubdirectoryIfNotExists(
-            DateTimeFormatter.ofPattern("'year='yyyy").withZone(utcZone).format(now))
-        .createSubdirectoryIfNotExists(
-            DateTimeFormatter.ofPattern("'month='yyyyMM").withZone(utcZone).format(now))
-        .createSubdirectoryIfNotExists(
-            DateTimeFormatter.ofPattern("'day='yyyyMMdd").withZone(utcZone).format(now));
+  /**
+   * Create the required partition subdirectories based on the current time.
+   *
+   * @param root The directory to create the subdirectories in.
+   * @return The directory client for the partition subdirectory.
+   */
+  public DataLakeDirectoryClient createPartitionSubDirectories(DataLakeDirectoryClient root) {
+    return createPartitionSubDirectories(root,
+        partitionLayout.getPartitionStart(null, clock.instant()));
+  }
+
+  /**
+   * Create the required partition subdirectories for the given partition.
+   *
+   * @param root           The directory to create the subdirectories in.
+   * @param partitionStart The start of the partition to create the subdirectories for.
+   * @return The directory client for the partition subdirectory.
+   */
+  private DataLakeDirectoryClient createPartitionSubDirectories(DataLakeDirectoryClient root,
+      Instant partitionStart) {
+    List<String> subdirectories = partitionLayout.getSubdirectories(partitionStart);
+    countRequests("create-directory", subdirectories.size());
+    DataLakeDirectoryClient directoryClient = root;
+
+    for (String subdirectory : subdirectories) {
+      directoryClient = directoryClient.createSubdirectoryIfNotExists(subdirectory);
+    }
+    return directoryClient;
   }
 
   /**
@@ -48,26 +215,460 @@ public class DataLakeFacade {
    * @return The directory client for the required subdirectory.
    */
   public DataLakeDirectoryClient createSubDirectory(String root, String name) {
-
+    countRequests("create-directory", 1);
     return dataLakeClient
         .getDirectoryClient(root)
         .createSubdirectoryIfNotExists(name);
   }
 
   /**
-   * Save a file to the data lake.
+   * Save a file to the data lake, applying the configured write precondition.
    *
    * @param filename The filename to use.
    * @param content  The file content.
+   * @return A future which completes when the file has been written, already completed unless
+   *     asynchronous writes are enabled.
    */
-  public void saveToDataLake(String filename, String content,
+  public CompletableFuture<Void> saveToDataLake(String filename, String content,
       DataLakeDirectoryClient directoryClient) {
-    byte[] cleanedBytes = content.getBytes(StandardCharsets.UTF_8);
+    return saveToDataLake(filename, content, directoryClient, getDefaultConditions());
+  }
+
+  /**
+   * Save a file to the data lake.
+   *
+   * <p>The request conditions, e.g. an If-Match ETag, are only applied in
+   * {@link WriteMode#MINIMAL} mode, as the standard mode always creates the file first.
+   *
+   * @param filename   The filename to use.
+   * @param content    The file content.
+   * @param conditions The request conditions to apply when creating the file.
+   * @return A future which completes when the file has been written, already completed unless
+   *     asynchronous writes are enabled.
+   */
+  public CompletableFuture<Void> saveToDataLake(String filename, String content,
+      DataLakeDirectoryClient directoryClient, DataLakeRequestConditions conditions) {
+    return saveToDataLake(filename, content.getBytes(StandardCharsets.UTF_8),
+        ExportSink.JSON_CONTENT_TYPE, directoryClient, conditions);
+  }
+
+  /**
+   * Save a binary file to the data lake, applying the configured write precondition.
+   *
+   * @param filename    The filename to use.
+   * @param content     The file content.
+   * @param contentType The content type of the file.
+   * @return A future which completes when the file has been written, already completed unless
+   *     asynchronous writes are enabled.
+   */
+  public CompletableFuture<Void> saveToDataLake(String filename, byte[] content,
+      String contentType, DataLakeDirectoryClient directoryClient) {
+    return saveToDataLake(filename, content, contentType, directoryClient,
+        getDefaultConditions());
+  }
+
+  /**
+   * Save a binary file to the data lake.
+   *
+   * <p>The request conditions, e.g. an If-Match ETag, are only applied in
+   * {@link WriteMode#MINIMAL} mode, as the standard mode always creates the file first.
+   *
+   * @param filename    The filename to use.
+   * @param content     The file content.
+   * @param contentType The content type of the file.
+   * @param conditions  The request conditions to apply when creating the file.
+   * @return A future which completes when the file has been written, already completed unless
+   *     asynchronous writes are enabled.
+   */
+  public CompletableFuture<Void> saveToDataLake(String filename, byte[] content,
+      String contentType, DataLakeDirectoryClient directoryClient,
+      DataLakeRequestConditions conditions) {
+    PathHttpHeaders headers = new PathHttpHeaders().setContentType(contentType);
+    return saveToDataLake(filename, content, headers, directoryClient, conditions, List.of());
+  }
+
+  /**
+   * Save a possibly compressed payload to the data lake, applying the configured write
+   * precondition, then delete any files the payload supersedes once it has been uploaded.
+   *
+   * @param payload         The payload to save, the content encoding is stored with the file.
+   * @param directoryClient The directory to save the file to.
+   * @return A future which completes when the file has been written, already completed unless
+   *     asynchronous writes are enabled.
+   */
+  public CompletableFuture<Void> saveToDataLake(Payload payload,
+      DataLakeDirectoryClient directoryClient) {
+    PathHttpHeaders headers = new PathHttpHeaders()
+        .setContentType(payload.contentType())
+        .setContentEncoding(payload.contentEncoding());
+    return saveToDataLake(payload.filename(), payload.content(), headers, directoryClient,
+        getDefaultConditions(), payload.superseded());
+  }
+
+  /**
+   * Save a file to the data lake with the given HTTP headers, if spooling is enabled then the file
+   * is appended to the spool and uploaded later.
+   *
+   * @param filename        The filename to use.
+   * @param content         The file content.
+   * @param headers         The HTTP headers to store with the file.
+   * @param directoryClient The directory to save the file to.
+   * @param conditions      The request conditions to apply when creating the file.
+   * @param superseded      The other filenames in the directory to delete once uploaded.
+   * @return A future which completes when the file has been written, or durably spooled.
+   */
+  private CompletableFuture<Void> saveToDataLake(String filename, byte[] content,
+      PathHttpHeaders headers, DataLakeDirectoryClient directoryClient,
+      DataLakeRequestConditions conditions, List<String> superseded) {
+    if (spool.isEnabled()) {
+      try {
+        spool.append(new SpoolRecord(directoryClient.getDirectoryPath(), filename,
+            headers.getContentType(), headers.getContentEncoding(), conditions.getIfNoneMatch(),
+            content, superseded));
+        return CompletableFuture.completedFuture(null);
+      } catch (IOException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    return upload(filename, content, headers, directoryClient, conditions, superseded);
+  }
+
+  /**
+   * Upload a previously spooled file to the data lake, in standard mode the file's directory is
+   * created on the first upload to it.
+   *
+   * @param rec The spooled file.
+   * @return A future which completes when the file has been written.
+   */
+  public CompletableFuture<Void> uploadSpooled(SpoolRecord rec) {
+    PathHttpHeaders headers = new PathHttpHeaders()
+        .setContentType(rec.contentType())
+        .setContentEncoding(rec.contentEncoding());
+    DataLakeRequestConditions conditions = new DataLakeRequestConditions()
+        .setIfNoneMatch(rec.ifNoneMatch());
+    DataLakeDirectoryClient directoryClient = dataLakeClient.getDirectoryClient(
+        rec.directoryPath());
+
+    if (writeProperties.mode() == WriteMode.STANDARD
+        && !spooledDirectories.contains(rec.directoryPath())) {
+      // Creating the directory also creates any missing parent directories.
+      directoryClient.createIfNotExists();
+      countRequests("create-directory", 1);
+      spooledDirectories.add(rec.directoryPath());
+    }
+
+    return upload(rec.filename(), rec.content(), headers, directoryClient, conditions,
+        rec.superseded());
+  }
+
+  /**
+   * Upload a file to the data lake with the given HTTP headers, then delete any files it
+   * supersedes.
+   *
+   * <p>The superseded files are deleted without blocking, asynchronous writes complete once the
+   * deletes have been attempted while synchronous writes do not wait for them.
+   *
+   * @param filename        The filename to use.
+   * @param content         The file content.
+   * @param headers         The HTTP headers to store with the file.
+   * @param directoryClient The directory to save the file to.
+   * @param conditions      The request conditions to apply when creating the file.
+   * @param superseded      The other filenames in the directory to delete once uploaded.
+   * @return A future which completes when the file has been written.
+   */
+  private CompletableFuture<Void> upload(String filename, byte[] content, PathHttpHeaders headers,
+      DataLakeDirectoryClient directoryClient, DataLakeRequestConditions conditions,
+      List<String> superseded) {
+    String directoryPath = directoryClient.getDirectoryPath();
+
+    if (writeProperties.async()) {
+      DataLakeFileAsyncClient fileClient
+          = dataLakeAsyncClient.getFileClient(directoryPath + "/" + filename);
+      Mono<Integer> write = writeProperties.mode() == WriteMode.MINIMAL
+          ? writeMinimalAsync(fileClient, content, headers, conditions)
+          : writeStandardAsync(fileClient, content, headers);
+
+      return write
+          .doOnNext(requests -> onExported(filename, directoryPath, requests))
+          .then(deleteSuperseded(directoryPath, superseded))
+          .toFuture();
+    }
+
+    int requests;
+
+    if (writeProperties.mode() == WriteMode.MINIMAL) {
+      requests = writeMinimal(filename, content, headers, directoryClient, conditions);
+    } else {
+      FileParallelUploadOptions options
+          = new FileParallelUploadOptions(BinaryData.fromBytes(content)).setHeaders(headers);
+      directoryClient
+          .createFileIfNotExists(filename)
+          .uploadWithResponse(options, null, Context.NONE);
+      countRequests("create-file", 1);
+      countRequests("upload", UPLOAD_REQUESTS);
+      requests = 1 + UPLOAD_REQUESTS;
+    }
+
+    onExported(filename, directoryPath, requests);
+    deleteSuperseded(directoryPath, superseded).subscribe();
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Delete files superseded by a written file, such as the uncompressed variant of a compressed
+   * file. A failed delete only leaves a stale copy of the record, so it is logged rather than
+   * failing the export.
+   *
+   * @param directoryPath The path of the directory containing the files.
+   * @param superseded    The names of the files to delete.
+   * @return A mono which completes once every delete has been attempted, it never errors.
+   */
+  private Mono<Void> deleteSuperseded(String directoryPath, List<String> superseded) {
+    return Flux.fromIterable(superseded)
+        .flatMap(filename -> dataLakeAsyncClient.getFileClient(directoryPath + "/" + filename)
+            .deleteIfExists()
+            .doOnTerminate(() -> countRequests("delete-file", 1))
+            .onErrorResume(e -> {
+              log.warn("Unable to delete superseded file {} at path {}.", filename,
+                  directoryPath, e);
+              supersededDeleteFailures.increment();
+              return Mono.empty();
+            }))
+        .then();
+  }
+
+  /**
+   * Get the request conditions for the configured write precondition.
+   *
+   * @return The request conditions.
+   */
+  private DataLakeRequestConditions getDefaultConditions() {
+    DataLakeRequestConditions conditions = new DataLakeRequestConditions();
+
+    if (writeProperties.precondition() == WritePrecondition.IF_NONE_MATCH) {
+      conditions.setIfNoneMatch(ETAG_WILDCARD);
+    }
+
+    return conditions;
+  }
+
+  /**
+   * Create, or overwrite, an empty file for appending to.
+   *
+   * @param directoryClient The directory to create the file in.
+   * @param filename        The name of the file to create.
+   * @param contentType     The content type of the file.
+   * @return The client for the created file.
+   */
+  public DataLakeFileClient createFile(DataLakeDirectoryClient directoryClient, String filename,
+      String contentType) {
+    DataLakeFileClient fileClient = directoryClient.getFileClient(filename);
+    PathHttpHeaders headers = new PathHttpHeaders().setContentType(contentType);
+    fileClient.createWithResponse(null, null, headers, null, null, null, Context.NONE);
+    countRequests("create-file", 1);
+    log.info("Created file {} at path {}.", filename, directoryClient.getDirectoryPath());
+    return fileClient;
+  }
+
+  /**
+   * Append content to an existing file, flushing it in the same request.
+   *
+   * @param fileClient The client of the file to append to.
+   * @param offset     The offset to append at, which must be the current length of the file.
+   * @param bytes      The content to append.
+   */
+  public void appendToDataLake(DataLakeFileClient fileClient, long offset, byte[] bytes) {
+    fileClient.appendWithResponse(BinaryData.fromBytes(bytes), offset,
+        new DataLakeFileAppendOptions().setFlush(true), null, Context.NONE);
+    countRequests("append", 1);
+    log.info("Appended {} bytes to file {}.", bytes.length, fileClient.getFilePath());
+  }
+
+  /**
+   * Record the completion of a file export.
+   *
+   * @param filename      The exported filename.
+   * @param directoryPath The path of the directory the file was exported to.
+   * @param requests      The number of requests made to export the file.
+   */
+  private void onExported(String filename, String directoryPath, int requests) {
+    writeRequests.record(requests);
+    log.info("Exported file {} to path {}.", filename, directoryPath);
+  }
+
+  /**
+   * Write a file with the fewest possible requests, a conditional create followed by a single
+   * append which also flushes the content.
+   *
+   * <p>If a conditional create fails because the file exists then its length is checked, an empty
+   * file was left by an earlier write which failed between the create and append so the content is
+   * appended rather than skipped.
+   *
+   * @param filename        The filename to use.
+   * @param bytes           The file content.
+   * @param headers         The HTTP headers to create the file with.
+   * @param directoryClient The directory to write the file to.
+   * @param conditions      The request conditions to apply when creating the file.
+   * @return The number of requests made.
+   */
+  private int writeMinimal(String filename, byte[] bytes, PathHttpHeaders headers,
+      DataLakeDirectoryClient directoryClient, DataLakeRequestConditions conditions) {
+    DataLakeFileClient fileClient = directoryClient.getFileClient(filename);
+    int requests = 1;
+
+    try {
+      fileClient.createWithResponse(null, null, headers, null, conditions, null, Context.NONE);
+      countRequests("create-file", 1);
+    } catch (DataLakeStorageException e) {
+      countRequests("create-file", 1);
+
+      if (!isAlreadyExported(e, conditions)) {
+        throw e;
+      }
+
+      long existingSize = fileClient.getProperties().getFileSize();
+      countRequests("get-properties", 1);
+      requests++;
+
+      if (existingSize > 0 || bytes.length == 0) {
+        log.info("File {} already exists at path {}, skipping.", filename,
+            directoryClient.getDirectoryPath());
+        return requests;
+      }
+      log.warn("File {} already exists at path {} but is empty, rewriting.", filename,
+          directoryClient.getDirectoryPath());
+    }
+
+    if (bytes.length > 0) {
+      fileClient.appendWithResponse(BinaryData.fromBytes(bytes), 0,
+          new DataLakeFileAppendOptions().setFlush(true), null, Context.NONE);
+      countRequests("append", 1);
+      requests++;
+    }
+    return requests;
+  }
+
+  /**
+   * Write a file without blocking, creating the file and then uploading with overwrite.
+   *
+   * @param fileClient The client for the file to write.
+   * @param bytes      The file content.
+   * @param headers    The HTTP headers to upload the file with.
+   * @return The number of requests made, once the write has completed.
+   */
+  private Mono<Integer> writeStandardAsync(DataLakeFileAsyncClient fileClient, byte[] bytes,
+      PathHttpHeaders headers) {
+    FileParallelUploadOptions options
+        = new FileParallelUploadOptions(Flux.just(ByteBuffer.wrap(bytes))).setHeaders(headers);
+    return fileClient.createIfNotExists()
+        .doOnTerminate(() -> countRequests("create-file", 1))
+        .then(fileClient.uploadWithResponse(options))
+        .doOnTerminate(() -> countRequests("upload", UPLOAD_REQUESTS))
+        .thenReturn(1 + UPLOAD_REQUESTS);
+  }
+
+  /**
+   * Write a file without blocking, with a conditional create followed by a single append which
+   * also flushes the content, an existing empty file is written as in
+   * {@link #writeMinimal(String, byte[], PathHttpHeaders, DataLakeDirectoryClient,
+   * DataLakeRequestConditions)}.
+   *
+   * @param fileClient The client for the file to write.
+   * @param bytes      The file content.
+   * @param headers    The HTTP headers to create the file with.
+   * @param conditions The request conditions to apply when creating the file.
+   * @return The number of requests made, once the write has completed.
+   */
+  private Mono<Integer> writeMinimalAsync(DataLakeFileAsyncClient fileClient, byte[] bytes,
+      PathHttpHeaders headers, DataLakeRequestConditions conditions) {
+    Mono<MinimalCreate> created = fileClient
+        .createWithResponse(null, null, headers, null, conditions)
+        .doOnTerminate(() -> countRequests("create-file", 1))
+        .thenReturn(new MinimalCreate(true, 1))
+        .onErrorResume(DataLakeStorageException.class, e -> {
+          if (!isAlreadyExported(e, conditions)) {
+            return Mono.error(e);
+          }
+
+          return fileClient.getProperties()
+              .doOnTerminate(() -> countRequests("get-properties", 1))
+              .map(properties -> {
+                if (properties.getFileSize() > 0 || bytes.length == 0) {
+                  log.info("File {} already exists, skipping.", fileClient.getFilePath());
+                  return new MinimalCreate(false, 2);
+                }
+                log.warn("File {} already exists but is empty, rewriting.",
+                    fileClient.getFilePath());
+                return new MinimalCreate(true, 2);
+              });
+        });
+
+    return created.flatMap(create -> {
+      if (!create.write() || bytes.length == 0) {
+        return Mono.just(create.requests());
+      }
+
+      return fileClient.appendWithResponse(Flux.just(ByteBuffer.wrap(bytes)), 0, bytes.length,
+              new DataLakeFileAppendOptions().setFlush(true))
+          .doOnTerminate(() -> countRequests("append", 1))
+          .thenReturn(create.requests() + 1);
+    });
+  }
+
+  /**
+   * Whether a failed file creation means that the file was already exported, only possible when
+   * the create was conditional on the file not existing.
+   *
+   * @param e          The exception thrown on creation.
+   * @param conditions The request conditions applied to the creation.
+   * @return true if the file already existed and the creation was conditional on it not existing.
+   */
+  private boolean isAlreadyExported(DataLakeStorageException e,
+      DataLakeRequestConditions conditions) {
+    return ETAG_WILDCARD.equals(conditions.getIfNoneMatch()) && isConflict(e);
+  }
+
+  /**
+   * Whether a storage exception was caused by the target already existing.
+   *
+   * @param e The exception to check.
+   * @return true if the status code was 409 (Conflict) or 412 (Precondition Failed).
+   */
+  private boolean isConflict(DataLakeStorageException e) {
+    int status = e.getStatusCode();
+    return status == HttpStatus.CONFLICT.value()
+        || status == HttpStatus.PRECONDITION_FAILED.value();
+  }
+
+  /**
+   * Count requests made to the data lake.
+   *
+   * @param operation The operation performed.
+   * @param count     The number of requests made.
+   */
+  private void countRequests(String operation, int count) {
+    meterRegistry.counter("ndw.datalake.requests", "operation", operation).increment(count);
+  }
+
+  /**
+   * The outcome of a minimal mode file creation.
+   *
+   * @param write    Whether the content should be written to the file.
+   * @param requests The number of requests made to create the file.
+   */
+  private record MinimalCreate(boolean write, int requests) {
+
+  }
+
+  /**
+   * A key for a cached partition directory.
+   *
+   * @param root           The root directory.
+   * @param name           The name of the partitioned subdirectory.
+   * @param partitionStart The start of the partition.
+   */
+  private record PartitionKey(String root, String name, Instant partitionStart) {
 
-    ByteArrayInputStream cleanStream = new ByteArrayInputStream(cleanedBytes);
-    directoryClient
-        .createFileIfNotExists(filename)
-        .upload(cleanStream, cleanedBytes.length, true);
-    log.info("Exported file {} to path {}.", filename, directoryClient.getDirectoryPath());
   }
 }
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * An HTTP pipeline policy which records the latency of every data lake request attempt, tagged
+ * with the request method and response status.
+ */
+@Component
+public class DataLakeHttpMetricsPolicy implements HttpPipelinePolicy {
+
+  private static final String ERROR_STATUS = "IO_ERROR";
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Initialise the data lake HTTP metrics policy.
+   *
+   * @param meterRegistry The registry to record request latency with.
+   */
+  DataLakeHttpMetricsPolicy(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public HttpPipelinePosition getPipelinePosition() {
+    return HttpPipelinePosition.PER_RETRY;
+  }
+
+  @Override
+  public Mono<HttpResponse> process(HttpPipelineCallContext context,
+      HttpPipelineNextPolicy next) {
+    return Mono.defer(() -> {
+      String method = context.getHttpRequest().getHttpMethod().name();
+      Timer.Sample sample = Timer.start(meterRegistry);
+
+      return next.process()
+          .doOnNext(response -> sample.stop(getTimer(method, response.getStatusCode())))
+          .doOnError(e -> sample.stop(getTimer(method, ERROR_STATUS)));
+    });
+  }
+
+  @Override
+  public HttpResponse processSync(HttpPipelineCallContext context,
+      HttpPipelineNextSyncPolicy next) {
+    String method = context.getHttpRequest().getHttpMethod().name();
+    Timer.Sample sample = Timer.start(meterRegistry);
+
+    try {
+      HttpResponse response = next.processSync();
+      sample.stop(getTimer(method, response.getStatusCode()));
+      return response;
+    } catch (RuntimeException e) {
+      sample.stop(getTimer(method, ERROR_STATUS));
+      throw e;
+    }
+  }
+
+  private Timer getTimer(String method, int status) {
+    return getTimer(method, String.valueOf(status));
+  }
+
+  private Timer getTimer(String method, String status) {
+    return Timer.builder("ndw.datalake.http.requests")
+        .description("The latency of data lake request attempts.")
+        .tag("method", method)
+        .tag("status", status)
+        .register(meterRegistry);
+  }
+}
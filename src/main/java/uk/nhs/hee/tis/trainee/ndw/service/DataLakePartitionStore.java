@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.ListPathsOptions;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * A partition store backed by the data lake, the endpoint may also be pointed at a local Azurite
+ * emulator.
+ */
+@Component
+public class DataLakePartitionStore implements PartitionStore {
+
+  private final DataLakeFileSystemClient dataLakeClient;
+
+  DataLakePartitionStore(DataLakeFileSystemClient dataLakeClient) {
+    this.dataLakeClient = dataLakeClient;
+  }
+
+  @Override
+  public List<StoredFile> listFiles(String directory) {
+    ListPathsOptions options = new ListPathsOptions().setPath(directory).setRecursive(false);
+
+    try {
+      return dataLakeClient.listPaths(options, null).stream()
+          .filter(path -> !path.isDirectory())
+          .map(path -> new StoredFile(path.getName(), path.getContentLength(),
+              path.getLastModified()))
+          .toList();
+    } catch (DataLakeStorageException e) {
+      if (e.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+        return List.of();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public byte[] read(String path) {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    dataLakeClient.getFileClient(path).read(content);
+    return content.toByteArray();
+  }
+
+  @Override
+  public void write(String path, byte[] content) {
+    dataLakeClient.getFileClient(path)
+        .upload(new ByteArrayInputStream(content), content.length, true);
+  }
+
+  @Override
+  public void delete(String path) {
+    dataLakeClient.getFileClient(path).deleteIfExists();
+  }
+
+  @Override
+  public boolean exists(String path) {
+    return dataLakeClient.getFileClient(path).exists();
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import uk.nhs.hee.tis.trainee.ndw.config.RateLimitProperties;
+
+/**
+ * A shared rate limiter for data lake requests, which adapts the permitted rate to throttling by
+ * the data lake with additive increase and multiplicative decrease (AIMD).
+ *
+ * <p>The limiter is added to the data lake clients' HTTP pipelines after the retry policy, so
+ * that every attempt made by any client, including the SDK's own retries, is paced by the same
+ * rate and every throttled response decreases it.
+ */
+@Slf4j
+@Component
+public class DataLakeRateLimiter implements HttpPipelinePolicy {
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final RateLimitProperties properties;
+
+  private final Clock clock;
+
+  private final Counter rejections;
+
+  private final Timer waits;
+
+  private final MeterRegistry meterRegistry;
+
+  private double rate;
+
+  private long nextPermitNanos;
+
+  private long lastDecreaseNanos = Long.MIN_VALUE;
+
+  /**
+   * Initialise the data lake rate limiter.
+   *
+   * @param properties    The rate limit properties.
+   * @param clock         The clock to pace requests with.
+   * @param meterRegistry The registry to record rate limit metrics with.
+   */
+  DataLakeRateLimiter(RateLimitProperties properties, Clock clock, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+    this.rate = properties.initialRate();
+
+    Gauge.builder("ndw.datalake.rate.limit", this, DataLakeRateLimiter::getRate)
+        .description("The currently permitted data lake requests per second.")
+        .register(meterRegistry);
+    rejections = Counter.builder("ndw.datalake.rate.rejections")
+        .description("The number of data lake requests rejected by the rate limiter.")
+        .register(meterRegistry);
+    waits = Timer.builder("ndw.datalake.rate.wait")
+        .description("The time data lake requests waited for a rate limit permit.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether rate limiting is enabled, if not then the limiter should not be added to clients.
+   *
+   * @return true if rate limiting is enabled.
+   */
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  @Override
+  public HttpPipelinePosition getPipelinePosition() {
+    return HttpPipelinePosition.PER_RETRY;
+  }
+
+  @Override
+  public Mono<HttpResponse> process(HttpPipelineCallContext context,
+      HttpPipelineNextPolicy next) {
+    return Mono.defer(() -> {
+      Duration wait = acquire();
+
+      if (wait == null) {
+        return Mono.error(new RateLimitExceededException(properties.maxWait()));
+      }
+
+      Mono<HttpResponse> response = next.process().doOnNext(this::onResponse);
+      return wait.isZero() ? response : Mono.delay(wait).then(response);
+    });
+  }
+
+  @Override
+  public HttpResponse processSync(HttpPipelineCallContext context,
+      HttpPipelineNextSyncPolicy next) {
+    Duration wait = acquire();
+
+    if (wait == null) {
+      throw new RateLimitExceededException(properties.maxWait());
+    }
+
+    if (!wait.isZero()) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(wait.toNanos());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted waiting for a rate limit permit.", e);
+      }
+    }
+
+    HttpResponse response = next.processSync();
+    onResponse(response);
+    return response;
+  }
+
+  /**
+   * Reserve the next permit at the current rate.
+   *
+   * @return How long to wait before the permit can be used, or null if the wait would exceed the
+   *     maximum and the request was rejected.
+   */
+  synchronized Duration acquire() {
+    long now = nanoTime();
+    long permit = Math.max(now, nextPermitNanos);
+    long waitNanos = permit - now;
+
+    if (waitNanos > properties.maxWait().toNanos()) {
+      rejections.increment();
+      return null;
+    }
+
+    nextPermitNanos = permit + (long) (NANOS_PER_SECOND / rate);
+    waits.record(waitNanos, TimeUnit.NANOSECONDS);
+    return Duration.ofNanos(waitNanos);
+  }
+
+  /**
+   * Adapt the rate to a data lake response, decreasing it if the request was throttled and
+   * increasing it otherwise.
+   *
+   * @param response The data lake response.
+   */
+  void onResponse(HttpResponse response) {
+    int status = response.getStatusCode();
+
+    if (status == HttpStatus.TOO_MANY_REQUESTS.value()
+        || status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+      meterRegistry.counter("ndw.datalake.rate.throttled", "status", String.valueOf(status))
+          .increment();
+      decrease();
+    } else if (status < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+      increase();
+    }
+  }
+
+  /**
+   * Multiplicatively decrease the rate, unless it was decreased within the cooldown.
+   */
+  private synchronized void decrease() {
+    long now = nanoTime();
+
+    if (lastDecreaseNanos != Long.MIN_VALUE
+        && now - lastDecreaseNanos < properties.decreaseCooldown().toNanos()) {
+      return;
+    }
+
+    lastDecreaseNanos = now;
+    double previous = rate;
+    rate = Math.max(properties.minRate(), rate * properties.decreaseFactor());
+    log.info("Data lake request throttled, decreased rate from {} to {} per second.", previous,
+        rate);
+  }
+
+  /**
+   * Additively increase the rate, in proportion to the rate so that the rate grows by the
+   * configured increase for each second of successful requests.
+   */
+  private synchronized void increase() {
+    rate = Math.min(properties.maxRate(), rate + properties.increase() / rate);
+  }
+
+  /**
+   * Get the currently permitted rate.
+   *
+   * @return The permitted requests per second.
+   */
+  synchronized double getRate() {
+    return rate;
+  }
+
+  private long nanoTime() {
+    Instant now = clock.instant();
+    return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+  }
+
+  /**
+   * An exception thrown when a data lake request is rejected, as it would have to wait longer than
+   * the maximum for a rate limit permit.
+   */
+  public static class RateLimitExceededException extends RuntimeException {
+
+    /**
+     * Create an exception for a request rejected by the rate limiter.
+     *
+     * @param maxWait The maximum wait which would have been exceeded.
+     */
+    RateLimitExceededException(Duration maxWait) {
+      super("Data lake request rate limited for longer than " + maxWait + ".");
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.BackpressureProperties;
+
+/**
+ * An in-flight message count and byte budget shared by the SQS listener containers and the export
+ * stage.
+ *
+ * <p>Budget is reserved when an export starts and only released once the export completes,
+ * including any time spent waiting in a batch or for a data lake upload. Exports never wait for
+ * budget, instead the listener containers' pollers wait for it before polling, so no further
+ * messages are received until uploads drain. The budget may be overshot by the messages of the
+ * polls already in progress when it is exhausted.
+ */
+@Slf4j
+@Component
+public class ExportBudget {
+
+  private final BackpressureProperties properties;
+
+  private final Lock lock = new ReentrantLock();
+
+  private final Condition released = lock.newCondition();
+
+  private final Timer paused;
+
+  private long inFlightMessages;
+
+  private long inFlightBytes;
+
+  /**
+   * Initialise the export budget.
+   *
+   * @param properties    The backpressure properties.
+   * @param meterRegistry The registry to record budget metrics with.
+   */
+  ExportBudget(BackpressureProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+
+    Gauge.builder("ndw.backpressure.in.flight.messages", this, ExportBudget::getInFlightMessages)
+        .description("The number of messages currently being exported.")
+        .register(meterRegistry);
+    Gauge.builder("ndw.backpressure.in.flight.bytes", this, ExportBudget::getInFlightBytes)
+        .description("The total size of the messages currently being exported.")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    paused = Timer.builder("ndw.backpressure.paused")
+        .description("The time listener polling was paused waiting for export budget.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether the budget is enabled, if not then exports are not tracked and polling is never
+   * paused.
+   *
+   * @return true if the budget is enabled.
+   */
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  /**
+   * Run an export within the budget, the export is started straight away even if the budget is
+   * exhausted.
+   *
+   * @param bytes  The size of the message being exported.
+   * @param export The export to run.
+   * @param <T>    The type of the export result.
+   * @return The export's future, the budget is released when it completes.
+   */
+  public <T> CompletableFuture<T> export(long bytes, Supplier<CompletableFuture<T>> export) {
+    if (!properties.enabled()) {
+      return export.get();
+    }
+
+    reserve(bytes);
+
+    CompletableFuture<T> future;
+    try {
+      future = export.get();
+    } catch (RuntimeException e) {
+      release(bytes);
+      throw e;
+    }
+    return future.whenComplete((result, e) -> release(bytes));
+  }
+
+  /**
+   * Wait for budget to be available before polling for more messages, for at most the configured
+   * poll wait.
+   *
+   * @return true if budget is available, false if it is still exhausted after the poll wait.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public boolean awaitBudget() throws InterruptedException {
+    if (!properties.enabled()) {
+      return true;
+    }
+
+    lock.lock();
+    try {
+      if (!isExhausted()) {
+        return true;
+      }
+
+      long start = System.nanoTime();
+      long remainingNanos = properties.pollWait().toNanos();
+
+      try {
+        while (isExhausted() && remainingNanos > 0) {
+          remainingNanos = released.awaitNanos(remainingNanos);
+        }
+      } finally {
+        paused.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+
+      if (isExhausted()) {
+        log.debug("Export budget still exhausted after {}, with {} messages ({} bytes) in flight.",
+            properties.pollWait(), inFlightMessages, inFlightBytes);
+        return false;
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reserve budget for a message.
+   *
+   * @param bytes The size of the message.
+   */
+  private void reserve(long bytes) {
+    lock.lock();
+    try {
+      inFlightMessages++;
+      inFlightBytes += bytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Release the budget reserved for a message, waking any pollers waiting for budget.
+   *
+   * @param bytes The size of the message.
+   */
+  private void release(long bytes) {
+    lock.lock();
+    try {
+      inFlightMessages--;
+      inFlightBytes -= bytes;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Whether the budget is exhausted, so no more messages should be polled.
+   *
+   * @return true if the message or byte budget is used up.
+   */
+  private boolean isExhausted() {
+    return inFlightMessages >= properties.maxInFlightMessages()
+        || inFlightBytes >= properties.maxInFlightBytes().toBytes();
+  }
+
+  /**
+   * Get the number of messages currently being exported.
+   *
+   * @return The in-flight message count.
+   */
+  long getInFlightMessages() {
+    lock.lock();
+    try {
+      return inFlightMessages;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Get the total size of the messages currently being exported.
+   *
+   * @return The in-flight bytes.
+   */
+  long getInFlightBytes() {
+    lock.lock();
+    try {
+      return inFlightBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
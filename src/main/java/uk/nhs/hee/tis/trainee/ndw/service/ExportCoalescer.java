@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.CoalesceProperties;
+
+/**
+ * A coalescer which holds exports for a short window, so that rapid successive updates to the same
+ * entity, such as repeated draft saves or notification status changes, are written once with only
+ * the latest version.
+ *
+ * <p>Every export coalesced into a window shares the future of the winning write, so the messages
+ * of superseded updates are only acknowledged once the latest version has been written.
+ */
+@Slf4j
+@Component
+public class ExportCoalescer {
+
+  private final CoalesceProperties properties;
+
+  private final Clock clock;
+
+  private final Map<String, PendingExport> pending = new ConcurrentHashMap<>();
+
+  private final Counter superseded;
+
+  private final Counter written;
+
+  private final Timer delay;
+
+  /**
+   * Initialise the export coalescer.
+   *
+   * @param properties    The coalescing properties.
+   * @param clock         The clock to time coalescing windows with.
+   * @param meterRegistry The registry to record coalescing metrics with.
+   */
+  ExportCoalescer(CoalesceProperties properties, Clock clock, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.clock = clock;
+
+    superseded = meterRegistry.counter("ndw.coalesce.exports", "result", "superseded");
+    written = meterRegistry.counter("ndw.coalesce.exports", "result", "written");
+    delay = Timer.builder("ndw.coalesce.delay")
+        .description("The latency added to exports by the coalescing window.")
+        .register(meterRegistry);
+    Gauge.builder("ndw.coalesce.ratio", this, ExportCoalescer::getCoalesceRatio)
+        .description("The proportion of exports superseded by a later export of the same entity.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Run the export once the key's coalescing window ends, unless it is superseded by a later export
+   * with the same key before then.
+   *
+   * @param key    The key identifying the exported entity, e.g. the partition and event ID.
+   * @param export The export to run if it is the latest for the key when the window ends.
+   * @return A future which completes when the latest export for the key completes.
+   */
+  public CompletableFuture<Void> exportCoalesced(String key,
+      Supplier<CompletableFuture<Void>> export) {
+    if (!properties.enabled()) {
+      return export.get();
+    }
+
+    return pending.compute(key, (k, existing) -> {
+      if (existing == null) {
+        return new PendingExport(export, clock.instant());
+      }
+
+      log.debug("Coalescing export of {} with a pending export.", key);
+      superseded.increment();
+      existing.export = export;
+      return existing;
+    }).future;
+  }
+
+  /**
+   * Write the latest export of any keys whose coalescing window has ended.
+   */
+  @Scheduled(fixedDelayString = "${application.ndw.coalesce.check-interval}")
+  void flushExpired() {
+    Instant cutoff = clock.instant().minus(properties.window());
+    pending.forEach((key, export) -> {
+      if (!export.received.isAfter(cutoff)) {
+        flush(key, export);
+      }
+    });
+  }
+
+  /**
+   * Write the latest export of every pending key, regardless of its window.
+   */
+  @PreDestroy
+  public void flushAll() {
+    pending.forEach(this::flush);
+  }
+
+  /**
+   * Write the latest export for a key, completing the shared future once it completes.
+   *
+   * @param key           The key identifying the exported entity.
+   * @param pendingExport The pending export for the key.
+   */
+  private void flush(String key, PendingExport pendingExport) {
+    // The export can no longer be superseded once removed, any later export starts a new window.
+    if (!pending.remove(key, pendingExport)) {
+      return;
+    }
+
+    written.increment();
+    delay.record(Duration.between(pendingExport.received, clock.instant()));
+
+    CompletableFuture<Void> future = pendingExport.future;
+    try {
+      pendingExport.export.get().whenComplete((result, e) -> {
+        if (e == null) {
+          future.complete(null);
+        } else {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RuntimeException e) {
+      log.error("Unable to export {}.", key, e);
+      future.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Get the proportion of exports which have been superseded.
+   *
+   * @return The coalesce ratio, or zero if nothing has been exported.
+   */
+  private double getCoalesceRatio() {
+    double total = superseded.count() + written.count();
+    return total == 0 ? 0 : superseded.count() / total;
+  }
+
+  /**
+   * The latest export for a key within its coalescing window.
+   */
+  private static class PendingExport {
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private final Instant received;
+
+    private volatile Supplier<CompletableFuture<Void>> export;
+
+    PendingExport(Supplier<CompletableFuture<Void>> export, Instant received) {
+      this.export = export;
+      this.received = received;
+    }
+  }
+}
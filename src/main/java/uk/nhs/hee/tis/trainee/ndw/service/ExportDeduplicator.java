@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.DeduplicationProperties;
+
+/**
+ * A deduplicator which skips exports whose serialized content is identical to the last successful
+ * export with the same key, such as SQS redeliveries and repeated form saves.
+ *
+ * <p>Content hashes are held in a bounded cache with Window TinyLFU eviction, and only recorded
+ * once an export completes successfully so a failed export is always retried.
+ */
+@Slf4j
+@Component
+public class ExportDeduplicator {
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private final boolean enabled;
+
+  private final Cache<String, byte[]> hashes;
+
+  private final Counter skipped;
+
+  private final Counter exported;
+
+  private final Counter bytesSaved;
+
+  /**
+   * Initialise the export deduplicator.
+   *
+   * @param properties    The deduplication properties.
+   * @param meterRegistry The registry to record deduplication metrics with.
+   */
+  ExportDeduplicator(DeduplicationProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.enabled();
+
+    Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .maximumSize(properties.maximumSize())
+        .recordStats();
+
+    if (properties.expireAfterWrite() != null) {
+      builder.expireAfterWrite(properties.expireAfterWrite());
+    }
+
+    hashes = builder.build();
+    CaffeineCacheMetrics.monitor(meterRegistry, hashes, "ndw.dedup");
+
+    skipped = meterRegistry.counter("ndw.dedup.exports", "result", "skipped");
+    exported = meterRegistry.counter("ndw.dedup.exports", "result", "exported");
+    bytesSaved = Counter.builder("ndw.dedup.bytes.saved")
+        .description("The bytes not written due to unchanged content.")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("ndw.dedup.hit.ratio", this, ExportDeduplicator::getHitRatio)
+        .description("The proportion of exports skipped due to unchanged content.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Run the export unless the content is identical to the last successful export for the key.
+   *
+   * @param key     The key identifying the exported entity, e.g. the partition and event ID.
+   * @param content The serialized content to be exported.
+   * @param export  The export to run if the content has changed.
+   * @return The export's future, or a completed future if the export was skipped.
+   */
+  public CompletableFuture<Void> exportIfChanged(String key, byte[] content,
+      Supplier<CompletableFuture<Void>> export) {
+    if (!enabled) {
+      return export.get();
+    }
+
+    byte[] hash = hash(content);
+    byte[] previousHash = hashes.getIfPresent(key);
+
+    if (previousHash != null && MessageDigest.isEqual(previousHash, hash)) {
+      log.info("Skipping export of {} as the content is unchanged.", key);
+      skipped.increment();
+      bytesSaved.increment(content.length);
+      return CompletableFuture.completedFuture(null);
+    }
+
+    exported.increment();
+    return export.get().thenRun(() -> hashes.put(key, hash));
+  }
+
+  /**
+   * Get the proportion of exports which have been skipped.
+   *
+   * @return The hit ratio, or zero if nothing has been exported.
+   */
+  private double getHitRatio() {
+    double total = skipped.count() + exported.count();
+    return total == 0 ? 0 : skipped.count() / total;
+  }
+
+  /**
+   * Hash the given content.
+   *
+   * @param content The content to hash.
+   * @return The content hash.
+   */
+  private static byte[] hash(byte[] content) {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM).digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
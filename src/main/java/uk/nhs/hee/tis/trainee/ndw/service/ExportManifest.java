@@ -0,0 +1,350 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static uk.nhs.hee.tis.trainee.ndw.service.ExportSink.JSON_CONTENT_TYPE;
+import static uk.nhs.hee.tis.trainee.ndw.service.ExportSink.NDJSON_CONTENT_TYPE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.ManifestProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSink.AppendableFile;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+/**
+ * An append-only change log of the files exported to each partition, so downstream jobs can load
+ * incrementally without repeatedly listing the partition directories.
+ *
+ * <p>Each partition's entries are buffered and appended in batches to a log at
+ * {@code <partition>/_manifest/<log id>.ndjson}. A log is sealed, by writing a
+ * {@code <log id>.sealed} marker alongside it, once its partition has received no exports since
+ * the start of the current UTC day, or on shutdown. A log is never appended to once sealed, any
+ * later export to the partition starts a new log.
+ *
+ * <p>The change log is best-effort. Entries are buffered in memory once an export has completed,
+ * so entries not yet appended are lost if the process crashes, and a log left unsealed may be
+ * missing entries. Consumers should treat the logs as a hint and reconcile with a listing of the
+ * partition, at least for partitions with an unsealed log. The change log can not be enabled with
+ * the spool, as its appends are written to the data lake directly.
+ */
+@Slf4j
+@Component
+public class ExportManifest {
+
+  static final String MANIFEST_DIRECTORY = "_manifest";
+
+  static final String LOG_EXTENSION = ".ndjson";
+
+  static final String SEAL_EXTENSION = ".sealed";
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private static final byte NEWLINE = '\n';
+
+  private final ExportSink sink;
+
+  private final ManifestProperties properties;
+
+  private final ObjectMapper mapper;
+
+  private final Clock clock;
+
+  private final Counter entries;
+
+  private final Counter seals;
+
+  private final Map<String, PartitionLog> logs = new ConcurrentHashMap<>();
+
+  ExportManifest(ExportSink sink, ManifestProperties properties, ObjectMapper mapper, Clock clock,
+      MeterRegistry meterRegistry) {
+    this.sink = sink;
+    this.properties = properties;
+    this.mapper = mapper;
+    this.clock = clock;
+
+    entries = Counter.builder("ndw.manifest.entries")
+        .description("The number of exported files recorded in the partition change logs.")
+        .register(meterRegistry);
+    seals = Counter.builder("ndw.manifest.seals")
+        .description("The number of partition change logs sealed.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether exported files should be recorded.
+   *
+   * @return true if the change log is enabled.
+   */
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  /**
+   * Record a whole file written to a partition.
+   *
+   * @param directory The partition directory the file was written to.
+   * @param id        The ID of the exported record, or null if the file holds many records.
+   * @param payload   The written file.
+   */
+  public void record(String directory, String id, Payload payload) {
+    record(directory, payload.filename(), id, 0, payload.content());
+  }
+
+  /**
+   * Record content written to a file in a partition.
+   *
+   * @param directory The partition directory the file was written to.
+   * @param filename  The name of the written file.
+   * @param id        The ID of the exported record, or null if the content holds many records.
+   * @param offset    The offset in the file the content was written at.
+   * @param content   The written content.
+   */
+  public void record(String directory, String filename, String id, long offset, byte[] content) {
+    if (!properties.enabled()) {
+      return;
+    }
+
+    ManifestEntry entry = new ManifestEntry(directory + "/" + filename, id, offset,
+        content.length, hash(content), clock.instant());
+
+    try {
+      byte[] line = mapper.writeValueAsBytes(entry);
+
+      while (true) {
+        PartitionLog partitionLog = logs.computeIfAbsent(directory, PartitionLog::new);
+
+        // A log is sealed when it is evicted, in which case a new log is needed.
+        if (partitionLog.add(line)) {
+          break;
+        }
+        logs.remove(directory, partitionLog);
+      }
+      entries.increment();
+    } catch (JsonProcessingException e) {
+      log.error("Unable to record exported file {}.", entry.path(), e);
+    }
+  }
+
+  /**
+   * Append buffered entries to each partition's log and seal the logs of any partitions which
+   * have not been exported to since the start of the current UTC day.
+   */
+  @Scheduled(fixedDelayString = "${application.ndw.manifest.flush-interval}")
+  void flush() {
+    Instant dayStart = clock.instant().atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS)
+        .toInstant();
+
+    logs.values().forEach(PartitionLog::flush);
+    logs.values().removeIf(partitionLog -> partitionLog.sealIfIdleSince(dayStart));
+  }
+
+  /**
+   * Append all buffered entries and seal every log, a new log is used after a restart.
+   */
+  @PreDestroy
+  public void close() {
+    logs.values().forEach(PartitionLog::flush);
+    logs.values().removeIf(partitionLog -> partitionLog.sealIfIdleSince(Instant.MAX));
+  }
+
+  /**
+   * Hash exported content.
+   *
+   * @param content The content to hash.
+   * @return The hex encoded hash.
+   */
+  private static String hash(byte[] content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(content));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * An entry in a partition's change log.
+   *
+   * @param path       The path of the written file.
+   * @param id         The ID of the exported record, or null if the content holds many records.
+   * @param offset     The offset in the file the content was written at.
+   * @param size       The size of the written content, in bytes.
+   * @param sha256     The hex encoded SHA-256 hash of the written content.
+   * @param exportedAt When the content was written.
+   */
+  record ManifestEntry(String path, String id, long offset, long size, String sha256,
+                       Instant exportedAt) {
+
+  }
+
+  /**
+   * The change log of a single partition, along with its buffered entries.
+   *
+   * <p>The log monitor only guards the buffer, which is swapped out before appending so entries can
+   * keep being recorded while the log is written to. Writes to the log file are serialized by a
+   * separate lock, which is always taken before the log monitor.
+   */
+  private class PartitionLog {
+
+    private final String directory;
+
+    private final String logId = UUID.randomUUID().toString();
+
+    private final Object fileLock = new Object();
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private AppendableFile file;
+
+    private long fileOffset;
+
+    private long entryCount;
+
+    private Instant lastRecorded;
+
+    private boolean sealed;
+
+    PartitionLog(String directory) {
+      this.directory = directory;
+    }
+
+    /**
+     * Buffer an entry for appending to the log.
+     *
+     * @param line The serialized entry, which must not contain any line breaks.
+     * @return false if the log has been sealed and can no longer be added to.
+     */
+    synchronized boolean add(byte[] line) {
+      if (sealed) {
+        return false;
+      }
+
+      buffer.writeBytes(line);
+      buffer.write(NEWLINE);
+      entryCount++;
+      lastRecorded = clock.instant();
+      return true;
+    }
+
+    /**
+     * Append the buffered entries to the log, the entries are kept and retried on failure.
+     */
+    void flush() {
+      synchronized (fileLock) {
+        byte[] bytes;
+
+        synchronized (this) {
+          if (buffer.size() == 0) {
+            return;
+          }
+
+          bytes = buffer.toByteArray();
+          buffer = new ByteArrayOutputStream();
+        }
+
+        String manifestDirectory = directory + "/" + MANIFEST_DIRECTORY;
+
+        try {
+          if (file == null) {
+            file = sink.createAppendableFile(manifestDirectory, logId + LOG_EXTENSION,
+                NDJSON_CONTENT_TYPE);
+          }
+
+          file.append(fileOffset, bytes);
+          fileOffset += bytes.length;
+        } catch (IOException | RuntimeException e) {
+          log.error("Unable to append {} bytes to change log {}/{}.", bytes.length,
+              manifestDirectory, logId, e);
+
+          // Put the entries back ahead of any recorded since, so they are retried in order.
+          synchronized (this) {
+            ByteArrayOutputStream retry = new ByteArrayOutputStream();
+            retry.writeBytes(bytes);
+            retry.writeBytes(buffer.toByteArray());
+            buffer = retry;
+          }
+        }
+      }
+    }
+
+    /**
+     * Seal the log if no entries have been recorded since the cutoff and all entries have been
+     * appended.
+     *
+     * @param cutoff The cutoff instant.
+     * @return Whether the log was sealed.
+     */
+    boolean sealIfIdleSince(Instant cutoff) {
+      synchronized (fileLock) {
+        long sealedEntries;
+
+        synchronized (this) {
+          if (buffer.size() > 0 || lastRecorded == null || !lastRecorded.isBefore(cutoff)) {
+            return false;
+          }
+
+          // Entries recorded while the seal is written go to a new log.
+          sealed = true;
+          sealedEntries = entryCount;
+        }
+
+        Map<String, Object> seal = Map.of("log", logId + LOG_EXTENSION, "entries", sealedEntries,
+            "size", fileOffset);
+
+        try {
+          sink.write(directory + "/" + MANIFEST_DIRECTORY, new Payload(logId + SEAL_EXTENSION,
+              mapper.writeValueAsBytes(seal), JSON_CONTENT_TYPE, null)).join();
+        } catch (IOException | RuntimeException e) {
+          log.error("Unable to seal change log {}/{}/{}.", directory, MANIFEST_DIRECTORY, logId,
+              e);
+
+          synchronized (this) {
+            sealed = false;
+          }
+          return false;
+        }
+
+        seals.increment();
+        log.info("Sealed change log {} of partition {} with {} entries.", logId, directory,
+            sealedEntries);
+        return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+/**
+ * A sink which exported files are written to, using the same {@link PartitionLayout} regardless
+ * of the underlying storage.
+ */
+public interface ExportSink {
+
+  String JSON_CONTENT_TYPE = "application/json";
+
+  String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+  String PARQUET_CONTENT_TYPE = "application/vnd.apache.parquet";
+
+  /**
+   * Get the partition directory for the given root, name and event time.
+   *
+   * @param root      The root directory.
+   * @param name      The name of the subdirectory to partition.
+   * @param eventTime The timestamp of the event being exported, may be null.
+   * @return The path of the partition subdirectory.
+   */
+  String getPartitionDirectory(String root, String name, Instant eventTime);
+
+  /**
+   * Write a whole file, replacing any existing file and removing any files it supersedes.
+   *
+   * @param directory The path of the directory to write the file to.
+   * @param payload   The file to write.
+   * @return A future which completes when the file has been durably written.
+   */
+  CompletableFuture<Void> write(String directory, Payload payload);
+
+  /**
+   * Create, or overwrite, an empty file for appending to.
+   *
+   * @param directory   The path of the directory to create the file in.
+   * @param filename    The name of the file to create.
+   * @param contentType The content type of the file.
+   * @return The created file.
+   * @throws IOException If the file could not be created.
+   */
+  AppendableFile createAppendableFile(String directory, String filename, String contentType)
+      throws IOException;
+
+  /**
+   * A file which content can be appended to.
+   */
+  interface AppendableFile {
+
+    /**
+     * Get the full path of the file.
+     *
+     * @return The file path.
+     */
+    String getPath();
+
+    /**
+     * Durably append content to the file.
+     *
+     * @param offset  The offset to append at, which must be the current length of the file.
+     * @param content The content to append.
+     * @throws IOException If the content could not be appended.
+     */
+    void append(long offset, byte[] content) throws IOException;
+  }
+}
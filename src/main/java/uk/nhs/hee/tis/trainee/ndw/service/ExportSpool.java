@@ -0,0 +1,634 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ManifestProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.SpoolProperties;
+
+/**
+ * A disk-backed write-ahead spool of data lake writes, allowing an export to be acknowledged once
+ * it is durable on local disk rather than once it has reached the data lake.
+ *
+ * <p>Writes are appended to memory-mapped segment files and forced to disk before the append
+ * returns, concurrent appends share a single force. Each record is marked as drained once
+ * uploaded, pending records are recovered from the segment files on startup and a segment file is
+ * deleted once all of its records are drained.
+ *
+ * <p>The spool directory must outlive the process, such as a mounted volume, as pending records
+ * have already been acknowledged and are lost with the directory.
+ *
+ * <p>Only whole file writes are spooled, so spooling can not be combined with NDJSON batching or
+ * the change log which append to files in the data lake directly.
+ */
+@Slf4j
+@Component
+public class ExportSpool {
+
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private static final String SEGMENT_SUFFIX = ".spool";
+
+  // Each record is prefixed by the payload length, the payload's CRC32 and the drain state.
+  private static final int STATE_OFFSET = Integer.BYTES + Integer.BYTES;
+
+  private static final int HEADER_LENGTH = STATE_OFFSET + 1;
+
+  private static final byte STATE_PENDING = 1;
+
+  private static final byte STATE_DRAINED = 2;
+
+  private final SpoolProperties properties;
+
+  private final DataLakeBatchProperties batchProperties;
+
+  private final ManifestProperties manifestProperties;
+
+  private final NavigableMap<Long, SpoolEntry> pending = new TreeMap<>();
+
+  private final Set<String> inFlight = new HashSet<>();
+
+  private final Counter appended;
+
+  private final Counter drained;
+
+  private final Counter rejected;
+
+  private Segment activeSegment;
+
+  private long nextSegmentSequence;
+
+  private long nextEntrySequence;
+
+  private long spoolSize;
+
+  /**
+   * Initialise the export spool.
+   *
+   * @param properties         The spool properties.
+   * @param batchProperties    The NDJSON batching properties.
+   * @param manifestProperties The change log properties.
+   * @param meterRegistry      The registry to record spool metrics with.
+   */
+  ExportSpool(SpoolProperties properties, DataLakeBatchProperties batchProperties,
+      ManifestProperties manifestProperties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.batchProperties = batchProperties;
+    this.manifestProperties = manifestProperties;
+
+    appended = Counter.builder("ndw.spool.records")
+        .description("The number of writes appended to the spool.")
+        .tag("result", "appended")
+        .register(meterRegistry);
+    drained = Counter.builder("ndw.spool.records")
+        .description("The number of spooled writes drained to the data lake.")
+        .tag("result", "drained")
+        .register(meterRegistry);
+    rejected = Counter.builder("ndw.spool.records")
+        .description("The number of writes rejected due to the spool being full.")
+        .tag("result", "rejected")
+        .register(meterRegistry);
+    Gauge.builder("ndw.spool.backlog.records", this, ExportSpool::getBacklog)
+        .description("The number of spooled writes not yet drained to the data lake.")
+        .register(meterRegistry);
+    Gauge.builder("ndw.spool.backlog.bytes", this, ExportSpool::getSpoolSize)
+        .description("The size of the spool's segment files.")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether spooling is enabled, if not then writes should be made directly to the data lake.
+   *
+   * @return true if spooling is enabled.
+   */
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  /**
+   * Recover any pending records from the segment files left by a previous run.
+   *
+   * @throws IOException           If the spool directory or segment files could not be read.
+   * @throws IllegalStateException If the spool is enabled without a spool directory, or with
+   *                               NDJSON batching or the change log enabled.
+   */
+  @PostConstruct
+  synchronized void recover() throws IOException {
+    if (!isEnabled()) {
+      return;
+    }
+
+    Path directory = properties.directory();
+
+    if (directory == null || directory.toString().isBlank()) {
+      throw new IllegalStateException("The export spool is enabled but no spool directory is "
+          + "configured, it must be on persistent storage which outlives the task.");
+    }
+
+    if (batchProperties.enabled() || manifestProperties.enabled()) {
+      throw new IllegalStateException("The export spool can not be enabled with NDJSON batching "
+          + "or the change log, as their appends are written to the data lake directly.");
+    }
+
+    Files.createDirectories(directory);
+
+    List<Path> segmentFiles;
+    try (Stream<Path> files = Files.list(directory)) {
+      segmentFiles = files
+          .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .toList();
+    }
+
+    for (Path segmentFile : segmentFiles) {
+      String filename = segmentFile.getFileName().toString();
+      long sequence = Long.parseLong(filename.substring(SEGMENT_PREFIX.length(),
+          filename.length() - SEGMENT_SUFFIX.length()));
+      nextSegmentSequence = Math.max(nextSegmentSequence, sequence + 1);
+
+      Segment segment = new Segment(segmentFile, (int) Files.size(segmentFile));
+      spoolSize += segment.capacity;
+      recoverSegment(segment);
+
+      if (segment.outstanding == 0) {
+        deleteSegment(segment);
+      }
+    }
+
+    log.info("Recovered {} pending writes from the export spool.", pending.size());
+  }
+
+  /**
+   * Recover the pending records from a segment, stopping at the first incomplete record.
+   *
+   * @param segment The segment to recover.
+   */
+  private void recoverSegment(Segment segment) {
+    int position = 0;
+
+    while (position + HEADER_LENGTH <= segment.capacity) {
+      int length = segment.buffer.getInt(position);
+
+      if (length <= 0 || position + HEADER_LENGTH + length > segment.capacity) {
+        break;
+      }
+
+      byte[] payload = segment.readPayload(position, length);
+
+      if (segment.buffer.getInt(position + Integer.BYTES) != checksum(payload)) {
+        log.warn("Discarding incomplete write at position {} of spool segment {}.", position,
+            segment.file);
+        break;
+      }
+
+      if (segment.buffer.get(position + STATE_OFFSET) == STATE_PENDING) {
+        addPending(segment, position, SpoolRecord.decode(payload).getPath());
+      }
+
+      position += HEADER_LENGTH + length;
+    }
+
+    segment.writePosition = position;
+    segment.forcedPosition = position;
+  }
+
+  /**
+   * Durably append a write to the spool.
+   *
+   * @param rec The write to append.
+   * @throws IOException If the write could not be spooled, including when the spool is full.
+   */
+  public void append(SpoolRecord rec) throws IOException {
+    byte[] payload = rec.encode();
+    int length = HEADER_LENGTH + payload.length;
+    Segment segment;
+    int position;
+
+    synchronized (this) {
+      if (activeSegment == null
+          || activeSegment.capacity - activeSegment.writePosition < length) {
+        rollSegment(length);
+      }
+
+      segment = activeSegment;
+      position = segment.write(payload);
+      addPending(segment, position, rec.getPath());
+    }
+
+    // Forced outside the spool lock, so appends waiting on a force are covered by the same force.
+    segment.forceTo(position + length);
+    appended.increment();
+  }
+
+  /**
+   * Seal the active segment and create a new segment with room for at least the given length.
+   *
+   * @param length The length of the record which must fit in the new segment.
+   * @throws IOException If the new segment could not be created.
+   */
+  private void rollSegment(int length) throws IOException {
+    int capacity = (int) Math.max(properties.segmentSize().toBytes(), length);
+
+    if (spoolSize + capacity > properties.maxSize().toBytes()) {
+      rejected.increment();
+      throw new IOException("The export spool is full.");
+    }
+
+    if (activeSegment != null && activeSegment.outstanding == 0) {
+      deleteSegment(activeSegment);
+    }
+
+    String filename = String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentSequence++,
+        SEGMENT_SUFFIX);
+    activeSegment = new Segment(properties.directory().resolve(filename), capacity);
+    spoolSize += capacity;
+    log.debug("Created spool segment {}.", activeSegment.file);
+  }
+
+  /**
+   * Take up to the given number of pending writes to drain, in the order they were spooled.
+   *
+   * <p>At most one write per data lake file is in flight at a time, so later writes to a file can
+   * not overtake earlier ones.
+   *
+   * @param max The maximum number of writes to take.
+   * @return The taken writes, which must each be either completed or released.
+   */
+  public synchronized List<SpoolEntry> poll(int max) {
+    List<SpoolEntry> entries = new ArrayList<>();
+    Set<String> blocked = new HashSet<>(inFlight);
+    Iterator<SpoolEntry> iterator = pending.values().iterator();
+
+    while (entries.size() < max && iterator.hasNext()) {
+      SpoolEntry entry = iterator.next();
+
+      if (blocked.add(entry.path)) {
+        iterator.remove();
+        inFlight.add(entry.path);
+        entries.add(entry);
+      }
+    }
+
+    return entries;
+  }
+
+  /**
+   * Mark a taken write as drained, deleting its segment once all of the segment's writes have
+   * been drained.
+   *
+   * @param entry The drained write.
+   */
+  public synchronized void complete(SpoolEntry entry) {
+    Segment segment = entry.segment;
+    segment.markDrained(entry.position);
+    inFlight.remove(entry.path);
+    drained.increment();
+
+    if (segment.outstanding == 0 && segment != activeSegment) {
+      deleteSegment(segment);
+    }
+  }
+
+  /**
+   * Return a taken write to the spool, so that it is retried by a later drain.
+   *
+   * @param entry The write which could not be drained.
+   */
+  public synchronized void release(SpoolEntry entry) {
+    inFlight.remove(entry.path);
+    pending.put(entry.sequence, entry);
+  }
+
+  /**
+   * Close the spool's segment files, any pending writes are recovered on the next startup.
+   */
+  @PreDestroy
+  synchronized void close() {
+    if (activeSegment != null && activeSegment.outstanding == 0) {
+      deleteSegment(activeSegment);
+    }
+
+    int backlog = getBacklog();
+    if (backlog > 0) {
+      log.info("Closing the export spool with {} writes still to drain.", backlog);
+    }
+  }
+
+  /**
+   * Get the number of spooled writes not yet drained.
+   *
+   * @return The number of pending and in flight writes.
+   */
+  synchronized int getBacklog() {
+    return pending.size() + inFlight.size();
+  }
+
+  /**
+   * Get the total size of the spool's segment files.
+   *
+   * @return The spool size in bytes.
+   */
+  synchronized long getSpoolSize() {
+    return spoolSize;
+  }
+
+  private void addPending(Segment segment, int position, String path) {
+    long sequence = nextEntrySequence++;
+    pending.put(sequence, new SpoolEntry(sequence, segment, position, path));
+    segment.outstanding++;
+  }
+
+  private void deleteSegment(Segment segment) {
+    try {
+      segment.channel.close();
+      Files.deleteIfExists(segment.file);
+      spoolSize -= segment.capacity;
+      log.debug("Deleted drained spool segment {}.", segment.file);
+    } catch (IOException e) {
+      log.warn("Unable to delete drained spool segment {}.", segment.file, e);
+    }
+
+    if (segment == activeSegment) {
+      activeSegment = null;
+    }
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * A spooled write to the data lake.
+   *
+   * @param directoryPath   The path of the directory to write the file to.
+   * @param filename        The name of the file to write.
+   * @param contentType     The content type of the file.
+   * @param contentEncoding The content encoding of the file, may be null.
+   * @param ifNoneMatch     The If-None-Match condition to create the file with, may be null.
+   * @param content         The file content.
+   * @param superseded      The other filenames in the directory to delete once uploaded.
+   */
+  public record SpoolRecord(String directoryPath, String filename, String contentType,
+                            String contentEncoding, String ifNoneMatch, byte[] content,
+                            List<String> superseded) {
+
+    /**
+     * Create a spooled write which does not supersede any other files.
+     *
+     * @param directoryPath   The path of the directory to write the file to.
+     * @param filename        The name of the file to write.
+     * @param contentType     The content type of the file.
+     * @param contentEncoding The content encoding of the file, may be null.
+     * @param ifNoneMatch     The If-None-Match condition to create the file with, may be null.
+     * @param content         The file content.
+     */
+    public SpoolRecord(String directoryPath, String filename, String contentType,
+        String contentEncoding, String ifNoneMatch, byte[] content) {
+      this(directoryPath, filename, contentType, contentEncoding, ifNoneMatch, content, List.of());
+    }
+
+    /**
+     * Get the full path of the file to write.
+     *
+     * @return The file path.
+     */
+    String getPath() {
+      return directoryPath + "/" + filename;
+    }
+
+    /**
+     * Encode the write for storage in a segment.
+     *
+     * @return The encoded write.
+     */
+    byte[] encode() {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length + 256);
+
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeUTF(directoryPath);
+        out.writeUTF(filename);
+        out.writeUTF(contentType == null ? "" : contentType);
+        out.writeUTF(contentEncoding == null ? "" : contentEncoding);
+        out.writeUTF(ifNoneMatch == null ? "" : ifNoneMatch);
+        out.writeShort(superseded.size());
+
+        for (String name : superseded) {
+          out.writeUTF(name);
+        }
+
+        out.write(content);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a write stored in a segment.
+     *
+     * @param payload The encoded write.
+     * @return The decoded write.
+     */
+    static SpoolRecord decode(byte[] payload) {
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+        String directoryPath = in.readUTF();
+        String filename = in.readUTF();
+        String contentType = in.readUTF();
+        String contentEncoding = in.readUTF();
+        String ifNoneMatch = in.readUTF();
+        int supersededCount = in.readUnsignedShort();
+        List<String> superseded = new ArrayList<>(supersededCount);
+
+        for (int i = 0; i < supersededCount; i++) {
+          superseded.add(in.readUTF());
+        }
+
+        byte[] content = in.readAllBytes();
+        return new SpoolRecord(directoryPath, filename, contentType.isEmpty() ? null : contentType,
+            contentEncoding.isEmpty() ? null : contentEncoding,
+            ifNoneMatch.isEmpty() ? null : ifNoneMatch, content, List.copyOf(superseded));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * A write which has been taken from the spool to be drained.
+   */
+  public static final class SpoolEntry {
+
+    private final long sequence;
+
+    private final Segment segment;
+
+    private final int position;
+
+    private final String path;
+
+    private SpoolEntry(long sequence, Segment segment, int position, String path) {
+      this.sequence = sequence;
+      this.segment = segment;
+      this.position = position;
+      this.path = path;
+    }
+
+    /**
+     * Read the spooled write from its segment.
+     *
+     * @return The spooled write.
+     */
+    public SpoolRecord getRecord() {
+      synchronized (segment) {
+        int length = segment.buffer.getInt(position);
+        return SpoolRecord.decode(segment.readPayload(position, length));
+      }
+    }
+  }
+
+  /**
+   * A memory-mapped segment file of spooled writes.
+   */
+  private static final class Segment {
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final Object forceLock = new Object();
+
+    private int writePosition;
+
+    private int forcedPosition;
+
+    private int outstanding;
+
+    /**
+     * Open, or create, a segment file and map it in to memory.
+     *
+     * @param file     The segment file.
+     * @param capacity The size of the segment.
+     * @throws IOException If the file could not be opened or mapped.
+     */
+    private Segment(Path file, int capacity) throws IOException {
+      this.file = file;
+      this.capacity = capacity;
+      channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Write a record at the end of the segment, it is not durable until forced. The length is
+     * checked on recovery against the checksum so a partially forced record is discarded.
+     *
+     * @param payload The record payload.
+     * @return The position the record was written at.
+     */
+    private synchronized int write(byte[] payload) {
+      int position = writePosition;
+      buffer.put(position + HEADER_LENGTH, payload);
+      buffer.putInt(position + Integer.BYTES, checksum(payload));
+      buffer.put(position + STATE_OFFSET, STATE_PENDING);
+      buffer.putInt(position, payload.length);
+      writePosition += HEADER_LENGTH + payload.length;
+      return position;
+    }
+
+    /**
+     * Force the segment to disk up to at least the given position. Everything written so far is
+     * forced, so the forced records are always a contiguous prefix of the segment and a single
+     * force covers every append which was waiting on it.
+     *
+     * @param position The position which must be durable.
+     */
+    private void forceTo(int position) {
+      synchronized (forceLock) {
+        if (forcedPosition >= position) {
+          return;
+        }
+
+        int written;
+        synchronized (this) {
+          written = writePosition;
+        }
+
+        buffer.force(forcedPosition, written - forcedPosition);
+        forcedPosition = written;
+      }
+    }
+
+    /**
+     * Mark the record at the given position as drained.
+     *
+     * @param position The position of the record.
+     */
+    private synchronized void markDrained(int position) {
+      buffer.put(position + STATE_OFFSET, STATE_DRAINED);
+      buffer.force(position + STATE_OFFSET, 1);
+      outstanding--;
+    }
+
+    private synchronized byte[] readPayload(int position, int length) {
+      byte[] payload = new byte[length];
+      buffer.get(position + HEADER_LENGTH, payload);
+      return payload;
+    }
+  }
+}
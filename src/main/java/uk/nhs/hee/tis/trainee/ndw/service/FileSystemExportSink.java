@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportSinkProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+/**
+ * An export sink which writes to the local filesystem, for running benchmarks and replays without
+ * a data lake.
+ *
+ * <p>Whole files are written to a hidden temporary file, forced to disk and then atomically
+ * renamed, so a partially written file is never visible at the final path.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.ndw.sink.type", havingValue = "filesystem")
+public class FileSystemExportSink implements ExportSink {
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path root;
+
+  private final PartitionLayout partitionLayout;
+
+  private final Clock clock;
+
+  FileSystemExportSink(ExportSinkProperties properties, PartitionLayout partitionLayout,
+      Clock clock) {
+    this.root = properties.directory();
+    this.partitionLayout = partitionLayout;
+    this.clock = clock;
+  }
+
+  @Override
+  public String getPartitionDirectory(String root, String name, Instant eventTime) {
+    Instant partitionStart = partitionLayout.getPartitionStart(eventTime, clock.instant());
+    return partitionLayout.getPartitionPath(root, name, partitionStart);
+  }
+
+  @Override
+  public CompletableFuture<Void> write(String directory, Payload payload) {
+    try {
+      Path directoryPath = Files.createDirectories(root.resolve(directory));
+      Path tempFile = Files.createTempFile(directoryPath, "." + payload.filename(), TEMP_SUFFIX);
+
+      try {
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+          writeFully(channel, ByteBuffer.wrap(payload.content()), 0);
+          channel.force(true);
+        }
+
+        Files.move(tempFile, directoryPath.resolve(payload.filename()),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+
+      for (String superseded : payload.superseded()) {
+        try {
+          Files.deleteIfExists(directoryPath.resolve(superseded));
+        } catch (IOException e) {
+          log.warn("Unable to delete superseded file {} at path {}.", superseded, directoryPath,
+              e);
+        }
+      }
+
+      log.info("Exported file {} to path {}.", payload.filename(), directoryPath);
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public AppendableFile createAppendableFile(String directory, String filename,
+      String contentType) throws IOException {
+    Path directoryPath = Files.createDirectories(root.resolve(directory));
+    Path file = directoryPath.resolve(filename);
+    Files.write(file, new byte[0]);
+    log.info("Created file {} at path {}.", filename, directoryPath);
+    return new FileSystemAppendableFile(file);
+  }
+
+  /**
+   * Write the whole buffer to the channel, starting at the given position.
+   *
+   * @param channel  The channel to write to.
+   * @param buffer   The buffer to write.
+   * @param position The position in the file to start writing at.
+   * @throws IOException If the buffer could not be written.
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * A local file which is appended to, with each append forced to disk.
+   *
+   * @param file The path of the file.
+   */
+  private record FileSystemAppendableFile(Path file) implements AppendableFile {
+
+    @Override
+    public String getPath() {
+      return file.toString();
+    }
+
+    @Override
+    public void append(long offset, byte[] content) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        if (channel.size() != offset) {
+          throw new IOException(String.format("Unable to append to %s at offset %d, length is %d.",
+              file, offset, channel.size()));
+        }
+
+        writeFully(channel, ByteBuffer.wrap(content), offset);
+        channel.force(false);
+      }
+    }
+  }
+}
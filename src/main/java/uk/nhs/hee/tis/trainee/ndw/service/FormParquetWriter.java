@@ -0,0 +1,305 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.dto.FormContentDto;
+
+/**
+ * A writer which encodes schemaless form content as Parquet files, using a schema inferred from
+ * the fields observed for each form partition.
+ *
+ * <p>The schema only ever evolves by adding columns or falling back to a JSON string column for a
+ * field observed with conflicting types. Every number is written as a double from the start, so a
+ * numeric column keeps the same physical type whichever values each file happens to hold, even
+ * though the schema is held in memory by each instance and starts again on restart. Whole numbers
+ * beyond 2^53 lose precision, and nested objects, arrays and integers too large for a long are
+ * written as JSON strings.
+ */
+@Slf4j
+@Component
+public class FormParquetWriter {
+
+  private final ObjectMapper mapper;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, FormSchema> schemas = new ConcurrentHashMap<>();
+
+  FormParquetWriter(ObjectMapper mapper, MeterRegistry meterRegistry) {
+    this.mapper = mapper;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Get the current inferred schema for a form partition.
+   *
+   * @param partition The form partition, e.g. part-a.
+   * @return The inferred schema, with no columns if no forms have been observed.
+   */
+  public MessageType getSchema(String partition) {
+    return schemas.computeIfAbsent(partition, FormSchema::new).toMessageType();
+  }
+
+  /**
+   * Encode the given forms as a single Parquet file, evolving the partition's schema to include
+   * every observed field first.
+   *
+   * @param partition The form partition, e.g. part-a.
+   * @param forms     The forms to encode.
+   * @return The Parquet file content.
+   * @throws IOException If the forms could not be encoded.
+   */
+  public byte[] write(String partition, List<FormContentDto> forms) throws IOException {
+    FormSchema schema = schemas.computeIfAbsent(partition, FormSchema::new);
+    Map<String, ColumnType> columns = schema.observe(forms);
+    return ParquetRecordWriter.encode(new FormWriteSupport(schema.toMessageType(columns), columns),
+        forms);
+  }
+
+  /**
+   * The column types which can be inferred from form field values.
+   */
+  enum ColumnType {
+    STRING,
+    DOUBLE,
+    BOOLEAN,
+    JSON;
+
+    /**
+     * Infer the column type of a field value.
+     *
+     * @param value The non-null field value.
+     * @return The inferred column type.
+     */
+    static ColumnType of(Object value) {
+      if (value instanceof String) {
+        return STRING;
+      } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+          || value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+        return DOUBLE;
+      } else if (value instanceof Boolean) {
+        return BOOLEAN;
+      }
+
+      return JSON;
+    }
+
+    /**
+     * Get the column type able to hold values of both types.
+     *
+     * @param other The other column type.
+     * @return The widened column type.
+     */
+    ColumnType widen(ColumnType other) {
+      return this == other ? this : JSON;
+    }
+  }
+
+  /**
+   * The evolving schema of a single form partition.
+   */
+  private class FormSchema {
+
+    private final String partition;
+
+    private final Map<String, ColumnType> columns = new LinkedHashMap<>();
+
+    FormSchema(String partition) {
+      this.partition = partition;
+    }
+
+    /**
+     * Evolve the schema to include the fields of the given forms.
+     *
+     * @param forms The forms to observe.
+     * @return A snapshot of the evolved columns.
+     */
+    synchronized Map<String, ColumnType> observe(List<FormContentDto> forms) {
+      for (FormContentDto form : forms) {
+        for (Entry<String, Object> field : form.fields.entrySet()) {
+          if (field.getValue() != null) {
+            observe(field.getKey(), ColumnType.of(field.getValue()));
+          }
+        }
+      }
+
+      return new LinkedHashMap<>(columns);
+    }
+
+    /**
+     * Evolve the schema to include a single field.
+     *
+     * @param name The field name.
+     * @param type The field's inferred type.
+     */
+    private void observe(String name, ColumnType type) {
+      ColumnType existing = columns.get(name);
+      ColumnType widened = existing == null ? type : existing.widen(type);
+
+      if (widened != existing) {
+        columns.put(name, widened);
+        log.info("Evolved {} form schema column {} from {} to {}.", partition, name, existing,
+            widened);
+        meterRegistry.counter("ndw.form.schema.changes", "partition", partition).increment();
+      }
+    }
+
+    /**
+     * Build a Parquet schema for the current columns.
+     *
+     * @return The Parquet schema.
+     */
+    synchronized MessageType toMessageType() {
+      return toMessageType(columns);
+    }
+
+    /**
+     * Build a Parquet schema for a snapshot of the columns.
+     *
+     * @param snapshot The columns to include.
+     * @return The Parquet schema.
+     */
+    MessageType toMessageType(Map<String, ColumnType> snapshot) {
+      Type[] fields = snapshot.entrySet().stream()
+          .map(column -> toField(column.getKey(), column.getValue()))
+          .toArray(Type[]::new);
+      return Types.buildMessage().addFields(fields).named(partition.replace('-', '_'));
+    }
+
+    /**
+     * Build the Parquet field for a column.
+     *
+     * @param name The column name.
+     * @param type The column type.
+     * @return The Parquet field.
+     */
+    private static Type toField(String name, ColumnType type) {
+      return switch (type) {
+        case STRING -> Types.optional(BINARY).as(LogicalTypeAnnotation.stringType()).named(name);
+        case DOUBLE -> Types.optional(DOUBLE).named(name);
+        case BOOLEAN -> Types.optional(BOOLEAN).named(name);
+        case JSON -> Types.optional(BINARY).as(LogicalTypeAnnotation.jsonType()).named(name);
+      };
+    }
+  }
+
+  /**
+   * A write support which writes each form field to the matching inferred column.
+   */
+  private class FormWriteSupport extends WriteSupport<FormContentDto> {
+
+    private final MessageType schema;
+
+    private final List<Entry<String, ColumnType>> columns;
+
+    private RecordConsumer consumer;
+
+    FormWriteSupport(MessageType schema, Map<String, ColumnType> columns) {
+      this.schema = schema;
+      this.columns = List.copyOf(columns.entrySet());
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+      return new WriteContext(schema, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+      consumer = recordConsumer;
+    }
+
+    @Override
+    public void write(FormContentDto form) {
+      consumer.startMessage();
+
+      for (int i = 0; i < columns.size(); i++) {
+        String name = columns.get(i).getKey();
+        Object value = form.fields.get(name);
+
+        if (value != null) {
+          consumer.startField(name, i);
+          writeValue(columns.get(i).getValue(), value);
+          consumer.endField(name, i);
+        }
+      }
+
+      consumer.endMessage();
+    }
+
+    /**
+     * Write a field value as the given column type.
+     *
+     * @param type  The column type.
+     * @param value The value to write.
+     */
+    private void writeValue(ColumnType type, Object value) {
+      switch (type) {
+        case STRING -> consumer.addBinary(Binary.fromString((String) value));
+        case DOUBLE -> consumer.addDouble(((Number) value).doubleValue());
+        case BOOLEAN -> consumer.addBoolean((Boolean) value);
+        case JSON -> consumer.addBinary(Binary.fromString(toJson(value)));
+        default -> throw new IllegalStateException("Unexpected column type " + type);
+      }
+    }
+
+    /**
+     * Serialize a value as a JSON string.
+     *
+     * @param value The value to serialize.
+     * @return The JSON string.
+     */
+    private String toJson(Object value) {
+      try {
+        return mapper.writeValueAsString(value);
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
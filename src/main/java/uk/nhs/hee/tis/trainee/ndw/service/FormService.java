@@ -22,6 +22,7 @@
 package uk.nhs.hee.tis.trainee.ndw.service;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import uk.nhs.hee.tis.trainee.ndw.dto.FormContentDto;
 import uk.nhs.hee.tis.trainee.ndw.dto.FormEventDto;
 
@@ -34,8 +35,9 @@ public interface FormService<T extends FormEventDto> {
    * Process the given form Event.
    *
    * @param event The form event to process.
-   * @return The form content DTO.
+   * @return A future of the exported form content DTO, which completes when the form has been
+   *     exported.
    * @throws IOException when the form contents could not be read, or were not correctly structured.
    */
-  FormContentDto processFormEvent(T event) throws IOException;
+  CompletableFuture<FormContentDto> processFormEvent(T event) throws IOException;
 }
@@ -22,9 +22,12 @@
 package uk.nhs.hee.tis.trainee.ndw.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties;
 import uk.nhs.hee.tis.trainee.ndw.dto.FormContentDto;
 import uk.nhs.hee.tis.trainee.ndw.dto.JsonFormEventDto;
 
@@ -38,17 +41,32 @@ public class JsonFormService extends AbstractFormService<JsonFormEventDto> {
   /**
    * Initialise the form service.
    *
-   * @param dataLakeFacade The data lake service to use.
-   * @param directory      The root directory.
-   * @param mapper         The object mapper to use.
+   * @param sink                  The sink to export to.
+   * @param directory             The root directory.
+   * @param mapper                The object mapper to use.
+   * @param parquetWriter         The writer to encode forms as Parquet with.
+   * @param parquetBatchWriter    The writer to batch Parquet forms with.
+   * @param formatProperties      The export format properties.
+   * @param compressor            The compressor to apply to JSON forms.
+   * @param compressionProperties The compression properties.
+   * @param deduplicator          The deduplicator to skip unchanged forms with.
+   * @param manifest              The change log to record exported forms in.
+   * @param budget                The in-flight budget to export forms within.
+   * @param coalescer             The coalescer to combine rapid successive form saves with.
    */
-  JsonFormService(DataLakeFacade dataLakeFacade,
-      @Value("${application.ndw.directory}") String directory, ObjectMapper mapper) {
-    super(dataLakeFacade, directory, mapper);
+  JsonFormService(ExportSink sink,
+      @Value("${application.ndw.directory}") String directory, ObjectMapper mapper,
+      FormParquetWriter parquetWriter, ParquetBatchWriter parquetBatchWriter,
+      ExportFormatProperties formatProperties, PayloadCompressor compressor,
+      CompressionProperties compressionProperties, ExportDeduplicator deduplicator,
+      ExportManifest manifest, ExportBudget budget, ExportCoalescer coalescer) {
+    super(sink, directory, mapper, parquetWriter, parquetBatchWriter, formatProperties,
+        compressor, compressionProperties, deduplicator, manifest, budget,
+        coalescer);
   }
 
   @Override
-  public FormContentDto processFormEvent(JsonFormEventDto event) {
+  public CompletableFuture<FormContentDto> processFormEvent(JsonFormEventDto event) {
     log.info("Processing form event for {}", event);
     return exportToDataLake(event.getFormName(), event.getFormType(), event);
   }
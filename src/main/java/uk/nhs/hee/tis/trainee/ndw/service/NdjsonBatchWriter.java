@@ -0,0 +1,351 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static uk.nhs.hee.tis.trainee.ndw.service.ExportSink.NDJSON_CONTENT_TYPE;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSink.AppendableFile;
+
+/**
+ * A writer which batches records in to per-partition NDJSON files, appending each batch to the
+ * partition's current file and rolling over to a new file once it reaches the maximum size.
+ *
+ * <p>The future returned for each record only completes once the batch containing it has been
+ * flushed to the sink, so messages are not acknowledged before their content is durable.
+ */
+@Slf4j
+@Component
+public class NdjsonBatchWriter {
+
+  private static final byte NEWLINE = '\n';
+
+  private final ExportSink sink;
+
+  private final ExportManifest manifest;
+
+  private final DataLakeBatchProperties properties;
+
+  private final Clock clock;
+
+  private final MeterRegistry meterRegistry;
+
+  private final DistributionSummary flushRecords;
+
+  private final DistributionSummary flushBytes;
+
+  private final Map<String, PartitionBatch> batches = new ConcurrentHashMap<>();
+
+  NdjsonBatchWriter(ExportSink sink, ExportManifest manifest, DataLakeBatchProperties properties,
+      Clock clock, MeterRegistry meterRegistry) {
+    this.sink = sink;
+    this.manifest = manifest;
+    this.properties = properties;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+
+    flushRecords = DistributionSummary.builder("ndw.batch.flush.records")
+        .description("The number of records written by each batch flush.")
+        .register(meterRegistry);
+    flushBytes = DistributionSummary.builder("ndw.batch.flush.bytes")
+        .description("The number of bytes written by each batch flush.")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether batching is enabled, if not then records should be written individually.
+   *
+   * @return true if batching is enabled.
+   */
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  /**
+   * Add a record to the batch for the given partition.
+   *
+   * @param directory The partition directory to write the record to.
+   * @param content   The UTF-8 encoded JSON record, which must not contain any line breaks.
+   * @return A future which completes once the record has been flushed to the sink.
+   */
+  public CompletableFuture<Void> write(String directory, byte[] content) {
+    while (true) {
+      PartitionBatch batch = batches.computeIfAbsent(directory, PartitionBatch::new);
+      CompletableFuture<Void> future = batch.add(content);
+
+      // A batch is closed when it is evicted, in which case a new batch is needed.
+      if (future != null) {
+        return future;
+      }
+    }
+  }
+
+  /**
+   * Flush any batches which have exceeded the maximum age and evict idle batches whose file is due
+   * to roll over, such as those for the previous day's partitions.
+   */
+  @Scheduled(fixedDelayString = "${application.ndw.batch.check-interval}")
+  void flushExpired() {
+    Instant cutoff = clock.instant().minus(properties.maxAge());
+    batches.values().forEach(batch -> batch.flushIfOlderThan(cutoff));
+
+    Instant fileCutoff = clock.instant().minus(properties.maxFileAge());
+    batches.values().removeIf(batch -> batch.closeIfFileOlderThan(fileCutoff));
+  }
+
+  /**
+   * Flush all pending batches, regardless of their age.
+   */
+  @PreDestroy
+  public void flushAll() {
+    batches.values().forEach(batch -> batch.flush("shutdown"));
+  }
+
+  /**
+   * A batch of records for a single partition, along with the state of the partition's current
+   * file.
+   *
+   * <p>The batch monitor only guards the buffer, which is swapped out and queued before flushing so
+   * records can keep being added while the sink is written to. Whichever thread holds the file
+   * lock appends every queued flush, so flushes reach the file in the order they were taken.
+   */
+  private class PartitionBatch {
+
+    private final String directory;
+
+    private final Object fileLock = new Object();
+
+    private final Queue<PendingFlush> queued = new ArrayDeque<>();
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+    private Instant firstPending;
+
+    private AppendableFile file;
+
+    private String filename;
+
+    private long fileOffset;
+
+    private volatile Instant fileCreated;
+
+    private boolean closed;
+
+    PartitionBatch(String directory) {
+      this.directory = directory;
+    }
+
+    /**
+     * Add a record to the batch, flushing if the record or size limit is reached.
+     *
+     * @param bytes The record to add.
+     * @return A future which completes when the record is flushed, or null if the batch is closed.
+     */
+    CompletableFuture<Void> add(byte[] bytes) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      boolean taken = false;
+
+      synchronized (this) {
+        if (closed) {
+          return null;
+        }
+
+        if (pending.isEmpty()) {
+          firstPending = clock.instant();
+        }
+
+        buffer.writeBytes(bytes);
+        buffer.write(NEWLINE);
+        pending.add(future);
+
+        if (pending.size() >= properties.maxRecords()) {
+          takePending("records");
+          taken = true;
+        } else if (buffer.size() >= properties.maxBatchSize().toBytes()) {
+          takePending("size");
+          taken = true;
+        }
+      }
+
+      if (taken) {
+        writeQueued();
+      }
+      return future;
+    }
+
+    /**
+     * Flush the batch if the oldest pending record was added before the cutoff.
+     *
+     * @param cutoff The cutoff instant.
+     */
+    void flushIfOlderThan(Instant cutoff) {
+      boolean taken = false;
+
+      synchronized (this) {
+        if (!pending.isEmpty() && firstPending.isBefore(cutoff)) {
+          takePending("age");
+          taken = true;
+        }
+      }
+
+      if (taken) {
+        writeQueued();
+      }
+    }
+
+    /**
+     * Close the batch if there are no pending records and its current file was created before the
+     * cutoff, so would be rolled over by the next flush anyway.
+     *
+     * @param cutoff The cutoff instant.
+     * @return Whether the batch was closed.
+     */
+    synchronized boolean closeIfFileOlderThan(Instant cutoff) {
+      Instant created = fileCreated;
+      closed = pending.isEmpty() && queued.isEmpty()
+          && (created == null || created.isBefore(cutoff));
+      return closed;
+    }
+
+    /**
+     * Append the pending records to the partition's current file, completing their futures once
+     * the sink has acknowledged the flush.
+     *
+     * @param reason The reason for the flush.
+     */
+    void flush(String reason) {
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        takePending(reason);
+      }
+
+      writeQueued();
+    }
+
+    /**
+     * Swap out the pending records and their buffer and queue them to be written, the caller must
+     * hold the batch monitor.
+     *
+     * @param reason The reason for the flush.
+     */
+    private void takePending(String reason) {
+      queued.add(new PendingFlush(reason, buffer.toByteArray(), pending));
+      buffer = new ByteArrayOutputStream();
+      pending = new ArrayList<>();
+    }
+
+    /**
+     * Append every queued flush to the partition's current file, in the order they were taken.
+     */
+    private void writeQueued() {
+      synchronized (fileLock) {
+        while (true) {
+          PendingFlush flush;
+
+          synchronized (this) {
+            flush = queued.poll();
+          }
+
+          if (flush == null) {
+            return;
+          }
+          write(flush);
+        }
+      }
+    }
+
+    /**
+     * Append swapped out records to the partition's current file, the caller must hold the file
+     * lock.
+     *
+     * @param flush The records to flush.
+     */
+    private void write(PendingFlush flush) {
+      byte[] bytes = flush.bytes();
+      List<CompletableFuture<Void>> flushed = flush.futures();
+
+      try {
+        Instant now = clock.instant();
+
+        if (file == null || fileOffset + bytes.length > properties.maxFileSize().toBytes()
+            || fileCreated.isBefore(now.minus(properties.maxFileAge()))) {
+          filename = UUID.randomUUID() + ".ndjson";
+          file = sink.createAppendableFile(directory, filename, NDJSON_CONTENT_TYPE);
+          fileOffset = 0;
+          fileCreated = now;
+        }
+
+        file.append(fileOffset, bytes);
+        manifest.record(directory, filename, null, fileOffset, bytes);
+        fileOffset += bytes.length;
+      } catch (IOException | RuntimeException e) {
+        log.error("Unable to flush {} records to path {}.", flushed.size(), directory, e);
+
+        // The state of the current file is unknown, so subsequent batches start a new file.
+        file = null;
+        fileCreated = null;
+        flushed.forEach(future -> future.completeExceptionally(e));
+        return;
+      }
+
+      meterRegistry.counter("ndw.batch.flushes", "reason", flush.reason()).increment();
+      flushRecords.record(flushed.size());
+      flushBytes.record(bytes.length);
+      flushed.forEach(future -> future.complete(null));
+    }
+  }
+
+  /**
+   * Records swapped out of a batch to be flushed.
+   *
+   * @param reason  The reason for the flush.
+   * @param bytes   The buffered records.
+   * @param futures The futures of the buffered records.
+   */
+  private record PendingFlush(String reason, byte[] bytes,
+                              List<CompletableFuture<Void>> futures) {
+
+  }
+}
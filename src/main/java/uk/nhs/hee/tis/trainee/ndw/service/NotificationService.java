@@ -21,14 +21,20 @@
 
 package uk.nhs.hee.tis.trainee.ndw.service;
 
-import com.azure.storage.file.datalake.DataLakeDirectoryClient;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties.ExportFormat;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 /**
  * A service for processing Notification events.
@@ -39,37 +45,78 @@ public class NotificationService {
 
   protected static final String DATALAKE_NOTIFICATIONS_ROOT = "notifications";
 
-  private final DataLakeFacade dataLakeFacade;
+  private final ExportSink sink;
+
+  private final NdjsonBatchWriter batchWriter;
+
+  private final ParquetRecordWriter parquetWriter;
+
+  private final ParquetBatchWriter parquetBatchWriter;
+
+  private final ExportFormat format;
+
+  private final PayloadCompressor compressor;
+
+  private final Settings compression;
+
+  private final ExportDeduplicator deduplicator;
+
+  private final ExportManifest manifest;
+
+  private final ExportBudget budget;
+
+  private final ExportCoalescer coalescer;
 
   private final String dataLakeRoot;
 
   private final ObjectMapper mapper;
 
   NotificationService(@Value("${application.ndw.directory}") String directory, ObjectMapper mapper,
-      DataLakeFacade dataLakeFacade) {
+      ExportSink sink, NdjsonBatchWriter batchWriter,
+      ParquetRecordWriter parquetWriter, ParquetBatchWriter parquetBatchWriter,
+      ExportFormatProperties formatProperties, PayloadCompressor compressor,
+      CompressionProperties compressionProperties, ExportDeduplicator deduplicator,
+      ExportManifest manifest, ExportBudget budget, ExportCoalescer coalescer) {
     this.dataLakeRoot = directory;
     this.mapper = mapper;
-    this.dataLakeFacade = dataLakeFacade;
+    this.sink = sink;
+    this.batchWriter = batchWriter;
+    this.parquetWriter = parquetWriter;
+    this.parquetBatchWriter = parquetBatchWriter;
+    this.format = formatProperties.notifications();
+    this.compressor = compressor;
+    this.compression = compressionProperties.notifications();
+    this.deduplicator = deduplicator;
+    this.manifest = manifest;
+    this.budget = budget;
+    this.coalescer = coalescer;
   }
 
   /**
    * Process the given Notification Event.
    *
    * @param event The Notification event to process.
+   * @return A future which completes when the event has been exported.
+   * @throws IOException If the event could not be serialized.
    */
-  public void processNotificationEvent(NotificationEventDto event) throws JsonProcessingException {
+  public CompletableFuture<Void> processNotificationEvent(NotificationEventDto event)
+      throws IOException {
     if (event != null) {
       String type = event.type();
       String id = event.id();
       String status = event.status();
       if (id != null) {
-        DataLakeDirectoryClient directoryClient = createSubDirectories();
+        String directory = sink.getPartitionDirectory(dataLakeRoot, DATALAKE_NOTIFICATIONS_ROOT,
+            event.sentAt());
 
         log.info("Exporting notification event {} (type {}, {})", id, type, status);
 
-        String eventString = mapper.writeValueAsString(event);
-        String eventFilename = getEventFilename(id);
-        dataLakeFacade.saveToDataLake(eventFilename, eventString, directoryClient);
+        byte[] eventBytes = mapper.writeValueAsBytes(event);
+        String key = DATALAKE_NOTIFICATIONS_ROOT + "/" + id;
+        return budget.export(eventBytes.length,
+            () -> coalescer.exportCoalesced(key,
+                () -> deduplicator.exportIfChanged(key, eventBytes,
+                    () -> export(id, event, eventBytes, directory))));
       } else {
         log.warn("No notification id: {}.", event);
       }
@@ -77,26 +124,80 @@ public class NotificationService {
       log.warn("No content in notification.");
     }
 
+    return CompletableFuture.completedFuture(null);
   }
 
   /**
-   * Create the required subdirectories based on current date.
+   * Export the event in the configured format.
    *
-   * @return The directory client for the required subdirectory.
+   * @param id              The event ID.
+   * @param event           The event to export.
+   * @param eventBytes      The event serialized as UTF-8 encoded JSON.
+   * @param directory       The partition directory to export to.
+   * @return A future which completes when the event has been exported.
    */
-  private DataLakeDirectoryClient createSubDirectories() {
-    DataLakeDirectoryClient directoryClient
-        = dataLakeFacade.createSubDirectory(dataLakeRoot, DATALAKE_NOTIFICATIONS_ROOT);
-    return dataLakeFacade.createYearMonthDaySubDirectories(directoryClient);
+  private CompletableFuture<Void> export(String id, NotificationEventDto event, byte[] eventBytes,
+      String directory) {
+    if (format == ExportFormat.PARQUET) {
+      return exportParquet(id, event, directory);
+    }
+
+    if (batchWriter.isEnabled()) {
+      return batchWriter.write(directory, eventBytes);
+    }
+
+    Payload payload = compressor.compress(compression, getEventFilename(id), eventBytes,
+        ExportSink.JSON_CONTENT_TYPE);
+    return sink.write(directory, payload)
+        .thenRun(() -> manifest.record(directory, id, payload));
   }
 
   /**
-   * Generate a human-readable filename from an event ID.
+   * Export the event as Parquet, either in a batch or as a single row file.
+   *
+   * @param id              The event ID.
+   * @param event           The event to export.
+   * @param directory       The partition directory to export to.
+   * @return A future which completes when the event has been exported, or has failed if the
+   *     event could not be encoded.
+   */
+  private CompletableFuture<Void> exportParquet(String id, NotificationEventDto event,
+      String directory) {
+    if (parquetBatchWriter.isEnabled()) {
+      return parquetBatchWriter.write(directory, NotificationEventDto.class, event);
+    }
+
+    byte[] eventBytes;
+    try {
+      eventBytes = parquetWriter.write(NotificationEventDto.class, List.of(event));
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    String eventFilename = getEventFilename(id, ".parquet");
+    Payload payload = new Payload(eventFilename, eventBytes, ExportSink.PARQUET_CONTENT_TYPE, null);
+    return sink.write(directory, payload)
+        .thenRun(() -> manifest.record(directory, id, payload));
+  }
+
+  /**
+   * Generate a human-readable JSON filename from an event ID.
    *
    * @param eventId The event ID.
    * @return The human-readable filename.
    */
   protected String getEventFilename(String eventId) {
+    return getEventFilename(eventId, ".json");
+  }
+
+  /**
+   * Generate a human-readable filename from an event ID.
+   *
+   * @param eventId   The event ID.
+   * @param extension The file extension, including the leading dot.
+   * @return The human-readable filename.
+   */
+  protected String getEventFilename(String eventId, String extension) {
     String filename;
     try {
       filename = UUID.fromString(
@@ -108,6 +209,6 @@ public class NotificationService {
       log.warn("Notification event id is not a UUID: {}", eventId);
       filename = eventId;
     }
-    return filename + ".json";
+    return filename + extension;
   }
 }
@@ -0,0 +1,407 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static uk.nhs.hee.tis.trainee.ndw.service.ExportSink.PARQUET_CONTENT_TYPE;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+/**
+ * A writer which batches records in to per-partition Parquet files, writing a new file for each
+ * batch as Parquet files can not be appended to.
+ *
+ * <p>The future returned for each record only completes once the batch containing it has been
+ * written to the sink, so messages are not acknowledged before their content is durable.
+ */
+@Slf4j
+@Component
+public class ParquetBatchWriter {
+
+  private final ExportSink sink;
+
+  private final ExportManifest manifest;
+
+  private final ParquetRecordWriter recordWriter;
+
+  private final DataLakeBatchProperties properties;
+
+  private final Clock clock;
+
+  private final MeterRegistry meterRegistry;
+
+  private final DistributionSummary flushRecords;
+
+  private final DistributionSummary flushBytes;
+
+  private final Map<String, PartitionBatch<?>> batches = new ConcurrentHashMap<>();
+
+  ParquetBatchWriter(ExportSink sink, ExportManifest manifest, ParquetRecordWriter recordWriter,
+      DataLakeBatchProperties properties, Clock clock, MeterRegistry meterRegistry) {
+    this.sink = sink;
+    this.manifest = manifest;
+    this.recordWriter = recordWriter;
+    this.properties = properties;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+
+    flushRecords = DistributionSummary.builder("ndw.batch.parquet.flush.records")
+        .description("The number of records written by each Parquet batch flush.")
+        .register(meterRegistry);
+    flushBytes = DistributionSummary.builder("ndw.batch.parquet.flush.bytes")
+        .description("The number of bytes written by each Parquet batch flush.")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Whether batching is enabled, if not then records should be written individually.
+   *
+   * @return true if batching is enabled.
+   */
+  public boolean isEnabled() {
+    return properties.enabled();
+  }
+
+  /**
+   * Add a record to the batch for the given partition.
+   *
+   * @param directory  The partition directory to write the record to.
+   * @param recordType The type of the record, each partition must only hold a single type.
+   * @param rec        The record to write.
+   * @param <T>        The type of the record.
+   * @return A future which completes once the record has been written to the sink.
+   */
+  public <T extends Record> CompletableFuture<Void> write(String directory, Class<T> recordType,
+      T rec) {
+    return write(directory, recordType, rows -> recordWriter.write(recordType, rows), rec);
+  }
+
+  /**
+   * Add a row to the batch for the given partition, the batch is encoded by the given encoder.
+   *
+   * @param directory The partition directory to write the row to.
+   * @param rowType   The type of the row, each partition must only hold a single type.
+   * @param encoder   The encoder to write the partition's batches with.
+   * @param row       The row to write.
+   * @param <T>       The type of the row.
+   * @return A future which completes once the row has been written to the sink.
+   */
+  public <T> CompletableFuture<Void> write(String directory, Class<T> rowType,
+      RowEncoder<T> encoder, T row) {
+    while (true) {
+      PartitionBatch<?> batch = batches.computeIfAbsent(directory,
+          p -> new PartitionBatch<>(directory, rowType, encoder));
+      CompletableFuture<Void> future = batch.add(rowType, row);
+
+      // A batch is closed when it is evicted, in which case a new batch is needed.
+      if (future != null) {
+        return future;
+      }
+    }
+  }
+
+  /**
+   * Flush any batches which have exceeded the maximum age and evict idle batches, such as those
+   * for the previous day's partitions.
+   */
+  @Scheduled(fixedDelayString = "${application.ndw.batch.check-interval}")
+  void flushExpired() {
+    Instant cutoff = clock.instant().minus(properties.maxAge());
+    batches.values().forEach(batch -> batch.flushIfOlderThan(cutoff));
+
+    Instant idleCutoff = clock.instant().minus(properties.maxAge().multipliedBy(10));
+    batches.values().removeIf(batch -> batch.closeIfIdleSince(idleCutoff));
+  }
+
+  /**
+   * Flush all pending batches, regardless of their age.
+   */
+  @PreDestroy
+  public void flushAll() {
+    batches.values().forEach(batch -> batch.flush("shutdown"));
+  }
+
+  /**
+   * An encoder which writes a batch of rows as a single Parquet file.
+   *
+   * @param <T> The type of row to encode.
+   */
+  @FunctionalInterface
+  public interface RowEncoder<T> {
+
+    /**
+     * Encode the rows as a Parquet file.
+     *
+     * @param rows The rows to encode.
+     * @return The Parquet file content.
+     * @throws IOException If the rows could not be encoded.
+     */
+    byte[] encode(List<T> rows) throws IOException;
+  }
+
+  /**
+   * A batch of rows for a single partition.
+   *
+   * <p>The batch monitor only guards the pending rows, which are swapped out before being encoded
+   * and written so rows can keep being added while the sink is written to.
+   *
+   * @param <T> The type of row held by the partition.
+   */
+  private class PartitionBatch<T> {
+
+    private final String directory;
+
+    private final Class<T> rowType;
+
+    private final RowEncoder<T> encoder;
+
+    private List<T> rows = new ArrayList<>();
+
+    private List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+    private Instant firstPending;
+
+    private Instant lastFlushed;
+
+    private boolean closed;
+
+    PartitionBatch(String directory, Class<T> rowType, RowEncoder<T> encoder) {
+      this.directory = directory;
+      this.rowType = rowType;
+      this.encoder = encoder;
+      this.lastFlushed = clock.instant();
+    }
+
+    /**
+     * Add a row to the batch, flushing if the record limit is reached.
+     *
+     * @param type The type of the row.
+     * @param row  The row to add.
+     * @return A future which completes when the row is written, or null if the batch is closed.
+     */
+    CompletableFuture<Void> add(Class<?> type, Object row) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      PendingRows<T> flush = null;
+
+      synchronized (this) {
+        if (closed) {
+          return null;
+        }
+
+        if (!rowType.equals(type)) {
+          return CompletableFuture.failedFuture(new IllegalArgumentException(
+              "Partition %s holds %s rows, not %s.".formatted(directory,
+                  rowType.getSimpleName(), type.getSimpleName())));
+        }
+
+        if (pending.isEmpty()) {
+          firstPending = clock.instant();
+        }
+
+        rows.add(rowType.cast(row));
+        pending.add(future);
+
+        if (pending.size() >= properties.maxRecords()) {
+          flush = takePending("records");
+        }
+      }
+
+      if (flush != null) {
+        write(flush);
+      }
+      return future;
+    }
+
+    /**
+     * Flush the batch if the oldest pending record was added before the cutoff.
+     *
+     * @param cutoff The cutoff instant.
+     */
+    void flushIfOlderThan(Instant cutoff) {
+      PendingRows<T> flush = null;
+
+      synchronized (this) {
+        if (!pending.isEmpty() && firstPending.isBefore(cutoff)) {
+          flush = takePending("age");
+        }
+      }
+
+      if (flush != null) {
+        write(flush);
+      }
+    }
+
+    /**
+     * Close the batch if there are no pending records and it has not been flushed since the
+     * cutoff.
+     *
+     * @param cutoff The cutoff instant.
+     * @return Whether the batch was closed.
+     */
+    synchronized boolean closeIfIdleSince(Instant cutoff) {
+      closed = pending.isEmpty() && lastFlushed.isBefore(cutoff);
+      return closed;
+    }
+
+    /**
+     * Write the pending rows to a new Parquet file, completing their futures once the sink
+     * has acknowledged the write.
+     *
+     * @param reason The reason for the flush.
+     */
+    void flush(String reason) {
+      PendingRows<T> flush;
+
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        flush = takePending(reason);
+      }
+
+      write(flush);
+    }
+
+    /**
+     * Swap out the pending rows and their futures, the caller must hold the batch monitor.
+     *
+     * @param reason The reason for the flush.
+     * @return The rows to flush.
+     */
+    private PendingRows<T> takePending(String reason) {
+      PendingRows<T> flush = new PendingRows<>(reason, rows, pending);
+      rows = new ArrayList<>();
+      pending = new ArrayList<>();
+      lastFlushed = clock.instant();
+      return flush;
+    }
+
+    /**
+     * Encode swapped out rows and write them to a new Parquet file. If the batch can not be
+     * encoded, only the rows which can not be encoded on their own are failed and the rest are
+     * still written.
+     *
+     * @param flush The rows to flush.
+     */
+    private void write(PendingRows<T> flush) {
+      PendingRows<T> encodable = flush;
+
+      CompletableFuture<Void> written;
+      try {
+        byte[] bytes;
+        try {
+          bytes = encoder.encode(flush.rows());
+        } catch (IOException | RuntimeException e) {
+          if (flush.rows().size() == 1) {
+            throw e;
+          }
+
+          log.warn("Unable to encode {} records for path {}, encoding each record to find those "
+              + "which failed.", flush.rows().size(), directory, e);
+          encodable = withoutUnencodable(flush);
+
+          if (encodable.rows().isEmpty()) {
+            return;
+          }
+          bytes = encoder.encode(encodable.rows());
+        }
+
+        Payload payload
+            = new Payload(UUID.randomUUID() + ".parquet", bytes, PARQUET_CONTENT_TYPE, null);
+        written = sink.write(directory, payload)
+            .thenRun(() -> manifest.record(directory, null, payload));
+        flushBytes.record(bytes.length);
+      } catch (IOException | RuntimeException e) {
+        written = CompletableFuture.failedFuture(e);
+      }
+
+      List<CompletableFuture<Void>> flushed = encodable.futures();
+      written.whenComplete((result, e) -> {
+        if (e == null) {
+          meterRegistry.counter("ndw.batch.parquet.flushes", "reason", flush.reason())
+              .increment();
+          flushRecords.record(flushed.size());
+          flushed.forEach(future -> future.complete(null));
+        } else {
+          log.error("Unable to write {} records to path {}.", flushed.size(), directory, e);
+          flushed.forEach(future -> future.completeExceptionally(e));
+        }
+      });
+    }
+
+    /**
+     * Encode each row on its own, failing the futures of the rows which can not be encoded.
+     *
+     * @param flush The rows which could not be encoded together.
+     * @return The rows which could be encoded on their own, along with their futures.
+     */
+    private PendingRows<T> withoutUnencodable(PendingRows<T> flush) {
+      List<T> rows = new ArrayList<>();
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+      for (int i = 0; i < flush.rows().size(); i++) {
+        T row = flush.rows().get(i);
+        CompletableFuture<Void> future = flush.futures().get(i);
+
+        try {
+          encoder.encode(List.of(row));
+          rows.add(row);
+          futures.add(future);
+        } catch (IOException | RuntimeException e) {
+          log.error("Unable to encode record for path {}.", directory, e);
+          meterRegistry.counter("ndw.batch.parquet.unencodable").increment();
+          future.completeExceptionally(e);
+        }
+      }
+      return new PendingRows<>(flush.reason(), rows, futures);
+    }
+  }
+
+  /**
+   * Rows swapped out of a batch to be flushed.
+   *
+   * @param reason  The reason for the flush.
+   * @param rows    The buffered rows.
+   * @param futures The futures of the buffered rows.
+   * @param <T>     The type of the rows.
+   */
+  private record PendingRows<T>(String reason, List<T> rows,
+                                List<CompletableFuture<Void>> futures) {
+
+  }
+}
@@ -0,0 +1,357 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.apache.parquet.schema.LogicalTypeAnnotation.TimeUnit.MILLIS;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+import org.springframework.stereotype.Component;
+
+/**
+ * A writer which encodes Java records as Parquet files, with a schema derived from the record
+ * components.
+ *
+ * <p>Strings and enums are written as UTF-8 strings, {@link Instant} as millisecond UTC
+ * timestamps, {@link LocalDate} as dates and nested records as groups. Any other types, such as
+ * maps of template variables, are written as JSON strings. All columns are optional.
+ */
+@Component
+public class ParquetRecordWriter {
+
+  private final ObjectMapper mapper;
+
+  private final Map<Class<?>, MessageType> schemas = new ConcurrentHashMap<>();
+
+  ParquetRecordWriter(ObjectMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  /**
+   * Get the Parquet schema for a record type.
+   *
+   * @param recordType The record type.
+   * @return The derived schema.
+   */
+  public MessageType getSchema(Class<? extends Record> recordType) {
+    return schemas.computeIfAbsent(recordType, type -> Types.buildMessage()
+        .addFields(getFields(type))
+        .named(type.getSimpleName()));
+  }
+
+  /**
+   * Encode the given records as a single Parquet file.
+   *
+   * @param recordType The type of the records.
+   * @param records    The records to encode.
+   * @param <T>        The type of the records.
+   * @return The Parquet file content.
+   * @throws IOException If the records could not be encoded.
+   */
+  public <T extends Record> byte[] write(Class<T> recordType, List<T> records)
+      throws IOException {
+    return encode(new RecordWriteSupport<>(getSchema(recordType)), records);
+  }
+
+  /**
+   * Encode the given rows as a single in-memory Parquet file.
+   *
+   * @param writeSupport The write support to write each row with, an {@link UncheckedIOException}
+   *                     thrown while writing a row is unwrapped.
+   * @param rows         The rows to encode.
+   * @param <T>          The type of the rows.
+   * @return The Parquet file content.
+   * @throws IOException If the rows could not be encoded.
+   */
+  static <T> byte[] encode(WriteSupport<T> writeSupport, List<T> rows) throws IOException {
+    ByteArrayOutputFile outputFile = new ByteArrayOutputFile();
+
+    try (ParquetWriter<T> writer = new Builder<>(outputFile, writeSupport)
+        .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+        .withCompressionCodec(CompressionCodecName.SNAPPY)
+        .build()) {
+      for (T row : rows) {
+        writer.write(row);
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    return outputFile.toByteArray();
+  }
+
+  /**
+   * Get the schema fields for each component of a record type.
+   *
+   * @param recordType The record type.
+   * @return The schema fields, in component order.
+   */
+  private static Type[] getFields(Class<?> recordType) {
+    RecordComponent[] components = recordType.getRecordComponents();
+    Type[] fields = new Type[components.length];
+
+    for (int i = 0; i < components.length; i++) {
+      fields[i] = getField(components[i].getType(), components[i].getName());
+    }
+
+    return fields;
+  }
+
+  /**
+   * Get the schema field for a record component.
+   *
+   * @param type The component type.
+   * @param name The component name.
+   * @return The schema field.
+   */
+  private static Type getField(Class<?> type, String name) {
+    if (type == String.class || type.isEnum()) {
+      return Types.optional(BINARY).as(LogicalTypeAnnotation.stringType()).named(name);
+    } else if (type == Instant.class) {
+      return Types.optional(INT64).as(LogicalTypeAnnotation.timestampType(true, MILLIS))
+          .named(name);
+    } else if (type == LocalDate.class) {
+      return Types.optional(INT32).as(LogicalTypeAnnotation.dateType()).named(name);
+    } else if (type == Integer.class || type == int.class) {
+      return Types.optional(INT32).named(name);
+    } else if (type == Long.class || type == long.class) {
+      return Types.optional(INT64).named(name);
+    } else if (type == Double.class || type == double.class) {
+      return Types.optional(DOUBLE).named(name);
+    } else if (type == Float.class || type == float.class) {
+      return Types.optional(FLOAT).named(name);
+    } else if (type == Boolean.class || type == boolean.class) {
+      return Types.optional(BOOLEAN).named(name);
+    } else if (type.isRecord()) {
+      return Types.optionalGroup().addFields(getFields(type)).named(name);
+    }
+
+    return Types.optional(BINARY).as(LogicalTypeAnnotation.jsonType()).named(name);
+  }
+
+  /**
+   * A write support which writes each record's components to the matching schema fields.
+   *
+   * @param <T> The type of record to write.
+   */
+  private class RecordWriteSupport<T extends Record> extends WriteSupport<T> {
+
+    private final MessageType schema;
+
+    private RecordConsumer consumer;
+
+    RecordWriteSupport(MessageType schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+      return new WriteContext(schema, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+      consumer = recordConsumer;
+    }
+
+    @Override
+    public void write(T rec) {
+      consumer.startMessage();
+      writeComponents(rec);
+      consumer.endMessage();
+    }
+
+    /**
+     * Write each non-null component of a record as a field.
+     *
+     * @param rec The record to write.
+     */
+    private void writeComponents(Record rec) {
+      RecordComponent[] components = rec.getClass().getRecordComponents();
+
+      for (int i = 0; i < components.length; i++) {
+        Object value = getValue(components[i], rec);
+
+        if (value != null) {
+          String name = components[i].getName();
+          consumer.startField(name, i);
+          writeValue(value);
+          consumer.endField(name, i);
+        }
+      }
+    }
+
+    /**
+     * Write a single value, using the same type mapping as the schema.
+     *
+     * @param value The value to write.
+     */
+    private void writeValue(Object value) {
+      if (value instanceof String string) {
+        consumer.addBinary(Binary.fromString(string));
+      } else if (value instanceof Enum<?> enumValue) {
+        consumer.addBinary(Binary.fromString(enumValue.name()));
+      } else if (value instanceof Instant instant) {
+        consumer.addLong(instant.toEpochMilli());
+      } else if (value instanceof LocalDate date) {
+        consumer.addInteger(Math.toIntExact(date.toEpochDay()));
+      } else if (value instanceof Integer integer) {
+        consumer.addInteger(integer);
+      } else if (value instanceof Long longValue) {
+        consumer.addLong(longValue);
+      } else if (value instanceof Double doubleValue) {
+        consumer.addDouble(doubleValue);
+      } else if (value instanceof Float floatValue) {
+        consumer.addFloat(floatValue);
+      } else if (value instanceof Boolean bool) {
+        consumer.addBoolean(bool);
+      } else if (value instanceof Record rec) {
+        consumer.startGroup();
+        writeComponents(rec);
+        consumer.endGroup();
+      } else {
+        try {
+          consumer.addBinary(Binary.fromString(mapper.writeValueAsString(value)));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+
+    /**
+     * Get the value of a record component.
+     *
+     * @param component The component to get.
+     * @param rec       The record to get the value from.
+     * @return The component value.
+     */
+    private static Object getValue(RecordComponent component, Record rec) {
+      try {
+        return component.getAccessor().invoke(rec);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new IllegalStateException("Unable to read record component " + component, e);
+      }
+    }
+  }
+
+  /**
+   * A Parquet writer builder for records, writing with the given write support.
+   *
+   * @param <T> The type of record to write.
+   */
+  private static class Builder<T> extends ParquetWriter.Builder<T, Builder<T>> {
+
+    private final WriteSupport<T> writeSupport;
+
+    Builder(OutputFile outputFile, WriteSupport<T> writeSupport) {
+      super(outputFile);
+      this.writeSupport = writeSupport;
+    }
+
+    @Override
+    protected Builder<T> self() {
+      return this;
+    }
+
+    @Override
+    protected WriteSupport<T> getWriteSupport(Configuration conf) {
+      return writeSupport;
+    }
+  }
+
+  /**
+   * An in-memory output file, files are small enough to be uploaded in a single request.
+   */
+  private static class ByteArrayOutputFile implements OutputFile {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public PositionOutputStream create(long blockSizeHint) {
+      return createOrOverwrite(blockSizeHint);
+    }
+
+    @Override
+    public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+      bytes.reset();
+      return new PositionOutputStream() {
+        @Override
+        public long getPos() {
+          return bytes.size();
+        }
+
+        @Override
+        public void write(int b) {
+          bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          bytes.write(b, off, len);
+        }
+      };
+    }
+
+    @Override
+    public boolean supportsBlockSize() {
+      return false;
+    }
+
+    @Override
+    public long defaultBlockSize() {
+      return 0;
+    }
+
+    byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+  }
+}
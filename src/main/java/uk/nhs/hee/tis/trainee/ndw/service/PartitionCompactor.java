@@ -0,0 +1,687 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.CompactionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompactionProperties.Compression;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Codec;
+import uk.nhs.hee.tis.trainee.ndw.service.PartitionStore.StoredFile;
+
+/**
+ * A job to compact the many small files of closed day partitions in to a few large NDJSON files.
+ *
+ * <p>JSON and NDJSON files are read whether or not they are compressed, partitions holding Parquet
+ * files are not compacted. Only the latest version of each record, by ID, is kept. Records are
+ * spilled to local disk in buckets by ID, so only a single bucket's records are held in memory at
+ * once. A success marker recording the compacted files is written once the compacted files are
+ * complete, a partition is only compacted again if its files have changed since.
+ */
+@Slf4j
+@Component
+public class PartitionCompactor {
+
+  static final String SUCCESS_MARKER = "_SUCCESS";
+
+  private static final byte NEWLINE = '\n';
+
+  private static final String PARQUET_EXTENSION = ".parquet";
+
+  private static final int MAX_BUCKETS = 256;
+
+  private final PartitionStore store;
+
+  private final PartitionLayout partitionLayout;
+
+  private final CompactionProperties properties;
+
+  private final String dataLakeRoot;
+
+  private final ObjectMapper mapper;
+
+  private final Clock clock;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ExecutorService partitionExecutor;
+
+  private final ExecutorService fileExecutor;
+
+  private CompletableFuture<Void> running = CompletableFuture.completedFuture(null);
+
+  PartitionCompactor(PartitionStore store, PartitionLayout partitionLayout,
+      CompactionProperties properties, @Value("${application.ndw.directory}") String directory,
+      ObjectMapper mapper, Clock clock, MeterRegistry meterRegistry) {
+    this.store = store;
+    this.partitionLayout = partitionLayout;
+    this.properties = properties;
+    this.dataLakeRoot = directory;
+    this.mapper = mapper;
+    this.clock = clock;
+    this.meterRegistry = meterRegistry;
+
+    // Threads are only started once compaction runs, so these are idle when it is disabled.
+    partitionExecutor = Executors.newFixedThreadPool(properties.parallelism());
+    fileExecutor = Executors.newFixedThreadPool(properties.parallelism());
+  }
+
+  /**
+   * Start compaction of closed partitions on the schedule, returning immediately so the scheduler
+   * thread is free for other jobs while the compaction runs.
+   */
+  @Scheduled(cron = "${application.ndw.compaction.cron}", zone = "UTC")
+  void compactClosedPartitions() {
+    startCompaction();
+  }
+
+  /**
+   * Start compacting any closed partitions from the configured number of previous days, unless a
+   * previous compaction is still running.
+   *
+   * @return A future which completes when every partition has been processed.
+   */
+  synchronized CompletableFuture<Void> startCompaction() {
+    if (!properties.enabled()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    if (!running.isDone()) {
+      log.warn("Skipping compaction as the previous compaction is still running.");
+      return running;
+    }
+
+    LocalDate today = LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+    List<CompletableFuture<Void>> compactions = new ArrayList<>();
+
+    for (int daysBack = 1; daysBack <= properties.daysBack(); daysBack++) {
+      LocalDate day = today.minusDays(daysBack);
+
+      for (String partition : properties.partitions()) {
+        compactions.add(CompletableFuture.runAsync(() -> {
+          try {
+            compact(partition, day, fileExecutor);
+          } catch (RuntimeException e) {
+            log.error("Unable to compact partition {} for {}.", partition, day, e);
+          }
+        }, partitionExecutor));
+      }
+    }
+
+    running = CompletableFuture.allOf(compactions.toArray(CompletableFuture[]::new));
+    return running;
+  }
+
+  /**
+   * Stop any running compaction, a partition is only marked as compacted once complete so an
+   * interrupted partition is compacted again on the next run.
+   */
+  @PreDestroy
+  void shutdown() {
+    partitionExecutor.shutdownNow();
+    fileExecutor.shutdownNow();
+  }
+
+  /**
+   * Compact a single day partition, unless it has already been compacted and its files have not
+   * changed since.
+   *
+   * @param partition    The name of the partitioned subdirectory.
+   * @param day          The day of the partition.
+   * @param fileExecutor The executor to read the partition's files with.
+   * @return Whether the partition was compacted.
+   */
+  boolean compact(String partition, LocalDate day, ExecutorService fileExecutor) {
+    String sourcePath = PartitionLayout.getDayPath(dataLakeRoot, partition, day);
+    String outputPath = PartitionLayout.getDayPath(
+        dataLakeRoot + "/" + properties.outputRoot(), partition, day);
+    String markerPath = outputPath + "/" + SUCCESS_MARKER;
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    List<StoredFile> allFiles = partitionLayout.getPartitionPaths(dataLakeRoot, partition, day)
+        .stream()
+        .flatMap(path -> store.listFiles(path).stream())
+        .toList();
+
+    // Parquet rows can not be merged in to NDJSON, so the partition is left uncompacted.
+    if (allFiles.stream().anyMatch(file -> file.name().endsWith(PARQUET_EXTENSION))) {
+      log.warn("Partition {} contains Parquet files and can not be compacted.", sourcePath);
+      return false;
+    }
+
+    List<StoredFile> files = allFiles.stream()
+        .filter(file -> getJsonName(file) != null)
+        .toList();
+    Map<String, String> inputs = getInputs(files);
+    CompactionMarker previous;
+
+    try {
+      previous = readMarker(markerPath);
+
+      if (previous != null) {
+        if (previous.inputs() == null || previous.inputs().equals(inputs)) {
+          log.debug("Partition {} already compacted.", sourcePath);
+          return false;
+        }
+
+        log.info("Recompacting partition {} as its files have changed.", sourcePath);
+        store.delete(markerPath);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    long sourceSize = files.stream().mapToLong(StoredFile::size).sum();
+    int bucketCount = (int) Math.max(1,
+        Math.min(MAX_BUCKETS, Math.ceil((double) sourceSize / properties.maxMemory().toBytes())));
+    log.info("Compacting {} files from partition {} in {} buckets.", files.size(), sourcePath,
+        bucketCount);
+
+    CompactionResult result;
+    try (SpillBuckets buckets = new SpillBuckets(bucketCount)) {
+      List<CompletableFuture<Void>> spills = new ArrayList<>();
+      for (int i = 0; i < files.size(); i++) {
+        StoredFile file = files.get(i);
+        int fileIndex = i;
+        spills.add(CompletableFuture.runAsync(() -> spillRecords(file, fileIndex, buckets),
+            fileExecutor));
+      }
+      CompletableFuture.allOf(spills.toArray(CompletableFuture[]::new)).join();
+
+      result = writeParts(outputPath, buckets);
+
+      if (previous != null) {
+        for (String part : previous.parts()) {
+          if (!result.parts().contains(part)) {
+            store.delete(outputPath + "/" + part);
+          }
+        }
+      }
+
+      writeMarker(markerPath, sourcePath, inputs, result);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException re ? re : e;
+    }
+
+    sample.stop(meterRegistry.timer("ndw.compaction.duration", "partition", partition));
+    meterRegistry.counter("ndw.compaction.files", "partition", partition)
+        .increment(files.size());
+    meterRegistry.counter("ndw.compaction.records", "partition", partition)
+        .increment(result.records());
+    meterRegistry.counter("ndw.compaction.superseded", "partition", partition)
+        .increment(result.sourceRecords() - (double) result.records());
+    log.info("Compacted {} records from {} files in partition {} to {}.", result.records(),
+        files.size(), sourcePath, outputPath);
+    return true;
+  }
+
+  /**
+   * Get the compaction inputs for a partition's files, so changes since a previous compaction can
+   * be detected.
+   *
+   * @param files The partition's JSON and NDJSON files.
+   * @return The last modified time of each file, by path.
+   */
+  private static Map<String, String> getInputs(List<StoredFile> files) {
+    Map<String, String> inputs = new TreeMap<>();
+    files.forEach(file -> inputs.put(file.path(), file.lastModified().toInstant().toString()));
+    return inputs;
+  }
+
+  /**
+   * Read the success marker of a previous compaction.
+   *
+   * @param markerPath The path of the marker.
+   * @return The marker, or null if the partition has not been compacted.
+   * @throws IOException If the marker could not be read.
+   */
+  private CompactionMarker readMarker(String markerPath) throws IOException {
+    if (!store.exists(markerPath)) {
+      return null;
+    }
+
+    JsonNode marker = mapper.readTree(store.read(markerPath));
+    List<String> parts = new ArrayList<>();
+    marker.path("parts").forEach(part -> parts.add(part.asText()));
+
+    // Markers written before the inputs were recorded are assumed to be up-to-date.
+    Map<String, String> inputs = null;
+    if (marker.has("inputs")) {
+      inputs = new TreeMap<>();
+      Map<String, String> recorded = inputs;
+      marker.get("inputs").fields()
+          .forEachRemaining(input -> recorded.put(input.getKey(), input.getValue().asText()));
+    }
+
+    return new CompactionMarker(parts, inputs);
+  }
+
+  /**
+   * Get the name of a JSON or NDJSON file without any compression extension.
+   *
+   * @param file The file.
+   * @return The uncompressed filename, or null if the file is not JSON or NDJSON.
+   */
+  private static String getJsonName(StoredFile file) {
+    String name = file.name();
+
+    for (Codec codec : Codec.values()) {
+      if (codec.getExtension() != null && name.endsWith(codec.getExtension())) {
+        name = name.substring(0, name.length() - codec.getExtension().length());
+        break;
+      }
+    }
+
+    return name.endsWith(".json") || name.endsWith(".ndjson") ? name : null;
+  }
+
+  /**
+   * Read the content of a file, decompressing it if it has a compression extension.
+   *
+   * @param file The file to read.
+   * @return The uncompressed content.
+   * @throws IOException If the file could not be read or decompressed.
+   */
+  private byte[] readContent(StoredFile file) throws IOException {
+    byte[] content = store.read(file.path());
+
+    if (file.name().endsWith(Codec.GZIP.getExtension())) {
+      try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+        return gzip.readAllBytes();
+      }
+    }
+
+    if (file.name().endsWith(Codec.ZSTD.getExtension())) {
+      try (InputStream zstd = new ZstdInputStream(new ByteArrayInputStream(content))) {
+        return zstd.readAllBytes();
+      }
+    }
+
+    return content;
+  }
+
+  /**
+   * Read the records from a JSON or NDJSON file, which may be compressed, and spill them to the
+   * bucket for their key.
+   *
+   * @param file      The file to read.
+   * @param fileIndex The position of the file within the partition.
+   * @param buckets   The buckets to spill the records to.
+   */
+  private void spillRecords(StoredFile file, int fileIndex, SpillBuckets buckets) {
+    try {
+      byte[] content = readContent(file);
+      Instant lastModified = file.lastModified().toInstant();
+
+      if (getJsonName(file).endsWith(".ndjson")) {
+        String[] lines = new String(content, StandardCharsets.UTF_8).split("\n");
+
+        for (int i = 0; i < lines.length; i++) {
+          if (!lines[i].isBlank()) {
+            buckets.spill(toVersionedRecord(mapper.readTree(lines[i]), file, lastModified,
+                fileIndex, i));
+          }
+        }
+      } else if (content.length > 0) {
+        buckets.spill(toVersionedRecord(mapper.readTree(content), file, lastModified, fileIndex,
+            0));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read " + file.path(), e);
+    }
+  }
+
+  /**
+   * Create a versioned record from a parsed JSON record.
+   *
+   * @param node         The parsed record.
+   * @param file         The file the record was read from.
+   * @param lastModified When the file was last modified.
+   * @param fileIndex    The position of the file within the partition.
+   * @param sequence     The position of the record within the file.
+   * @return The versioned record.
+   * @throws IOException If the record could not be re-serialized.
+   */
+  private VersionedRecord toVersionedRecord(JsonNode node, StoredFile file, Instant lastModified,
+      int fileIndex, int sequence) throws IOException {
+    String id = node.path("id").asText(null);
+    String key = id != null ? id : file.path() + "#" + sequence;
+    return new VersionedRecord(key, mapper.writeValueAsBytes(node), lastModified, fileIndex,
+        sequence);
+  }
+
+  /**
+   * Write the latest version of each record to as many parts as are needed to keep each under
+   * the target size, loading a single bucket of records at a time.
+   *
+   * @param outputPath The directory to write the parts to.
+   * @param buckets    The buckets holding the spilled records.
+   * @return The result of the compaction.
+   * @throws IOException If a bucket could not be read or a part could not be written.
+   */
+  private CompactionResult writeParts(String outputPath, SpillBuckets buckets)
+      throws IOException {
+    List<String> parts = new ArrayList<>();
+    ByteArrayOutputStream part = new ByteArrayOutputStream();
+    long targetSize = properties.targetFileSize().toBytes();
+    int records = 0;
+    int sourceRecords = 0;
+
+    buckets.finishSpilling();
+
+    for (int bucket = 0; bucket < buckets.size(); bucket++) {
+      Map<String, VersionedRecord> latest = new LinkedHashMap<>();
+
+      for (VersionedRecord versionedRecord : buckets.read(bucket)) {
+        latest.merge(versionedRecord.key(), versionedRecord,
+            (existing, candidate) -> candidate.isNewerThan(existing) ? candidate : existing);
+        sourceRecords++;
+      }
+
+      for (VersionedRecord versionedRecord : latest.values()) {
+        part.write(versionedRecord.json());
+        part.write(NEWLINE);
+
+        if (part.size() >= targetSize) {
+          parts.add(writePart(outputPath, parts.size(), part.toByteArray()));
+          part.reset();
+        }
+      }
+      records += latest.size();
+    }
+
+    if (part.size() > 0) {
+      parts.add(writePart(outputPath, parts.size(), part.toByteArray()));
+    }
+
+    return new CompactionResult(parts, records, sourceRecords);
+  }
+
+  /**
+   * Write a single part, compressing it if configured.
+   *
+   * @param outputPath The directory to write the part to.
+   * @param index      The index of the part.
+   * @param content    The uncompressed part content.
+   * @return The name of the written part.
+   * @throws IOException If the part could not be written.
+   */
+  private String writePart(String outputPath, int index, byte[] content) throws IOException {
+    String name = String.format("part-%05d.ndjson", index);
+
+    if (properties.compression() == Compression.GZIP) {
+      name += ".gz";
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+      try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+        gzip.write(content);
+      }
+      content = compressed.toByteArray();
+    }
+
+    store.write(outputPath + "/" + name, content);
+    return name;
+  }
+
+  /**
+   * Write the success marker, which includes a summary of the compaction and the compacted files.
+   *
+   * @param markerPath The path of the marker.
+   * @param sourcePath The path of the compacted partition.
+   * @param inputs     The last modified time of each compacted file, by path.
+   * @param result     The result of the compaction.
+   * @throws IOException If the marker could not be written.
+   */
+  private void writeMarker(String markerPath, String sourcePath, Map<String, String> inputs,
+      CompactionResult result) throws IOException {
+    Map<String, Object> summary = new HashMap<>();
+    summary.put("source", sourcePath);
+    summary.put("sourceFiles", inputs.size());
+    summary.put("records", result.records());
+    summary.put("parts", result.parts());
+    summary.put("inputs", inputs);
+    summary.put("compactedAt", clock.instant().toString());
+    store.write(markerPath, mapper.writeValueAsBytes(summary));
+  }
+
+  /**
+   * A record along with the information needed to determine the latest version.
+   *
+   * @param key          The key of the record, its ID where available.
+   * @param json         The serialized record.
+   * @param lastModified When the file containing the record was last modified.
+   * @param fileIndex    The position of the file containing the record within the partition.
+   * @param sequence     The position of the record within the file.
+   */
+  private record VersionedRecord(String key, byte[] json, Instant lastModified, int fileIndex,
+                                 int sequence) {
+
+    /**
+     * Whether this record is a newer version than another record with the same key.
+     *
+     * @param other The record to compare against.
+     * @return true if this record was written after the other record.
+     */
+    boolean isNewerThan(VersionedRecord other) {
+      int comparison = lastModified.compareTo(other.lastModified);
+
+      if (comparison == 0) {
+        comparison = Integer.compare(sequence, other.sequence);
+      }
+
+      // Where files are indistinguishable, the first file's version is kept.
+      return comparison > 0 || (comparison == 0 && fileIndex < other.fileIndex);
+    }
+
+    /**
+     * Write the record to a spill bucket.
+     *
+     * @param out The bucket to write to.
+     * @throws IOException If the record could not be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+      out.writeUTF(key);
+      out.writeLong(lastModified.getEpochSecond());
+      out.writeInt(lastModified.getNano());
+      out.writeInt(fileIndex);
+      out.writeInt(sequence);
+      out.writeInt(json.length);
+      out.write(json);
+    }
+
+    /**
+     * Read a record from a spill bucket.
+     *
+     * @param in The bucket to read from.
+     * @return The record read.
+     * @throws IOException If the record could not be read.
+     */
+    static VersionedRecord readFrom(DataInputStream in) throws IOException {
+      String key = in.readUTF();
+      Instant lastModified = Instant.ofEpochSecond(in.readLong(), in.readInt());
+      int fileIndex = in.readInt();
+      int sequence = in.readInt();
+      byte[] json = in.readNBytes(in.readInt());
+      return new VersionedRecord(key, json, lastModified, fileIndex, sequence);
+    }
+  }
+
+  /**
+   * The previous compaction of a partition, as recorded by its success marker.
+   *
+   * @param parts  The names of the written parts.
+   * @param inputs The last modified time of each compacted file by path, or null if not recorded.
+   */
+  private record CompactionMarker(List<String> parts, Map<String, String> inputs) {
+
+  }
+
+  /**
+   * The result of compacting a partition.
+   *
+   * @param parts         The names of the written parts.
+   * @param records       The number of records written.
+   * @param sourceRecords The number of records read, including superseded versions.
+   */
+  private record CompactionResult(List<String> parts, int records, int sourceRecords) {
+
+  }
+
+  /**
+   * Local files which a partition's records are spilled to by key, so that every version of a
+   * record is in the same bucket and each bucket can be deduplicated on its own.
+   */
+  private static class SpillBuckets implements Closeable {
+
+    private final Path directory;
+
+    private final DataOutputStream[] outputs;
+
+    private final int[] counts;
+
+    /**
+     * Create the spill files in a new temporary directory.
+     *
+     * @param count The number of buckets.
+     * @throws IOException If the spill files could not be created.
+     */
+    SpillBuckets(int count) throws IOException {
+      directory = Files.createTempDirectory("ndw-compaction-");
+      outputs = new DataOutputStream[count];
+      counts = new int[count];
+
+      for (int i = 0; i < count; i++) {
+        outputs[i] = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(getPath(i))));
+      }
+    }
+
+    /**
+     * Get the number of buckets.
+     *
+     * @return The bucket count.
+     */
+    int size() {
+      return outputs.length;
+    }
+
+    /**
+     * Spill a record to the bucket for its key, may be called concurrently.
+     *
+     * @param versionedRecord The record to spill.
+     * @throws IOException If the record could not be written.
+     */
+    void spill(VersionedRecord versionedRecord) throws IOException {
+      int bucket = Math.floorMod(versionedRecord.key().hashCode(), outputs.length);
+      DataOutputStream output = outputs[bucket];
+
+      synchronized (output) {
+        versionedRecord.writeTo(output);
+        counts[bucket]++;
+      }
+    }
+
+    /**
+     * Flush and close the spill files, once every record has been spilled.
+     *
+     * @throws IOException If a spill file could not be closed.
+     */
+    void finishSpilling() throws IOException {
+      for (DataOutputStream output : outputs) {
+        output.close();
+      }
+    }
+
+    /**
+     * Read every record spilled to a bucket.
+     *
+     * @param bucket The bucket to read.
+     * @return The bucket's records, in the order they were spilled.
+     * @throws IOException If the bucket could not be read.
+     */
+    List<VersionedRecord> read(int bucket) throws IOException {
+      List<VersionedRecord> records = new ArrayList<>();
+
+      try (DataInputStream input = new DataInputStream(
+          new BufferedInputStream(Files.newInputStream(getPath(bucket))))) {
+        for (int i = 0; i < counts[bucket]; i++) {
+          records.add(VersionedRecord.readFrom(input));
+        }
+      }
+      return records;
+    }
+
+    private Path getPath(int bucket) {
+      return directory.resolve("bucket-" + bucket);
+    }
+
+    @Override
+    public void close() throws IOException {
+      finishSpilling();
+
+      for (int i = 0; i < outputs.length; i++) {
+        Files.deleteIfExists(getPath(i));
+      }
+      Files.deleteIfExists(directory);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.Granularity;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.PartitionTime;
+
+/**
+ * The layout of the year-month-day, and optionally hour, partition directories.
+ */
+@Component
+public class PartitionLayout {
+
+  private static final DateTimeFormatter YEAR_FORMAT
+      = DateTimeFormatter.ofPattern("'year='yyyy").withZone(ZoneOffset.UTC);
+
+  private static final DateTimeFormatter MONTH_FORMAT
+      = DateTimeFormatter.ofPattern("'month='yyyyMM").withZone(ZoneOffset.UTC);
+
+  private static final DateTimeFormatter DAY_FORMAT
+      = DateTimeFormatter.ofPattern("'day='yyyyMMdd").withZone(ZoneOffset.UTC);
+
+  private static final DateTimeFormatter HOUR_FORMAT
+      = DateTimeFormatter.ofPattern("'hour='yyyyMMddHH").withZone(ZoneOffset.UTC);
+
+  private final PartitionProperties properties;
+
+  PartitionLayout(PartitionProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Get the start of the partition an event belongs to.
+   *
+   * @param eventTime      The timestamp of the event, may be null.
+   * @param processingTime The time the event is being exported.
+   * @return The start of the event's partition.
+   */
+  public Instant getPartitionStart(Instant eventTime, Instant processingTime) {
+    Instant instant = properties.time() == PartitionTime.EVENT && eventTime != null
+        ? eventTime
+        : processingTime;
+    return instant.truncatedTo(
+        properties.granularity() == Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+  }
+
+  /**
+   * Get the names of the nested partition subdirectories for a partition.
+   *
+   * @param partitionStart The start of the partition.
+   * @return The subdirectory names, outermost first.
+   */
+  public List<String> getSubdirectories(Instant partitionStart) {
+    List<String> subdirectories = new ArrayList<>(4);
+    subdirectories.add(YEAR_FORMAT.format(partitionStart));
+    subdirectories.add(MONTH_FORMAT.format(partitionStart));
+    subdirectories.add(DAY_FORMAT.format(partitionStart));
+
+    if (properties.granularity() == Granularity.HOUR) {
+      subdirectories.add(HOUR_FORMAT.format(partitionStart));
+    }
+
+    return subdirectories;
+  }
+
+  /**
+   * Get the path of the partition directory for a partition.
+   *
+   * @param root           The root directory.
+   * @param name           The name of the partitioned subdirectory.
+   * @param partitionStart The start of the partition.
+   * @return The path of the partition directory.
+   */
+  public String getPartitionPath(String root, String name, Instant partitionStart) {
+    return root + "/" + name + "/" + String.join("/", getSubdirectories(partitionStart));
+  }
+
+  /**
+   * Get the paths of all partition directories for the given day, this is the day directory
+   * itself or each of the day's hour directories.
+   *
+   * @param root The root directory.
+   * @param name The name of the partitioned subdirectory.
+   * @param day  The (UTC) day.
+   * @return The paths of the day's partition directories.
+   */
+  public List<String> getPartitionPaths(String root, String name, LocalDate day) {
+    Instant start = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+    if (properties.granularity() == Granularity.DAY) {
+      return List.of(getPartitionPath(root, name, start));
+    }
+
+    List<String> paths = new ArrayList<>(24);
+
+    for (int hour = 0; hour < 24; hour++) {
+      paths.add(getPartitionPath(root, name, start.plus(hour, ChronoUnit.HOURS)));
+    }
+
+    return paths;
+  }
+
+  /**
+   * Get the path of the day partition directory for the given day, regardless of the configured
+   * granularity.
+   *
+   * @param root The root directory.
+   * @param name The name of the partitioned subdirectory.
+   * @param day  The (UTC) day.
+   * @return The path of the day directory.
+   */
+  public static String getDayPath(String root, String name, LocalDate day) {
+    Instant start = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    return String.join("/", root, name, YEAR_FORMAT.format(start), MONTH_FORMAT.format(start),
+        DAY_FORMAT.format(start));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * A store of partitioned files, providing the read and write access needed for compaction.
+ */
+public interface PartitionStore {
+
+  /**
+   * List the files directly within a directory.
+   *
+   * @param directory The path of the directory.
+   * @return The files in the directory, or an empty list if the directory does not exist.
+   */
+  List<StoredFile> listFiles(String directory);
+
+  /**
+   * Read the content of a file.
+   *
+   * @param path The path of the file.
+   * @return The file content.
+   * @throws IOException If the file could not be read.
+   */
+  byte[] read(String path) throws IOException;
+
+  /**
+   * Write a file, overwriting any existing file.
+   *
+   * @param path    The path of the file.
+   * @param content The file content.
+   * @throws IOException If the file could not be written.
+   */
+  void write(String path, byte[] content) throws IOException;
+
+  /**
+   * Delete a file, if it exists.
+   *
+   * @param path The path of the file.
+   * @throws IOException If the file could not be deleted.
+   */
+  void delete(String path) throws IOException;
+
+  /**
+   * Check whether a file exists.
+   *
+   * @param path The path of the file.
+   * @return true if the file exists.
+   */
+  boolean exists(String path);
+
+  /**
+   * A file within the store.
+   *
+   * @param path         The path of the file.
+   * @param size         The size of the file, in bytes.
+   * @param lastModified When the file was last modified.
+   */
+  record StoredFile(String path, long size, OffsetDateTime lastModified) {
+
+    /**
+     * Get the name of the file, without the directory path.
+     *
+     * @return The file name.
+     */
+    public String name() {
+      return path.substring(path.lastIndexOf('/') + 1);
+    }
+  }
+}
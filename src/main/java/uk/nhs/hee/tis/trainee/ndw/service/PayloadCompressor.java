@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Codec;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+
+/**
+ * A compressor for file payloads, which only compresses payloads above the configured threshold
+ * and falls back to the uncompressed payload when compression does not reduce its size.
+ *
+ * <p>As a record's filename depends on whether it was compressed, a payload names the other
+ * variant of its filename so that an earlier version of the record written under that name is
+ * removed, leaving a single file per record.
+ */
+@Slf4j
+@Component
+public class PayloadCompressor {
+
+  private final MeterRegistry meterRegistry;
+
+  PayloadCompressor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Compress a payload according to the given settings.
+   *
+   * @param settings    The compression settings for the payload's event type.
+   * @param filename    The uncompressed filename.
+   * @param content     The uncompressed content.
+   * @param contentType The content type of the uncompressed content.
+   * @return The payload to upload, compressed if worthwhile.
+   */
+  public Payload compress(Settings settings, String filename, byte[] content,
+      String contentType) {
+    Codec codec = settings.codec();
+
+    if (codec == Codec.NONE) {
+      return new Payload(filename, content, contentType, null);
+    }
+
+    Payload uncompressed = new Payload(filename, content, contentType, null,
+        List.of(filename + codec.getExtension()));
+
+    if (content.length < settings.threshold().toBytes()) {
+      meterRegistry.counter("ndw.compression.skipped", "codec", codec.name(), "reason",
+          "threshold").increment();
+      return uncompressed;
+    }
+
+    byte[] compressed = switch (codec) {
+      case GZIP -> gzip(content);
+      case ZSTD -> Zstd.compress(content);
+      default -> throw new IllegalStateException("Unexpected codec " + codec);
+    };
+
+    if (compressed.length >= content.length) {
+      meterRegistry.counter("ndw.compression.skipped", "codec", codec.name(), "reason",
+          "ineffective").increment();
+      return uncompressed;
+    }
+
+    summary("ndw.compression.bytes.in", codec).record(content.length);
+    summary("ndw.compression.bytes.out", codec).record(compressed.length);
+    log.debug("Compressed {} from {} to {} bytes with {}.", filename, content.length,
+        compressed.length, codec);
+
+    return new Payload(filename + codec.getExtension(), compressed, contentType,
+        codec.getContentEncoding(), List.of(filename));
+  }
+
+  /**
+   * Compress content with gzip.
+   *
+   * @param content The content to compress.
+   * @return The compressed content.
+   */
+  private static byte[] gzip(byte[] content) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2);
+
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return compressed.toByteArray();
+  }
+
+  /**
+   * Get the byte count summary for a codec.
+   *
+   * @param name  The metric name.
+   * @param codec The codec.
+   * @return The distribution summary.
+   */
+  private DistributionSummary summary(String name, Codec codec) {
+    return DistributionSummary.builder(name)
+        .description("The size of compressed payloads, before and after compression.")
+        .baseUnit("bytes")
+        .tag("codec", codec.name())
+        .register(meterRegistry);
+  }
+
+  /**
+   * A file payload to upload to the data lake.
+   *
+   * @param filename        The filename to use, with a compression extension if compressed.
+   * @param content         The file content.
+   * @param contentType     The content type of the uncompressed content.
+   * @param contentEncoding The content encoding, or null if uncompressed.
+   * @param superseded      The other filenames the same record may have been written to, which
+   *                        are removed once this payload is written.
+   */
+  public record Payload(String filename, byte[] content, String contentType,
+                        String contentEncoding, List<String> superseded) {
+
+    /**
+     * Create a payload which does not supersede any other files.
+     *
+     * @param filename        The filename to use.
+     * @param content         The file content.
+     * @param contentType     The content type of the uncompressed content.
+     * @param contentEncoding The content encoding, or null if uncompressed.
+     */
+    public Payload(String filename, byte[] content, String contentType, String contentEncoding) {
+      this(filename, content, contentType, contentEncoding, List.of());
+    }
+  }
+}
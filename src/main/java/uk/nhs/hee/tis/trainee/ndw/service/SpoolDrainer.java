@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.nhs.hee.tis.trainee.ndw.config.ShutdownProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.SpoolProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSpool.SpoolEntry;
+
+/**
+ * A background drainer which uploads spooled writes to the data lake with bounded concurrency.
+ */
+@Slf4j
+@Component
+public class SpoolDrainer {
+
+  private final ExportSpool spool;
+
+  private final DataLakeFacade dataLakeFacade;
+
+  private final int concurrency;
+
+  private final Duration drainInterval;
+
+  private final ShutdownProperties shutdownProperties;
+
+  private final Path directory;
+
+  private final Clock clock;
+
+  private final ExecutorService executor;
+
+  private final Counter failures;
+
+  /**
+   * Initialise the spool drainer.
+   *
+   * @param spool              The spool to drain.
+   * @param dataLakeFacade     The data lake facade to upload the spooled writes with.
+   * @param properties         The spool properties.
+   * @param shutdownProperties The shutdown properties, limiting how long to drain for on shutdown.
+   * @param clock              The clock to time the shutdown drain with.
+   * @param meterRegistry      The registry to record drain metrics with.
+   */
+  SpoolDrainer(ExportSpool spool, DataLakeFacade dataLakeFacade, SpoolProperties properties,
+      ShutdownProperties shutdownProperties, Clock clock, MeterRegistry meterRegistry) {
+    this.spool = spool;
+    this.dataLakeFacade = dataLakeFacade;
+    this.concurrency = properties.drainConcurrency();
+    this.drainInterval = properties.drainInterval();
+    this.shutdownProperties = shutdownProperties;
+    this.directory = properties.directory();
+    this.clock = clock;
+    this.executor = Executors.newFixedThreadPool(concurrency);
+
+    failures = Counter.builder("ndw.spool.drain.failures")
+        .description("The number of spooled writes which failed to upload and will be retried.")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Drain the spool until it is empty or an upload fails, in which case the data lake is assumed
+   * to be unavailable and draining is retried on the next interval.
+   */
+  @Scheduled(fixedDelayString = "${application.ndw.spool.drain-interval}")
+  public void drain() {
+    if (!spool.isEnabled()) {
+      return;
+    }
+
+    List<SpoolEntry> entries = spool.poll(concurrency);
+
+    while (!entries.isEmpty()) {
+      AtomicBoolean failed = new AtomicBoolean();
+      CompletableFuture<?>[] uploads = entries.stream()
+          .map(entry -> upload(entry).exceptionally(e -> {
+            failed.set(true);
+            return null;
+          }))
+          .toArray(CompletableFuture[]::new);
+      CompletableFuture.allOf(uploads).join();
+
+      if (failed.get()) {
+        return;
+      }
+
+      entries = spool.poll(concurrency);
+    }
+  }
+
+  /**
+   * Drain the spool until it is empty or the deadline is reached, retrying failed uploads every
+   * drain interval.
+   *
+   * @param deadline The latest time to keep draining until.
+   * @return The number of spooled writes still to drain.
+   */
+  public int drainUntil(Instant deadline) {
+    if (!spool.isEnabled()) {
+      return 0;
+    }
+
+    drain();
+
+    while (spool.getBacklog() > 0 && clock.instant().isBefore(deadline)) {
+      Duration untilDeadline = Duration.between(clock.instant(), deadline);
+      Duration wait = untilDeadline.compareTo(drainInterval) < 0 ? untilDeadline : drainInterval;
+
+      try {
+        Thread.sleep(Math.max(wait.toMillis(), 0));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+
+      drain();
+    }
+
+    return spool.getBacklog();
+  }
+
+  /**
+   * Upload a spooled write, completing or releasing it in the spool depending on the outcome.
+   *
+   * @param entry The spooled write to upload.
+   * @return A future which completes when the upload completes, or fails.
+   */
+  private CompletableFuture<Void> upload(SpoolEntry entry) {
+    return CompletableFuture
+        .supplyAsync(() -> dataLakeFacade.uploadSpooled(entry.getRecord()), executor)
+        .thenCompose(upload -> upload)
+        .whenComplete((v, e) -> {
+          if (e == null) {
+            spool.complete(entry);
+          } else {
+            log.warn("Unable to drain spooled write, it will be retried.", e);
+            failures.increment();
+            spool.release(entry);
+          }
+        });
+  }
+
+  /**
+   * Stop draining once the spool is empty or the shutdown timeout is reached, the timeout has
+   * already been waited for if the shutdown drain is enabled. Any writes left in the spool have
+   * been acknowledged but are not in the data lake, they are only recovered if the next startup
+   * uses the same spool directory.
+   */
+  @PreDestroy
+  void shutdown() {
+    try {
+      Instant deadline = shutdownProperties.enabled()
+          ? clock.instant() : clock.instant().plus(shutdownProperties.timeout());
+      int backlog = drainUntil(deadline);
+
+      if (backlog > 0) {
+        log.error("Stopping with {} acknowledged writes not uploaded to the data lake, they are "
+            + "lost unless the spool directory {} is reused on the next startup.", backlog,
+            directory);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
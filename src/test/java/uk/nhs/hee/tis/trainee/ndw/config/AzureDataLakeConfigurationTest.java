@@ -22,21 +22,44 @@
 package uk.nhs.hee.tis.trainee.ndw.config;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.azure.core.credential.TokenCredential;
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.storage.file.datalake.DataLakeFileSystemAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.EventLoopGroup;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.netty.resources.ConnectionProvider;
+import uk.nhs.hee.tis.trainee.ndw.service.DataLakeHttpMetricsPolicy;
+import uk.nhs.hee.tis.trainee.ndw.service.DataLakeRateLimiter;
 
 class AzureDataLakeConfigurationTest {
 
   private AzureDataLakeConfiguration configuration;
 
+  private HttpClient httpClient;
+
+  private DataLakeRateLimiter rateLimiter;
+
+  private DataLakeHttpMetricsPolicy metricsPolicy;
+
   @BeforeEach
   void setUp() {
     configuration = new AzureDataLakeConfiguration();
+    httpClient = mock(HttpClient.class);
+    rateLimiter = mock(DataLakeRateLimiter.class);
+    metricsPolicy = new DataLakeHttpMetricsPolicy(new SimpleMeterRegistry());
   }
 
   @Test
@@ -44,7 +67,8 @@ class AzureDataLakeConfigurationTest {
     TokenCredential credential = mock(TokenCredential.class);
     String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
 
-    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint);
+    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint,
+        httpClient, rateLimiter, metricsPolicy);
 
     assertThat("Unexpected account name.", client.getAccountName(), is("test-lake"));
   }
@@ -54,8 +78,125 @@ class AzureDataLakeConfigurationTest {
     TokenCredential credential = mock(TokenCredential.class);
     String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
 
-    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint);
+    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint,
+        httpClient, rateLimiter, metricsPolicy);
 
     assertThat("Unexpected file system name.", client.getFileSystemName(), is("test-fs"));
   }
+
+  @Test
+  void shouldSetAsyncClientAccountName() {
+    TokenCredential credential = mock(TokenCredential.class);
+    String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
+
+    DataLakeFileSystemAsyncClient client = configuration.dataLakeFileSystemAsyncClient(credential,
+        endpoint, httpClient, rateLimiter, metricsPolicy);
+
+    assertThat("Unexpected account name.", client.getAccountName(), is("test-lake"));
+  }
+
+  @Test
+  void shouldSetAsyncClientFileSystemName() {
+    TokenCredential credential = mock(TokenCredential.class);
+    String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
+
+    DataLakeFileSystemAsyncClient client = configuration.dataLakeFileSystemAsyncClient(credential,
+        endpoint, httpClient, rateLimiter, metricsPolicy);
+
+    assertThat("Unexpected file system name.", client.getFileSystemName(), is("test-fs"));
+  }
+
+  @Test
+  void shouldNotAddRateLimiterWhenDisabled() {
+    TokenCredential credential = mock(TokenCredential.class);
+    String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
+
+    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint,
+        httpClient, rateLimiter, metricsPolicy);
+
+    assertThat("Unexpected rate limiter.", hasPolicy(client.getHttpPipeline()), is(false));
+  }
+
+  @Test
+  void shouldAddSharedRateLimiterWhenEnabled() {
+    TokenCredential credential = mock(TokenCredential.class);
+    String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
+    when(rateLimiter.isEnabled()).thenReturn(true);
+    when(rateLimiter.getPipelinePosition()).thenReturn(HttpPipelinePosition.PER_RETRY);
+
+    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint,
+        httpClient, rateLimiter, metricsPolicy);
+    DataLakeFileSystemAsyncClient asyncClient = configuration.dataLakeFileSystemAsyncClient(
+        credential, endpoint, httpClient, rateLimiter, metricsPolicy);
+
+    assertThat("Unexpected rate limiter.", hasPolicy(client.getHttpPipeline()), is(true));
+    assertThat("Unexpected rate limiter.", hasPolicy(asyncClient.getHttpPipeline()), is(true));
+  }
+
+  @Test
+  void shouldShareHttpClientAndMetricsPolicy() {
+    TokenCredential credential = mock(TokenCredential.class);
+    String endpoint = "https://test-lake.dfs.core.windows.net/test-fs";
+
+    DataLakeFileSystemClient client = configuration.dataLakeFileSystemClient(credential, endpoint,
+        httpClient, rateLimiter, metricsPolicy);
+    DataLakeFileSystemAsyncClient asyncClient = configuration.dataLakeFileSystemAsyncClient(
+        credential, endpoint, httpClient, rateLimiter, metricsPolicy);
+
+    assertThat("Unexpected HTTP client.", client.getHttpPipeline().getHttpClient(),
+        sameInstance(httpClient));
+    assertThat("Unexpected HTTP client.", asyncClient.getHttpPipeline().getHttpClient(),
+        sameInstance(httpClient));
+    assertThat("Unexpected metrics policy.",
+        hasPolicy(client.getHttpPipeline(), metricsPolicy), is(true));
+    assertThat("Unexpected metrics policy.",
+        hasPolicy(asyncClient.getHttpPipeline(), metricsPolicy), is(true));
+  }
+
+  @Test
+  void shouldConfigureConnectionPoolSize() {
+    HttpTransportProperties properties = new HttpTransportProperties(42, 100,
+        Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMinutes(5),
+        Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1),
+        Duration.ofSeconds(1), 1);
+
+    ConnectionProvider provider = configuration.dataLakeConnectionProvider(properties);
+
+    try {
+      assertThat("Unexpected max connections.", provider.maxConnections(), is(42));
+    } finally {
+      provider.dispose();
+    }
+  }
+
+  @Test
+  void shouldBuildHttpClient() {
+    HttpTransportProperties properties = new HttpTransportProperties(4, 100,
+        Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMinutes(5),
+        Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1),
+        Duration.ofSeconds(1), 1);
+    ConnectionProvider provider = configuration.dataLakeConnectionProvider(properties);
+    EventLoopGroup eventLoopGroup = configuration.dataLakeEventLoopGroup(properties);
+
+    try {
+      HttpClient client = configuration.dataLakeHttpClient(provider, eventLoopGroup, properties);
+      assertThat("Unexpected HTTP client.", client, notNullValue());
+    } finally {
+      provider.dispose();
+      eventLoopGroup.shutdownGracefully();
+    }
+  }
+
+  private boolean hasPolicy(HttpPipeline pipeline) {
+    return hasPolicy(pipeline, rateLimiter);
+  }
+
+  private boolean hasPolicy(HttpPipeline pipeline, HttpPipelinePolicy policy) {
+    for (int i = 0; i < pipeline.getPolicyCount(); i++) {
+      if (pipeline.getPolicy(i) == policy) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2023 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.awspring.cloud.sqs.listener.BatchAwareBackPressureHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportBudget;
+
+class BudgetBackPressureHandlerTest {
+
+  private BatchAwareBackPressureHandler delegate;
+
+  private ExportBudget budget;
+
+  private BudgetBackPressureHandler handler;
+
+  @BeforeEach
+  void setUp() {
+    delegate = mock(BatchAwareBackPressureHandler.class);
+    budget = mock(ExportBudget.class);
+    handler = new BudgetBackPressureHandler(delegate, budget);
+  }
+
+  @Test
+  void shouldRequestBatchFromDelegateWhenBudgetAvailable() throws InterruptedException {
+    when(budget.awaitBudget()).thenReturn(true);
+    when(delegate.requestBatch()).thenReturn(10);
+
+    assertThat("Unexpected permits.", handler.requestBatch(), is(10));
+  }
+
+  @Test
+  void shouldNotRequestBatchWhenBudgetExhausted() throws InterruptedException {
+    when(budget.awaitBudget()).thenReturn(false);
+
+    assertThat("Unexpected permits.", handler.requestBatch(), is(0));
+    verify(delegate, never()).requestBatch();
+  }
+
+  @Test
+  void shouldRequestFromDelegateWhenBudgetAvailable() throws InterruptedException {
+    when(budget.awaitBudget()).thenReturn(true);
+    when(delegate.request(5)).thenReturn(5);
+
+    assertThat("Unexpected permits.", handler.request(5), is(5));
+  }
+
+  @Test
+  void shouldNotRequestWhenBudgetExhausted() throws InterruptedException {
+    when(budget.awaitBudget()).thenReturn(false);
+
+    assertThat("Unexpected permits.", handler.request(5), is(0));
+    verify(delegate, never()).request(5);
+  }
+
+  @Test
+  void shouldReleaseToDelegate() {
+    handler.release(3);
+
+    verify(delegate).release(3);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2023 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.config;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.info.Info;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import uk.nhs.hee.tis.trainee.ndw.config.SqsListenerProperties.BackOff;
+import uk.nhs.hee.tis.trainee.ndw.config.SqsListenerProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportBudget;
+
+class SqsListenerConfigurationTest {
+
+  private SqsListenerConfiguration configuration;
+
+  private SqsListenerProperties properties;
+
+  private ExportBudget budget;
+
+  @BeforeEach
+  void setUp() {
+    budget = mock(ExportBudget.class);
+    configuration = new SqsListenerConfiguration(mock(SqsAsyncClient.class), new ObjectMapper(),
+        new ShutdownProperties(true, Duration.ofSeconds(25), Duration.ofMillis(100)), budget,
+        new ReplayProperties(false, null, null, null, null, null, null, null));
+    Settings busy = new Settings(50, 10, Duration.ofSeconds(5), null);
+    Settings quiet = new Settings(5, 5, Duration.ofSeconds(20), null);
+    properties = new SqsListenerProperties(null, busy, null, quiet);
+  }
+
+  @Test
+  void shouldApplyDefaultSettingsForMissingQueues() {
+    assertThat("Unexpected action settings.", properties.action(), is(Settings.DEFAULT));
+    assertThat("Unexpected LTFT settings.", properties.ltft(), is(Settings.DEFAULT));
+  }
+
+  @Test
+  void shouldApplyDefaultsForMissingSettings() {
+    Settings settings = Settings.DEFAULT;
+
+    assertThat("Unexpected max concurrent messages.", settings.maxConcurrentMessages(), is(10));
+    assertThat("Unexpected max messages per poll.", settings.maxMessagesPerPoll(), is(10));
+    assertThat("Unexpected poll timeout.", settings.pollTimeout(), is(Duration.ofSeconds(10)));
+
+    BackOff backOff = settings.backOff();
+    assertThat("Unexpected initial interval.", backOff.initialInterval(),
+        is(Duration.ofSeconds(1)));
+    assertThat("Unexpected multiplier.", backOff.multiplier(), is(2.0));
+    assertThat("Unexpected max interval.", backOff.maxInterval(), is(Duration.ofSeconds(10)));
+  }
+
+  @Test
+  void shouldCreateContainerFactoryPerQueue() {
+    assertThat("Unexpected action factory.", configuration.actionContainerFactory(properties),
+        notNullValue());
+    assertThat("Unexpected notification factory.",
+        configuration.notificationContainerFactory(properties), notNullValue());
+    assertThat("Unexpected LTFT factory.", configuration.ltftContainerFactory(properties),
+        notNullValue());
+    assertThat("Unexpected FormR factory.", configuration.formrContainerFactory(properties),
+        notNullValue());
+  }
+
+  @Test
+  void shouldCreateContainerFactoryWhenBackpressureEnabled() {
+    when(budget.isEnabled()).thenReturn(true);
+
+    assertThat("Unexpected action factory.", configuration.actionContainerFactory(properties),
+        notNullValue());
+  }
+
+  @Test
+  void shouldStartContainersAutomaticallyWhenNotReplaying() {
+    assertThat("Unexpected auto startup.",
+        configuration.actionContainerFactory(properties).createContainer("queue").isAutoStartup(),
+        is(true));
+  }
+
+  @Test
+  void shouldNotStartContainersAutomaticallyWhenReplaying() {
+    configuration = new SqsListenerConfiguration(mock(SqsAsyncClient.class), new ObjectMapper(),
+        new ShutdownProperties(true, Duration.ofSeconds(25), Duration.ofMillis(100)), budget,
+        new ReplayProperties(true, null, null, null, null, null, null, null));
+
+    assertThat("Unexpected auto startup.",
+        configuration.actionContainerFactory(properties).createContainer("queue").isAutoStartup(),
+        is(false));
+  }
+
+  @Test
+  void shouldReportEffectiveSettingsInInfo() {
+    Info.Builder builder = new Info.Builder();
+
+    configuration.sqsListenerInfoContributor(properties).contribute(builder);
+
+    assertThat("Unexpected listener info.", builder.build().get("sqsListeners"),
+        sameInstance(properties));
+  }
+}
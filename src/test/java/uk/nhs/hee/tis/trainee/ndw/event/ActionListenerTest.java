@@ -21,12 +21,21 @@
 
 package uk.nhs.hee.tis.trainee.ndw.event;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties;
 import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
 import uk.nhs.hee.tis.trainee.ndw.service.ActionService;
 
@@ -36,9 +45,14 @@ class ActionListenerTest {
   private ActionService service;
 
   @BeforeEach
-  void setUp() {
+  void setUp() throws IOException {
     service = mock(ActionService.class);
-    listener = new ActionListener(service);
+    when(service.processActionEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+    listener = new ActionListener(service, new MessageBatchProcessor(
+        mock(VisibilityExtender.class),
+        new ExportScheduler(new SchedulingProperties(false, 0, null, null, null, null, null),
+            new SimpleMeterRegistry()),
+        mock(DuplicateDeliveryFilter.class)));
   }
 
   @Test
@@ -50,4 +64,24 @@ class ActionListenerTest {
 
     verify(service).processActionEvent(event);
   }
+
+  @Test
+  void shouldProcessAndAcknowledgeBatchOfEvents() throws IOException {
+    ActionEventDto event1
+        = new ActionEventDto("1", null, "", null, null, null, null, "", null);
+    ActionEventDto event2
+        = new ActionEventDto("2", null, "", null, null, null, null, "", null);
+    List<Message<ActionEventDto>> messages = List.of(
+        MessageBuilder.withPayload(event1).build(), MessageBuilder.withPayload(event2).build());
+
+    BatchAcknowledgement<ActionEventDto> acknowledgement = mock(BatchAcknowledgement.class);
+    when(acknowledgement.acknowledgeAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    listener.getActionEvents(messages, acknowledgement);
+
+    verify(service).processActionEvent(event1);
+    verify(service).processActionEvent(event2);
+    verify(acknowledgement).acknowledgeAsync(messages);
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import uk.nhs.hee.tis.trainee.ndw.config.DuplicateSuppressionProperties;
+
+class DuplicateDeliveryFilterTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+
+  private static final Duration RETENTION = Duration.ofMinutes(10);
+
+  private Clock clock;
+  private SimpleMeterRegistry meterRegistry;
+  private DuplicateDeliveryFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    meterRegistry = new SimpleMeterRegistry();
+    filter = createFilter(true, 100);
+  }
+
+  private DuplicateDeliveryFilter createFilter(boolean enabled, int maxEntries) {
+    return new DuplicateDeliveryFilter(
+        new DuplicateSuppressionProperties(enabled, RETENTION, maxEntries), clock, meterRegistry);
+  }
+
+  @Test
+  void shouldNotSuppressNewMessage() {
+    assertThat("Unexpected duplicate.", filter.isDuplicate(message()), is(false));
+  }
+
+  @Test
+  void shouldSuppressProcessedMessage() {
+    Message<String> message = message();
+    filter.markProcessed(message);
+
+    assertThat("Unexpected duplicate.", filter.isDuplicate(message), is(true));
+    assertThat("Unexpected suppressed count.",
+        meterRegistry.get("ndw.sqs.duplicates.suppressed").counter().count(), is(1.0));
+  }
+
+  @Test
+  void shouldSuppressRedeliveryWithSameMessageId() {
+    UUID id = UUID.randomUUID();
+    filter.markProcessed(message(id));
+
+    assertThat("Unexpected duplicate.", filter.isDuplicate(message(id)), is(true));
+  }
+
+  @Test
+  void shouldNotSuppressWhenDisabled() {
+    filter = createFilter(false, 100);
+    Message<String> message = message();
+    filter.markProcessed(message);
+
+    assertThat("Unexpected duplicate.", filter.isDuplicate(message), is(false));
+    assertThat("Unexpected tracked count.", filter.getTracked(), is(0L));
+  }
+
+  @Test
+  void shouldRememberProcessedMessageForAtLeastRetention() {
+    Message<String> message = message();
+    filter.markProcessed(message);
+
+    when(clock.instant()).thenReturn(NOW.plus(RETENTION));
+    assertThat("Unexpected duplicate.", filter.isDuplicate(message), is(true));
+
+    when(clock.instant()).thenReturn(NOW.plus(RETENTION.multipliedBy(2)));
+    assertThat("Unexpected duplicate.", filter.isDuplicate(message), is(false));
+    assertThat("Unexpected rotation count.", meterRegistry.get("ndw.sqs.duplicates.rotations")
+        .tag("reason", "age").counter().count(), is(2.0));
+  }
+
+  @Test
+  void shouldRotateEarlyWhenMaxEntriesReached() {
+    filter = createFilter(true, 2);
+    Message<String> first = message();
+    filter.markProcessed(first);
+    filter.markProcessed(message());
+    filter.markProcessed(message());
+
+    assertThat("Unexpected duplicate.", filter.isDuplicate(first), is(true));
+
+    filter.markProcessed(message());
+    filter.markProcessed(message());
+
+    assertThat("Unexpected duplicate.", filter.isDuplicate(first), is(false));
+    assertThat("Unexpected rotation count.", meterRegistry.get("ndw.sqs.duplicates.rotations")
+        .tag("reason", "capacity").counter().count(), is(2.0));
+  }
+
+  @Test
+  void shouldReportTrackedMessagesAndFalsePositiveRate() {
+    filter.markProcessed(message());
+    filter.markProcessed(message());
+
+    assertThat("Unexpected tracked count.",
+        meterRegistry.get("ndw.sqs.duplicates.tracked").gauge().value(), is(2.0));
+    double falsePositiveRate = meterRegistry.get("ndw.sqs.duplicates.false.positive.rate")
+        .gauge().value();
+    assertThat("Unexpected false positive rate.", falsePositiveRate, greaterThan(0.0));
+    assertThat("Unexpected false positive rate.", falsePositiveRate, lessThan(1e-15));
+  }
+
+  @Test
+  void shouldNeverProduceZeroFingerprint() {
+    assertThat("Unexpected fingerprint.", DuplicateDeliveryFilter.fingerprint(new UUID(0, 0)),
+        not(0L));
+  }
+
+  private static Message<String> message() {
+    return message(UUID.randomUUID());
+  }
+
+  private static Message<String> message(UUID id) {
+    MessageHeaderAccessor accessor = new MessageHeaderAccessor();
+    accessor.setIdGenerator(() -> id);
+    return MessageBuilder.createMessage("payload", accessor.getMessageHeaders());
+  }
+}
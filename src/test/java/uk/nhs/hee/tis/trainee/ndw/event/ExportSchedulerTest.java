@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties.Share;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.Queue;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.SchedulingTimeoutException;
+
+class ExportSchedulerTest {
+
+  private static final Duration MAX_WAIT = Duration.ofSeconds(10);
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ExportScheduler scheduler;
+
+  private List<Queue> admitted;
+
+  private List<CompletableFuture<Void>> exports;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    admitted = new ArrayList<>();
+    exports = new ArrayList<>();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  void shouldNotTrackExportsWhenDisabled() {
+    scheduler = new ExportScheduler(
+        new SchedulingProperties(false, 0, null, null, null, null, null), meterRegistry);
+
+    scheduler.schedule(Queue.ACTION, CompletableFuture::new);
+
+    assertThat("Unexpected running count.", scheduler.getRunning(Queue.ACTION), is(0));
+  }
+
+  @Test
+  void shouldHoldCapacityUntilExportCompletes() {
+    scheduler = createScheduler(2, Duration.ZERO, null, null);
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+
+    CompletableFuture<?> export = scheduler.schedule(Queue.ACTION, () -> upload);
+
+    assertThat("Unexpected running count.", scheduler.getRunning(Queue.ACTION), is(1));
+
+    upload.complete(null);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(true));
+    assertThat("Unexpected running count.", scheduler.getRunning(Queue.ACTION), is(0));
+  }
+
+  @Test
+  void shouldReleaseCapacityWhenExportThrows() {
+    scheduler = createScheduler(1, Duration.ZERO, null, null);
+
+    CompletableFuture<?> export = scheduler.schedule(Queue.ACTION, () -> {
+      throw new IllegalStateException("expected");
+    });
+
+    assertThat("Unexpected export failure.", export.isCompletedExceptionally(), is(true));
+    assertThat("Unexpected running count.", scheduler.getRunning(Queue.ACTION), is(0));
+  }
+
+  @Test
+  void shouldQueueExportWithoutBlockingWhenNoCapacity() {
+    scheduler = createScheduler(1, MAX_WAIT, null, null);
+    schedule(Queue.NOTIFICATION);
+
+    CompletableFuture<?> export = schedule(Queue.FORMR);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(false));
+    assertThat("Unexpected waiting count.", scheduler.getWaiting(Queue.FORMR), is(1));
+    assertThat("Unexpected admitted queues.", admitted(), is(List.of(Queue.NOTIFICATION)));
+
+    export(0).complete(null);
+
+    await().until(() -> admitted().size() == 2);
+    assertThat("Unexpected waiting count.", scheduler.getWaiting(Queue.FORMR), is(0));
+    assertThat("Unexpected running count.", scheduler.getRunning(Queue.FORMR), is(1));
+
+    export(1).complete(null);
+
+    await().until(export::isDone);
+    assertThat("Unexpected running count.", scheduler.getRunning(Queue.FORMR), is(0));
+  }
+
+  @Test
+  void shouldRejectExportWhenNoCapacityWithinMaxWait() {
+    scheduler = createScheduler(1, Duration.ofMillis(50), null, null);
+    schedule(Queue.NOTIFICATION);
+
+    CompletableFuture<?> export = schedule(Queue.FORMR);
+
+    ExecutionException exception = assertThrows(ExecutionException.class, export::get);
+    assertThat("Unexpected failure.", exception.getCause(),
+        instanceOf(SchedulingTimeoutException.class));
+    assertThat("Unexpected waiting count.", scheduler.getWaiting(Queue.FORMR), is(0));
+    assertThat("Unexpected rejections.",
+        meterRegistry.get("ndw.scheduling.rejections").counter().count(), is(1.0));
+  }
+
+  @Test
+  void shouldGiveFreedCapacityToQueueBelowMinShare() {
+    scheduler = createScheduler(1, MAX_WAIT, new Share(10, 0), new Share(1, 1));
+    schedule(Queue.NOTIFICATION);
+    schedule(Queue.NOTIFICATION);
+    schedule(Queue.FORMR);
+
+    export(0).complete(null);
+
+    await().until(() -> admitted().size() == 2);
+    assertThat("Unexpected admitted queue.", admitted().get(1), is(Queue.FORMR));
+    assertThat("Unexpected waiting count.", scheduler.getWaiting(Queue.NOTIFICATION), is(1));
+  }
+
+  @Test
+  void shouldShareFreedCapacityByWeight() {
+    scheduler = createScheduler(1, MAX_WAIT, new Share(1, 0), new Share(3, 0));
+    schedule(Queue.NOTIFICATION);
+    for (int i = 0; i < 4; i++) {
+      schedule(Queue.NOTIFICATION);
+      schedule(Queue.FORMR);
+    }
+
+    completeInTurn(8);
+
+    assertThat("Unexpected admission order.", admitted().subList(1, 9), is(List.of(
+        Queue.FORMR, Queue.FORMR, Queue.FORMR, Queue.FORMR,
+        Queue.NOTIFICATION, Queue.NOTIFICATION, Queue.NOTIFICATION, Queue.NOTIFICATION)));
+  }
+
+  @Test
+  void shouldNotGiveCreditToIdleQueue() {
+    scheduler = createScheduler(1, MAX_WAIT, new Share(1, 0), new Share(1, 0));
+    for (int i = 0; i < 3; i++) {
+      schedule(Queue.NOTIFICATION);
+      export(i).complete(null);
+    }
+    schedule(Queue.NOTIFICATION);
+    for (int i = 0; i < 2; i++) {
+      schedule(Queue.FORMR);
+      schedule(Queue.NOTIFICATION);
+    }
+
+    completeInTurn(4);
+
+    assertThat("Unexpected admission order.", admitted().subList(4, 8), is(List.of(
+        Queue.FORMR, Queue.NOTIFICATION, Queue.FORMR, Queue.NOTIFICATION)));
+  }
+
+  @Test
+  void shouldFailWaitingExportsOnShutdown() {
+    scheduler = createScheduler(1, MAX_WAIT, null, null);
+    schedule(Queue.NOTIFICATION);
+    CompletableFuture<?> export = schedule(Queue.FORMR);
+
+    scheduler.shutdown();
+
+    assertThat("Unexpected export failure.", export.isCompletedExceptionally(), is(true));
+    assertThat("Unexpected waiting count.", scheduler.getWaiting(Queue.FORMR), is(0));
+  }
+
+  @Test
+  void shouldRecordWaitTimePerQueue() {
+    scheduler = createScheduler(2, Duration.ZERO, null, null);
+
+    scheduler.schedule(Queue.LTFT, CompletableFuture::new);
+
+    assertThat("Unexpected wait count.", meterRegistry.get("ndw.scheduling.wait")
+        .tag("queue", "ltft").timer().count(), is(1L));
+    assertThat("Unexpected export count.", meterRegistry.get("ndw.scheduling.exports")
+        .tag("queue", "ltft").counter().count(), is(1.0));
+  }
+
+  private ExportScheduler createScheduler(int capacity, Duration maxWait, Share notification,
+      Share formr) {
+    return new ExportScheduler(
+        new SchedulingProperties(true, capacity, maxWait, null, notification, null, formr),
+        meterRegistry);
+  }
+
+  /**
+   * Schedule an export which records its admission and stays running until completed.
+   *
+   * @param queue The queue to schedule the export for.
+   * @return The scheduled export's future.
+   */
+  private CompletableFuture<?> schedule(Queue queue) {
+    return scheduler.schedule(queue, () -> {
+      CompletableFuture<Void> export = new CompletableFuture<>();
+
+      synchronized (this) {
+        admitted.add(queue);
+        exports.add(export);
+      }
+      return export;
+    });
+  }
+
+  /**
+   * Complete each running export in turn, waiting for the next export to be admitted each time.
+   *
+   * @param count The number of waiting exports to admit.
+   */
+  private void completeInTurn(int count) {
+    int first = admitted().size() - 1;
+
+    for (int i = first; i < first + count; i++) {
+      int expected = i + 2;
+      export(i).complete(null);
+      await().until(() -> admitted().size() == expected);
+    }
+  }
+
+  private synchronized List<Queue> admitted() {
+    return List.copyOf(admitted);
+  }
+
+  private synchronized CompletableFuture<Void> export(int index) {
+    return exports.get(index);
+  }
+}
@@ -29,9 +29,14 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -39,6 +44,7 @@ import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.mockito.ArgumentCaptor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties;
 import uk.nhs.hee.tis.trainee.ndw.dto.JsonFormEventDto;
 import uk.nhs.hee.tis.trainee.ndw.service.FormService;
 
@@ -48,9 +54,15 @@ class FormListenerTest {
   private FormService<JsonFormEventDto> jsonService;
 
   @BeforeEach
-  void setUp() {
+  void setUp() throws IOException {
     jsonService = mock(FormService.class);
-    listener = new FormListener(jsonService);
+    when(jsonService.processFormEvent(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    listener = new FormListener(jsonService, new MessageBatchProcessor(
+        mock(VisibilityExtender.class),
+        new ExportScheduler(new SchedulingProperties(false, 0, null, null, null, null, null),
+            new SimpleMeterRegistry()),
+        mock(DuplicateDeliveryFilter.class)));
   }
 
   @Test
@@ -163,4 +175,46 @@ class FormListenerTest {
 
     verify(jsonService, never()).processFormEvent(any());
   }
+
+  @Test
+  void shouldOnlyAcknowledgeValidFormREventsInBatch() throws IOException {
+    JsonFormEventDto validEvent = new JsonFormEventDto();
+    validEvent.set("id", "456");
+    Message<JsonFormEventDto> validMessage = MessageBuilder.withPayload(validEvent)
+        .setHeader("formType", "formr-a")
+        .build();
+
+    JsonFormEventDto invalidEvent = new JsonFormEventDto();
+    invalidEvent.set("id", "789");
+    Message<JsonFormEventDto> invalidMessage = MessageBuilder.withPayload(invalidEvent).build();
+
+    BatchAcknowledgement<JsonFormEventDto> acknowledgement = mock(BatchAcknowledgement.class);
+    when(acknowledgement.acknowledgeAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    listener.getFormRFormEvents(List.of(validMessage, invalidMessage), acknowledgement);
+
+    verify(jsonService).processFormEvent(validEvent);
+    verify(acknowledgement).acknowledgeAsync(List.of(validMessage));
+  }
+
+  @Test
+  void shouldProcessAndAcknowledgeBatchOfLtftEvents() throws IOException {
+    JsonFormEventDto event1 = new JsonFormEventDto();
+    event1.set("id", "123");
+    JsonFormEventDto event2 = new JsonFormEventDto();
+    event2.set("id", "456");
+    List<Message<JsonFormEventDto>> messages = List.of(
+        MessageBuilder.withPayload(event1).build(), MessageBuilder.withPayload(event2).build());
+
+    BatchAcknowledgement<JsonFormEventDto> acknowledgement = mock(BatchAcknowledgement.class);
+    when(acknowledgement.acknowledgeAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    listener.getLtftFormEvents(messages, acknowledgement);
+
+    verify(jsonService).processFormEvent(event1);
+    verify(jsonService).processFormEvent(event2);
+    verify(acknowledgement).acknowledgeAsync(messages);
+  }
 }
@@ -0,0 +1,263 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties;
+import uk.nhs.hee.tis.trainee.ndw.event.ExportScheduler.Queue;
+
+class MessageBatchProcessorTest {
+
+  private MessageBatchProcessor processor;
+  private VisibilityExtender visibilityExtender;
+  private DuplicateDeliveryFilter duplicateFilter;
+  private BatchAcknowledgement<String> acknowledgement;
+
+  @BeforeEach
+  void setUp() {
+    visibilityExtender = mock(VisibilityExtender.class);
+    duplicateFilter = mock(DuplicateDeliveryFilter.class);
+    processor = new MessageBatchProcessor(visibilityExtender, new ExportScheduler(
+        new SchedulingProperties(false, 0, null, null, null, null, null),
+        new SimpleMeterRegistry()), duplicateFilter);
+    acknowledgement = mock(BatchAcknowledgement.class);
+    when(acknowledgement.acknowledgeAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+  }
+
+  @Test
+  void shouldAcknowledgeAllMessagesWhenAllProcessed() {
+    List<Message<String>> messages = List.of(message("1"), message("2"));
+
+    CompletableFuture<Void> future = processor.process(Queue.ACTION, messages, acknowledgement,
+        message -> CompletableFuture.completedFuture(null));
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    verify(acknowledgement).acknowledgeAsync(messages);
+  }
+
+  @Test
+  void shouldOnlyAcknowledgeProcessedMessagesWhenProcessingFails() {
+    Message<String> message1 = message("1");
+    Message<String> message2 = message("2");
+    Message<String> message3 = message("3");
+    Map<String, CompletableFuture<Void>> results = Map.of(
+        "1", CompletableFuture.completedFuture(null),
+        "2", CompletableFuture.failedFuture(new IllegalStateException("expected")),
+        "3", CompletableFuture.completedFuture(null));
+
+    CompletableFuture<Void> future = processor.process(Queue.ACTION,
+        List.of(message1, message2, message3), acknowledgement,
+        message -> results.get(message.getPayload()));
+
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(false));
+    verify(acknowledgement).acknowledgeAsync(List.of(message1, message3));
+  }
+
+  @Test
+  void shouldOnlyAcknowledgeProcessedMessagesWhenProcessingThrows() {
+    Message<String> message1 = message("1");
+    Message<String> message2 = message("2");
+
+    processor.process(Queue.ACTION, List.of(message1, message2), acknowledgement, message -> {
+      if (message.getPayload().equals("1")) {
+        throw new IOException("expected");
+      }
+      return CompletableFuture.completedFuture(null);
+    });
+
+    verify(acknowledgement).acknowledgeAsync(List.of(message2));
+  }
+
+  @Test
+  void shouldNotAcknowledgeWhenNoMessagesProcessed() {
+    CompletableFuture<Void> future = processor.process(Queue.ACTION, List.of(message("1")),
+        acknowledgement,
+        message -> CompletableFuture.failedFuture(new IllegalStateException("expected")));
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    verify(acknowledgement, never()).acknowledgeAsync(any());
+  }
+
+  @Test
+  void shouldStartAllMessagesBeforeAnyComplete() {
+    List<String> started = new ArrayList<>();
+    CompletableFuture<Void> pending = new CompletableFuture<>();
+
+    CompletableFuture<Void> future = processor.process(Queue.ACTION,
+        List.of(message("1"), message("2")), acknowledgement, message -> {
+          started.add(message.getPayload());
+          return pending;
+        });
+
+    assertThat("Unexpected started messages.", started, is(List.of("1", "2")));
+    assertThat("Unexpected future completion.", future.isDone(), is(false));
+    verify(acknowledgement, never()).acknowledgeAsync(any());
+
+    pending.complete(null);
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    verify(acknowledgement).acknowledgeAsync(any());
+  }
+
+  @Test
+  void shouldExtendVisibilityUntilMessageProcessed() {
+    Message<String> message = message("1");
+    CompletableFuture<Void> pending = new CompletableFuture<>();
+
+    processor.process(Queue.ACTION, List.of(message), acknowledgement, m -> pending);
+
+    verify(visibilityExtender).track(message);
+    verify(visibilityExtender, never()).untrack(any());
+
+    pending.complete(null);
+
+    verify(visibilityExtender).untrack(message);
+  }
+
+  @Test
+  void shouldTrackAllMessagesBeforeStartingAny() {
+    List<String> events = new ArrayList<>();
+    doAnswer(invocation -> {
+      Message<?> tracked = invocation.getArgument(0);
+      events.add("track " + tracked.getPayload());
+      return null;
+    }).when(visibilityExtender).track(any());
+
+    processor.process(Queue.ACTION, List.of(message("1"), message("2")), acknowledgement,
+        message -> {
+          events.add("start " + message.getPayload());
+          return new CompletableFuture<>();
+        });
+
+    assertThat("Unexpected events.", events,
+        is(List.of("track 1", "track 2", "start 1", "start 2")));
+  }
+
+  @Test
+  void shouldStopExtendingVisibilityWhenProcessingThrows() {
+    Message<String> message = message("1");
+
+    processor.process(Queue.ACTION, List.of(message), acknowledgement, m -> {
+      throw new IOException("expected");
+    });
+
+    verify(visibilityExtender).untrack(message);
+  }
+
+  @Test
+  void shouldNotAcknowledgeMessagesRejectedByScheduler() throws Exception {
+    ExportScheduler scheduler = new ExportScheduler(
+        new SchedulingProperties(true, 1, Duration.ZERO, null, null, null, null),
+        new SimpleMeterRegistry());
+    processor = new MessageBatchProcessor(visibilityExtender, scheduler, duplicateFilter);
+    Message<String> message1 = message("1");
+    Message<String> message2 = message("2");
+    CompletableFuture<Void> pending = new CompletableFuture<>();
+
+    CompletableFuture<Void> future = processor.process(Queue.FORMR,
+        List.of(message1, message2), acknowledgement, message -> pending);
+
+    verify(visibilityExtender, timeout(5000)).untrack(message2);
+
+    pending.complete(null);
+
+    future.get(5, TimeUnit.SECONDS);
+    verify(acknowledgement).acknowledgeAsync(List.of(message1));
+    scheduler.shutdown();
+  }
+
+  @Test
+  void shouldCountInFlightAndCompletedMessages() {
+    CompletableFuture<Void> pending = new CompletableFuture<>();
+
+    processor.process(Queue.ACTION, List.of(message("1"), message("2")), acknowledgement,
+        message -> pending);
+
+    assertThat("Unexpected in-flight count.", processor.getInFlight(), is(2));
+    assertThat("Unexpected completed count.", processor.getCompleted(), is(0L));
+
+    pending.complete(null);
+
+    assertThat("Unexpected in-flight count.", processor.getInFlight(), is(0));
+    assertThat("Unexpected completed count.", processor.getCompleted(), is(2L));
+  }
+
+  @Test
+  void shouldAcknowledgeDuplicateWithoutProcessing() {
+    Message<String> message1 = message("1");
+    Message<String> message2 = message("2");
+    when(duplicateFilter.isDuplicate(message1)).thenReturn(true);
+    List<String> processed = new ArrayList<>();
+
+    CompletableFuture<Void> future = processor.process(Queue.ACTION,
+        List.of(message1, message2), acknowledgement, message -> {
+          processed.add(message.getPayload());
+          return CompletableFuture.completedFuture(null);
+        });
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    assertThat("Unexpected processed messages.", processed, is(List.of("2")));
+    verify(acknowledgement).acknowledgeAsync(List.of(message1, message2));
+    verify(visibilityExtender, never()).track(message1);
+  }
+
+  @Test
+  void shouldOnlyRememberSuccessfullyProcessedMessages() {
+    Message<String> message1 = message("1");
+    Message<String> message2 = message("2");
+
+    processor.process(Queue.ACTION, List.of(message1, message2), acknowledgement,
+        message -> message.getPayload().equals("1")
+            ? CompletableFuture.completedFuture(null)
+            : CompletableFuture.failedFuture(new IllegalStateException("expected")));
+
+    verify(duplicateFilter).markProcessed(message1);
+    verify(duplicateFilter, never()).markProcessed(message2);
+  }
+
+  private static Message<String> message(String payload) {
+    return MessageBuilder.withPayload(payload).build();
+  }
+}
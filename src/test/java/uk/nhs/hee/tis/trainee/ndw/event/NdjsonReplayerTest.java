@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import uk.nhs.hee.tis.trainee.ndw.config.ReplayProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ReplayProperties.ReplayType;
+import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
+import uk.nhs.hee.tis.trainee.ndw.dto.JsonFormEventDto;
+
+class NdjsonReplayerTest {
+
+  private static final String ACTION_1 = """
+      {"id":"1","type":"REVIEW_DATA","traineeId":"40","status":"CURRENT"}""";
+  private static final String ACTION_2 = """
+      {"id":"2","type":"REVIEW_DATA","traineeId":"40","status":"CURRENT"}""";
+  private static final String ACTION_3 = """
+      {"id":"3","type":"REVIEW_DATA","traineeId":"40","status":"CURRENT"}""";
+
+  @TempDir
+  Path tempDir;
+
+  private Path checkpoints;
+  private ActionListener actionListener;
+  private FormListener formListener;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    checkpoints = tempDir.resolve("checkpoints");
+    Files.createDirectories(checkpoints);
+
+    actionListener = mock(ActionListener.class);
+    when(actionListener.getActionEvent(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    formListener = mock(FormListener.class);
+    when(formListener.getFormRFormEvent(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  private NdjsonReplayer createReplayer(ReplayType type, String formType, Path input) {
+    ReplayProperties properties = new ReplayProperties(true, type, formType, input, 2, 4,
+        checkpoints, Duration.ofMinutes(1));
+    ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    return new NdjsonReplayer(properties, actionListener, mock(NotificationListener.class),
+        formListener, mapper, meterRegistry);
+  }
+
+  @Test
+  void shouldRequireFormTypeForFormREvents() {
+    assertThrows(IllegalArgumentException.class,
+        () -> createReplayer(ReplayType.FORMR, null, tempDir));
+  }
+
+  @Test
+  void shouldReplayEachEventToListener() throws Exception {
+    Path input = Files.writeString(tempDir.resolve("actions.ndjson"),
+        String.join("\n", ACTION_1, "", ACTION_2, ACTION_3));
+    NdjsonReplayer replayer = createReplayer(ReplayType.ACTION, null, input);
+
+    long processed = replayer.replay(input);
+
+    assertThat("Unexpected processed count.", processed, is(3L));
+    ArgumentCaptor<ActionEventDto> captor = ArgumentCaptor.forClass(ActionEventDto.class);
+    verify(actionListener, times(3)).getActionEvent(captor.capture());
+    assertThat("Unexpected replayed IDs.",
+        captor.getAllValues().stream().map(ActionEventDto::id).sorted().toList(),
+        is(List.of("1", "2", "3")));
+    assertThat("Unexpected exported count.", meterRegistry.get("ndw.replay.events")
+        .tag("result", "exported").counter().count(), is(3.0));
+    assertThat("Unexpected exit code.", replayer.getExitCode(), is(0));
+  }
+
+  @Test
+  void shouldCheckpointProcessedLines() throws Exception {
+    Path input = Files.writeString(tempDir.resolve("actions.ndjson"),
+        String.join("\n", ACTION_1, "", ACTION_2, ACTION_3));
+    NdjsonReplayer replayer = createReplayer(ReplayType.ACTION, null, input);
+
+    replayer.replay(input);
+
+    assertThat("Unexpected checkpoint.",
+        Files.readString(checkpoints.resolve("actions.ndjson.checkpoint")), is("4"));
+  }
+
+  @Test
+  void shouldResumeAfterCheckpoint() throws Exception {
+    Path input = Files.writeString(tempDir.resolve("actions.ndjson"),
+        String.join("\n", ACTION_1, ACTION_2, ACTION_3));
+    Files.writeString(checkpoints.resolve("actions.ndjson.checkpoint"), "2");
+    NdjsonReplayer replayer = createReplayer(ReplayType.ACTION, null, input);
+
+    long processed = replayer.replay(input);
+
+    assertThat("Unexpected processed count.", processed, is(1L));
+    ArgumentCaptor<ActionEventDto> captor = ArgumentCaptor.forClass(ActionEventDto.class);
+    verify(actionListener).getActionEvent(captor.capture());
+    assertThat("Unexpected replayed ID.", captor.getValue().id(), is("3"));
+  }
+
+  @Test
+  void shouldRecordFailedEventsAndContinue() throws Exception {
+    Path input = Files.writeString(tempDir.resolve("actions.ndjson"),
+        String.join("\n", ACTION_1, "not json", ACTION_3));
+    NdjsonReplayer replayer = createReplayer(ReplayType.ACTION, null, input);
+
+    long processed = replayer.replay(input);
+
+    assertThat("Unexpected processed count.", processed, is(3L));
+    verify(actionListener, times(2)).getActionEvent(any());
+    assertThat("Unexpected failed events.",
+        Files.readAllLines(checkpoints.resolve("actions.ndjson.failed")), is(List.of("not json")));
+    assertThat("Unexpected failed count.", meterRegistry.get("ndw.replay.events")
+        .tag("result", "failed").counter().count(), is(1.0));
+    assertThat("Unexpected checkpoint.",
+        Files.readString(checkpoints.resolve("actions.ndjson.checkpoint")), is("3"));
+    assertThat("Unexpected exit code.", replayer.getExitCode(), is(1));
+  }
+
+  @Test
+  void shouldReplayFormREventsWithFormType() throws Exception {
+    Path input = Files.writeString(tempDir.resolve("formr.ndjson"), """
+        {"id":"123","traineeTisId":"40","lifecycleState":"SUBMITTED"}""");
+    NdjsonReplayer replayer = createReplayer(ReplayType.FORMR, "formr-a", input);
+
+    replayer.replay(input);
+
+    ArgumentCaptor<Message<JsonFormEventDto>> captor = ArgumentCaptor.forClass(Message.class);
+    verify(formListener).getFormRFormEvent(captor.capture());
+    Message<JsonFormEventDto> message = captor.getValue();
+    assertThat("Unexpected form type.", message.getHeaders().get("formType"), is("formr-a"));
+    assertThat("Unexpected form ID.", message.getPayload().fields.get("id"), is("123"));
+  }
+
+  @Test
+  void shouldReplayGzippedInput() throws Exception {
+    Path input = tempDir.resolve("actions.ndjson.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(input))) {
+      out.write(String.join("\n", ACTION_1, ACTION_2).getBytes(StandardCharsets.UTF_8));
+    }
+    NdjsonReplayer replayer = createReplayer(ReplayType.ACTION, null, input);
+
+    long processed = replayer.replay(input);
+
+    assertThat("Unexpected processed count.", processed, is(2L));
+  }
+
+  @Test
+  void shouldReplayEveryNdjsonFileInDirectory() throws Exception {
+    Path input = tempDir.resolve("input");
+    Files.createDirectories(input);
+    Files.writeString(input.resolve("a.ndjson"), ACTION_1);
+    Files.writeString(input.resolve("b.ndjson"), String.join("\n", ACTION_2, ACTION_3));
+    Files.writeString(input.resolve("notes.txt"), "ignored");
+    NdjsonReplayer replayer = createReplayer(ReplayType.ACTION, null, input);
+
+    replayer.run(null);
+
+    verify(actionListener, times(3)).getActionEvent(any());
+    assertThat("Unexpected checkpoint.",
+        Files.readString(checkpoints.resolve("b.ndjson.checkpoint")), is("2"));
+  }
+}
@@ -21,12 +21,21 @@
 
 package uk.nhs.hee.tis.trainee.ndw.event;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import uk.nhs.hee.tis.trainee.ndw.config.SchedulingProperties;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
 import uk.nhs.hee.tis.trainee.ndw.service.NotificationService;
 
@@ -36,9 +45,15 @@ class NotificationListenerTest {
   private NotificationService service;
 
   @BeforeEach
-  void setUp() {
+  void setUp() throws IOException {
     service = mock(NotificationService.class);
-    listener = new NotificationListener(service);
+    when(service.processNotificationEvent(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    listener = new NotificationListener(service, new MessageBatchProcessor(
+        mock(VisibilityExtender.class),
+        new ExportScheduler(new SchedulingProperties(false, 0, null, null, null, null, null),
+            new SimpleMeterRegistry()),
+        mock(DuplicateDeliveryFilter.class)));
   }
 
   @Test
@@ -50,4 +65,24 @@ class NotificationListenerTest {
 
     verify(service).processNotificationEvent(event);
   }
+
+  @Test
+  void shouldProcessAndAcknowledgeBatchOfEvents() throws IOException {
+    NotificationEventDto event1
+        = new NotificationEventDto("1", null, "", null, null, null, null, "", "", null);
+    NotificationEventDto event2
+        = new NotificationEventDto("2", null, "", null, null, null, null, "", "", null);
+    List<Message<NotificationEventDto>> messages = List.of(
+        MessageBuilder.withPayload(event1).build(), MessageBuilder.withPayload(event2).build());
+
+    BatchAcknowledgement<NotificationEventDto> acknowledgement = mock(BatchAcknowledgement.class);
+    when(acknowledgement.acknowledgeAsync(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    listener.getNotificationEvents(messages, acknowledgement);
+
+    verify(service).processNotificationEvent(event1);
+    verify(service).processNotificationEvent(event2);
+    verify(acknowledgement).acknowledgeAsync(messages);
+  }
 }
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.awspring.cloud.sqs.listener.MessageListenerContainer;
+import io.awspring.cloud.sqs.listener.MessageListenerContainerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.config.ShutdownProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportCoalescer;
+import uk.nhs.hee.tis.trainee.ndw.service.NdjsonBatchWriter;
+import uk.nhs.hee.tis.trainee.ndw.service.ParquetBatchWriter;
+import uk.nhs.hee.tis.trainee.ndw.service.SpoolDrainer;
+
+class ShutdownDrainerTest {
+
+  private MessageListenerContainer<?> container;
+  private MessageBatchProcessor batchProcessor;
+  private VisibilityExtender visibilityExtender;
+  private ExportCoalescer coalescer;
+  private NdjsonBatchWriter ndjsonBatchWriter;
+  private ParquetBatchWriter parquetBatchWriter;
+  private SpoolDrainer spoolDrainer;
+  private SimpleMeterRegistry meterRegistry;
+  private CountDownLatch stopBlocked;
+
+  @BeforeEach
+  void setUp() {
+    container = mock(MessageListenerContainer.class);
+    batchProcessor = mock(MessageBatchProcessor.class);
+    visibilityExtender = mock(VisibilityExtender.class);
+    coalescer = mock(ExportCoalescer.class);
+    ndjsonBatchWriter = mock(NdjsonBatchWriter.class);
+    parquetBatchWriter = mock(ParquetBatchWriter.class);
+    spoolDrainer = mock(SpoolDrainer.class);
+    meterRegistry = new SimpleMeterRegistry();
+    stopBlocked = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    stopBlocked.countDown();
+  }
+
+  private ShutdownDrainer createDrainer(boolean enabled, Duration timeout) {
+    MessageListenerContainerRegistry containerRegistry
+        = mock(MessageListenerContainerRegistry.class);
+    when(containerRegistry.getListenerContainers()).thenReturn(List.of(container));
+
+    return new ShutdownDrainer(
+        new ShutdownProperties(enabled, timeout, Duration.ofMillis(10)), containerRegistry,
+        batchProcessor, visibilityExtender, coalescer, ndjsonBatchWriter, parquetBatchWriter,
+        spoolDrainer, Clock.systemUTC(), meterRegistry);
+  }
+
+  @Test
+  void shouldBeRunningOnceStarted() {
+    ShutdownDrainer drainer = createDrainer(true, Duration.ofSeconds(1));
+
+    drainer.start();
+
+    assertThat("Unexpected running state.", drainer.isRunning(), is(true));
+  }
+
+  @Test
+  void shouldNotDrainWhenDisabled() {
+    ShutdownDrainer drainer = createDrainer(false, Duration.ofSeconds(1));
+    drainer.start();
+
+    drainer.stop();
+
+    assertThat("Unexpected running state.", drainer.isRunning(), is(false));
+    verifyNoInteractions(container, coalescer, ndjsonBatchWriter, parquetBatchWriter);
+  }
+
+  @Test
+  void shouldStopContainersAndFlushBufferedExports() {
+    ShutdownDrainer drainer = createDrainer(true, Duration.ofSeconds(5));
+
+    drainer.stop();
+
+    verify(container).stop();
+    verify(coalescer, atLeastOnce()).flushAll();
+    verify(ndjsonBatchWriter, atLeastOnce()).flushAll();
+    verify(parquetBatchWriter, atLeastOnce()).flushAll();
+    verify(spoolDrainer, atLeastOnce()).drain();
+    verify(spoolDrainer).drainUntil(any());
+  }
+
+  @Test
+  void shouldReportCompletedMessages() {
+    when(batchProcessor.getCompleted()).thenReturn(5L, 8L);
+    when(batchProcessor.getInFlight()).thenReturn(3, 0);
+    ShutdownDrainer drainer = createDrainer(true, Duration.ofSeconds(5));
+
+    drainer.stop();
+
+    assertThat("Unexpected completed count.", meterRegistry.get("ndw.shutdown.messages")
+        .tag("result", "completed").counter().count(), is(3.0));
+    assertThat("Unexpected abandoned count.", meterRegistry.get("ndw.shutdown.messages")
+        .tag("result", "abandoned").counter().count(), is(0.0));
+    verify(visibilityExtender, never()).releaseAll();
+  }
+
+  @Test
+  void shouldAbandonMessagesStillInFlightAtTimeout() {
+    doAnswer(invocation -> {
+      stopBlocked.await();
+      return null;
+    }).when(container).stop();
+    when(batchProcessor.getCompleted()).thenReturn(0L, 1L);
+    when(batchProcessor.getInFlight()).thenReturn(3, 2);
+    ShutdownDrainer drainer = createDrainer(true, Duration.ofMillis(50));
+
+    drainer.stop();
+
+    assertThat("Unexpected completed count.", meterRegistry.get("ndw.shutdown.messages")
+        .tag("result", "completed").counter().count(), is(1.0));
+    assertThat("Unexpected abandoned count.", meterRegistry.get("ndw.shutdown.messages")
+        .tag("result", "abandoned").counter().count(), is(2.0));
+    verify(visibilityExtender).releaseAll();
+  }
+
+  @Test
+  void shouldContinueFlushingWhenOneFlushFails() {
+    doThrow(new IllegalStateException("expected")).when(coalescer).flushAll();
+    ShutdownDrainer drainer = createDrainer(true, Duration.ofSeconds(5));
+
+    drainer.stop();
+
+    verify(ndjsonBatchWriter, atLeastOnce()).flushAll();
+    verify(spoolDrainer, atLeastOnce()).drain();
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2024 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.event;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import uk.nhs.hee.tis.trainee.ndw.config.VisibilityProperties;
+
+class VisibilityExtenderTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+
+  private VisibilityExtender extender;
+  private Clock clock;
+  private SimpleMeterRegistry meterRegistry;
+  private Visibility visibility;
+  private Message<String> message;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    meterRegistry = new SimpleMeterRegistry();
+    extender = createExtender(true);
+
+    visibility = mock(Visibility.class);
+    when(visibility.changeToAsync(anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+    message = MessageBuilder.withPayload("payload")
+        .setHeader(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, visibility)
+        .build();
+  }
+
+  private VisibilityExtender createExtender(boolean enabled) {
+    VisibilityProperties properties = new VisibilityProperties(enabled, Duration.ofSeconds(20),
+        Duration.ofSeconds(60), Duration.ofMinutes(5), Duration.ofSeconds(5));
+    return new VisibilityExtender(properties, clock, meterRegistry);
+  }
+
+  @Test
+  void shouldNotExtendBeforeThreshold() {
+    extender.track(message);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(19));
+    extender.extend();
+
+    verify(visibility, never()).changeToAsync(anyInt());
+  }
+
+  @Test
+  void shouldExtendAfterThreshold() {
+    extender.track(message);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(20));
+    extender.extend();
+
+    verify(visibility).changeToAsync(60);
+    assertThat("Unexpected extension count.",
+        meterRegistry.get("ndw.sqs.visibility.extensions").counter().count(), is(1.0));
+  }
+
+  @Test
+  void shouldExtendAfterThresholdSinceReceived() {
+    message = MessageBuilder.withPayload("payload")
+        .setHeader(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, visibility)
+        .setHeader(SqsHeaders.SQS_RECEIVED_AT_HEADER, NOW.minusSeconds(15))
+        .build();
+    extender.track(message);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(5));
+    extender.extend();
+
+    verify(visibility).changeToAsync(60);
+  }
+
+  @Test
+  void shouldExtendAgainAfterThresholdSinceLastExtension() {
+    extender.track(message);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(20));
+    extender.extend();
+    when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+    extender.extend();
+
+    verify(visibility, times(1)).changeToAsync(60);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(40));
+    extender.extend();
+
+    verify(visibility, times(2)).changeToAsync(60);
+  }
+
+  @Test
+  void shouldNotExtendUntrackedMessage() {
+    extender.track(message);
+    extender.untrack(message);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(20));
+    extender.extend();
+
+    verify(visibility, never()).changeToAsync(anyInt());
+  }
+
+  @Test
+  void shouldGiveUpAfterMaxInFlight() {
+    extender.track(message);
+
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(5)));
+    extender.extend();
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(6)));
+    extender.extend();
+
+    verify(visibility, never()).changeToAsync(anyInt());
+    assertThat("Unexpected abandoned count.",
+        meterRegistry.get("ndw.sqs.visibility.abandoned").counter().count(), is(1.0));
+  }
+
+  @Test
+  void shouldNotTrackWhenDisabled() {
+    extender = createExtender(false);
+    extender.track(message);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(20));
+    extender.extend();
+
+    verify(visibility, never()).changeToAsync(anyInt());
+  }
+
+  @Test
+  void shouldNotTrackMessageWithoutVisibility() {
+    extender.track(MessageBuilder.withPayload("payload").build());
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(20));
+    extender.extend();
+
+    assertThat("Unexpected extension count.",
+        meterRegistry.get("ndw.sqs.visibility.extensions").counter().count(), is(0.0));
+  }
+
+  @Test
+  void shouldReleaseVisibilityOfTrackedMessages() {
+    extender.track(message);
+
+    int released = extender.releaseAll();
+
+    assertThat("Unexpected released count.", released, is(1));
+    verify(visibility).changeToAsync(0);
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(20));
+    extender.extend();
+
+    verify(visibility, never()).changeToAsync(60);
+  }
+}
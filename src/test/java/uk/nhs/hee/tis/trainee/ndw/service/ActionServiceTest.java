@@ -22,25 +22,46 @@
 package uk.nhs.hee.tis.trainee.ndw.service;
 
 import static java.time.LocalDate.now;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static uk.nhs.hee.tis.trainee.ndw.service.ActionService.DATALAKE_ACTIONS_ROOT;
 
-import com.azure.storage.file.datalake.DataLakeDirectoryClient;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.BackpressureProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CoalesceProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Codec;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.config.DeduplicationProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties.ExportFormat;
 import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
 import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto.TisReferenceInfo;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 /**
  * Test class for the Action Service.
@@ -59,9 +80,28 @@ class ActionServiceTest {
   private static final String STATUS = "CURRENT";
   private static final Instant STATUS_DATETIME = Instant.now();
 
+  private static final Settings ACTION_COMPRESSION
+      = new Settings(Codec.ZSTD, DataSize.ofKilobytes(1));
+
   private ActionService service;
 
-  private DataLakeFacade dataLakeFacade;
+  private ExportSink sink;
+
+  private NdjsonBatchWriter batchWriter;
+
+  private ParquetRecordWriter parquetWriter;
+
+  private ParquetBatchWriter parquetBatchWriter;
+
+  private PayloadCompressor compressor;
+
+  private ExportDeduplicator deduplicator;
+
+  private ExportManifest manifest;
+
+  private ExportBudget budget;
+
+  private ExportCoalescer coalescer;
 
   private ObjectMapper mapper;
 
@@ -70,46 +110,196 @@ class ActionServiceTest {
     mapper = new ObjectMapper()
         .registerModule(new JavaTimeModule())
         .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-    dataLakeFacade = mock(DataLakeFacade.class);
-    service = new ActionService(ROOT_DIRECTORY, mapper, dataLakeFacade);
+    sink = mock(ExportSink.class);
+    when(sink.write(any(), any(Payload.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    batchWriter = mock(NdjsonBatchWriter.class);
+    parquetWriter = mock(ParquetRecordWriter.class);
+    parquetBatchWriter = mock(ParquetBatchWriter.class);
+    compressor = mock(PayloadCompressor.class);
+    manifest = mock(ExportManifest.class);
+    coalescer = new ExportCoalescer(new CoalesceProperties(false, null, null),
+        Clock.systemUTC(), new SimpleMeterRegistry());
+    budget = new ExportBudget(new BackpressureProperties(false, 0, null, null),
+        new SimpleMeterRegistry());
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(false, 0, null),
+        new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+  }
+
+  /**
+   * Create an action service which exports in the given format.
+   *
+   * @param format The action export format.
+   * @return The created service.
+   */
+  private ActionService createService(ExportFormat format) {
+    return new ActionService(ROOT_DIRECTORY, mapper, sink, batchWriter, parquetWriter,
+        parquetBatchWriter, new ExportFormatProperties(format, null, null), compressor,
+        new CompressionProperties(ACTION_COMPRESSION, null, null), deduplicator,
+        manifest, budget, coalescer);
   }
 
   @Test
-  void shouldNotProcessNullEvent() throws JsonProcessingException {
+  void shouldNotProcessNullEvent() throws IOException {
     service.processActionEvent(null);
 
-    verifyNoInteractions(dataLakeFacade);
+    verifyNoInteractions(sink);
   }
 
   @Test
-  void shouldNotProcessEventWithNullId() throws JsonProcessingException {
+  void shouldNotProcessEventWithNullId() throws IOException {
     TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
     ActionEventDto event = new ActionEventDto(null, TYPE, TRAINEE_ID, tisReferenceInfo,
         AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
 
     service.processActionEvent(event);
 
-    verifyNoInteractions(dataLakeFacade);
+    verifyNoInteractions(sink);
   }
 
   @Test
-  void shouldProcessEvent() throws JsonProcessingException {
+  void shouldProcessEvent() throws IOException {
     TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
     ActionEventDto event = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
         AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
 
-    DataLakeDirectoryClient directoryClient = mock(DataLakeDirectoryClient.class);
-    when(dataLakeFacade.createSubDirectory(any(), any())).thenReturn(directoryClient);
-    when(dataLakeFacade.createYearMonthDaySubDirectories(any())).thenReturn(directoryClient);
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    Payload payload = new Payload("filename", new byte[0], "application/json", null);
+    when(compressor.compress(any(), any(), any(), any())).thenReturn(payload);
 
     service.processActionEvent(event);
 
-    verify(dataLakeFacade).createSubDirectory(ROOT_DIRECTORY, DATALAKE_ACTIONS_ROOT);
-    verify(dataLakeFacade).createYearMonthDaySubDirectories(directoryClient);
+    verify(sink).getPartitionDirectory(ROOT_DIRECTORY, DATALAKE_ACTIONS_ROOT, STATUS_DATETIME);
 
     String expectedContent = mapper.writeValueAsString(event);
     String expectedFilename = service.getEventFilename(EVENT_ID);
-    verify(dataLakeFacade).saveToDataLake(expectedFilename, expectedContent, directoryClient);
+    verify(compressor).compress(ACTION_COMPRESSION, expectedFilename,
+        expectedContent.getBytes(StandardCharsets.UTF_8), ExportSink.JSON_CONTENT_TYPE);
+    verify(sink).write(directory, payload);
+    verify(manifest).record(directory, EVENT_ID, payload);
+  }
+
+  @Test
+  void shouldSkipExportWhenEventUnchangedAndDeduplicationEnabled() throws IOException {
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(true, 10, null),
+        new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
+    ActionEventDto event = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
+        AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    Payload payload = new Payload("filename", new byte[0], "application/json", null);
+    when(compressor.compress(any(), any(), any(), any())).thenReturn(payload);
+    when(sink.write(directory, payload))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    service.processActionEvent(event);
+    service.processActionEvent(event);
+
+    verify(sink, times(1)).write(directory, payload);
+  }
+
+  @Test
+  void shouldOnlyExportLatestEventWhenCoalescingEnabled() throws IOException {
+    coalescer = new ExportCoalescer(new CoalesceProperties(true, Duration.ofSeconds(1), null),
+        Clock.systemUTC(), new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
+    ActionEventDto event1 = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
+        AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
+    ActionEventDto event2 = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
+        AVAILABLE_FROM, DUE_BY, COMPLETED, "PAST", STATUS_DATETIME);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    Payload payload = new Payload("filename", new byte[0], "application/json", null);
+    when(compressor.compress(any(), any(), any(), any())).thenReturn(payload);
+
+    CompletableFuture<Void> future1 = service.processActionEvent(event1);
+    CompletableFuture<Void> future2 = service.processActionEvent(event2);
+
+    assertThat("Unexpected future completion.", future1.isDone(), is(false));
+    verify(sink, never()).write(any(), any(Payload.class));
+
+    coalescer.flushAll();
+
+    assertThat("Unexpected future completion.", future1.isDone(), is(true));
+    assertThat("Unexpected future completion.", future2.isDone(), is(true));
+    verify(compressor).compress(any(), any(), eq(mapper.writeValueAsBytes(event2)), any());
+    verify(sink, times(1)).write(directory, payload);
+  }
+
+  @Test
+  void shouldBatchEventWhenBatchingEnabled() throws IOException {
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
+    ActionEventDto event = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
+        AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    when(batchWriter.isEnabled()).thenReturn(true);
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    when(batchWriter.write(any(), any())).thenReturn(flushed);
+
+    CompletableFuture<Void> future = service.processActionEvent(event);
+
+    assertThat("Unexpected future.", future, sameInstance(flushed));
+    byte[] expectedContent = mapper.writeValueAsBytes(event);
+    verify(batchWriter).write(directory, expectedContent);
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldExportParquetFileWhenParquetFormat() throws IOException {
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
+    ActionEventDto event = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
+        AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    byte[] parquet = {1, 2, 3};
+    when(parquetWriter.write(ActionEventDto.class, List.of(event))).thenReturn(parquet);
+    CompletableFuture<Void> saved = new CompletableFuture<>();
+    when(sink.write(any(), any(Payload.class))).thenReturn(saved);
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<Void> future = service.processActionEvent(event);
+
+    assertThat("Unexpected future.", future, sameInstance(saved));
+    String expectedFilename = service.getEventFilename(EVENT_ID, ".parquet");
+    verify(sink).write(directory,
+        new Payload(expectedFilename, parquet, ExportSink.PARQUET_CONTENT_TYPE, null));
+    verifyNoInteractions(batchWriter);
+  }
+
+  @Test
+  void shouldBatchParquetWhenParquetFormatAndBatchingEnabled() throws IOException {
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_ID, REFERENCE_TYPE);
+    ActionEventDto event = new ActionEventDto(EVENT_ID, TYPE, TRAINEE_ID, tisReferenceInfo,
+        AVAILABLE_FROM, DUE_BY, COMPLETED, STATUS, STATUS_DATETIME);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    when(parquetBatchWriter.isEnabled()).thenReturn(true);
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    when(parquetBatchWriter.write(directory, ActionEventDto.class, event))
+        .thenReturn(flushed);
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<Void> future = service.processActionEvent(event);
+
+    assertThat("Unexpected future.", future, sameInstance(flushed));
+    verifyNoInteractions(parquetWriter, batchWriter);
+    verify(sink, never()).write(any(), any(Payload.class));
   }
 
   @Test
@@ -119,6 +309,13 @@ class ActionServiceTest {
     assertEquals(expectedFilename, filename);
   }
 
+  @Test
+  void shouldUseExtensionInFilename() {
+    String filename = service.getEventFilename("someId", ".parquet");
+    String expectedFilename = "someId.parquet";
+    assertEquals(expectedFilename, filename);
+  }
+
   @Test
   void shouldUseFormattedEventIdAsFilenameIfUuid() {
     String filename = service.getEventFilename("66753bda4b74e61cdb5e88d9");
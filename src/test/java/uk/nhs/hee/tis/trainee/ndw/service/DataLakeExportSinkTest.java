@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.azure.storage.file.datalake.DataLakeDirectoryClient;
+import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSink.AppendableFile;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+class DataLakeExportSinkTest {
+
+  private static final String DIRECTORY
+      = "root/notifications/year=2025/month=202501/day=20250102";
+
+  private DataLakeExportSink sink;
+  private DataLakeFacade dataLakeFacade;
+  private DataLakeDirectoryClient directoryClient;
+
+  @BeforeEach
+  void setUp() {
+    dataLakeFacade = mock(DataLakeFacade.class);
+    directoryClient = mock(DataLakeDirectoryClient.class);
+    when(directoryClient.getDirectoryPath()).thenReturn(DIRECTORY);
+
+    DataLakeFileSystemClient dataLakeClient = mock(DataLakeFileSystemClient.class);
+    when(dataLakeClient.getDirectoryClient(DIRECTORY)).thenReturn(directoryClient);
+
+    sink = new DataLakeExportSink(dataLakeFacade, dataLakeClient);
+  }
+
+  @Test
+  void shouldGetPartitionDirectoryPathFromDataLake() {
+    Instant eventTime = Instant.parse("2025-01-02T10:00:00Z");
+    when(dataLakeFacade.getPartitionDirectory("root", "notifications", eventTime))
+        .thenReturn(directoryClient);
+
+    String directory = sink.getPartitionDirectory("root", "notifications", eventTime);
+
+    assertThat("Unexpected directory.", directory, is(DIRECTORY));
+  }
+
+  @Test
+  void shouldSavePayloadToDataLakeDirectory() {
+    Payload payload = new Payload("123.json", new byte[]{1}, ExportSink.JSON_CONTENT_TYPE, null);
+    CompletableFuture<Void> saved = CompletableFuture.completedFuture(null);
+    when(dataLakeFacade.saveToDataLake(payload, directoryClient)).thenReturn(saved);
+
+    CompletableFuture<Void> future = sink.write(DIRECTORY, payload);
+
+    assertThat("Unexpected future.", future, sameInstance(saved));
+  }
+
+  @Test
+  void shouldAppendToCreatedDataLakeFile() {
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(fileClient.getFilePath()).thenReturn(DIRECTORY + "/batch.ndjson");
+    when(dataLakeFacade.createFile(directoryClient, "batch.ndjson",
+        ExportSink.NDJSON_CONTENT_TYPE)).thenReturn(fileClient);
+
+    AppendableFile file = sink.createAppendableFile(DIRECTORY, "batch.ndjson",
+        ExportSink.NDJSON_CONTENT_TYPE);
+    byte[] content = {1, 2, 3};
+    file.append(5L, content);
+
+    assertThat("Unexpected path.", file.getPath(), is(DIRECTORY + "/batch.ndjson"));
+    verify(dataLakeFacade).appendToDataLake(fileClient, 5L, content);
+  }
+}
@@ -1,45 +1,91 @@
 package uk.nhs.hee.tis.trainee.ndw.service;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.BinaryData;
 import com.azure.storage.file.datalake.DataLakeDirectoryClient;
 import com.azure.storage.file.datalake.DataLakeFileClient;
+import com.azure.storage.file.datalake.DataLakeFileAsyncClient;
+import com.azure.storage.file.datalake.DataLakeFileSystemAsyncClient;
 import com.azure.storage.file.datalake.DataLakeFileSystemClient;
+import com.azure.storage.file.datalake.models.DataLakeRequestConditions;
+import com.azure.storage.file.datalake.models.DataLakeStorageException;
+import com.azure.storage.file.datalake.models.PathHttpHeaders;
+import com.azure.storage.file.datalake.models.PathProperties;
+import com.azure.storage.file.datalake.options.DataLakeFileAppendOptions;
+import com.azure.storage.file.datalake.options.FileParallelUploadOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeWriteProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeWriteProperties.WriteMode;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeWriteProperties.WritePrecondition;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.Granularity;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.PartitionTime;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSpool.SpoolRecord;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 class DataLakeFacadeTest {
 
   private DataLakeFileSystemClient dataLakeClient;
+  private DataLakeFileSystemAsyncClient dataLakeAsyncClient;
   DataLakeDirectoryClient directoryClient;
   private DataLakeFacade facade;
+  private Clock clock;
+  private MeterRegistry meterRegistry;
+  private ExportSpool spool;
+  private PartitionLayout layout;
 
   @BeforeEach
   void setUp() {
     directoryClient = mock(DataLakeDirectoryClient.class);
     dataLakeClient = mock(DataLakeFileSystemClient.class);
-    facade = new DataLakeFacade(dataLakeClient);
+    dataLakeAsyncClient = mock(DataLakeFileSystemAsyncClient.class);
+    clock = mock(Clock.class);
+    when(clock.instant()).thenAnswer(inv -> Instant.now());
+    meterRegistry = new SimpleMeterRegistry();
+    spool = mock(ExportSpool.class);
+    layout = new PartitionLayout(new PartitionProperties(null, null));
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(null, null, false), meterRegistry, spool,
+        layout);
   }
 
   @Test
   void shouldCreateYearMonthDaySubDirectories() {
     when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
 
-    facade.createYearMonthDaySubDirectories(directoryClient);
+    facade.createPartitionSubDirectories(directoryClient);
 
     verify(directoryClient, times(3)).createSubdirectoryIfNotExists(any());
 
@@ -69,7 +115,114 @@ class DataLakeFacadeTest {
   }
 
   @Test
-  void shouldSaveToDataLake() throws IOException {
+  void shouldCreatePartitionDirectoriesOnFirstLookup() {
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(Instant.parse("2025-01-02T10:00:00Z"));
+
+    DataLakeDirectoryClient partition = facade.getPartitionDirectory("root", "directory", null);
+
+    assertThat("Unexpected partition directory.", partition, sameInstance(directoryClient));
+    InOrder orderVerifier = inOrder(directoryClient);
+    orderVerifier.verify(directoryClient).createSubdirectoryIfNotExists("directory");
+    orderVerifier.verify(directoryClient).createSubdirectoryIfNotExists("year=2025");
+    orderVerifier.verify(directoryClient).createSubdirectoryIfNotExists("month=202501");
+    orderVerifier.verify(directoryClient).createSubdirectoryIfNotExists("day=20250102");
+  }
+
+  @Test
+  void shouldCachePartitionDirectoriesForSameDay() {
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(
+        Instant.parse("2025-01-02T00:00:00Z"),
+        Instant.parse("2025-01-02T12:00:00Z"),
+        Instant.parse("2025-01-02T23:59:59Z"));
+
+    facade.getPartitionDirectory("root", "directory", null);
+    facade.getPartitionDirectory("root", "directory", null);
+    DataLakeDirectoryClient partition = facade.getPartitionDirectory("root", "directory", null);
+
+    assertThat("Unexpected partition directory.", partition, sameInstance(directoryClient));
+    verify(dataLakeClient, times(1)).getDirectoryClient("root");
+    verify(directoryClient, times(4)).createSubdirectoryIfNotExists(any());
+    assertThat("Unexpected cache hits.", cacheCount("hit"), is(2.0));
+    assertThat("Unexpected cache misses.", cacheCount("miss"), is(1.0));
+  }
+
+  @Test
+  void shouldNotSharePartitionDirectoriesBetweenNames() {
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(Instant.parse("2025-01-02T10:00:00Z"));
+
+    facade.getPartitionDirectory("root", "directory1", null);
+    facade.getPartitionDirectory("root", "directory2", null);
+
+    verify(directoryClient).createSubdirectoryIfNotExists("directory1");
+    verify(directoryClient).createSubdirectoryIfNotExists("directory2");
+    assertThat("Unexpected cache misses.", cacheCount("miss"), is(2.0));
+  }
+
+  @Test
+  void shouldRollPartitionDirectoriesOverAtUtcMidnight() {
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(
+        Instant.parse("2025-01-02T23:59:59Z"),
+        Instant.parse("2025-01-03T00:00:00Z"));
+
+    facade.getPartitionDirectory("root", "directory", null);
+    facade.getPartitionDirectory("root", "directory", null);
+
+    verify(directoryClient).createSubdirectoryIfNotExists("day=20250102");
+    verify(directoryClient).createSubdirectoryIfNotExists("day=20250103");
+    assertThat("Unexpected cache misses.", cacheCount("miss"), is(2.0));
+    assertThat("Unexpected cache size.",
+        meterRegistry.get("ndw.partition.cache.size").gauge().value(), is(1.0));
+  }
+
+  @Test
+  void shouldPartitionByEventTimeWhenConfigured() {
+    layout = new PartitionLayout(new PartitionProperties(PartitionTime.EVENT, null));
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(null, null, false), meterRegistry, spool, layout);
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(Instant.parse("2025-01-03T10:00:00Z"));
+
+    facade.getPartitionDirectory("root", "directory", Instant.parse("2025-01-01T05:00:00Z"));
+    facade.getPartitionDirectory("root", "directory", null);
+
+    verify(directoryClient).createSubdirectoryIfNotExists("day=20250101");
+    verify(directoryClient).createSubdirectoryIfNotExists("day=20250103");
+    assertThat("Unexpected cache misses.", cacheCount("miss"), is(2.0));
+  }
+
+  @Test
+  void shouldCreateHourPartitionDirectoriesWhenHourly() {
+    layout = new PartitionLayout(new PartitionProperties(null, Granularity.HOUR));
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(null, null, false), meterRegistry, spool, layout);
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.createSubdirectoryIfNotExists(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(
+        Instant.parse("2025-01-02T10:00:00Z"),
+        Instant.parse("2025-01-02T10:59:59Z"),
+        Instant.parse("2025-01-02T11:00:00Z"));
+
+    facade.getPartitionDirectory("root", "directory", null);
+    facade.getPartitionDirectory("root", "directory", null);
+    facade.getPartitionDirectory("root", "directory", null);
+
+    verify(directoryClient).createSubdirectoryIfNotExists("hour=2025010210");
+    verify(directoryClient).createSubdirectoryIfNotExists("hour=2025010211");
+    assertThat("Unexpected cache hits.", cacheCount("hit"), is(1.0));
+    assertThat("Unexpected cache misses.", cacheCount("miss"), is(2.0));
+  }
+
+  @Test
+  void shouldSaveToDataLake() {
     DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
     when(directoryClient.createFileIfNotExists("filename")).thenReturn(fileClient);
 
@@ -78,12 +231,449 @@ class DataLakeFacadeTest {
 
     facade.saveToDataLake("filename", contents, directoryClient);
 
-    ArgumentCaptor<InputStream> streamCaptor = ArgumentCaptor.forClass(InputStream.class);
-    long contentsLength = contents.getBytes(StandardCharsets.UTF_8).length;
-    verify(fileClient).upload(streamCaptor.capture(), eq(contentsLength), eq(true));
+    ArgumentCaptor<FileParallelUploadOptions> optionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).uploadWithResponse(optionsCaptor.capture(), any(), any());
+
+    FileParallelUploadOptions options = optionsCaptor.getValue();
+    assertThat("Unexpected request conditions.", options.getRequestConditions(), nullValue());
+    assertThat("Unexpected content type.", options.getHeaders().getContentType(),
+        is("application/json"));
 
-    InputStream uploadedStream = streamCaptor.getValue();
-    String uploadedContent = new String(uploadedStream.readAllBytes(), StandardCharsets.UTF_8);
+    String uploadedContent = new String(options.getData().toBytes(), StandardCharsets.UTF_8);
     assertEquals(contents, uploadedContent);
+    assertThat("Unexpected requests per write.", requestsPerWrite(), is(4.0));
+  }
+
+  @Test
+  void shouldSaveCompressedPayloadWithContentEncoding() {
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.createFileIfNotExists("filename.json.gz")).thenReturn(fileClient);
+    Payload payload = new Payload("filename.json.gz", new byte[]{1, 2}, "application/json",
+        "gzip");
+
+    facade.saveToDataLake(payload, directoryClient);
+
+    ArgumentCaptor<FileParallelUploadOptions> optionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).uploadWithResponse(optionsCaptor.capture(), any(), any());
+    PathHttpHeaders headers = optionsCaptor.getValue().getHeaders();
+    assertThat("Unexpected content type.", headers.getContentType(), is("application/json"));
+    assertThat("Unexpected content encoding.", headers.getContentEncoding(), is("gzip"));
+  }
+
+  @Test
+  void shouldDeleteSupersededFilesAfterSavingPayload() {
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.createFileIfNotExists("filename.json.gz")).thenReturn(fileClient);
+    DataLakeFileAsyncClient supersededClient = mock(DataLakeFileAsyncClient.class);
+    when(dataLakeAsyncClient.getFileClient("root/day/filename.json"))
+        .thenReturn(supersededClient);
+    when(supersededClient.deleteIfExists()).thenReturn(Mono.just(true));
+    Payload payload = new Payload("filename.json.gz", new byte[]{1, 2}, "application/json",
+        "gzip", List.of("filename.json"));
+
+    facade.saveToDataLake(payload, directoryClient);
+
+    InOrder inOrder = inOrder(fileClient, supersededClient);
+    inOrder.verify(fileClient).uploadWithResponse(any(), any(), any());
+    inOrder.verify(supersededClient).deleteIfExists();
+    verify(directoryClient, never()).getFileClient(any());
+  }
+
+  @Test
+  void shouldNotFailSaveWhenSupersededFileDeleteFails() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.STANDARD, null, true), meterRegistry, spool,
+        layout);
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    DataLakeFileAsyncClient fileClient = mock(DataLakeFileAsyncClient.class);
+    when(dataLakeAsyncClient.getFileClient("root/day/filename.json.gz")).thenReturn(fileClient);
+    when(fileClient.createIfNotExists()).thenReturn(Mono.empty());
+    when(fileClient.uploadWithResponse(any(FileParallelUploadOptions.class)))
+        .thenReturn(Mono.empty());
+    DataLakeFileAsyncClient supersededClient = mock(DataLakeFileAsyncClient.class);
+    when(dataLakeAsyncClient.getFileClient("root/day/filename.json"))
+        .thenReturn(supersededClient);
+    when(supersededClient.deleteIfExists())
+        .thenReturn(Mono.error(new IllegalStateException("delete failed")));
+    Payload payload = new Payload("filename.json.gz", new byte[]{1, 2}, "application/json",
+        "gzip", List.of("filename.json"));
+
+    CompletableFuture<Void> future = facade.saveToDataLake(payload, directoryClient);
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(false));
+    assertThat("Unexpected delete failures.",
+        meterRegistry.counter("ndw.datalake.superseded.delete.failures").count(), is(1.0));
+  }
+
+  @Test
+  void shouldSpoolSupersededFilesWithoutDeletingThem() throws IOException {
+    when(spool.isEnabled()).thenReturn(true);
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    Payload payload = new Payload("filename.json.gz", new byte[]{1, 2}, "application/json",
+        "gzip", List.of("filename.json"));
+
+    facade.saveToDataLake(payload, directoryClient);
+
+    ArgumentCaptor<SpoolRecord> recordCaptor = ArgumentCaptor.captor();
+    verify(spool).append(recordCaptor.capture());
+    assertThat("Unexpected superseded files.", recordCaptor.getValue().superseded(),
+        is(List.of("filename.json")));
+    verify(dataLakeAsyncClient, never()).getFileClient(any());
+  }
+
+  @Test
+  void shouldDeleteSupersededFilesAfterUploadingSpooledFile() {
+    when(dataLakeClient.getDirectoryClient("root/day")).thenReturn(directoryClient);
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.createFileIfNotExists("filename.json.gz")).thenReturn(fileClient);
+    DataLakeFileAsyncClient supersededClient = mock(DataLakeFileAsyncClient.class);
+    when(dataLakeAsyncClient.getFileClient("root/day/filename.json"))
+        .thenReturn(supersededClient);
+    when(supersededClient.deleteIfExists()).thenReturn(Mono.just(true));
+    SpoolRecord rec = new SpoolRecord("root/day", "filename.json.gz", "application/json", "gzip",
+        null, new byte[]{1, 2}, List.of("filename.json"));
+
+    facade.uploadSpooled(rec);
+
+    InOrder inOrder = inOrder(fileClient, supersededClient);
+    inOrder.verify(fileClient).uploadWithResponse(any(), any(), any());
+    inOrder.verify(supersededClient).deleteIfExists();
+  }
+
+  @Test
+  void shouldSpoolFileInsteadOfUploadingWhenSpoolEnabled() throws IOException {
+    when(spool.isEnabled()).thenReturn(true);
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    Payload payload = new Payload("filename.json.gz", new byte[]{1, 2}, "application/json",
+        "gzip");
+
+    CompletableFuture<Void> future = facade.saveToDataLake(payload, directoryClient);
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    ArgumentCaptor<SpoolRecord> recordCaptor = ArgumentCaptor.captor();
+    verify(spool).append(recordCaptor.capture());
+    SpoolRecord rec = recordCaptor.getValue();
+    assertThat("Unexpected directory path.", rec.directoryPath(), is("root/day"));
+    assertThat("Unexpected filename.", rec.filename(), is("filename.json.gz"));
+    assertThat("Unexpected content type.", rec.contentType(), is("application/json"));
+    assertThat("Unexpected content encoding.", rec.contentEncoding(), is("gzip"));
+    assertThat("Unexpected content.", rec.content(), is(new byte[]{1, 2}));
+    verify(directoryClient, never()).createFileIfNotExists(any());
+  }
+
+  @Test
+  void shouldFailSaveWhenSpoolRejectsFile() throws IOException {
+    when(spool.isEnabled()).thenReturn(true);
+    doThrow(new IOException("full")).when(spool).append(any());
+
+    CompletableFuture<Void> future = facade.saveToDataLake("filename", "{}", directoryClient);
+
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(true));
+    verify(directoryClient, never()).createFileIfNotExists(any());
+  }
+
+  @Test
+  void shouldUploadSpooledFileToDirectoryPath() {
+    when(dataLakeClient.getDirectoryClient("root/day")).thenReturn(directoryClient);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.createFileIfNotExists("filename.json.gz")).thenReturn(fileClient);
+    SpoolRecord rec = new SpoolRecord("root/day", "filename.json.gz", "application/json", "gzip",
+        null, new byte[]{1, 2});
+
+    facade.uploadSpooled(rec);
+
+    ArgumentCaptor<FileParallelUploadOptions> optionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).uploadWithResponse(optionsCaptor.capture(), any(), any());
+    PathHttpHeaders headers = optionsCaptor.getValue().getHeaders();
+    assertThat("Unexpected content type.", headers.getContentType(), is("application/json"));
+    assertThat("Unexpected content encoding.", headers.getContentEncoding(), is("gzip"));
+    verify(spool, never()).isEnabled();
+  }
+
+  @Test
+  void shouldSaveCompressedPayloadWithContentEncodingInMinimalMode() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, null, false), meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename.json.zst")).thenReturn(fileClient);
+    Payload payload = new Payload("filename.json.zst", new byte[]{1, 2}, "application/json",
+        "zstd");
+
+    facade.saveToDataLake(payload, directoryClient);
+
+    ArgumentCaptor<PathHttpHeaders> headersCaptor = ArgumentCaptor.captor();
+    verify(fileClient).createWithResponse(any(), any(), headersCaptor.capture(), any(), any(),
+        any(), any());
+    assertThat("Unexpected content encoding.", headersCaptor.getValue().getContentEncoding(),
+        is("zstd"));
+  }
+
+  @Test
+  void shouldNotCreatePartitionDirectoriesInMinimalMode() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, null, false), meterRegistry, spool,
+        layout);
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.getSubdirectoryClient(any())).thenReturn(directoryClient);
+    when(clock.instant()).thenReturn(Instant.parse("2025-01-02T10:00:00Z"));
+
+    facade.getPartitionDirectory("root", "directory", null);
+
+    verify(directoryClient, never()).createSubdirectoryIfNotExists(any());
+    InOrder orderVerifier = inOrder(directoryClient);
+    orderVerifier.verify(directoryClient).getSubdirectoryClient("directory");
+    orderVerifier.verify(directoryClient).getSubdirectoryClient("year=2025");
+    orderVerifier.verify(directoryClient).getSubdirectoryClient("month=202501");
+    orderVerifier.verify(directoryClient).getSubdirectoryClient("day=20250102");
+  }
+
+  @Test
+  void shouldNotCreatePartitionDirectoriesWhenSpoolEnabled() {
+    when(spool.isEnabled()).thenReturn(true);
+    when(dataLakeClient.getDirectoryClient(any())).thenReturn(directoryClient);
+    when(directoryClient.getSubdirectoryClient(any())).thenReturn(directoryClient);
+
+    facade.getPartitionDirectory("root", "directory", null);
+
+    verify(directoryClient, never()).createSubdirectoryIfNotExists(any());
+    verify(directoryClient, times(4)).getSubdirectoryClient(any());
+  }
+
+  @Test
+  void shouldCreateSpooledFileDirectoryOnFirstUpload() {
+    when(dataLakeClient.getDirectoryClient("root/day")).thenReturn(directoryClient);
+    when(directoryClient.createFileIfNotExists(any())).thenReturn(mock(DataLakeFileClient.class));
+
+    facade.uploadSpooled(new SpoolRecord("root/day", "1.json", "application/json", null, null,
+        new byte[]{1}));
+    facade.uploadSpooled(new SpoolRecord("root/day", "2.json", "application/json", null, null,
+        new byte[]{2}));
+
+    verify(directoryClient).createIfNotExists();
+    verify(directoryClient, times(2)).createFileIfNotExists(any());
+  }
+
+  @Test
+  void shouldSaveToDataLakeWithCreateAndFlushingAppendInMinimalMode() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, null, false), meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename")).thenReturn(fileClient);
+
+    String contents = "{\"field1\":\"value1ท\"}";
+
+    facade.saveToDataLake("filename", contents, directoryClient);
+
+    verify(directoryClient, never()).createFileIfNotExists(any());
+    ArgumentCaptor<DataLakeRequestConditions> conditionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).createWithResponse(any(), any(), any(), any(), conditionsCaptor.capture(),
+        any(), any());
+    assertThat("Unexpected If-None-Match.", conditionsCaptor.getValue().getIfNoneMatch(),
+        nullValue());
+
+    ArgumentCaptor<BinaryData> dataCaptor = ArgumentCaptor.captor();
+    ArgumentCaptor<DataLakeFileAppendOptions> optionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).appendWithResponse(dataCaptor.capture(), eq(0L), optionsCaptor.capture(),
+        any(), any());
+    assertThat("Unexpected flush option.", optionsCaptor.getValue().isFlush(), is(true));
+
+    String uploadedContent = new String(dataCaptor.getValue().toBytes(), StandardCharsets.UTF_8);
+    assertEquals(contents, uploadedContent);
+    assertThat("Unexpected requests per write.", requestsPerWrite(), is(2.0));
+  }
+
+  @Test
+  void shouldSaveBinaryContentWithContentTypeInMinimalMode() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, null, false), meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename.parquet")).thenReturn(fileClient);
+
+    byte[] contents = {'P', 'A', 'R', '1', 0, -1};
+
+    facade.saveToDataLake("filename.parquet", contents, ExportSink.PARQUET_CONTENT_TYPE,
+        directoryClient);
+
+    ArgumentCaptor<PathHttpHeaders> headersCaptor = ArgumentCaptor.captor();
+    verify(fileClient).createWithResponse(any(), any(), headersCaptor.capture(), any(), any(),
+        any(), any());
+    assertThat("Unexpected content type.", headersCaptor.getValue().getContentType(),
+        is("application/vnd.apache.parquet"));
+
+    ArgumentCaptor<BinaryData> dataCaptor = ArgumentCaptor.captor();
+    verify(fileClient).appendWithResponse(dataCaptor.capture(), eq(0L), any(), any(), any());
+    assertThat("Unexpected content.", dataCaptor.getValue().toBytes(), is(contents));
+  }
+
+  @Test
+  void shouldApplyIfNoneMatchPreconditionInMinimalMode() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, WritePrecondition.IF_NONE_MATCH, false),
+        meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename")).thenReturn(fileClient);
+
+    facade.saveToDataLake("filename", "{}", directoryClient);
+
+    ArgumentCaptor<DataLakeRequestConditions> conditionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).createWithResponse(any(), any(), any(), any(), conditionsCaptor.capture(),
+        any(), any());
+    assertThat("Unexpected If-None-Match.", conditionsCaptor.getValue().getIfNoneMatch(),
+        is("*"));
+  }
+
+  @Test
+  void shouldSkipExistingFileWhenIfNoneMatchPreconditionFails() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, WritePrecondition.IF_NONE_MATCH, false),
+        meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename")).thenReturn(fileClient);
+
+    DataLakeStorageException exception = mock(DataLakeStorageException.class);
+    when(exception.getStatusCode()).thenReturn(409);
+    when(fileClient.createWithResponse(any(), any(), any(), any(), any(), any(), any()))
+        .thenThrow(exception);
+    PathProperties properties = mock(PathProperties.class);
+    when(properties.getFileSize()).thenReturn(2L);
+    when(fileClient.getProperties()).thenReturn(properties);
+
+    facade.saveToDataLake("filename", "{}", directoryClient);
+
+    verify(fileClient, never()).appendWithResponse(any(BinaryData.class), anyLong(), any(), any(),
+        any());
+    assertThat("Unexpected requests per write.", requestsPerWrite(), is(2.0));
+  }
+
+  @Test
+  void shouldRewriteEmptyExistingFileWhenIfNoneMatchPreconditionFails() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, WritePrecondition.IF_NONE_MATCH, false),
+        meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename")).thenReturn(fileClient);
+
+    DataLakeStorageException exception = mock(DataLakeStorageException.class);
+    when(exception.getStatusCode()).thenReturn(412);
+    when(fileClient.createWithResponse(any(), any(), any(), any(), any(), any(), any()))
+        .thenThrow(exception);
+    PathProperties properties = mock(PathProperties.class);
+    when(properties.getFileSize()).thenReturn(0L);
+    when(fileClient.getProperties()).thenReturn(properties);
+
+    facade.saveToDataLake("filename", "{}", directoryClient);
+
+    ArgumentCaptor<BinaryData> dataCaptor = ArgumentCaptor.captor();
+    verify(fileClient).appendWithResponse(dataCaptor.capture(), eq(0L), any(), any(), any());
+    assertThat("Unexpected content.", dataCaptor.getValue().toString(), is("{}"));
+    assertThat("Unexpected requests per write.", requestsPerWrite(), is(3.0));
+  }
+
+  @Test
+  void shouldThrowWhenIfMatchPreconditionFails() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, null, false), meterRegistry, spool,
+        layout);
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename")).thenReturn(fileClient);
+
+    DataLakeStorageException exception = mock(DataLakeStorageException.class);
+    when(exception.getStatusCode()).thenReturn(412);
+    when(fileClient.createWithResponse(any(), any(), any(), any(), any(), any(), any()))
+        .thenThrow(exception);
+
+    DataLakeRequestConditions conditions = new DataLakeRequestConditions().setIfMatch("etag");
+    assertThrows(DataLakeStorageException.class,
+        () -> facade.saveToDataLake("filename", "{}", directoryClient, conditions));
+  }
+
+  @Test
+  void shouldCompleteAsyncSaveOnlyWhenUploadCompletes() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.MINIMAL, null, true), meterRegistry, spool,
+        layout);
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    DataLakeFileAsyncClient fileClient = mock(DataLakeFileAsyncClient.class);
+    when(dataLakeAsyncClient.getFileClient("root/day/filename")).thenReturn(fileClient);
+    when(fileClient.createWithResponse(any(), any(), any(), any(), any())).thenReturn(Mono.empty());
+
+    Sinks.Empty<Response<Void>> appendSink = Sinks.empty();
+    when(fileClient.appendWithResponse(any(), anyLong(), anyLong(), any()))
+        .thenReturn(appendSink.asMono());
+
+    CompletableFuture<Void> future = facade.saveToDataLake("filename", "{}", directoryClient);
+
+    assertThat("Unexpected future completion.", future.isDone(), is(false));
+    verify(directoryClient, never()).getFileClient(any());
+
+    appendSink.tryEmitEmpty();
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    assertThat("Unexpected requests per write.", requestsPerWrite(), is(2.0));
+  }
+
+  @Test
+  void shouldFailAsyncSaveWhenUploadFails() {
+    facade = new DataLakeFacade(dataLakeClient, dataLakeAsyncClient, clock,
+        new DataLakeWriteProperties(WriteMode.STANDARD, null, true), meterRegistry, spool,
+        layout);
+    when(directoryClient.getDirectoryPath()).thenReturn("root/day");
+    DataLakeFileAsyncClient fileClient = mock(DataLakeFileAsyncClient.class);
+    when(dataLakeAsyncClient.getFileClient("root/day/filename")).thenReturn(fileClient);
+    when(fileClient.createIfNotExists()).thenReturn(Mono.empty());
+    when(fileClient.uploadWithResponse(any(FileParallelUploadOptions.class)))
+        .thenReturn(Mono.error(new IllegalStateException("upload failed")));
+
+    CompletableFuture<Void> future = facade.saveToDataLake("filename", "{}", directoryClient);
+
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  void shouldCreateNdjsonFile() {
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    when(directoryClient.getFileClient("filename.ndjson")).thenReturn(fileClient);
+
+    DataLakeFileClient createdClient = facade.createFile(directoryClient, "filename.ndjson",
+        ExportSink.NDJSON_CONTENT_TYPE);
+
+    assertThat("Unexpected file client.", createdClient, sameInstance(fileClient));
+    ArgumentCaptor<PathHttpHeaders> headersCaptor = ArgumentCaptor.captor();
+    verify(fileClient).createWithResponse(any(), any(), headersCaptor.capture(), any(), any(),
+        any(), any());
+    assertThat("Unexpected content type.", headersCaptor.getValue().getContentType(),
+        is("application/x-ndjson"));
+  }
+
+  @Test
+  void shouldAppendAndFlushToDataLake() {
+    DataLakeFileClient fileClient = mock(DataLakeFileClient.class);
+    byte[] bytes = "{}\n".getBytes(StandardCharsets.UTF_8);
+
+    facade.appendToDataLake(fileClient, 10L, bytes);
+
+    ArgumentCaptor<BinaryData> dataCaptor = ArgumentCaptor.captor();
+    ArgumentCaptor<DataLakeFileAppendOptions> optionsCaptor = ArgumentCaptor.captor();
+    verify(fileClient).appendWithResponse(dataCaptor.capture(), eq(10L), optionsCaptor.capture(),
+        any(), any());
+    assertThat("Unexpected flush option.", optionsCaptor.getValue().isFlush(), is(true));
+    assertThat("Unexpected content.", dataCaptor.getValue().toBytes(), is(bytes));
+  }
+
+  private double requestsPerWrite() {
+    return meterRegistry.get("ndw.datalake.requests.per.write").summary().mean();
+  }
+
+  private double cacheCount(String result) {
+    return meterRegistry.get("ndw.partition.cache").tag("result", result).counter().count();
   }
 }
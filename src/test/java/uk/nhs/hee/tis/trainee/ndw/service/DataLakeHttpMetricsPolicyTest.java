@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.UncheckedIOException;
+import java.net.SocketException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class DataLakeHttpMetricsPolicyTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private DataLakeHttpMetricsPolicy policy;
+
+  private HttpPipelineCallContext context;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    policy = new DataLakeHttpMetricsPolicy(meterRegistry);
+
+    HttpRequest request = mock(HttpRequest.class);
+    when(request.getHttpMethod()).thenReturn(HttpMethod.PUT);
+    context = mock(HttpPipelineCallContext.class);
+    when(context.getHttpRequest()).thenReturn(request);
+  }
+
+  private long countRequests(String status) {
+    return meterRegistry.timer("ndw.datalake.http.requests", "method", "PUT", "status", status)
+        .count();
+  }
+
+  @Test
+  void shouldRecordSyncRequestLatencyByStatus() {
+    HttpResponse response = mock(HttpResponse.class);
+    when(response.getStatusCode()).thenReturn(201);
+    HttpPipelineNextSyncPolicy next = mock(HttpPipelineNextSyncPolicy.class);
+    when(next.processSync()).thenReturn(response);
+
+    policy.processSync(context, next);
+
+    assertThat("Unexpected request count.", countRequests("201"), is(1L));
+  }
+
+  @Test
+  void shouldRecordSyncRequestErrors() {
+    HttpPipelineNextSyncPolicy next = mock(HttpPipelineNextSyncPolicy.class);
+    when(next.processSync()).thenThrow(new UncheckedIOException(new SocketException("reset")));
+
+    assertThrows(UncheckedIOException.class, () -> policy.processSync(context, next));
+
+    assertThat("Unexpected request count.", countRequests("IO_ERROR"), is(1L));
+  }
+
+  @Test
+  void shouldRecordAsyncRequestLatencyByStatus() {
+    HttpResponse response = mock(HttpResponse.class);
+    when(response.getStatusCode()).thenReturn(429);
+    HttpPipelineNextPolicy next = mock(HttpPipelineNextPolicy.class);
+    when(next.process()).thenReturn(Mono.just(response));
+
+    policy.process(context, next).block();
+
+    assertThat("Unexpected request count.", countRequests("429"), is(1L));
+  }
+
+  @Test
+  void shouldRecordAsyncRequestErrors() {
+    HttpPipelineNextPolicy next = mock(HttpPipelineNextPolicy.class);
+    when(next.process()).thenReturn(Mono.error(new SocketException("reset")));
+
+    Mono<HttpResponse> response = policy.process(context, next);
+
+    assertThrows(RuntimeException.class, response::block);
+    assertThat("Unexpected request count.", countRequests("IO_ERROR"), is(1L));
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.config.RateLimitProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.DataLakeRateLimiter.RateLimitExceededException;
+
+class DataLakeRateLimiterTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+
+  private Clock clock;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private DataLakeRateLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    meterRegistry = new SimpleMeterRegistry();
+    RateLimitProperties properties = new RateLimitProperties(true, 100, 10, 200, 10, 0.5,
+        Duration.ofSeconds(1), Duration.ofMillis(50));
+    limiter = new DataLakeRateLimiter(properties, clock, meterRegistry);
+  }
+
+  private static HttpResponse response(int status) {
+    HttpResponse response = mock(HttpResponse.class);
+    when(response.getStatusCode()).thenReturn(status);
+    return response;
+  }
+
+  @Test
+  void shouldNotWaitForFirstPermit() {
+    assertThat("Unexpected wait.", limiter.acquire(), is(Duration.ZERO));
+  }
+
+  @Test
+  void shouldPaceSubsequentPermitsAtRate() {
+    limiter.acquire();
+
+    assertThat("Unexpected wait.", limiter.acquire(), is(Duration.ofMillis(10)));
+    assertThat("Unexpected wait.", limiter.acquire(), is(Duration.ofMillis(20)));
+  }
+
+  @Test
+  void shouldNotWaitWhenPermitIntervalHasPassed() {
+    limiter.acquire();
+    when(clock.instant()).thenReturn(NOW.plusMillis(10));
+
+    assertThat("Unexpected wait.", limiter.acquire(), is(Duration.ZERO));
+  }
+
+  @Test
+  void shouldRejectWhenWaitExceedsMaximum() {
+    for (int i = 0; i <= 5; i++) {
+      limiter.acquire();
+    }
+
+    assertThat("Unexpected permit.", limiter.acquire(), nullValue());
+    assertThat("Unexpected rejection count.",
+        meterRegistry.counter("ndw.datalake.rate.rejections").count(), is(1.0));
+  }
+
+  @Test
+  void shouldDecreaseRateWhenThrottled() {
+    limiter.onResponse(response(429));
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(50.0));
+    assertThat("Unexpected throttled count.",
+        meterRegistry.counter("ndw.datalake.rate.throttled", "status", "429").count(), is(1.0));
+  }
+
+  @Test
+  void shouldDecreaseRateWhenServiceUnavailable() {
+    limiter.onResponse(response(503));
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(50.0));
+  }
+
+  @Test
+  void shouldOnlyDecreaseRateOncePerCooldown() {
+    limiter.onResponse(response(429));
+    limiter.onResponse(response(429));
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(50.0));
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(1));
+    limiter.onResponse(response(429));
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(25.0));
+  }
+
+  @Test
+  void shouldNotDecreaseRateBelowMinimum() {
+    for (int i = 0; i < 10; i++) {
+      when(clock.instant()).thenReturn(NOW.plusSeconds(i));
+      limiter.onResponse(response(429));
+    }
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(10.0));
+  }
+
+  @Test
+  void shouldIncreaseRateOnSuccess() {
+    limiter.onResponse(response(201));
+
+    assertThat("Unexpected rate.", limiter.getRate(), closeTo(100.1, 0.0001));
+  }
+
+  @Test
+  void shouldNotIncreaseRateAboveMaximum() {
+    for (int i = 0; i < 100_000; i++) {
+      limiter.onResponse(response(200));
+    }
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(200.0));
+  }
+
+  @Test
+  void shouldNotChangeRateOnServerError() {
+    limiter.onResponse(response(500));
+
+    assertThat("Unexpected rate.", limiter.getRate(), is(100.0));
+  }
+
+  @Test
+  void shouldExposeRateAsGauge() {
+    limiter.onResponse(response(429));
+
+    assertThat("Unexpected rate gauge.",
+        meterRegistry.get("ndw.datalake.rate.limit").gauge().value(), is(50.0));
+  }
+
+  @Test
+  void shouldProcessSyncRequestAndAdaptRate() {
+    HttpPipelineNextSyncPolicy next = mock(HttpPipelineNextSyncPolicy.class);
+    HttpResponse response = response(429);
+    when(next.processSync()).thenReturn(response);
+
+    HttpResponse processed = limiter.processSync(mock(HttpPipelineCallContext.class), next);
+
+    assertThat("Unexpected response.", processed, is(response));
+    assertThat("Unexpected rate.", limiter.getRate(), is(50.0));
+  }
+
+  @Test
+  void shouldNotProcessSyncRequestWhenRejected() {
+    for (int i = 0; i <= 5; i++) {
+      limiter.acquire();
+    }
+    HttpPipelineNextSyncPolicy next = mock(HttpPipelineNextSyncPolicy.class);
+
+    assertThrows(RateLimitExceededException.class,
+        () -> limiter.processSync(mock(HttpPipelineCallContext.class), next));
+    verify(next, never()).processSync();
+  }
+}
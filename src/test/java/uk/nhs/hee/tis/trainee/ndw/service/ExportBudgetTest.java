@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.BackpressureProperties;
+
+class ExportBudgetTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ExportBudget budget;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    budget = createBudget(true, 2, DataSize.ofBytes(100), Duration.ofMillis(50));
+  }
+
+  private ExportBudget createBudget(boolean enabled, int maxMessages, DataSize maxBytes,
+      Duration pollWait) {
+    return new ExportBudget(new BackpressureProperties(enabled, maxMessages, maxBytes, pollWait),
+        meterRegistry);
+  }
+
+  @Test
+  void shouldNotTrackExportsWhenDisabled() {
+    budget = createBudget(false, 0, null, null);
+
+    budget.export(10, CompletableFuture::new);
+
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(0L));
+  }
+
+  @Test
+  void shouldHoldBudgetUntilExportCompletes() {
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+
+    CompletableFuture<Void> export = budget.export(10, () -> upload);
+
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(1L));
+    assertThat("Unexpected in-flight bytes.", budget.getInFlightBytes(), is(10L));
+
+    upload.complete(null);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(true));
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(0L));
+    assertThat("Unexpected in-flight bytes.", budget.getInFlightBytes(), is(0L));
+  }
+
+  @Test
+  void shouldReleaseBudgetWhenExportFails() {
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+
+    budget.export(10, () -> upload);
+    upload.completeExceptionally(new IllegalStateException("expected"));
+
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(0L));
+  }
+
+  @Test
+  void shouldReleaseBudgetWhenExportThrows() {
+    assertThrows(IllegalStateException.class, () -> budget.export(10, () -> {
+      throw new IllegalStateException("expected");
+    }));
+
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(0L));
+  }
+
+  @Test
+  void shouldStartExportWhenBudgetExhausted() {
+    budget.export(10, CompletableFuture::new);
+    budget.export(10, CompletableFuture::new);
+
+    CompletableFuture<Void> export = budget.export(10, () -> CompletableFuture.completedFuture(
+        null));
+
+    assertThat("Unexpected export completion.", export.isDone(), is(true));
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(2L));
+  }
+
+  @Test
+  void shouldNotWaitForBudgetWhenAvailable() throws InterruptedException {
+    budget.export(10, CompletableFuture::new);
+
+    assertThat("Unexpected budget availability.", budget.awaitBudget(), is(true));
+    assertThat("Unexpected paused count.",
+        meterRegistry.get("ndw.backpressure.paused").timer().count(), is(0L));
+  }
+
+  @Test
+  void shouldNotWaitForBudgetWhenDisabled() throws InterruptedException {
+    budget = createBudget(false, 0, null, null);
+
+    assertThat("Unexpected budget availability.", budget.awaitBudget(), is(true));
+  }
+
+  @Test
+  void shouldReportMessageBudgetExhaustedAfterPollWait() throws InterruptedException {
+    budget.export(10, CompletableFuture::new);
+    budget.export(10, CompletableFuture::new);
+
+    assertThat("Unexpected budget availability.", budget.awaitBudget(), is(false));
+    assertThat("Unexpected paused time.", meterRegistry.get("ndw.backpressure.paused").timer()
+        .totalTime(TimeUnit.MILLISECONDS), greaterThan(0.0));
+  }
+
+  @Test
+  void shouldReportByteBudgetExhaustedAfterPollWait() throws InterruptedException {
+    budget.export(100, CompletableFuture::new);
+
+    assertThat("Unexpected budget availability.", budget.awaitBudget(), is(false));
+  }
+
+  @Test
+  void shouldAdmitOversizedMessage() {
+    budget.export(1000, CompletableFuture::new);
+
+    assertThat("Unexpected in-flight bytes.", budget.getInFlightBytes(), is(1000L));
+  }
+
+  @Test
+  void shouldResumePollingWhenBudgetReleased() throws Exception {
+    budget = createBudget(true, 1, DataSize.ofBytes(100), Duration.ofSeconds(10));
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+    budget.export(10, () -> upload);
+
+    CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+      try {
+        return budget.awaitBudget();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertThat("Unexpected poll resumption.", waiting.isDone(), is(false));
+
+    upload.complete(null);
+
+    assertThat("Unexpected budget availability.", waiting.get(5, TimeUnit.SECONDS), is(true));
+    assertThat("Unexpected paused count.",
+        meterRegistry.get("ndw.backpressure.paused").timer().count(), is(1L));
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.config.CoalesceProperties;
+
+class ExportCoalescerTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+
+  private static final Duration WINDOW = Duration.ofSeconds(2);
+
+  private Clock clock;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ExportCoalescer coalescer;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    meterRegistry = new SimpleMeterRegistry();
+    coalescer = createCoalescer(true);
+  }
+
+  private ExportCoalescer createCoalescer(boolean enabled) {
+    return new ExportCoalescer(new CoalesceProperties(enabled, WINDOW, Duration.ofMillis(100)),
+        clock, meterRegistry);
+  }
+
+  @Test
+  void shouldExportImmediatelyWhenDisabled() {
+    coalescer = createCoalescer(false);
+    CompletableFuture<Void> upload = CompletableFuture.completedFuture(null);
+
+    CompletableFuture<Void> future = coalescer.exportCoalesced("key", () -> upload);
+
+    assertThat("Unexpected future.", future, sameInstance(upload));
+  }
+
+  @Test
+  void shouldNotExportBeforeWindowEnds() {
+    AtomicInteger exports = new AtomicInteger();
+
+    CompletableFuture<Void> future = coalescer.exportCoalesced("key", () -> {
+      exports.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+
+    when(clock.instant()).thenReturn(NOW.plus(WINDOW).minusMillis(1));
+    coalescer.flushExpired();
+
+    assertThat("Unexpected export count.", exports.get(), is(0));
+    assertThat("Unexpected future completion.", future.isDone(), is(false));
+  }
+
+  @Test
+  void shouldOnlyExportLatestWhenWindowEnds() {
+    AtomicInteger first = new AtomicInteger();
+    AtomicInteger latest = new AtomicInteger();
+
+    CompletableFuture<Void> future1 = coalescer.exportCoalesced("key", () -> {
+      first.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+    CompletableFuture<Void> future2 = coalescer.exportCoalesced("key", () -> {
+      latest.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+
+    when(clock.instant()).thenReturn(NOW.plus(WINDOW));
+    coalescer.flushExpired();
+
+    assertThat("Unexpected superseded export count.", first.get(), is(0));
+    assertThat("Unexpected latest export count.", latest.get(), is(1));
+    assertThat("Unexpected future completion.", future1.isDone(), is(true));
+    assertThat("Unexpected future completion.", future2.isDone(), is(true));
+  }
+
+  @Test
+  void shouldNotCoalesceDifferentKeys() {
+    AtomicInteger exports = new AtomicInteger();
+
+    coalescer.exportCoalesced("key1", () -> {
+      exports.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+    coalescer.exportCoalesced("key2", () -> {
+      exports.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+
+    coalescer.flushAll();
+
+    assertThat("Unexpected export count.", exports.get(), is(2));
+  }
+
+  @Test
+  void shouldOnlyCompleteSupersededExportsWhenLatestCompletes() {
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+
+    CompletableFuture<Void> future1 = coalescer.exportCoalesced("key",
+        () -> CompletableFuture.completedFuture(null));
+    CompletableFuture<Void> future2 = coalescer.exportCoalesced("key", () -> upload);
+
+    coalescer.flushAll();
+
+    assertThat("Unexpected future completion.", future1.isDone(), is(false));
+
+    upload.completeExceptionally(new IllegalStateException("expected"));
+
+    assertThat("Unexpected future failure.", future1.isCompletedExceptionally(), is(true));
+    assertThat("Unexpected future failure.", future2.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  void shouldStartNewWindowAfterFlush() {
+    AtomicInteger exports = new AtomicInteger();
+
+    coalescer.exportCoalesced("key", () -> {
+      exports.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+    coalescer.flushAll();
+
+    CompletableFuture<Void> future = coalescer.exportCoalesced("key", () -> {
+      exports.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    });
+
+    assertThat("Unexpected future completion.", future.isDone(), is(false));
+
+    coalescer.flushAll();
+
+    assertThat("Unexpected export count.", exports.get(), is(2));
+  }
+
+  @Test
+  void shouldFailCoalescedExportsWhenExportThrows() {
+    CompletableFuture<Void> future = coalescer.exportCoalesced("key", () -> {
+      throw new IllegalStateException("expected");
+    });
+
+    coalescer.flushAll();
+
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  void shouldRecordCoalesceRatioAndDelay() {
+    coalescer.exportCoalesced("key", () -> CompletableFuture.completedFuture(null));
+    coalescer.exportCoalesced("key", () -> CompletableFuture.completedFuture(null));
+    coalescer.exportCoalesced("key", () -> CompletableFuture.completedFuture(null));
+    coalescer.exportCoalesced("key", () -> CompletableFuture.completedFuture(null));
+
+    when(clock.instant()).thenReturn(NOW.plus(WINDOW));
+    coalescer.flushExpired();
+
+    assertThat("Unexpected coalesce ratio.",
+        meterRegistry.get("ndw.coalesce.ratio").gauge().value(), is(0.75));
+    assertThat("Unexpected delay.", meterRegistry.get("ndw.coalesce.delay").timer()
+        .totalTime(TimeUnit.SECONDS), is(2.0));
+  }
+}
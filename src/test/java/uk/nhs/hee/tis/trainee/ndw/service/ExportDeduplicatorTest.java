@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.config.DeduplicationProperties;
+
+class ExportDeduplicatorTest {
+
+  private static final String KEY = "notifications/eventId";
+
+  private static final byte[] CONTENT = "{\"id\":\"eventId\"}".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] CHANGED_CONTENT
+      = "{\"id\":\"eventId\",\"status\":\"READ\"}".getBytes(StandardCharsets.UTF_8);
+
+  private ExportDeduplicator deduplicator;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private AtomicInteger exports;
+
+  private Supplier<CompletableFuture<Void>> export;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(true, 10, null),
+        meterRegistry);
+    exports = new AtomicInteger();
+    export = () -> {
+      exports.incrementAndGet();
+      return CompletableFuture.completedFuture(null);
+    };
+  }
+
+  @Test
+  void shouldAlwaysExportWhenDisabled() {
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(false, 10, null),
+        new SimpleMeterRegistry());
+    CompletableFuture<Void> exported = CompletableFuture.completedFuture(null);
+
+    CompletableFuture<Void> first = deduplicator.exportIfChanged(KEY, CONTENT, () -> exported);
+    CompletableFuture<Void> second = deduplicator.exportIfChanged(KEY, CONTENT, () -> exported);
+
+    assertThat("Unexpected first future.", first, sameInstance(exported));
+    assertThat("Unexpected second future.", second, sameInstance(exported));
+  }
+
+  @Test
+  void shouldExportFirstOccurrence() {
+    CompletableFuture<Void> future = deduplicator.exportIfChanged(KEY, CONTENT, export);
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    assertThat("Unexpected export count.", exports.get(), is(1));
+  }
+
+  @Test
+  void shouldSkipExportWhenContentUnchanged() {
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+    CompletableFuture<Void> future = deduplicator.exportIfChanged(KEY, CONTENT, export);
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    assertThat("Unexpected export count.", exports.get(), is(1));
+  }
+
+  @Test
+  void shouldExportWhenContentChanged() {
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+    deduplicator.exportIfChanged(KEY, CHANGED_CONTENT, export);
+
+    assertThat("Unexpected export count.", exports.get(), is(2));
+  }
+
+  @Test
+  void shouldExportSameContentWithDifferentKey() {
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+    deduplicator.exportIfChanged("actions/eventId", CONTENT, export);
+
+    assertThat("Unexpected export count.", exports.get(), is(2));
+  }
+
+  @Test
+  void shouldNotRecordContentWhenExportFails() {
+    CompletableFuture<Void> failed = deduplicator.exportIfChanged(KEY, CONTENT,
+        () -> CompletableFuture.failedFuture(new IOException("expected")));
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+
+    assertThat("Unexpected failure.", failed.isCompletedExceptionally(), is(true));
+    assertThat("Unexpected export count.", exports.get(), is(1));
+  }
+
+  @Test
+  void shouldNotRecordContentUntilExportCompletes() {
+    CompletableFuture<Void> pending = new CompletableFuture<>();
+    deduplicator.exportIfChanged(KEY, CONTENT, () -> pending);
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+
+    assertThat("Unexpected export count.", exports.get(), is(1));
+  }
+
+  @Test
+  void shouldRecordDeduplicationMetrics() {
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+    deduplicator.exportIfChanged(KEY, CONTENT, export);
+    deduplicator.exportIfChanged(KEY, CHANGED_CONTENT, export);
+
+    assertThat("Unexpected exported count.",
+        meterRegistry.counter("ndw.dedup.exports", "result", "exported").count(), is(2.0));
+    assertThat("Unexpected skipped count.",
+        meterRegistry.counter("ndw.dedup.exports", "result", "skipped").count(), is(2.0));
+    assertThat("Unexpected bytes saved.",
+        meterRegistry.counter("ndw.dedup.bytes.saved").count(), is(2.0 * CONTENT.length));
+    assertThat("Unexpected hit ratio.",
+        meterRegistry.get("ndw.dedup.hit.ratio").gauge().value(), is(0.5));
+  }
+}
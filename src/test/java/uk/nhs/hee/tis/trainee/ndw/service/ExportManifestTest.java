@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import uk.nhs.hee.tis.trainee.ndw.config.ManifestProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSink.AppendableFile;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+class ExportManifestTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+
+  private static final String DIRECTORY = "root/day";
+
+  private static final String MANIFEST_DIRECTORY = DIRECTORY + "/_manifest";
+
+  private static final byte[] CONTENT = "content".getBytes(StandardCharsets.UTF_8);
+
+  // The hex encoded SHA-256 hash of CONTENT.
+  private static final String CONTENT_HASH
+      = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+  private ExportManifest manifest;
+  private ExportSink sink;
+  private AppendableFile file;
+  private Clock clock;
+  private ObjectMapper mapper;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sink = mock(ExportSink.class);
+    file = mock(AppendableFile.class);
+    when(sink.createAppendableFile(any(), any(), any())).thenReturn(file);
+    when(sink.write(any(), any(Payload.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+    mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    manifest = createManifest(true);
+  }
+
+  private ExportManifest createManifest(boolean enabled) {
+    return new ExportManifest(sink, new ManifestProperties(enabled, Duration.ofSeconds(5)),
+        mapper, clock, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldNotRecordWhenDisabled() {
+    manifest = createManifest(false);
+
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    manifest.flush();
+    manifest.close();
+
+    assertThat("Unexpected enabled flag.", manifest.isEnabled(), is(false));
+    verifyNoInteractions(sink);
+  }
+
+  @Test
+  void shouldNotAppendBeforeFlush() throws IOException {
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+
+    verify(sink, never()).createAppendableFile(any(), any(), any());
+  }
+
+  @Test
+  void shouldAppendEntryToPartitionLogOnFlush() throws IOException {
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    manifest.flush();
+
+    ArgumentCaptor<String> filenameCaptor = ArgumentCaptor.captor();
+    verify(sink).createAppendableFile(eq(MANIFEST_DIRECTORY), filenameCaptor.capture(),
+        eq(ExportSink.NDJSON_CONTENT_TYPE));
+    assertThat("Unexpected log filename.", filenameCaptor.getValue(), endsWith(".ndjson"));
+
+    List<JsonNode> entries = captureAppendedEntries(1).get(0);
+    assertThat("Unexpected entry count.", entries.size(), is(1));
+
+    JsonNode entry = entries.get(0);
+    assertThat("Unexpected path.", entry.get("path").asText(), is(DIRECTORY + "/file.json"));
+    assertThat("Unexpected id.", entry.get("id").asText(), is("1"));
+    assertThat("Unexpected offset.", entry.get("offset").asLong(), is(0L));
+    assertThat("Unexpected size.", entry.get("size").asLong(), is((long) CONTENT.length));
+    assertThat("Unexpected hash.", entry.get("sha256").asText(), is(CONTENT_HASH));
+    assertThat("Unexpected export time.", entry.get("exportedAt").asText(), is(NOW.toString()));
+  }
+
+  @Test
+  void shouldRecordPayloadAsWholeFile() throws IOException {
+    Payload payload = new Payload("file.json.gz", CONTENT, ExportSink.JSON_CONTENT_TYPE, "gzip");
+
+    manifest.record(DIRECTORY, null, payload);
+    manifest.flush();
+
+    JsonNode entry = captureAppendedEntries(1).get(0).get(0);
+    assertThat("Unexpected path.", entry.get("path").asText(), is(DIRECTORY + "/file.json.gz"));
+    assertThat("Unexpected id.", entry.get("id").isNull(), is(true));
+    assertThat("Unexpected offset.", entry.get("offset").asLong(), is(0L));
+  }
+
+  @Test
+  void shouldAppendSubsequentFlushesAtNextOffset() throws IOException {
+    manifest.record(DIRECTORY, "file1.json", "1", 0, CONTENT);
+    manifest.flush();
+    manifest.record(DIRECTORY, "file2.json", "2", 0, CONTENT);
+    manifest.flush();
+
+    verify(sink, times(1)).createAppendableFile(any(), any(), any());
+
+    ArgumentCaptor<Long> offsetCaptor = ArgumentCaptor.captor();
+    ArgumentCaptor<byte[]> bytesCaptor = ArgumentCaptor.captor();
+    verify(file, times(2)).append(offsetCaptor.capture(), bytesCaptor.capture());
+    assertThat("Unexpected first offset.", offsetCaptor.getAllValues().get(0), is(0L));
+    assertThat("Unexpected second offset.", offsetCaptor.getAllValues().get(1),
+        is((long) bytesCaptor.getAllValues().get(0).length));
+  }
+
+  @Test
+  void shouldRetainEntriesWhenAppendFails() throws IOException {
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    doThrow(new IOException("expected")).when(file).append(anyLong(), any());
+    manifest.flush();
+
+    doThrow(new RuntimeException("ignored")).doNothing().when(file).append(anyLong(), any());
+    manifest.flush();
+    manifest.flush();
+
+    List<List<JsonNode>> appends = captureAppendedEntries(3);
+    assertThat("Unexpected retried entry count.", appends.get(2).size(), is(1));
+  }
+
+  @Test
+  void shouldNotSealLogRecordedToToday() {
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    manifest.flush();
+
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldSealLogNotRecordedToToday() throws IOException {
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    manifest.flush();
+
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofDays(1)));
+    manifest.flush();
+
+    ArgumentCaptor<String> logCaptor = ArgumentCaptor.captor();
+    verify(sink).createAppendableFile(any(), logCaptor.capture(), any());
+    String logId = logCaptor.getValue().replaceFirst("\\.ndjson$", "");
+
+    ArgumentCaptor<Payload> sealCaptor = ArgumentCaptor.captor();
+    verify(sink).write(eq(MANIFEST_DIRECTORY), sealCaptor.capture());
+    Payload seal = sealCaptor.getValue();
+    assertThat("Unexpected seal filename.", seal.filename(), is(logId + ".sealed"));
+    assertThat("Unexpected seal content type.", seal.contentType(),
+        is(ExportSink.JSON_CONTENT_TYPE));
+
+    JsonNode sealContent = mapper.readTree(seal.content());
+    assertThat("Unexpected sealed log.", sealContent.get("log").asText(), is(logId + ".ndjson"));
+    assertThat("Unexpected sealed entries.", sealContent.get("entries").asLong(), is(1L));
+  }
+
+  @Test
+  void shouldStartNewLogAfterSeal() throws IOException {
+    manifest.record(DIRECTORY, "file1.json", "1", 0, CONTENT);
+    manifest.flush();
+    manifest.close();
+
+    manifest.record(DIRECTORY, "file2.json", "2", 0, CONTENT);
+    manifest.flush();
+
+    ArgumentCaptor<String> logCaptor = ArgumentCaptor.captor();
+    verify(sink, times(2)).createAppendableFile(eq(MANIFEST_DIRECTORY), logCaptor.capture(),
+        any());
+    assertThat("Unexpected log reuse.", logCaptor.getAllValues().get(1),
+        not(logCaptor.getAllValues().get(0)));
+  }
+
+  @Test
+  void shouldNotSealLogWhenSealWriteFails() {
+    when(sink.write(any(), any(Payload.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("expected")));
+
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    manifest.close();
+    manifest.close();
+
+    verify(sink, times(2)).write(eq(MANIFEST_DIRECTORY), any(Payload.class));
+  }
+
+  @Test
+  void shouldSealAllLogsOnClose() {
+    manifest.record(DIRECTORY, "file.json", "1", 0, CONTENT);
+    manifest.record("root/other", "file.json", "2", 0, CONTENT);
+
+    manifest.close();
+
+    verify(sink).write(eq(MANIFEST_DIRECTORY), any(Payload.class));
+    verify(sink).write(eq("root/other/_manifest"), any(Payload.class));
+  }
+
+  /**
+   * Capture the entries appended to the change log.
+   *
+   * @param appends The expected number of appends.
+   * @return The entries of each append.
+   */
+  private List<List<JsonNode>> captureAppendedEntries(int appends) throws IOException {
+    ArgumentCaptor<byte[]> bytesCaptor = ArgumentCaptor.captor();
+    verify(file, times(appends)).append(anyLong(), bytesCaptor.capture());
+
+    return bytesCaptor.getAllValues().stream()
+        .map(bytes -> new String(bytes, StandardCharsets.UTF_8).lines()
+            .map(line -> {
+              try {
+                return mapper.readTree(line);
+              } catch (IOException e) {
+                throw new IllegalStateException(e);
+              }
+            })
+            .toList())
+        .toList();
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ManifestProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.SpoolProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSpool.SpoolEntry;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSpool.SpoolRecord;
+
+class ExportSpoolTest {
+
+  private static final String DIRECTORY_PATH = "root/notifications/year=2025";
+
+  private static final DataLakeBatchProperties BATCH_DISABLED = new DataLakeBatchProperties(false,
+      0, null, null, null, null, null);
+
+  private static final ManifestProperties MANIFEST_DISABLED = new ManifestProperties(false, null);
+
+  @TempDir
+  Path spoolDirectory;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ExportSpool spool;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    meterRegistry = new SimpleMeterRegistry();
+    spool = createSpool(DataSize.ofKilobytes(1), DataSize.ofKilobytes(4));
+  }
+
+  private ExportSpool createSpool(DataSize segmentSize, DataSize maxSize) throws IOException {
+    SpoolProperties properties = new SpoolProperties(true, spoolDirectory, segmentSize, maxSize,
+        2, null);
+    ExportSpool exportSpool = new ExportSpool(properties, BATCH_DISABLED, MANIFEST_DISABLED,
+        meterRegistry);
+    exportSpool.recover();
+    return exportSpool;
+  }
+
+  private static SpoolRecord createRecord(String filename) {
+    return new SpoolRecord(DIRECTORY_PATH, filename, "application/json", null, "*",
+        ("{\"file\":\"" + filename + "\"}").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private long countSegments() throws IOException {
+    try (Stream<Path> files = Files.list(spoolDirectory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void shouldRefuseToStartWithoutSpoolDirectory() {
+    SpoolProperties properties = new SpoolProperties(true, null, DataSize.ofKilobytes(1),
+        DataSize.ofKilobytes(4), 2, null);
+    ExportSpool exportSpool = new ExportSpool(properties, BATCH_DISABLED, MANIFEST_DISABLED,
+        meterRegistry);
+
+    assertThrows(IllegalStateException.class, exportSpool::recover);
+  }
+
+  @Test
+  void shouldRefuseToStartWithAppendedFilesEnabled() {
+    SpoolProperties properties = new SpoolProperties(true, spoolDirectory,
+        DataSize.ofKilobytes(1), DataSize.ofKilobytes(4), 2, null);
+    ExportSpool batching = new ExportSpool(properties, new DataLakeBatchProperties(true, 0, null,
+        null, null, null, null), MANIFEST_DISABLED, meterRegistry);
+    ExportSpool manifest = new ExportSpool(properties, BATCH_DISABLED,
+        new ManifestProperties(true, null), meterRegistry);
+
+    assertThrows(IllegalStateException.class, batching::recover);
+    assertThrows(IllegalStateException.class, manifest::recover);
+  }
+
+  @Test
+  void shouldRecoverRecordsAppendedConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> appends = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        SpoolRecord rec = createRecord(i + ".json");
+        appends.add(executor.submit(() -> {
+          spool.append(rec);
+          return null;
+        }));
+      }
+      for (Future<?> append : appends) {
+        append.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    ExportSpool recovered = createSpool(DataSize.ofKilobytes(1), DataSize.ofKilobytes(4));
+
+    assertThat("Unexpected recovered backlog.", recovered.getBacklog(), is(20));
+  }
+
+  @Test
+  void shouldPollAppendedRecordsInOrder() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+
+    List<SpoolEntry> entries = spool.poll(10);
+
+    assertThat("Unexpected entry count.", entries, hasSize(2));
+    SpoolRecord first = entries.get(0).getRecord();
+    assertThat("Unexpected directory path.", first.directoryPath(), is(DIRECTORY_PATH));
+    assertThat("Unexpected filename.", first.filename(), is("1.json"));
+    assertThat("Unexpected content type.", first.contentType(), is("application/json"));
+    assertThat("Unexpected content encoding.", first.contentEncoding(), nullValue());
+    assertThat("Unexpected condition.", first.ifNoneMatch(), is("*"));
+    assertThat("Unexpected content.", new String(first.content(), StandardCharsets.UTF_8),
+        is("{\"file\":\"1.json\"}"));
+    assertThat("Unexpected filename.", entries.get(1).getRecord().filename(), is("2.json"));
+  }
+
+  @Test
+  void shouldKeepSupersededFilesOfSpooledRecord() throws IOException {
+    spool.append(new SpoolRecord(DIRECTORY_PATH, "1.json.gz", "application/json", "gzip", null,
+        new byte[]{1, 2}, List.of("1.json")));
+
+    SpoolRecord rec = spool.poll(10).get(0).getRecord();
+
+    assertThat("Unexpected superseded files.", rec.superseded(), is(List.of("1.json")));
+    assertThat("Unexpected content.", rec.content(), is(new byte[]{1, 2}));
+  }
+
+  @Test
+  void shouldLimitPolledRecords() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.append(createRecord("3.json"));
+
+    assertThat("Unexpected entry count.", spool.poll(2), hasSize(2));
+    assertThat("Unexpected entry count.", spool.poll(2), hasSize(1));
+  }
+
+  @Test
+  void shouldNotPollLaterWriteToFileWithWriteInFlight() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.append(createRecord("1.json"));
+
+    List<SpoolEntry> first = spool.poll(10);
+    assertThat("Unexpected entry count.", first, hasSize(2));
+    assertThat("Unexpected entry count.", spool.poll(10), empty());
+
+    spool.complete(first.get(0));
+    List<SpoolEntry> second = spool.poll(10);
+    assertThat("Unexpected entry count.", second, hasSize(1));
+    assertThat("Unexpected filename.", second.get(0).getRecord().filename(), is("1.json"));
+  }
+
+  @Test
+  void shouldRetryReleasedRecordsBeforeLaterRecords() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+
+    SpoolEntry entry = spool.poll(1).get(0);
+    spool.release(entry);
+
+    List<SpoolEntry> entries = spool.poll(1);
+    assertThat("Unexpected filename.", entries.get(0).getRecord().filename(), is("1.json"));
+  }
+
+  @Test
+  void shouldRecoverPendingRecordsAfterRestart() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.complete(spool.poll(1).get(0));
+    spool.close();
+
+    ExportSpool recovered = createSpool(DataSize.ofKilobytes(1), DataSize.ofKilobytes(4));
+
+    List<SpoolEntry> entries = recovered.poll(10);
+    assertThat("Unexpected entry count.", entries, hasSize(1));
+    assertThat("Unexpected filename.", entries.get(0).getRecord().filename(), is("2.json"));
+  }
+
+  @Test
+  void shouldDiscardIncompleteRecordOnRecovery() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.close();
+
+    try (Stream<Path> files = Files.list(spoolDirectory)) {
+      Path segment = files.findFirst().orElseThrow();
+      try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+        // Corrupt the final byte of the second record's content.
+        int recordLength = 9 + createRecord("1.json").encode().length;
+        file.seek(2L * recordLength - 1);
+        file.write('x');
+      }
+    }
+
+    ExportSpool recovered = createSpool(DataSize.ofKilobytes(1), DataSize.ofKilobytes(4));
+
+    List<SpoolEntry> entries = recovered.poll(10);
+    assertThat("Unexpected entry count.", entries, hasSize(1));
+    assertThat("Unexpected filename.", entries.get(0).getRecord().filename(), is("1.json"));
+  }
+
+  @Test
+  void shouldRollSegmentsAndDeleteDrainedSegments() throws IOException {
+    spool = createSpool(DataSize.ofBytes(128), DataSize.ofKilobytes(4));
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+
+    assertThat("Unexpected segment count.", countSegments(), is(2L));
+
+    spool.complete(spool.poll(1).get(0));
+
+    assertThat("Unexpected segment count.", countSegments(), is(1L));
+  }
+
+  @Test
+  void shouldRejectRecordsWhenFull() throws IOException {
+    spool = createSpool(DataSize.ofBytes(128), DataSize.ofBytes(256));
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+
+    assertThrows(IOException.class, () -> spool.append(createRecord("3.json")));
+    assertThat("Unexpected rejected count.",
+        meterRegistry.counter("ndw.spool.records", "result", "rejected").count(), is(1.0));
+  }
+
+  @Test
+  void shouldRecordBacklogMetrics() throws IOException {
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.complete(spool.poll(1).get(0));
+
+    assertThat("Unexpected backlog.",
+        meterRegistry.get("ndw.spool.backlog.records").gauge().value(), is(1.0));
+    assertThat("Unexpected spool size.",
+        meterRegistry.get("ndw.spool.backlog.bytes").gauge().value(), is(1024.0));
+    assertThat("Unexpected appended count.",
+        meterRegistry.counter("ndw.spool.records", "result", "appended").count(), is(2.0));
+    assertThat("Unexpected drained count.",
+        meterRegistry.counter("ndw.spool.records", "result", "drained").count(), is(1.0));
+  }
+}
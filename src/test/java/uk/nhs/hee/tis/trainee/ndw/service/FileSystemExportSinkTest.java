@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportSinkProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportSinkProperties.SinkType;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSink.AppendableFile;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+class FileSystemExportSinkTest {
+
+  private static final String DIRECTORY
+      = "root/notifications/year=2025/month=202501/day=20250102";
+
+  @TempDir
+  Path root;
+
+  private FileSystemExportSink sink;
+
+  @BeforeEach
+  void setUp() {
+    Clock clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(Instant.parse("2025-01-02T10:00:00Z"));
+
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, null));
+    sink = new FileSystemExportSink(new ExportSinkProperties(SinkType.FILESYSTEM, root), layout,
+        clock);
+  }
+
+  @Test
+  void shouldGetPartitionDirectoryForCurrentDay() {
+    String directory = sink.getPartitionDirectory("root", "notifications", null);
+
+    assertThat("Unexpected directory.", directory, is(DIRECTORY));
+  }
+
+  @Test
+  void shouldWritePayloadToPartitionDirectory() throws Exception {
+    Payload payload = new Payload("123.json", new byte[]{1, 2, 3}, ExportSink.JSON_CONTENT_TYPE,
+        null);
+
+    sink.write(DIRECTORY, payload).get();
+
+    Path file = root.resolve(DIRECTORY).resolve("123.json");
+    assertThat("Unexpected content.", Files.readAllBytes(file), is(new byte[]{1, 2, 3}));
+  }
+
+  @Test
+  void shouldReplaceExistingFileWithoutLeavingTemporaryFiles() throws Exception {
+    sink.write(DIRECTORY, new Payload("123.json", new byte[]{1}, null, null)).get();
+    sink.write(DIRECTORY, new Payload("123.json", new byte[]{2}, null, null)).get();
+
+    Path directory = root.resolve(DIRECTORY);
+    assertThat("Unexpected content.", Files.readAllBytes(directory.resolve("123.json")),
+        is(new byte[]{2}));
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat("Unexpected files.", files.map(Path::getFileName).map(Path::toString).toList(),
+          is(List.of("123.json")));
+    }
+  }
+
+  @Test
+  void shouldDeleteSupersededFilesAfterWrite() throws Exception {
+    sink.write(DIRECTORY, new Payload("123.json", new byte[]{1}, null, null)).get();
+    sink.write(DIRECTORY, new Payload("123.json.gz", new byte[]{2}, null, "gzip",
+        List.of("123.json"))).get();
+
+    try (Stream<Path> files = Files.list(root.resolve(DIRECTORY))) {
+      assertThat("Unexpected files.", files.map(Path::getFileName).map(Path::toString).toList(),
+          is(List.of("123.json.gz")));
+    }
+  }
+
+  @Test
+  void shouldFailFutureWhenWriteFails() throws IOException {
+    Files.writeString(root.resolve("root"), "not a directory");
+
+    CompletableFuture<Void> future = sink.write(DIRECTORY,
+        new Payload("123.json", new byte[]{1}, null, null));
+
+    ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+    assertThat("Unexpected cause.", exception.getCause(), notNullValue());
+  }
+
+  @Test
+  void shouldAppendToFileAtOffset() throws IOException {
+    AppendableFile file = sink.createAppendableFile(DIRECTORY, "batch.ndjson",
+        ExportSink.NDJSON_CONTENT_TYPE);
+
+    file.append(0L, new byte[]{1, 2});
+    file.append(2L, new byte[]{3});
+
+    Path path = root.resolve(DIRECTORY).resolve("batch.ndjson");
+    assertThat("Unexpected path.", file.getPath(), is(path.toString()));
+    assertThat("Unexpected content.", Files.readAllBytes(path), is(new byte[]{1, 2, 3}));
+  }
+
+  @Test
+  void shouldRejectAppendAtUnexpectedOffset() throws IOException {
+    AppendableFile file = sink.createAppendableFile(DIRECTORY, "batch.ndjson",
+        ExportSink.NDJSON_CONTENT_TYPE);
+    file.append(0L, new byte[]{1, 2});
+
+    assertThrows(IOException.class, () -> file.append(1L, new byte[]{3}));
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.dto.FormContentDto;
+
+class FormParquetWriterTest {
+
+  private static final String PARTITION = "part-a";
+
+  private FormParquetWriter writer;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    writer = new FormParquetWriter(new ObjectMapper(), meterRegistry);
+  }
+
+  @Test
+  void shouldInferColumnTypesFromFieldValues() throws IOException {
+    FormContentDto form = form(Map.of(
+        "forename", "Anthony",
+        "wholeTimeEquivalent", 1,
+        "salary", 12.5,
+        "isDeclared", true,
+        "work", List.of(Map.of("site", "Site 1"))));
+
+    byte[] bytes = writer.write(PARTITION, List.of(form));
+
+    MessageType schema = ParquetFiles.readSchema(bytes);
+    assertThat("Unexpected forename type.",
+        schema.getType("forename").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.stringType()));
+    assertThat("Unexpected wholeTimeEquivalent type.",
+        schema.getType("wholeTimeEquivalent").asPrimitiveType().getPrimitiveTypeName(),
+        is(DOUBLE));
+    assertThat("Unexpected salary type.",
+        schema.getType("salary").asPrimitiveType().getPrimitiveTypeName(), is(DOUBLE));
+    assertThat("Unexpected isDeclared type.",
+        schema.getType("isDeclared").asPrimitiveType().getPrimitiveTypeName(), is(BOOLEAN));
+    assertThat("Unexpected work type.", schema.getType("work").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.jsonType()));
+
+    Group row = ParquetFiles.readRows(bytes).get(0);
+    assertThat("Unexpected forename.", row.getString("forename", 0), is("Anthony"));
+    assertThat("Unexpected wholeTimeEquivalent.", row.getDouble("wholeTimeEquivalent", 0), is(1.0));
+    assertThat("Unexpected salary.", row.getDouble("salary", 0), is(12.5));
+    assertThat("Unexpected isDeclared.", row.getBoolean("isDeclared", 0), is(true));
+    assertThat("Unexpected work.", row.getString("work", 0), is("[{\"site\":\"Site 1\"}]"));
+  }
+
+  @Test
+  void shouldWriteWholeNumbersAndDecimalsAsDoubles() throws IOException {
+    List<FormContentDto> forms = List.of(form(Map.of("salary", 12)), form(Map.of("salary", 12.5)));
+
+    byte[] bytes = writer.write(PARTITION, forms);
+
+    MessageType schema = ParquetFiles.readSchema(bytes);
+    assertThat("Unexpected salary type.",
+        schema.getType("salary").asPrimitiveType().getPrimitiveTypeName(), is(DOUBLE));
+    List<Group> rows = ParquetFiles.readRows(bytes);
+    assertThat("Unexpected salary.", rows.get(0).getDouble("salary", 0), is(12.0));
+    assertThat("Unexpected salary.", rows.get(1).getDouble("salary", 0), is(12.5));
+  }
+
+  @Test
+  void shouldKeepNumericColumnTypeWhenDecimalFirstObservedLater() throws IOException {
+    byte[] before = writer.write(PARTITION, List.of(form(Map.of("salary", 12))));
+    byte[] after = writer.write(PARTITION, List.of(form(Map.of("salary", 12.5))));
+
+    assertThat("Unexpected salary type.", ParquetFiles.readSchema(before).getType("salary"),
+        is(ParquetFiles.readSchema(after).getType("salary")));
+    assertThat("Unexpected schema changes.",
+        meterRegistry.counter("ndw.form.schema.changes", "partition", PARTITION).count(),
+        is(1.0));
+  }
+
+  @Test
+  void shouldFallBackToJsonForConflictingTypes() throws IOException {
+    List<FormContentDto> forms = List.of(form(Map.of("grade", "ST1")), form(Map.of("grade", 1)));
+
+    byte[] bytes = writer.write(PARTITION, forms);
+
+    MessageType schema = ParquetFiles.readSchema(bytes);
+    assertThat("Unexpected grade type.", schema.getType("grade").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.jsonType()));
+    List<Group> rows = ParquetFiles.readRows(bytes);
+    assertThat("Unexpected grade.", rows.get(0).getString("grade", 0), is("\"ST1\""));
+    assertThat("Unexpected grade.", rows.get(1).getString("grade", 0), is("1"));
+  }
+
+  @Test
+  void shouldEvolveSchemaAcrossWrites() throws IOException {
+    writer.write(PARTITION, List.of(form(Map.of("forename", "Anthony"))));
+    byte[] bytes = writer.write(PARTITION, List.of(form(Map.of("surname", "Gilliam"))));
+
+    MessageType schema = ParquetFiles.readSchema(bytes);
+    assertThat("Unexpected column count.", schema.getFieldCount(), is(2));
+    assertThat("Unexpected first column.", schema.getFieldName(0), is("forename"));
+
+    Group row = ParquetFiles.readRows(bytes).get(0);
+    assertThat("Unexpected forename count.", row.getFieldRepetitionCount("forename"), is(0));
+    assertThat("Unexpected surname.", row.getString("surname", 0), is("Gilliam"));
+    assertThat("Unexpected schema changes.",
+        meterRegistry.counter("ndw.form.schema.changes", "partition", PARTITION).count(),
+        is(2.0));
+  }
+
+  @Test
+  void shouldKeepSchemasSeparatePerPartition() throws IOException {
+    writer.write(PARTITION, List.of(form(Map.of("forename", "Anthony"))));
+    writer.write("ltft", List.of(form(Map.of("reason", "Caring"))));
+
+    assertThat("Unexpected column count.", writer.getSchema(PARTITION).getFieldCount(), is(1));
+    assertThat("Unexpected column count.", writer.getSchema("ltft").getFieldCount(), is(1));
+    assertThat("Unexpected column.", writer.getSchema("ltft").getFieldName(0), is("reason"));
+  }
+
+  private static FormContentDto form(Map<String, Object> fields) {
+    FormContentDto form = new FormContentDto();
+    form.fields.putAll(fields);
+    return form;
+  }
+}
@@ -21,25 +21,50 @@
 
 package uk.nhs.hee.tis.trainee.ndw.service;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-import com.azure.storage.file.datalake.DataLakeDirectoryClient;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.BackpressureProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CoalesceProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Codec;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.config.DeduplicationProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties.ExportFormat;
 import uk.nhs.hee.tis.trainee.ndw.dto.FormContentDto;
 import uk.nhs.hee.tis.trainee.ndw.dto.JsonFormEventDto;
+import uk.nhs.hee.tis.trainee.ndw.service.ParquetBatchWriter.RowEncoder;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 /**
  * Test class for the JSON Form Service.
@@ -52,12 +77,41 @@ class JsonFormServiceTest {
   private static final String ROOT_DIR = "test-directory";
 
   private JsonFormService service;
-  private DataLakeFacade dataLakeFacade;
+  private ExportSink sink;
+  private FormParquetWriter parquetWriter;
+  private ParquetBatchWriter parquetBatchWriter;
+  private ExportDeduplicator deduplicator;
+  private ExportManifest manifest;
+  private ExportBudget budget;
+  private ExportCoalescer coalescer;
 
   @BeforeEach
   void setUp() {
-    dataLakeFacade = mock(DataLakeFacade.class);
-    service = new JsonFormService(dataLakeFacade, ROOT_DIR, new ObjectMapper());
+    sink = mock(ExportSink.class);
+    when(sink.write(any(), any(Payload.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    parquetWriter = mock(FormParquetWriter.class);
+    parquetBatchWriter = mock(ParquetBatchWriter.class);
+    manifest = mock(ExportManifest.class);
+    coalescer = new ExportCoalescer(new CoalesceProperties(false, null, null),
+        Clock.systemUTC(), new SimpleMeterRegistry());
+    budget = new ExportBudget(new BackpressureProperties(false, 0, null, null),
+        new SimpleMeterRegistry());
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(false, 0, null),
+        new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+  }
+
+  private JsonFormService createService(ExportFormat format) {
+    return createService(format, Settings.NONE);
+  }
+
+  private JsonFormService createService(ExportFormat format, Settings compression) {
+    return new JsonFormService(sink, ROOT_DIR, new ObjectMapper(), parquetWriter,
+        parquetBatchWriter, new ExportFormatProperties(null, null, format),
+        new PayloadCompressor(new SimpleMeterRegistry()),
+        new CompressionProperties(null, null, compression), deduplicator, manifest,
+        budget, coalescer);
   }
 
   @Test
@@ -68,7 +122,7 @@ class JsonFormServiceTest {
 
     service.processFormEvent(formEvent);
 
-    verifyNoInteractions(dataLakeFacade);
+    verifyNoInteractions(sink);
   }
 
   @ParameterizedTest
@@ -83,16 +137,168 @@ class JsonFormServiceTest {
     formEvent.setFormType(formType);
     formEvent.set("field1", "value1ท");
 
-    DataLakeDirectoryClient directoryClient = mock(DataLakeDirectoryClient.class);
-    when(dataLakeFacade.createSubDirectory(any(), any())).thenReturn(directoryClient);
-    when(dataLakeFacade.createYearMonthDaySubDirectories(any())).thenReturn(directoryClient);
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    service.processFormEvent(formEvent);
+
+    verify(sink).getPartitionDirectory(ROOT_DIR, subDirectory, null);
+    ArgumentCaptor<Payload> payloadCaptor = ArgumentCaptor.captor();
+    verify(sink).write(eq(directory), payloadCaptor.capture());
+    Payload payload = payloadCaptor.getValue();
+    assertThat("Unexpected filename.", payload.filename(), is(FORM_NAME_VALUE));
+    assertThat("Unexpected content.", new String(payload.content(), StandardCharsets.UTF_8),
+        is("{\"field1\":\"value1ท\"}"));
+    assertThat("Unexpected content encoding.", payload.contentEncoding(), nullValue());
+    verify(manifest).record(directory, FORM_NAME_VALUE, payload);
+  }
+
+  @Test
+  void shouldSkipExportWhenFormUnchangedAndDeduplicationEnabled() {
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(true, 10, null),
+        new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("field1", "value1");
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
 
+    service.processFormEvent(formEvent);
+    service.processFormEvent(formEvent);
+    formEvent.set("field1", "value2");
     service.processFormEvent(formEvent);
 
-    verify(dataLakeFacade).createSubDirectory(ROOT_DIR, subDirectory);
-    verify(dataLakeFacade).createYearMonthDaySubDirectories(directoryClient);
-    verify(dataLakeFacade).saveToDataLake(FORM_NAME_VALUE, "{\"field1\":\"value1ท\"}",
-        directoryClient);
+    verify(sink, times(2)).write(eq(directory), any(Payload.class));
+  }
+
+  @Test
+  void shouldCompressFormWhenAboveThreshold() throws IOException {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("field1", "value1".repeat(100));
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    service = createService(ExportFormat.JSON, new Settings(Codec.GZIP, DataSize.ofBytes(100)));
+    service.processFormEvent(formEvent);
+
+    ArgumentCaptor<Payload> payloadCaptor = ArgumentCaptor.captor();
+    verify(sink).write(eq(directory), payloadCaptor.capture());
+    Payload payload = payloadCaptor.getValue();
+    assertThat("Unexpected filename.", payload.filename(), is(FORM_NAME_VALUE + ".gz"));
+    assertThat("Unexpected content encoding.", payload.contentEncoding(), is("gzip"));
+
+    try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.content()))) {
+      String content = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+      assertThat("Unexpected content.", content,
+          is("{\"field1\":\"" + "value1".repeat(100) + "\"}"));
+    }
+  }
+
+  @Test
+  void shouldCompleteExportWhenUploadCompletes() {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("field1", "value1");
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+    when(sink.write(any(), any(Payload.class))).thenReturn(upload);
+
+    CompletableFuture<FormContentDto> export = service.processFormEvent(formEvent);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(false));
+
+    upload.complete(null);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(true));
+    assertThat("Unexpected exported field.", export.join().fields.get("field1"), is("value1"));
+  }
+
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', textBlock = """
+      formr-a | part-a
+      formr-b | part-b
+      ltft    | ltft
+      """)
+  void shouldExportParquetFileWhenParquetFormat(String formType, String partition)
+      throws IOException {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType(formType);
+    formEvent.set("field1", "value1  ");
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    byte[] parquet = {1, 2, 3};
+    when(parquetWriter.write(eq(partition), any())).thenReturn(parquet);
+    when(sink.write(any(), any(Payload.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<FormContentDto> export = service.processFormEvent(formEvent);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(true));
+    ArgumentCaptor<List<FormContentDto>> formsCaptor = ArgumentCaptor.captor();
+    verify(parquetWriter).write(eq(partition), formsCaptor.capture());
+    assertThat("Unexpected cleaned field.", formsCaptor.getValue().get(0).fields.get("field1"),
+        is("value1"));
+    verify(sink).write(directory,
+        new Payload("123.parquet", parquet, ExportSink.PARQUET_CONTENT_TYPE, null));
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldFailExportWhenParquetEncodingFails() throws IOException {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("field1", "value1");
+
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn("partition/directory");
+    when(parquetWriter.write(eq("ltft"), any())).thenThrow(new IOException("encoding"));
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<FormContentDto> export = service.processFormEvent(formEvent);
+
+    assertThat("Unexpected export failure.", export.isCompletedExceptionally(), is(true));
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldBatchParquetWhenParquetFormatAndBatchingEnabled() throws IOException {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("field1", "value1");
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    when(parquetBatchWriter.isEnabled()).thenReturn(true);
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    when(parquetBatchWriter.write(eq(directory), eq(FormContentDto.class), any(),
+        any(FormContentDto.class))).thenReturn(flushed);
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<FormContentDto> export = service.processFormEvent(formEvent);
+
+    assertThat("Unexpected export completion.", export.isDone(), is(false));
+    flushed.complete(null);
+    assertThat("Unexpected export completion.", export.isDone(), is(true));
+
+    ArgumentCaptor<RowEncoder<FormContentDto>> encoderCaptor = ArgumentCaptor.captor();
+    verify(parquetBatchWriter).write(eq(directory), eq(FormContentDto.class),
+        encoderCaptor.capture(), any(FormContentDto.class));
+    encoderCaptor.getValue().encode(List.of());
+    verify(parquetWriter).write("ltft", List.of());
+    verify(sink, never()).write(any(), any(Payload.class));
   }
 
   @ParameterizedTest
@@ -106,12 +312,40 @@ class JsonFormServiceTest {
     formEvent.setFormName(FORM_NAME_VALUE);
     formEvent.setFormType(formType);
 
-    DataLakeDirectoryClient directoryClient = mock(DataLakeDirectoryClient.class);
-    when(dataLakeFacade.createSubDirectory(any(), any())).thenReturn(directoryClient);
+    String partitionDirectory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(partitionDirectory);
+
+    service.processFormEvent(formEvent);
+
+    verify(sink).getPartitionDirectory(ROOT_DIR, directory, null);
+  }
+
+  @Test
+  void shouldPartitionByFormEventDateWhenPresent() {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("eventDate", "2025-01-02T10:00:00Z");
+
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn("partition/directory");
+
+    service.processFormEvent(formEvent);
+
+    verify(sink).getPartitionDirectory(ROOT_DIR, "ltft", Instant.parse("2025-01-02T10:00:00Z"));
+  }
+
+  @Test
+  void shouldNotPartitionByFormEventDateWhenInvalid() {
+    JsonFormEventDto formEvent = new JsonFormEventDto();
+    formEvent.setFormName(FORM_NAME_VALUE);
+    formEvent.setFormType("ltft");
+    formEvent.set("eventDate", "not a date");
+
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn("partition/directory");
 
     service.processFormEvent(formEvent);
 
-    verify(dataLakeFacade).createSubDirectory(ROOT_DIR, directory);
+    verify(sink).getPartitionDirectory(ROOT_DIR, "ltft", null);
   }
 
   @ParameterizedTest
@@ -125,15 +359,15 @@ class JsonFormServiceTest {
     formEvent.setFormName(FORM_NAME_VALUE);
     formEvent.setFormType(formType);
 
-    DataLakeDirectoryClient directoryClient = mock(DataLakeDirectoryClient.class);
-    when(dataLakeFacade.createSubDirectory(any(), any())).thenReturn(directoryClient);
-    when(dataLakeFacade.createYearMonthDaySubDirectories(any())).thenReturn(directoryClient);
+    String partitionDirectory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(partitionDirectory);
 
     service.processFormEvent(formEvent);
 
-    verify(dataLakeFacade).createSubDirectory(ROOT_DIR, directory);
-    verify(dataLakeFacade).createYearMonthDaySubDirectories(directoryClient);
-    verify(dataLakeFacade).saveToDataLake(eq(FORM_NAME_VALUE), any(), eq(directoryClient));
+    verify(sink).getPartitionDirectory(ROOT_DIR, directory, null);
+    ArgumentCaptor<Payload> payloadCaptor = ArgumentCaptor.captor();
+    verify(sink).write(eq(partitionDirectory), payloadCaptor.capture());
+    assertThat("Unexpected filename.", payloadCaptor.getValue().filename(), is(FORM_NAME_VALUE));
   }
 
   @ParameterizedTest
@@ -151,9 +385,8 @@ class JsonFormServiceTest {
     formEvent.set("field4", 123);
     formEvent.set("field5", "{\"field5_1\": \"value 3 \", \"field5_2\": 12.5}");
 
-    DataLakeDirectoryClient directoryClient = mock(DataLakeDirectoryClient.class);
-    when(dataLakeFacade.createSubDirectory(any(), any())).thenReturn(directoryClient);
-    when(dataLakeFacade.createYearMonthDaySubDirectories(any())).thenReturn(directoryClient);
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
 
     String contentsClean = """
         {
@@ -167,10 +400,11 @@ class JsonFormServiceTest {
 
     service.processFormEvent(formEvent);
 
-    ArgumentCaptor<String> stringCaptor = ArgumentCaptor.forClass(String.class);
-    verify(dataLakeFacade).saveToDataLake(any(), stringCaptor.capture(), any());
+    ArgumentCaptor<Payload> payloadCaptor = ArgumentCaptor.captor();
+    verify(sink).write(any(), payloadCaptor.capture());
 
-    String uploadedString = stringCaptor.getValue();
+    String uploadedString = new String(payloadCaptor.getValue().content(),
+        StandardCharsets.UTF_8);
     ObjectMapper mapper = new ObjectMapper();
     FormContentDto formContentDto = mapper.readValue(uploadedString, FormContentDto.class);
     FormContentDto expectedFormDto = mapper.readValue(contentsClean, FormContentDto.class);
@@ -0,0 +1,280 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSink.AppendableFile;
+
+class NdjsonBatchWriterTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+  private static final String DIRECTORY = "root/day";
+
+  private NdjsonBatchWriter writer;
+  private ExportSink sink;
+  private ExportManifest manifest;
+  private AppendableFile file;
+  private Clock clock;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sink = mock(ExportSink.class);
+    manifest = mock(ExportManifest.class);
+    file = mock(AppendableFile.class);
+    when(file.getPath()).thenReturn(DIRECTORY + "/batch.ndjson");
+    when(sink.createAppendableFile(any(), any(), any())).thenReturn(file);
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+
+    writer = createWriter(3, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+  }
+
+  private NdjsonBatchWriter createWriter(int maxRecords, DataSize maxBatchSize,
+      DataSize maxFileSize) {
+    DataLakeBatchProperties properties = new DataLakeBatchProperties(true, maxRecords,
+        maxBatchSize, Duration.ofSeconds(1), Duration.ofMillis(250), maxFileSize,
+        Duration.ofMinutes(10));
+    return new NdjsonBatchWriter(sink, manifest, properties, clock, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldNotFlushBeforeLimitReached() throws IOException {
+    CompletableFuture<Void> future1 = writer.write(DIRECTORY, bytes("{\"id\":1}"));
+    CompletableFuture<Void> future2 = writer.write(DIRECTORY, bytes("{\"id\":2}"));
+
+    assertThat("Unexpected future completion.", future1.isDone(), is(false));
+    assertThat("Unexpected future completion.", future2.isDone(), is(false));
+    verify(file, never()).append(anyLong(), any());
+  }
+
+  @Test
+  void shouldFlushWhenRecordLimitReached() throws IOException {
+    CompletableFuture<Void> future1 = writer.write(DIRECTORY, bytes("{\"id\":1}"));
+    CompletableFuture<Void> future2 = writer.write(DIRECTORY, bytes("{\"id\":2}"));
+    CompletableFuture<Void> future3 = writer.write(DIRECTORY, bytes("{\"id\":3}"));
+
+    assertThat("Unexpected future completion.", future1.isDone(), is(true));
+    assertThat("Unexpected future completion.", future2.isDone(), is(true));
+    assertThat("Unexpected future completion.", future3.isDone(), is(true));
+
+    ArgumentCaptor<String> filenameCaptor = ArgumentCaptor.captor();
+    verify(sink).createAppendableFile(eq(DIRECTORY), filenameCaptor.capture(),
+        eq(ExportSink.NDJSON_CONTENT_TYPE));
+    assertThat("Unexpected filename.", filenameCaptor.getValue(), endsWith(".ndjson"));
+
+    ArgumentCaptor<byte[]> bytesCaptor = ArgumentCaptor.captor();
+    verify(file).append(eq(0L), bytesCaptor.capture());
+    assertThat("Unexpected content.", new String(bytesCaptor.getValue(), StandardCharsets.UTF_8),
+        is("{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n"));
+    verify(manifest).record(DIRECTORY, filenameCaptor.getValue(), null, 0,
+        bytesCaptor.getValue());
+  }
+
+  @Test
+  void shouldFlushWhenSizeLimitReached() throws IOException {
+    writer = createWriter(100, DataSize.ofBytes(10), DataSize.ofMegabytes(1));
+
+    CompletableFuture<Void> future = writer.write(DIRECTORY, bytes("{\"id\":\"123456789\"}"));
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    verify(file).append(eq(0L), any());
+  }
+
+  @Test
+  void shouldFlushWhenMaxAgeExceeded() {
+    CompletableFuture<Void> future = writer.write(DIRECTORY, bytes("{\"id\":1}"));
+
+    when(clock.instant()).thenReturn(NOW.plusMillis(500));
+    writer.flushExpired();
+    assertThat("Unexpected future completion.", future.isDone(), is(false));
+
+    when(clock.instant()).thenReturn(NOW.plusMillis(1500));
+    writer.flushExpired();
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+  }
+
+  @Test
+  void shouldAppendSubsequentBatchesToSameFile() throws IOException {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+
+    writer.write(DIRECTORY, bytes("{\"id\":1}"));
+    writer.write(DIRECTORY, bytes("{\"id\":2}"));
+
+    verify(sink, times(1)).createAppendableFile(any(), any(), any());
+    verify(file).append(0L,
+        "{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+    verify(file).append(9L,
+        "{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldRollToNewFileWhenMaxFileSizeReached() throws IOException {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofBytes(10));
+
+    writer.write(DIRECTORY, bytes("{\"id\":1}"));
+    writer.write(DIRECTORY, bytes("{\"id\":2}"));
+
+    verify(sink, times(2)).createAppendableFile(any(), any(), any());
+    verify(file, times(2)).append(eq(0L), any());
+  }
+
+  @Test
+  void shouldFailPendingRecordsAndRollFileWhenFlushFails() throws IOException {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    doThrow(new IOException("expected")).when(file).append(anyLong(), any());
+
+    CompletableFuture<Void> future = writer.write(DIRECTORY, bytes("{\"id\":1}"));
+
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(true));
+
+    writer.write(DIRECTORY, bytes("{\"id\":2}"));
+    verify(sink, times(2)).createAppendableFile(any(), any(), any());
+    verifyNoInteractions(manifest);
+  }
+
+  @Test
+  void shouldFlushAllPendingRecords() {
+    CompletableFuture<Void> future = writer.write(DIRECTORY, bytes("{\"id\":1}"));
+
+    writer.flushAll();
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+  }
+
+  @Test
+  void shouldKeepAppendingToFileOfIdleBatch() throws IOException {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    writer.write(DIRECTORY, bytes("{\"id\":1}"));
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(60));
+    writer.flushExpired();
+    writer.write(DIRECTORY, bytes("{\"id\":2}"));
+
+    verify(sink, times(1)).createAppendableFile(any(), any(), any());
+    verify(file).append(eq(9L), any());
+  }
+
+  @Test
+  void shouldRollToNewFileWhenMaxFileAgeReached() throws IOException {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    writer.write(DIRECTORY, bytes("{\"id\":1}"));
+
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(11)));
+    writer.write(DIRECTORY, bytes("{\"id\":2}"));
+
+    verify(sink, times(2)).createAppendableFile(any(), any(), any());
+    verify(file, times(2)).append(eq(0L), any());
+  }
+
+  @Test
+  void shouldStartNewBatchAfterBatchWithExpiredFileEvicted() throws IOException {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    writer.write(DIRECTORY, bytes("{\"id\":1}"));
+
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(11)));
+    writer.flushExpired();
+
+    CompletableFuture<Void> future = writer.write(DIRECTORY, bytes("{\"id\":2}"));
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    verify(sink, times(2)).createAppendableFile(any(), any(), any());
+  }
+
+  @Test
+  void shouldAppendFlushesInTheOrderTheyWereTaken() throws Exception {
+    writer = createWriter(1, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+    CountDownLatch appending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(inv -> {
+      if (inv.getArgument(0, Long.class) == 0L) {
+        appending.countDown();
+        release.await();
+      }
+      return null;
+    }).when(file).append(anyLong(), any());
+
+    Thread first = new Thread(() -> writer.write(DIRECTORY, bytes("{\"id\":1}")));
+    first.start();
+    appending.await();
+    Thread second = startBlockedWrite(bytes("{\"id\":2}"));
+    Thread third = startBlockedWrite(bytes("{\"id\":3}"));
+
+    release.countDown();
+    first.join();
+    second.join();
+    third.join();
+
+    InOrder inOrder = inOrder(file);
+    inOrder.verify(file).append(0L, bytes("{\"id\":1}\n"));
+    inOrder.verify(file).append(9L, bytes("{\"id\":2}\n"));
+    inOrder.verify(file).append(18L, bytes("{\"id\":3}\n"));
+  }
+
+  /**
+   * Start a write on a new thread and wait until it is blocked on the file lock.
+   *
+   * @param content The content to write.
+   * @return The writing thread.
+   */
+  private Thread startBlockedWrite(byte[] content) throws InterruptedException {
+    Thread thread = new Thread(() -> writer.write(DIRECTORY, content));
+    thread.start();
+
+    while (thread.getState() != Thread.State.BLOCKED) {
+      Thread.sleep(1);
+    }
+    return thread;
+  }
+
+  private static byte[] bytes(String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+}
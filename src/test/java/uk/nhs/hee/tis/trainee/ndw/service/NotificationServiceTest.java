@@ -21,27 +21,47 @@
 
 package uk.nhs.hee.tis.trainee.ndw.service;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static uk.nhs.hee.tis.trainee.ndw.service.NotificationService.DATALAKE_NOTIFICATIONS_ROOT;
 
-import com.azure.storage.file.datalake.DataLakeDirectoryClient;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.BackpressureProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CoalesceProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Codec;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.config.DeduplicationProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ExportFormatProperties.ExportFormat;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto.RecipientInfo;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto.TemplateInfo;
 import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto.TisReferenceInfo;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
 
 /**
  * Test class for the Notification Service.
@@ -64,9 +84,28 @@ class NotificationServiceTest {
   private static final String STATUS_DETAIL = null;
   private static final Instant LAST_RETRY = null;
 
+  private static final Settings NOTIFICATION_COMPRESSION
+      = new Settings(Codec.GZIP, DataSize.ofKilobytes(1));
+
   private NotificationService service;
 
-  private DataLakeFacade dataLakeFacade;
+  private ExportSink sink;
+
+  private NdjsonBatchWriter batchWriter;
+
+  private ParquetRecordWriter parquetWriter;
+
+  private ParquetBatchWriter parquetBatchWriter;
+
+  private PayloadCompressor compressor;
+
+  private ExportDeduplicator deduplicator;
+
+  private ExportManifest manifest;
+
+  private ExportBudget budget;
+
+  private ExportCoalescer coalescer;
 
   private ObjectMapper mapper;
 
@@ -75,19 +114,45 @@ class NotificationServiceTest {
     mapper = new ObjectMapper()
         .registerModule(new JavaTimeModule())
         .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-    dataLakeFacade = mock(DataLakeFacade.class);
-    service = new NotificationService(ROOT_DIRECTORY, mapper, dataLakeFacade);
+    sink = mock(ExportSink.class);
+    when(sink.write(any(), any(Payload.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    batchWriter = mock(NdjsonBatchWriter.class);
+    parquetWriter = mock(ParquetRecordWriter.class);
+    parquetBatchWriter = mock(ParquetBatchWriter.class);
+    compressor = mock(PayloadCompressor.class);
+    manifest = mock(ExportManifest.class);
+    coalescer = new ExportCoalescer(new CoalesceProperties(false, null, null),
+        Clock.systemUTC(), new SimpleMeterRegistry());
+    budget = new ExportBudget(new BackpressureProperties(false, 0, null, null),
+        new SimpleMeterRegistry());
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(false, 0, null),
+        new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+  }
+
+  /**
+   * Create a notification service which exports in the given format.
+   *
+   * @param format The notification export format.
+   * @return The created service.
+   */
+  private NotificationService createService(ExportFormat format) {
+    return new NotificationService(ROOT_DIRECTORY, mapper, sink, batchWriter,
+        parquetWriter, parquetBatchWriter, new ExportFormatProperties(null, format, null),
+        compressor, new CompressionProperties(null, NOTIFICATION_COMPRESSION, null),
+        deduplicator, manifest, budget, coalescer);
   }
 
   @Test
-  void shouldNotProcessNullEvent() throws JsonProcessingException {
+  void shouldNotProcessNullEvent() throws IOException {
     service.processNotificationEvent(null);
 
-    verifyNoInteractions(dataLakeFacade);
+    verifyNoInteractions(sink);
   }
 
   @Test
-  void shouldNotProcessEventWithNullId() throws JsonProcessingException {
+  void shouldNotProcessEventWithNullId() throws IOException {
     TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
     RecipientInfo recipientInfo
         = new RecipientInfo(RECIPIENT_ID, RECIPIENT_TYPE, RECIPIENT_CONTACT);
@@ -98,11 +163,11 @@ class NotificationServiceTest {
 
     service.processNotificationEvent(event);
 
-    verifyNoInteractions(dataLakeFacade);
+    verifyNoInteractions(sink);
   }
 
   @Test
-  void shouldProcessEvent() throws JsonProcessingException {
+  void shouldProcessEvent() throws IOException {
     TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
     RecipientInfo recipientInfo
         = new RecipientInfo(RECIPIENT_ID, RECIPIENT_TYPE, RECIPIENT_CONTACT);
@@ -111,18 +176,151 @@ class NotificationServiceTest {
     NotificationEventDto event = new NotificationEventDto(EVENT_ID, tisReferenceInfo, TYPE,
         recipientInfo, templateInfo, SENT_AT, READ_AT, STATUS, STATUS_DETAIL, LAST_RETRY);
 
-    DataLakeDirectoryClient directoryClient = mock(DataLakeDirectoryClient.class);
-    when(dataLakeFacade.createSubDirectory(any(), any())).thenReturn(directoryClient);
-    when(dataLakeFacade.createYearMonthDaySubDirectories(any())).thenReturn(directoryClient);
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    Payload payload = new Payload("filename", new byte[0], "application/json", null);
+    when(compressor.compress(any(), any(), any(), any())).thenReturn(payload);
 
     service.processNotificationEvent(event);
 
-    verify(dataLakeFacade).createSubDirectory(ROOT_DIRECTORY, DATALAKE_NOTIFICATIONS_ROOT);
-    verify(dataLakeFacade).createYearMonthDaySubDirectories(directoryClient);
+    verify(sink).getPartitionDirectory(ROOT_DIRECTORY, DATALAKE_NOTIFICATIONS_ROOT, SENT_AT);
 
     String expectedContent = mapper.writeValueAsString(event);
     String expectedFilename = service.getEventFilename(EVENT_ID);
-    verify(dataLakeFacade).saveToDataLake(expectedFilename, expectedContent, directoryClient);
+    verify(compressor).compress(NOTIFICATION_COMPRESSION, expectedFilename,
+        expectedContent.getBytes(StandardCharsets.UTF_8), ExportSink.JSON_CONTENT_TYPE);
+    verify(sink).write(directory, payload);
+    verify(manifest).record(directory, EVENT_ID, payload);
+  }
+
+  @Test
+  void shouldHoldExportBudgetUntilEventExported() throws IOException {
+    budget = new ExportBudget(new BackpressureProperties(true, 10, DataSize.ofMegabytes(1),
+        Duration.ofSeconds(1)), new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
+    NotificationEventDto event = new NotificationEventDto(EVENT_ID, tisReferenceInfo, TYPE,
+        null, null, SENT_AT, READ_AT, STATUS, STATUS_DETAIL, LAST_RETRY);
+
+    Payload payload = new Payload("filename", new byte[0], "application/json", null);
+    when(compressor.compress(any(), any(), any(), any())).thenReturn(payload);
+    CompletableFuture<Void> upload = new CompletableFuture<>();
+    when(sink.write(any(), any(Payload.class))).thenReturn(upload);
+
+    service.processNotificationEvent(event);
+
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(1L));
+
+    upload.complete(null);
+
+    assertThat("Unexpected in-flight messages.", budget.getInFlightMessages(), is(0L));
+    assertThat("Unexpected in-flight bytes.", budget.getInFlightBytes(), is(0L));
+  }
+
+  @Test
+  void shouldSkipExportWhenEventUnchangedAndDeduplicationEnabled() throws IOException {
+    deduplicator = new ExportDeduplicator(new DeduplicationProperties(true, 10, null),
+        new SimpleMeterRegistry());
+    service = createService(ExportFormat.JSON);
+
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
+    RecipientInfo recipientInfo
+        = new RecipientInfo(RECIPIENT_ID, RECIPIENT_TYPE, RECIPIENT_CONTACT);
+    Map<String, Object> templateMap = Map.of("key1", "value1");
+    TemplateInfo templateInfo = new TemplateInfo(TEMPLATE_NAME, TEMPLATE_VERSION, templateMap);
+    NotificationEventDto event = new NotificationEventDto(EVENT_ID, tisReferenceInfo, TYPE,
+        recipientInfo, templateInfo, SENT_AT, READ_AT, STATUS, STATUS_DETAIL, LAST_RETRY);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+
+    Payload payload = new Payload("filename", new byte[0], "application/json", null);
+    when(compressor.compress(any(), any(), any(), any())).thenReturn(payload);
+    when(sink.write(directory, payload))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    service.processNotificationEvent(event);
+    service.processNotificationEvent(event);
+
+    verify(sink, times(1)).write(directory, payload);
+  }
+
+  @Test
+  void shouldBatchEventWhenBatchingEnabled() throws IOException {
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
+    RecipientInfo recipientInfo
+        = new RecipientInfo(RECIPIENT_ID, RECIPIENT_TYPE, RECIPIENT_CONTACT);
+    Map<String, Object> templateMap = Map.of("key1", "value1");
+    TemplateInfo templateInfo = new TemplateInfo(TEMPLATE_NAME, TEMPLATE_VERSION, templateMap);
+    NotificationEventDto event = new NotificationEventDto(EVENT_ID, tisReferenceInfo, TYPE,
+        recipientInfo, templateInfo, SENT_AT, READ_AT, STATUS, STATUS_DETAIL, LAST_RETRY);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    when(batchWriter.isEnabled()).thenReturn(true);
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    when(batchWriter.write(any(), any())).thenReturn(flushed);
+
+    CompletableFuture<Void> future = service.processNotificationEvent(event);
+
+    assertThat("Unexpected future.", future, sameInstance(flushed));
+    byte[] expectedContent = mapper.writeValueAsBytes(event);
+    verify(batchWriter).write(directory, expectedContent);
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldExportParquetFileWhenParquetFormat() throws IOException {
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
+    RecipientInfo recipientInfo
+        = new RecipientInfo(RECIPIENT_ID, RECIPIENT_TYPE, RECIPIENT_CONTACT);
+    Map<String, Object> templateMap = Map.of("key1", "value1");
+    TemplateInfo templateInfo = new TemplateInfo(TEMPLATE_NAME, TEMPLATE_VERSION, templateMap);
+    NotificationEventDto event = new NotificationEventDto(EVENT_ID, tisReferenceInfo, TYPE,
+        recipientInfo, templateInfo, SENT_AT, READ_AT, STATUS, STATUS_DETAIL, LAST_RETRY);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    byte[] parquet = {1, 2, 3};
+    when(parquetWriter.write(NotificationEventDto.class, List.of(event))).thenReturn(parquet);
+    CompletableFuture<Void> saved = new CompletableFuture<>();
+    when(sink.write(any(), any(Payload.class))).thenReturn(saved);
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<Void> future = service.processNotificationEvent(event);
+
+    assertThat("Unexpected future.", future, sameInstance(saved));
+    String expectedFilename = service.getEventFilename(EVENT_ID, ".parquet");
+    verify(sink).write(directory,
+        new Payload(expectedFilename, parquet, ExportSink.PARQUET_CONTENT_TYPE, null));
+    verifyNoInteractions(batchWriter);
+  }
+
+  @Test
+  void shouldBatchParquetWhenParquetFormatAndBatchingEnabled() throws IOException {
+    TisReferenceInfo tisReferenceInfo = new TisReferenceInfo(REFERENCE_TYPE, REFERENCE_ID);
+    RecipientInfo recipientInfo
+        = new RecipientInfo(RECIPIENT_ID, RECIPIENT_TYPE, RECIPIENT_CONTACT);
+    Map<String, Object> templateMap = Map.of("key1", "value1");
+    TemplateInfo templateInfo = new TemplateInfo(TEMPLATE_NAME, TEMPLATE_VERSION, templateMap);
+    NotificationEventDto event = new NotificationEventDto(EVENT_ID, tisReferenceInfo, TYPE,
+        recipientInfo, templateInfo, SENT_AT, READ_AT, STATUS, STATUS_DETAIL, LAST_RETRY);
+
+    String directory = "partition/directory";
+    when(sink.getPartitionDirectory(any(), any(), any())).thenReturn(directory);
+    when(parquetBatchWriter.isEnabled()).thenReturn(true);
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    when(parquetBatchWriter.write(directory, NotificationEventDto.class, event))
+        .thenReturn(flushed);
+
+    service = createService(ExportFormat.PARQUET);
+    CompletableFuture<Void> future = service.processNotificationEvent(event);
+
+    assertThat("Unexpected future.", future, sameInstance(flushed));
+    verifyNoInteractions(parquetWriter, batchWriter);
+    verify(sink, never()).write(any(), any(Payload.class));
   }
 
   @Test
@@ -132,6 +330,13 @@ class NotificationServiceTest {
     assertEquals(expectedFilename, filename);
   }
 
+  @Test
+  void shouldUseExtensionInFilename() {
+    String filename = service.getEventFilename("someId", ".parquet");
+    String expectedFilename = "someId.parquet";
+    assertEquals(expectedFilename, filename);
+  }
+
   @Test
   void shouldUseFormattedEventIdAsFilenameIfUuid() {
     String filename = service.getEventFilename("66753bda4b74e61cdb5e88d9");
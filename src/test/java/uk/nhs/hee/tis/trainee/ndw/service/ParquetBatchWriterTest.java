@@ -0,0 +1,201 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
+import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+class ParquetBatchWriterTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-02T10:00:00Z");
+
+  private static final byte[] PARQUET = {'P', 'A', 'R', '1'};
+
+  private static final String DIRECTORY = "root/day";
+
+  private ParquetBatchWriter writer;
+  private ExportSink sink;
+  private ExportManifest manifest;
+  private ParquetRecordWriter recordWriter;
+  private Clock clock;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sink = mock(ExportSink.class);
+    when(sink.write(any(), any(Payload.class))).thenReturn(CompletableFuture.completedFuture(null));
+    manifest = mock(ExportManifest.class);
+    recordWriter = mock(ParquetRecordWriter.class);
+    when(recordWriter.write(any(), any())).thenReturn(PARQUET);
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW);
+
+    DataLakeBatchProperties properties = new DataLakeBatchProperties(true, 2,
+        DataSize.ofMegabytes(1), Duration.ofSeconds(1), Duration.ofMillis(250),
+        DataSize.ofMegabytes(1), Duration.ofHours(1));
+    writer = new ParquetBatchWriter(sink, manifest, recordWriter, properties, clock,
+        new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldNotWriteBeforeRecordLimit() {
+    CompletableFuture<Void> future = writer.write(DIRECTORY, ActionEventDto.class,
+        action("1"));
+
+    assertThat("Unexpected future completion.", future.isDone(), is(false));
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldWriteParquetFileWhenRecordLimitReached() throws IOException {
+    ActionEventDto action1 = action("1");
+    ActionEventDto action2 = action("2");
+
+    CompletableFuture<Void> future1 = writer.write(DIRECTORY, ActionEventDto.class,
+        action1);
+    CompletableFuture<Void> future2 = writer.write(DIRECTORY, ActionEventDto.class,
+        action2);
+
+    assertThat("Unexpected future completion.", future1.isDone(), is(true));
+    assertThat("Unexpected future completion.", future2.isDone(), is(true));
+    verify(recordWriter).write(ActionEventDto.class, List.of(action1, action2));
+
+    ArgumentCaptor<Payload> payloadCaptor = ArgumentCaptor.captor();
+    verify(sink).write(eq(DIRECTORY), payloadCaptor.capture());
+    Payload payload = payloadCaptor.getValue();
+    assertThat("Unexpected filename.", payload.filename(), endsWith(".parquet"));
+    assertThat("Unexpected content.", payload.content(), is(PARQUET));
+    assertThat("Unexpected content type.", payload.contentType(),
+        is(ExportSink.PARQUET_CONTENT_TYPE));
+    verify(manifest).record(DIRECTORY, null, payload);
+  }
+
+  @Test
+  void shouldWriteParquetFileWhenBatchExpires() throws IOException {
+    CompletableFuture<Void> future = writer.write(DIRECTORY, ActionEventDto.class,
+        action("1"));
+
+    when(clock.instant()).thenReturn(NOW.plusSeconds(2));
+    writer.flushExpired();
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+    verify(recordWriter).write(any(), any());
+  }
+
+  @Test
+  void shouldCompleteExceptionallyWhenWriteFails() {
+    when(sink.write(any(), any(Payload.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("expected")));
+
+    CompletableFuture<Void> future1 = writer.write(DIRECTORY, ActionEventDto.class,
+        action("1"));
+    CompletableFuture<Void> future2 = writer.write(DIRECTORY, ActionEventDto.class,
+        action("2"));
+
+    assertThat("Unexpected future failure.", future1.isCompletedExceptionally(), is(true));
+    assertThat("Unexpected future failure.", future2.isCompletedExceptionally(), is(true));
+    verifyNoInteractions(manifest);
+  }
+
+  @Test
+  void shouldOnlyFailRecordsWhichCanNotBeEncoded() throws IOException {
+    ActionEventDto action1 = action("1");
+    ActionEventDto action2 = action("2");
+    when(recordWriter.write(eq(ActionEventDto.class), any())).thenAnswer(inv -> {
+      List<?> rows = inv.getArgument(1);
+      if (rows.contains(action2)) {
+        throw new IOException("expected");
+      }
+      return PARQUET;
+    });
+
+    CompletableFuture<Void> future1 = writer.write(DIRECTORY, ActionEventDto.class, action1);
+    CompletableFuture<Void> future2 = writer.write(DIRECTORY, ActionEventDto.class, action2);
+
+    assertThat("Unexpected future failure.", future1.isCompletedExceptionally(), is(false));
+    assertThat("Unexpected future completion.", future1.isDone(), is(true));
+    assertThat("Unexpected future failure.", future2.isCompletedExceptionally(), is(true));
+    verify(sink).write(eq(DIRECTORY), any(Payload.class));
+  }
+
+  @Test
+  void shouldNotWriteFileWhenNoRecordsCanBeEncoded() throws IOException {
+    when(recordWriter.write(any(), any())).thenThrow(new IOException("expected"));
+
+    CompletableFuture<Void> future1 = writer.write(DIRECTORY, ActionEventDto.class,
+        action("1"));
+    CompletableFuture<Void> future2 = writer.write(DIRECTORY, ActionEventDto.class,
+        action("2"));
+
+    assertThat("Unexpected future failure.", future1.isCompletedExceptionally(), is(true));
+    assertThat("Unexpected future failure.", future2.isCompletedExceptionally(), is(true));
+    verify(sink, never()).write(any(), any(Payload.class));
+  }
+
+  @Test
+  void shouldRejectMismatchedRecordType() {
+    writer.write(DIRECTORY, ActionEventDto.class, action("1"));
+
+    CompletableFuture<Void> future = writer.write(DIRECTORY, NotificationEventDto.class,
+        new NotificationEventDto("1", null, null, null, null, null, null, null, null, null));
+
+    assertThat("Unexpected future failure.", future.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  void shouldWriteAllPendingBatchesOnFlushAll() {
+    CompletableFuture<Void> future = writer.write(DIRECTORY, ActionEventDto.class,
+        action("1"));
+
+    writer.flushAll();
+
+    assertThat("Unexpected future completion.", future.isDone(), is(true));
+  }
+
+  private static ActionEventDto action(String id) {
+    return new ActionEventDto(id, "REVIEW_DATA", "trainee1", null, null, null, null, "CURRENT",
+        NOW);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+
+/**
+ * Test helpers for reading in-memory Parquet files.
+ */
+class ParquetFiles {
+
+  private ParquetFiles() {
+  }
+
+  /**
+   * Read the schema of an in-memory Parquet file.
+   *
+   * @param bytes The Parquet file content.
+   * @return The file schema.
+   * @throws IOException If the file could not be read.
+   */
+  static MessageType readSchema(byte[] bytes) throws IOException {
+    try (ParquetFileReader reader = ParquetFileReader.open(new ByteArrayInputFile(bytes))) {
+      return reader.getFooter().getFileMetaData().getSchema();
+    }
+  }
+
+  /**
+   * Read all rows from an in-memory Parquet file.
+   *
+   * @param bytes The Parquet file content.
+   * @return The rows in the file.
+   * @throws IOException If the file could not be read.
+   */
+  static List<Group> readRows(byte[] bytes) throws IOException {
+    List<Group> rows = new ArrayList<>();
+
+    try (ParquetFileReader reader = ParquetFileReader.open(new ByteArrayInputFile(bytes))) {
+      MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+      PageReadStore rowGroup;
+
+      while ((rowGroup = reader.readNextRowGroup()) != null) {
+        RecordReader<Group> recordReader = new ColumnIOFactory().getColumnIO(schema)
+            .getRecordReader(rowGroup, new GroupRecordConverter(schema));
+
+        for (long i = 0; i < rowGroup.getRowCount(); i++) {
+          rows.add(recordReader.read());
+        }
+      }
+    }
+
+    return rows;
+  }
+
+  /**
+   * An in-memory Parquet input file.
+   */
+  private record ByteArrayInputFile(byte[] bytes) implements InputFile {
+
+    @Override
+    public long getLength() {
+      return bytes.length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() {
+      SeekableByteArrayInputStream stream = new SeekableByteArrayInputStream(bytes);
+      return new DelegatingSeekableInputStream(stream) {
+        @Override
+        public long getPos() {
+          return stream.getPos();
+        }
+
+        @Override
+        public void seek(long newPos) {
+          stream.seek(newPos);
+        }
+      };
+    }
+  }
+
+  /**
+   * A byte array input stream which exposes its position.
+   */
+  private static class SeekableByteArrayInputStream extends ByteArrayInputStream {
+
+    SeekableByteArrayInputStream(byte[] bytes) {
+      super(bytes);
+    }
+
+    long getPos() {
+      return pos;
+    }
+
+    void seek(long newPos) {
+      pos = Math.toIntExact(newPos);
+    }
+  }
+}
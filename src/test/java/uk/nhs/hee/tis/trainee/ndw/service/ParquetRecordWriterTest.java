@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.LogicalTypeAnnotation.TimeUnit;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.dto.ActionEventDto;
+import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto;
+import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto.RecipientInfo;
+import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto.TemplateInfo;
+import uk.nhs.hee.tis.trainee.ndw.dto.NotificationEventDto.TisReferenceInfo;
+
+class ParquetRecordWriterTest {
+
+  private static final Instant SENT_AT = Instant.parse("2025-01-02T10:00:00.123Z");
+
+  private ParquetRecordWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    writer = new ParquetRecordWriter(new ObjectMapper());
+  }
+
+  @Test
+  void shouldDeriveNotificationSchemaFromRecordComponents() {
+    MessageType schema = writer.getSchema(NotificationEventDto.class);
+
+    assertThat("Unexpected field count.", schema.getFieldCount(), is(10));
+    assertThat("Unexpected id type.", schema.getType("id").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.stringType()));
+    assertThat("Unexpected sentAt type.", schema.getType("sentAt").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.timestampType(true, TimeUnit.MILLIS)));
+
+    GroupType recipient = schema.getType("recipient").asGroupType();
+    assertThat("Unexpected recipient fields.", recipient.getFieldCount(), is(3));
+    assertThat("Unexpected contact type.",
+        recipient.getType("contact").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.stringType()));
+
+    GroupType template = schema.getType("template").asGroupType();
+    assertThat("Unexpected variables type.",
+        template.getType("variables").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.jsonType()));
+    assertThat("Unexpected tisReference fields.",
+        schema.getType("tisReference").asGroupType().getFieldCount(), is(2));
+  }
+
+  @Test
+  void shouldDeriveActionSchemaWithDates() {
+    MessageType schema = writer.getSchema(ActionEventDto.class);
+
+    assertThat("Unexpected field count.", schema.getFieldCount(), is(9));
+    assertThat("Unexpected availableFrom type.",
+        schema.getType("availableFrom").getLogicalTypeAnnotation(),
+        is(LogicalTypeAnnotation.dateType()));
+    assertThat("Unexpected tisReferenceInfo type.",
+        schema.getType("tisReferenceInfo").isPrimitive(), is(false));
+  }
+
+  @Test
+  void shouldCacheSchemaPerRecordType() {
+    MessageType schema1 = writer.getSchema(NotificationEventDto.class);
+    MessageType schema2 = writer.getSchema(NotificationEventDto.class);
+
+    assertThat("Unexpected schema instance.", schema2, sameInstance(schema1));
+  }
+
+  @Test
+  void shouldWriteNotificationRows() throws IOException {
+    NotificationEventDto event1 = new NotificationEventDto("id1",
+        new TisReferenceInfo("PLACEMENT", "40"), "COJ_CONFIRMATION",
+        new RecipientInfo("trainee1", "EMAIL", "trainee@example.com"),
+        new TemplateInfo("coj", "v1", Map.of("name", "Anthony")), SENT_AT, null, "SENT", null,
+        null);
+    NotificationEventDto event2 = new NotificationEventDto("id2", null, "WELCOME", null, null,
+        SENT_AT, SENT_AT, "READ", "detail", null);
+
+    byte[] bytes = writer.write(NotificationEventDto.class, List.of(event1, event2));
+
+    List<Group> rows = ParquetFiles.readRows(bytes);
+    assertThat("Unexpected row count.", rows.size(), is(2));
+
+    Group row1 = rows.get(0);
+    assertThat("Unexpected id.", row1.getString("id", 0), is("id1"));
+    assertThat("Unexpected sentAt.", row1.getLong("sentAt", 0), is(SENT_AT.toEpochMilli()));
+    assertThat("Unexpected readAt count.", row1.getFieldRepetitionCount("readAt"), is(0));
+    assertThat("Unexpected contact.",
+        row1.getGroup("recipient", 0).getString("contact", 0), is("trainee@example.com"));
+    assertThat("Unexpected variables.",
+        row1.getGroup("template", 0).getString("variables", 0), is("{\"name\":\"Anthony\"}"));
+
+    Group row2 = rows.get(1);
+    assertThat("Unexpected id.", row2.getString("id", 0), is("id2"));
+    assertThat("Unexpected recipient count.", row2.getFieldRepetitionCount("recipient"), is(0));
+    assertThat("Unexpected status detail.", row2.getString("statusDetail", 0), is("detail"));
+  }
+
+  @Test
+  void shouldWriteActionDatesAsEpochDays() throws IOException {
+    LocalDate dueBy = LocalDate.of(2025, 1, 31);
+    ActionEventDto event = new ActionEventDto("id1", "REVIEW_DATA", "trainee1",
+        new ActionEventDto.TisReferenceInfo("40", "PLACEMENT"), null, dueBy, null, "CURRENT",
+        SENT_AT);
+
+    byte[] bytes = writer.write(ActionEventDto.class, List.of(event));
+
+    List<Group> rows = ParquetFiles.readRows(bytes);
+    assertThat("Unexpected row count.", rows.size(), is(1));
+    assertThat("Unexpected dueBy.", (long) rows.get(0).getInteger("dueBy", 0),
+        is(dueBy.toEpochDay()));
+    assertThat("Unexpected availableFrom count.",
+        rows.get(0).getFieldRepetitionCount("availableFrom"), is(0));
+    assertThat("Unexpected reference type.",
+        rows.get(0).getGroup("tisReferenceInfo", 0).getString("type", 0), is("PLACEMENT"));
+  }
+}
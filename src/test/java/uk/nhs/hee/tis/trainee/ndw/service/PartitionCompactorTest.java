@@ -0,0 +1,349 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static uk.nhs.hee.tis.trainee.ndw.service.PartitionCompactor.SUCCESS_MARKER;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.CompactionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.CompactionProperties.Compression;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.Granularity;
+
+class PartitionCompactorTest {
+
+  private static final String ROOT = "root";
+  private static final LocalDate DAY = LocalDate.parse("2025-01-02");
+  private static final String SOURCE = "root/notifications/year=2025/month=202501/day=20250102";
+  private static final String OUTPUT
+      = "root/compacted/notifications/year=2025/month=202501/day=20250102";
+
+  @TempDir
+  Path tempDir;
+
+  private ObjectMapper mapper;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    mapper = new ObjectMapper();
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  private PartitionCompactor createCompactor(DataSize targetFileSize, Compression compression) {
+    return createCompactor(targetFileSize, compression, Granularity.DAY);
+  }
+
+  private PartitionCompactor createCompactor(DataSize targetFileSize, Compression compression,
+      Granularity granularity) {
+    return createCompactor(targetFileSize, compression, granularity, DataSize.ofMegabytes(1));
+  }
+
+  private PartitionCompactor createCompactor(DataSize targetFileSize, Compression compression,
+      Granularity granularity, DataSize maxMemory) {
+    CompactionProperties properties = new CompactionProperties(true, "-",
+        List.of("notifications"), "compacted", 1, targetFileSize, compression, 2, maxMemory);
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, granularity));
+    Clock clock = Clock.fixed(Instant.parse("2025-01-03T01:30:00Z"), ZoneOffset.UTC);
+    return new PartitionCompactor(new FileSystemPartitionStore(tempDir), layout, properties,
+        ROOT, mapper, clock, new SimpleMeterRegistry());
+  }
+
+  private void writeSource(String name, String content, Instant lastModified) throws IOException {
+    writeSource(SOURCE, name, content, lastModified);
+  }
+
+  private void writeSource(String directory, String name, String content, Instant lastModified)
+      throws IOException {
+    Path path = tempDir.resolve(directory).resolve(name);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, content);
+    Files.setLastModifiedTime(path, FileTime.from(lastModified));
+  }
+
+  private void writeSource(String name, byte[] content, Instant lastModified) throws IOException {
+    Path path = tempDir.resolve(SOURCE).resolve(name);
+    Files.createDirectories(path.getParent());
+    Files.write(path, content);
+    Files.setLastModifiedTime(path, FileTime.from(lastModified));
+  }
+
+  private List<JsonNode> readOutput(String part, boolean gzip) throws IOException {
+    byte[] bytes = Files.readAllBytes(tempDir.resolve(OUTPUT).resolve(part));
+
+    if (gzip) {
+      bytes = new GZIPInputStream(new ByteArrayInputStream(bytes)).readAllBytes();
+    }
+
+    List<JsonNode> records = new ArrayList<>();
+    for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+      records.add(mapper.readTree(line));
+    }
+    return records;
+  }
+
+  @Test
+  void shouldMergeJsonAndNdjsonFiles() throws IOException {
+    Instant modified = Instant.parse("2025-01-02T10:00:00Z");
+    writeSource("1.json", "{\"id\":\"1\",\"status\":\"SENT\"}", modified);
+    writeSource("2.json", "{\"id\":\"2\",\"status\":\"SENT\"}", modified);
+    writeSource("batch.ndjson", "{\"id\":\"3\"}\n{\"id\":\"4\"}\n", modified);
+
+    boolean compacted = createCompactor(DataSize.ofMegabytes(1), Compression.NONE)
+        .compact("notifications", DAY, executor);
+
+    assertThat("Unexpected compaction result.", compacted, is(true));
+    List<String> ids = readOutput("part-00000.ndjson", false).stream()
+        .map(node -> node.get("id").asText())
+        .toList();
+    assertThat("Unexpected record IDs.", ids, containsInAnyOrder("1", "2", "3", "4"));
+  }
+
+  @Test
+  void shouldReadCompressedFiles() throws IOException {
+    Instant modified = Instant.parse("2025-01-02T10:00:00Z");
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(gzipped)) {
+      gzip.write("{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+    }
+    writeSource("1.json.gz", gzipped.toByteArray(), modified);
+    writeSource("2.json.zst", Zstd.compress("{\"id\":\"2\"}".getBytes(StandardCharsets.UTF_8)),
+        modified);
+
+    createCompactor(DataSize.ofMegabytes(1), Compression.NONE)
+        .compact("notifications", DAY, executor);
+
+    List<String> ids = readOutput("part-00000.ndjson", false).stream()
+        .map(node -> node.get("id").asText())
+        .toList();
+    assertThat("Unexpected record IDs.", ids, containsInAnyOrder("1", "2"));
+  }
+
+  @Test
+  void shouldNotCompactPartitionWithParquetFiles() throws IOException {
+    Instant modified = Instant.parse("2025-01-02T10:00:00Z");
+    writeSource("1.json", "{\"id\":\"1\"}", modified);
+    writeSource("batch.parquet", new byte[]{'P', 'A', 'R', '1'}, modified);
+
+    boolean compacted = createCompactor(DataSize.ofMegabytes(1), Compression.NONE)
+        .compact("notifications", DAY, executor);
+
+    assertThat("Unexpected compaction result.", compacted, is(false));
+    assertThat("Unexpected marker.",
+        Files.exists(tempDir.resolve(OUTPUT).resolve(SUCCESS_MARKER)), is(false));
+  }
+
+  @Test
+  void shouldMergeHourPartitionsInToDayOutput() throws IOException {
+    Instant modified = Instant.parse("2025-01-02T10:00:00Z");
+    writeSource(SOURCE + "/hour=2025010200", "1.json", "{\"id\":\"1\"}", modified);
+    writeSource(SOURCE + "/hour=2025010223", "2.json", "{\"id\":\"2\"}", modified);
+
+    boolean compacted = createCompactor(DataSize.ofMegabytes(1), Compression.NONE,
+        Granularity.HOUR).compact("notifications", DAY, executor);
+
+    assertThat("Unexpected compaction result.", compacted, is(true));
+    List<String> ids = readOutput("part-00000.ndjson", false).stream()
+        .map(node -> node.get("id").asText())
+        .toList();
+    assertThat("Unexpected record IDs.", ids, containsInAnyOrder("1", "2"));
+  }
+
+  @Test
+  void shouldKeepOnlyLatestVersionOfEachId() throws IOException {
+    writeSource("old.ndjson", "{\"id\":\"1\",\"status\":\"PENDING\"}\n",
+        Instant.parse("2025-01-02T10:00:00Z"));
+    writeSource("new.ndjson", "{\"id\":\"1\",\"status\":\"SENT\"}\n"
+            + "{\"id\":\"1\",\"status\":\"READ\"}\n",
+        Instant.parse("2025-01-02T11:00:00Z"));
+
+    createCompactor(DataSize.ofMegabytes(1), Compression.NONE)
+        .compact("notifications", DAY, executor);
+
+    List<JsonNode> records = readOutput("part-00000.ndjson", false);
+    assertThat("Unexpected record count.", records.size(), is(1));
+    assertThat("Unexpected status.", records.get(0).get("status").asText(), is("READ"));
+  }
+
+  @Test
+  void shouldKeepOnlyLatestVersionOfEachIdWhenSpilledToBuckets() throws IOException {
+    Instant older = Instant.parse("2025-01-02T10:00:00Z");
+    Instant newer = Instant.parse("2025-01-02T11:00:00Z");
+    for (int i = 0; i < 10; i++) {
+      writeSource("old-" + i + ".json", "{\"id\":\"" + i + "\",\"status\":\"PENDING\"}", older);
+      writeSource("new-" + i + ".json", "{\"id\":\"" + i + "\",\"status\":\"SENT\"}", newer);
+    }
+
+    createCompactor(DataSize.ofMegabytes(1), Compression.NONE, Granularity.DAY,
+        DataSize.ofBytes(50)).compact("notifications", DAY, executor);
+
+    List<JsonNode> records = readOutput("part-00000.ndjson", false);
+    assertThat("Unexpected record count.", records.size(), is(10));
+    assertThat("Unexpected statuses.",
+        records.stream().map(node -> node.get("status").asText()).distinct().toList(),
+        is(List.of("SENT")));
+  }
+
+  @Test
+  void shouldSplitOutputIntoPartsByTargetSize() throws IOException {
+    Instant modified = Instant.parse("2025-01-02T10:00:00Z");
+    writeSource("1.json", "{\"id\":\"1\"}", modified);
+    writeSource("2.json", "{\"id\":\"2\"}", modified);
+
+    createCompactor(DataSize.ofBytes(5), Compression.NONE)
+        .compact("notifications", DAY, executor);
+
+    assertThat("Unexpected first part.",
+        Files.exists(tempDir.resolve(OUTPUT).resolve("part-00000.ndjson")), is(true));
+    assertThat("Unexpected second part.",
+        Files.exists(tempDir.resolve(OUTPUT).resolve("part-00001.ndjson")), is(true));
+  }
+
+  @Test
+  void shouldCompressPartsWhenGzipEnabled() throws IOException {
+    writeSource("1.json", "{\"id\":\"1\"}", Instant.parse("2025-01-02T10:00:00Z"));
+
+    createCompactor(DataSize.ofMegabytes(1), Compression.GZIP)
+        .compact("notifications", DAY, executor);
+
+    List<JsonNode> records = readOutput("part-00000.ndjson.gz", true);
+    assertThat("Unexpected record ID.", records.get(0).get("id").asText(), is("1"));
+  }
+
+  @Test
+  void shouldWriteSuccessMarker() throws IOException {
+    writeSource("1.json", "{\"id\":\"1\"}", Instant.parse("2025-01-02T10:00:00Z"));
+
+    createCompactor(DataSize.ofMegabytes(1), Compression.NONE)
+        .compact("notifications", DAY, executor);
+
+    JsonNode marker = mapper.readTree(tempDir.resolve(OUTPUT).resolve(SUCCESS_MARKER).toFile());
+    assertThat("Unexpected source files.", marker.get("sourceFiles").asInt(), is(1));
+    assertThat("Unexpected records.", marker.get("records").asInt(), is(1));
+    assertThat("Unexpected part.", marker.get("parts").get(0).asText(),
+        is("part-00000.ndjson"));
+    assertThat("Unexpected input.", marker.get("inputs").get(SOURCE + "/1.json").asText(),
+        is("2025-01-02T10:00:00Z"));
+  }
+
+  @Test
+  void shouldNotCompactPartitionWithSuccessMarker() throws IOException {
+    writeSource("1.json", "{\"id\":\"1\"}", Instant.parse("2025-01-02T10:00:00Z"));
+    PartitionCompactor compactor = createCompactor(DataSize.ofMegabytes(1), Compression.NONE);
+    compactor.compact("notifications", DAY, executor);
+
+    boolean compacted = compactor.compact("notifications", DAY, executor);
+
+    assertThat("Unexpected compaction result.", compacted, is(false));
+  }
+
+  @Test
+  void shouldRecompactPartitionWhenFilesAddedAfterMarker() throws IOException {
+    writeSource("1.json", "{\"id\":\"1\"}", Instant.parse("2025-01-02T10:00:00Z"));
+    PartitionCompactor compactor = createCompactor(DataSize.ofMegabytes(1), Compression.NONE);
+    compactor.compact("notifications", DAY, executor);
+    writeSource("2.json", "{\"id\":\"2\"}", Instant.parse("2025-01-03T02:00:00Z"));
+
+    boolean compacted = compactor.compact("notifications", DAY, executor);
+
+    assertThat("Unexpected compaction result.", compacted, is(true));
+    List<String> ids = readOutput("part-00000.ndjson", false).stream()
+        .map(node -> node.get("id").asText())
+        .toList();
+    assertThat("Unexpected record IDs.", ids, containsInAnyOrder("1", "2"));
+  }
+
+  @Test
+  void shouldRecompactPartitionWhenFileAppendedAfterMarker() throws IOException {
+    writeSource("batch.ndjson", "{\"id\":\"1\"}\n", Instant.parse("2025-01-02T10:00:00Z"));
+    PartitionCompactor compactor = createCompactor(DataSize.ofMegabytes(1), Compression.NONE);
+    compactor.compact("notifications", DAY, executor);
+    writeSource("batch.ndjson", "{\"id\":\"1\"}\n{\"id\":\"2\"}\n",
+        Instant.parse("2025-01-03T02:00:00Z"));
+
+    boolean compacted = compactor.compact("notifications", DAY, executor);
+
+    assertThat("Unexpected compaction result.", compacted, is(true));
+    assertThat("Unexpected record count.", readOutput("part-00000.ndjson", false).size(), is(2));
+  }
+
+  @Test
+  void shouldDeleteStalePartsWhenRecompacting() throws IOException {
+    Instant modified = Instant.parse("2025-01-02T10:00:00Z");
+    writeSource("1.json", "{\"id\":\"1\"}", modified);
+    writeSource("2.json", "{\"id\":\"2\"}", modified);
+    PartitionCompactor compactor = createCompactor(DataSize.ofBytes(5), Compression.NONE);
+    compactor.compact("notifications", DAY, executor);
+    writeSource("2.json", "{\"id\":\"1\"}", Instant.parse("2025-01-03T02:00:00Z"));
+
+    compactor.compact("notifications", DAY, executor);
+
+    assertThat("Unexpected first part.",
+        Files.exists(tempDir.resolve(OUTPUT).resolve("part-00000.ndjson")), is(true));
+    assertThat("Unexpected stale part.",
+        Files.exists(tempDir.resolve(OUTPUT).resolve("part-00001.ndjson")), is(false));
+  }
+
+  @Test
+  void shouldCompactPreviousDaysOnSchedule() {
+    PartitionCompactor compactor = createCompactor(DataSize.ofMegabytes(1), Compression.NONE);
+
+    compactor.startCompaction().join();
+
+    assertThat("Unexpected marker.",
+        Files.exists(tempDir.resolve(OUTPUT).resolve(SUCCESS_MARKER)), is(true));
+  }
+}
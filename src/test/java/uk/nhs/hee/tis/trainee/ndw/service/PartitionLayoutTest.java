@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.Granularity;
+import uk.nhs.hee.tis.trainee.ndw.config.PartitionProperties.PartitionTime;
+
+class PartitionLayoutTest {
+
+  private static final Instant EVENT_TIME = Instant.parse("2025-01-01T05:30:00Z");
+  private static final Instant PROCESSING_TIME = Instant.parse("2025-01-02T10:15:00Z");
+
+  @Test
+  void shouldPartitionByProcessingTimeByDefault() {
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, null));
+
+    Instant start = layout.getPartitionStart(EVENT_TIME, PROCESSING_TIME);
+
+    assertThat("Unexpected partition start.", start, is(Instant.parse("2025-01-02T00:00:00Z")));
+  }
+
+  @Test
+  void shouldPartitionByEventTimeWhenConfigured() {
+    PartitionLayout layout = new PartitionLayout(
+        new PartitionProperties(PartitionTime.EVENT, null));
+
+    Instant start = layout.getPartitionStart(EVENT_TIME, PROCESSING_TIME);
+
+    assertThat("Unexpected partition start.", start, is(Instant.parse("2025-01-01T00:00:00Z")));
+  }
+
+  @Test
+  void shouldFallBackToProcessingTimeWhenNoEventTime() {
+    PartitionLayout layout = new PartitionLayout(
+        new PartitionProperties(PartitionTime.EVENT, null));
+
+    Instant start = layout.getPartitionStart(null, PROCESSING_TIME);
+
+    assertThat("Unexpected partition start.", start, is(Instant.parse("2025-01-02T00:00:00Z")));
+  }
+
+  @Test
+  void shouldTruncateToHourWhenHourly() {
+    PartitionLayout layout = new PartitionLayout(
+        new PartitionProperties(PartitionTime.EVENT, Granularity.HOUR));
+
+    Instant start = layout.getPartitionStart(EVENT_TIME, PROCESSING_TIME);
+
+    assertThat("Unexpected partition start.", start, is(Instant.parse("2025-01-01T05:00:00Z")));
+  }
+
+  @Test
+  void shouldGetDayPartitionPath() {
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, null));
+
+    String path = layout.getPartitionPath("root", "name", Instant.parse("2025-01-02T00:00:00Z"));
+
+    assertThat("Unexpected path.", path, is("root/name/year=2025/month=202501/day=20250102"));
+  }
+
+  @Test
+  void shouldGetHourPartitionPath() {
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, Granularity.HOUR));
+
+    String path = layout.getPartitionPath("root", "name", Instant.parse("2025-01-02T05:00:00Z"));
+
+    assertThat("Unexpected path.", path,
+        is("root/name/year=2025/month=202501/day=20250102/hour=2025010205"));
+  }
+
+  @Test
+  void shouldGetEachHourPartitionPathOfDayWhenHourly() {
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, Granularity.HOUR));
+
+    List<String> paths = layout.getPartitionPaths("root", "name", LocalDate.parse("2025-01-02"));
+
+    assertThat("Unexpected path count.", paths, hasSize(24));
+    assertThat("Unexpected first path.", paths.get(0),
+        is("root/name/year=2025/month=202501/day=20250102/hour=2025010200"));
+    assertThat("Unexpected last path.", paths.get(23),
+        is("root/name/year=2025/month=202501/day=20250102/hour=2025010223"));
+  }
+
+  @Test
+  void shouldGetDayPartitionPathOfDayWhenDaily() {
+    PartitionLayout layout = new PartitionLayout(new PartitionProperties(null, null));
+
+    List<String> paths = layout.getPartitionPaths("root", "name", LocalDate.parse("2025-01-02"));
+
+    assertThat("Unexpected paths.", paths,
+        contains("root/name/year=2025/month=202501/day=20250102"));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Codec;
+import uk.nhs.hee.tis.trainee.ndw.config.CompressionProperties.Settings;
+import uk.nhs.hee.tis.trainee.ndw.service.PayloadCompressor.Payload;
+
+class PayloadCompressorTest {
+
+  private static final String FILENAME = "filename.json";
+
+  private static final String CONTENT_TYPE = "application/json";
+
+  private static final byte[] CONTENT = ("{\"variables\":\"" + "repeated ".repeat(200) + "\"}")
+      .getBytes(StandardCharsets.UTF_8);
+
+  private PayloadCompressor compressor;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    compressor = new PayloadCompressor(meterRegistry);
+  }
+
+  @Test
+  void shouldNotCompressWhenCodecNone() {
+    Payload payload = compressor.compress(Settings.NONE, FILENAME, CONTENT, CONTENT_TYPE);
+
+    assertThat("Unexpected filename.", payload.filename(), is(FILENAME));
+    assertThat("Unexpected content.", payload.content(), sameInstance(CONTENT));
+    assertThat("Unexpected content encoding.", payload.contentEncoding(), nullValue());
+    assertThat("Unexpected superseded files.", payload.superseded(), is(List.of()));
+  }
+
+  @Test
+  void shouldNotCompressBelowThreshold() {
+    Settings settings = new Settings(Codec.GZIP, DataSize.ofBytes(CONTENT.length + 1L));
+
+    Payload payload = compressor.compress(settings, FILENAME, CONTENT, CONTENT_TYPE);
+
+    assertThat("Unexpected filename.", payload.filename(), is(FILENAME));
+    assertThat("Unexpected content.", payload.content(), sameInstance(CONTENT));
+    assertThat("Unexpected superseded files.", payload.superseded(),
+        is(List.of("filename.json.gz")));
+    assertThat("Unexpected skip count.", meterRegistry.counter("ndw.compression.skipped",
+        "codec", "GZIP", "reason", "threshold").count(), is(1.0));
+  }
+
+  @Test
+  void shouldNotCompressWhenIneffective() {
+    byte[] content = "{}".getBytes(StandardCharsets.UTF_8);
+    Settings settings = new Settings(Codec.GZIP, DataSize.ofBytes(0));
+
+    Payload payload = compressor.compress(settings, FILENAME, content, CONTENT_TYPE);
+
+    assertThat("Unexpected filename.", payload.filename(), is(FILENAME));
+    assertThat("Unexpected content encoding.", payload.contentEncoding(), nullValue());
+    assertThat("Unexpected skip count.", meterRegistry.counter("ndw.compression.skipped",
+        "codec", "GZIP", "reason", "ineffective").count(), is(1.0));
+  }
+
+  @Test
+  void shouldCompressWithGzipAboveThreshold() throws IOException {
+    Settings settings = new Settings(Codec.GZIP, DataSize.ofKilobytes(1));
+
+    Payload payload = compressor.compress(settings, FILENAME, CONTENT, CONTENT_TYPE);
+
+    assertThat("Unexpected filename.", payload.filename(), is("filename.json.gz"));
+    assertThat("Unexpected content type.", payload.contentType(), is(CONTENT_TYPE));
+    assertThat("Unexpected content encoding.", payload.contentEncoding(), is("gzip"));
+
+    try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.content()))) {
+      assertThat("Unexpected content.", gzip.readAllBytes(), is(CONTENT));
+    }
+
+    assertThat("Unexpected bytes in.",
+        meterRegistry.get("ndw.compression.bytes.in").tag("codec", "GZIP").summary()
+            .totalAmount(), is((double) CONTENT.length));
+    assertThat("Unexpected bytes out.",
+        meterRegistry.get("ndw.compression.bytes.out").tag("codec", "GZIP").summary()
+            .totalAmount(), is((double) payload.content().length));
+  }
+
+  @Test
+  void shouldCompressWithZstdAboveThreshold() {
+    Settings settings = new Settings(Codec.ZSTD, DataSize.ofKilobytes(1));
+
+    Payload payload = compressor.compress(settings, FILENAME, CONTENT, CONTENT_TYPE);
+
+    assertThat("Unexpected filename.", payload.filename(), is("filename.json.zst"));
+    assertThat("Unexpected content encoding.", payload.contentEncoding(), is("zstd"));
+    assertThat("Unexpected superseded files.", payload.superseded(),
+        is(List.of("filename.json")));
+    byte[] decompressed = Zstd.decompress(payload.content(), CONTENT.length);
+    assertThat("Unexpected content.", decompressed, is(CONTENT));
+  }
+}
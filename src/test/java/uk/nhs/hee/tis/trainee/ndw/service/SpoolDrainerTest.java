@@ -0,0 +1,192 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright 2026 Crown Copyright (Health Education England)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package uk.nhs.hee.tis.trainee.ndw.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import uk.nhs.hee.tis.trainee.ndw.config.ShutdownProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.DataLakeBatchProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.ManifestProperties;
+import uk.nhs.hee.tis.trainee.ndw.config.SpoolProperties;
+import uk.nhs.hee.tis.trainee.ndw.service.ExportSpool.SpoolRecord;
+
+class SpoolDrainerTest {
+
+  private static final DataLakeBatchProperties BATCH_DISABLED = new DataLakeBatchProperties(false,
+      0, null, null, null, null, null);
+
+  private static final ManifestProperties MANIFEST_DISABLED = new ManifestProperties(false, null);
+
+  @TempDir
+  Path spoolDirectory;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ExportSpool spool;
+
+  private DataLakeFacade dataLakeFacade;
+
+  private SpoolDrainer drainer;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    meterRegistry = new SimpleMeterRegistry();
+    SpoolProperties properties = new SpoolProperties(true, spoolDirectory,
+        DataSize.ofKilobytes(1), DataSize.ofKilobytes(4), 2, Duration.ofMillis(10));
+    spool = new ExportSpool(properties, BATCH_DISABLED, MANIFEST_DISABLED,
+        meterRegistry);
+    spool.recover();
+    dataLakeFacade = mock(DataLakeFacade.class);
+    drainer = createDrainer(properties, true);
+  }
+
+  private SpoolDrainer createDrainer(SpoolProperties properties, boolean shutdownDrainEnabled) {
+    return new SpoolDrainer(spool, dataLakeFacade, properties,
+        new ShutdownProperties(shutdownDrainEnabled, Duration.ofSeconds(1), null),
+        Clock.systemUTC(), meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    drainer.shutdown();
+  }
+
+  private static SpoolRecord createRecord(String filename) {
+    return new SpoolRecord("root/day", filename, "application/json", null, null,
+        "{}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void shouldNotDrainWhenDisabled() {
+    SpoolProperties properties = new SpoolProperties(false, spoolDirectory, null, null, 1, null);
+    spool = new ExportSpool(properties, BATCH_DISABLED, MANIFEST_DISABLED,
+        meterRegistry);
+    drainer = createDrainer(properties, true);
+
+    drainer.drain();
+
+    verifyNoInteractions(dataLakeFacade);
+  }
+
+  @Test
+  void shouldUploadAllSpooledRecords() throws IOException {
+    when(dataLakeFacade.uploadSpooled(any())).thenReturn(CompletableFuture.completedFuture(null));
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.append(createRecord("3.json"));
+
+    drainer.drain();
+
+    verify(dataLakeFacade, times(3)).uploadSpooled(any());
+    assertThat("Unexpected backlog.", spool.getBacklog(), is(0));
+  }
+
+  @Test
+  void shouldKeepRecordsInSpoolWhenUploadFails() throws IOException {
+    when(dataLakeFacade.uploadSpooled(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+    spool.append(createRecord("1.json"));
+    spool.append(createRecord("2.json"));
+    spool.append(createRecord("3.json"));
+
+    drainer.drain();
+
+    verify(dataLakeFacade, times(2)).uploadSpooled(any());
+    assertThat("Unexpected backlog.", spool.getBacklog(), is(3));
+    assertThat("Unexpected failure count.",
+        meterRegistry.counter("ndw.spool.drain.failures").count(), is(2.0));
+  }
+
+  @Test
+  void shouldRetryFailedRecordsOnNextDrain() throws IOException {
+    when(dataLakeFacade.uploadSpooled(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    spool.append(createRecord("1.json"));
+
+    drainer.drain();
+    drainer.drain();
+
+    verify(dataLakeFacade, times(2)).uploadSpooled(any());
+    assertThat("Unexpected backlog.", spool.getBacklog(), is(0));
+  }
+
+  @Test
+  void shouldRetryFailedRecordsUntilDrained() throws IOException {
+    when(dataLakeFacade.uploadSpooled(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    spool.append(createRecord("1.json"));
+
+    int backlog = drainer.drainUntil(Instant.now().plusSeconds(5));
+
+    verify(dataLakeFacade, times(3)).uploadSpooled(any());
+    assertThat("Unexpected backlog.", backlog, is(0));
+  }
+
+  @Test
+  void shouldStopDrainingAtDeadline() throws IOException {
+    when(dataLakeFacade.uploadSpooled(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")));
+    spool.append(createRecord("1.json"));
+
+    int backlog = drainer.drainUntil(Instant.now().plusMillis(50));
+
+    assertThat("Unexpected backlog.", backlog, is(1));
+  }
+
+  @Test
+  void shouldDrainUntilEmptyOnShutdownWhenShutdownDrainDisabled() throws IOException {
+    when(dataLakeFacade.uploadSpooled(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unavailable")))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    SpoolProperties properties = new SpoolProperties(true, spoolDirectory,
+        DataSize.ofKilobytes(1), DataSize.ofKilobytes(4), 2, Duration.ofMillis(10));
+    drainer = createDrainer(properties, false);
+    spool.append(createRecord("1.json"));
+
+    drainer.shutdown();
+
+    assertThat("Unexpected backlog.", spool.getBacklog(), is(0));
+  }
+}